@@ -3,9 +3,14 @@ package BoardComponents;
 import java.util.List;
 import java.util.HashMap;
 
+import java.awt.image.BufferedImage;
+
 import java.awt.Dimension;
-import java.awt.GridLayout;
-import java.awt.Point;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 
@@ -16,9 +21,11 @@ import GUI.GameGUI;
 import Information.Tag;
 import Information.Tag.Side;
 import Pieces.Piece;
+import SaveFiles.MoveJournal;
 
 public abstract class Board extends JPanel implements MouseListener {
     private static final Dimension FRA_DIMENSION = new Dimension((Tag.IMAGE_WIDTH + 10) * Tag.SIZE_MAX, (Tag.IMAGE_HEIGHT + 10) * Tag.SIZE_MAX);
+    private static final Dimension MIN_DIMENSION = new Dimension(FRA_DIMENSION.width / 2, FRA_DIMENSION.height / 2);
 
     protected boolean saved;
     protected int colorSet;
@@ -29,6 +36,15 @@ public abstract class Board extends JPanel implements MouseListener {
     protected HashMap<String, Integer> letters;
     protected HashMap<String, Integer> numbers;
     public List<Position> selectedMovablePositions;
+    private boolean singleLayer; //true once useSingleLayerRenderer is called, board paints every position itself instead of holding 64 components
+    private BufferedImage backgroundLayer; //plain squares and coordinate labels, only rebuilt if its size or color set no longer match
+    private int backgroundColorSet;
+    private Rectangle clip = new Rectangle(); //reused by paintComponent to find which squares need repainting
+    protected MoveAnimator animator; //only boards with a display animate, copies used to test check leave this null
+    protected MoveHistory history = new MoveHistory();
+    protected long[] clocks = new long[2]; //milliseconds each player has spent on their turns, player one first
+    private long turnStarted = System.currentTimeMillis();
+    private MoveJournal journal; //set by GameGUI, null on boards whose moves do not need to survive a crash
     
     /***
      * this is the basic constructor, creates a brand new board and initializes the board display
@@ -38,7 +54,7 @@ public abstract class Board extends JPanel implements MouseListener {
     public Board(GameGUI gui, int colorSet) {
         this.setGameGUI(gui);
         this.setGameBoard(new Position[Tag.SIZE_MAX][Tag.SIZE_MAX]);
-        this.setLayout(new GridLayout(Tag.SIZE_MAX, Tag.SIZE_MAX, 0, 0));
+        this.setLayout(null); //positions are placed by doLayout so every square is the same size at any board size
         this.colorSet = colorSet;
         this.addMouseListener(this);
         this.createNewBoardPositions();
@@ -47,6 +63,8 @@ public abstract class Board extends JPanel implements MouseListener {
         this.setBorder(BorderFactory.createEmptyBorder());
         this.saved = true;
         this.initializeWordMaps();
+        this.addResizeListener();
+        this.animator = new MoveAnimator(this);
     }
 
     /***
@@ -64,7 +82,7 @@ public abstract class Board extends JPanel implements MouseListener {
         else //black
             this.setTurn(Side.BLACK);
         this.setGameBoard(new Position[Tag.SIZE_MAX][Tag.SIZE_MAX]);
-        this.setLayout(new GridLayout(Tag.SIZE_MAX, Tag.SIZE_MAX, 0, 0));
+        this.setLayout(null); //positions are placed by doLayout so every square is the same size at any board size
         this.createNewBoardPositions();
         this.initializePiecesToBoard(pieces);
     }
@@ -83,6 +101,8 @@ public abstract class Board extends JPanel implements MouseListener {
         this.setBorder(BorderFactory.createEmptyBorder());
         this.saved = true;
         this.initializeWordMaps();
+        this.addResizeListener();
+        this.animator = new MoveAnimator(this);
     }
 
     /***
@@ -102,6 +122,182 @@ public abstract class Board extends JPanel implements MouseListener {
         }
     }
 
+    /***
+     * side length of one square, the board is laid out as the largest 8x8 grid of equal squares that fits
+     * @return - size of one square in pixels
+     */
+    public int squareSize() {
+        return Math.min(getWidth(), getHeight()) / Tag.SIZE_MAX;
+    }
+
+    @Override
+    public void doLayout() {
+        int size = squareSize();
+        for (int y = 0; y < Tag.SIZE_MAX; y++)
+        {
+            for (int x = 0; x < Tag.SIZE_MAX; x++)
+                gameBoard[y][x].setBounds(x * size, y * size, size, size);
+        }
+    }
+
+    /***
+     * when the window is resized, asks SpriteCache to build sprites for the new square size in the background before they are needed
+     */
+    private void addResizeListener() {
+        this.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                double deviceScale = (getGraphicsConfiguration() != null) ? getGraphicsConfiguration().getDefaultTransform().getScaleX() : 1;
+                SpriteCache.prepare((int) Math.round(squareSize() * deviceScale), getGraphicsConfiguration());
+            }
+        });
+    }
+
+    /***
+     * switches this board to draw all 64 positions itself, positions are removed as components and only hold state, the checkerboard and labels are drawn once into a cached image and only highlights and pieces are drawn on top each paint
+     */
+    public void useSingleLayerRenderer() {
+        this.removeAll();
+        this.setLayout(null);
+        for (int y = 0; y < Tag.SIZE_MAX; y++)
+        {
+            for (int x = 0; x < Tag.SIZE_MAX; x++)
+                gameBoard[y][x].setRenderer(this);
+        }
+        this.singleLayer = true;
+        this.backgroundLayer = null;
+        revalidate();
+        repaint();
+    }
+
+    /***
+     * called by a position when using the single layer renderer, repaints only that square of the board
+     * @param x - x index of the position
+     * @param y - y index of the position
+     */
+    public void repaintSquare(int x, int y) {
+        int size = squareSize();
+        repaint(x * size, y * size, size, size);
+    }
+
+    /***
+     * finds the position under a point on this board with arithmetic, works for both renderers since every square is the same size
+     * @param pointX - x coordinate in pixels
+     * @param pointY - y coordinate in pixels
+     * @return - position under the point, points on the edge are clamped to the nearest position
+     */
+    public Position positionAt(int pointX, int pointY) {
+        int x = pointX / Math.max(1, squareSize());
+        int y = pointY / Math.max(1, squareSize());
+        x = Math.max(Tag.SIZE_MIN, Math.min(Tag.SIZE_MAX - 1, x));
+        y = Math.max(Tag.SIZE_MIN, Math.min(Tag.SIZE_MAX - 1, y));
+        return gameBoard[y][x];
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (!singleLayer)
+            return;
+        int size = squareSize();
+        if (size <= 0)
+            return;
+        //background is kept in device pixels so HiDPI screens draw it without scaling
+        Graphics2D g2 = (Graphics2D) g;
+        double deviceScale = g2.getTransform().getScaleX();
+        int layerSize = (int) Math.round(size * Tag.SIZE_MAX * deviceScale);
+        if (backgroundLayer == null || backgroundLayer.getWidth() != layerSize || backgroundColorSet != colorSet)
+            createBackgroundLayer(g, size, deviceScale, layerSize);
+        SpriteCache.drawDeviceImage(g2, backgroundLayer, 0, 0);
+        //only visit the squares inside the area being repainted
+        g.getClipBounds(clip);
+        if (clip.isEmpty())
+            clip.setBounds(0, 0, getWidth(), getHeight());
+        int firstX = Math.max(0, clip.x / size);
+        int lastX = Math.min(Tag.SIZE_MAX - 1, (clip.x + clip.width - 1) / size);
+        int firstY = Math.max(0, clip.y / size);
+        int lastY = Math.min(Tag.SIZE_MAX - 1, (clip.y + clip.height - 1) / size);
+        for (int y = firstY; y <= lastY; y++)
+        {
+            for (int x = firstX; x <= lastX; x++)
+            {
+                g.translate(x * size, y * size);
+                gameBoard[y][x].paintSquare(g, size, size, false);
+                gameBoard[y][x].paintHighlightBorder(this, g, size, size);
+                g.translate(-x * size, -y * size);
+            }
+        }
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        long start = System.nanoTime();
+        super.paint(g);
+        //moving pieces go on top of every position, positions are not opaque so their repaints always come through here
+        if (animator != null && animator.isAnimating())
+        {
+            animator.paintSprites(g);
+            animator.recordFrame(System.nanoTime() - start);
+        }
+    }
+
+    /***
+     * slides a piece that was just moved from its old position, does nothing on boards without a display
+     * @param piece - piece that moved, already at its new position
+     * @param from - position it moved from
+     */
+    protected void animateMove(Piece piece, Position from) {
+        if (animator != null)
+            animator.slide(piece, from, piece.getPosition());
+    }
+
+    /***
+     * fades out a piece that was just captured, does nothing on boards without a display
+     * @param piece - piece that was taken, null if nothing was taken
+     * @param at - position it was taken on
+     */
+    protected void animateCapture(Piece piece, Position at) {
+        if (animator != null)
+            animator.capture(piece, at);
+    }
+
+    /***
+     * draws a promoted piece in place of the pawn if the pawn is still sliding
+     * @param pawn - piece that was promoted
+     * @param promoted - piece that replaced it
+     */
+    protected void animatePromotion(Piece pawn, Piece promoted) {
+        if (animator != null)
+            animator.replacePiece(pawn, promoted);
+    }
+
+    /***
+     * draws every plain square and its labels into backgroundLayer, only called when the board is first painted or its size or color set changes
+     * @param g - graphics of this board, used to match its font
+     * @param size - size of one square
+     * @param deviceScale - screen pixels per board pixel, above 1 on HiDPI screens
+     * @param layerSize - width and height of the layer in screen pixels
+     */
+    private void createBackgroundLayer(Graphics g, int size, double deviceScale, int layerSize) {
+        backgroundLayer = new BufferedImage(layerSize, layerSize, BufferedImage.TYPE_INT_RGB);
+        backgroundColorSet = colorSet;
+        Graphics2D layer = backgroundLayer.createGraphics();
+        layer.scale(deviceScale, deviceScale);
+        layer.setFont(g.getFont());
+        for (int y = 0; y < Tag.SIZE_MAX; y++)
+        {
+            for (int x = 0; x < Tag.SIZE_MAX; x++)
+            {
+                layer.translate(x * size, y * size);
+                layer.setColor(gameBoard[y][x].getBaseColor());
+                layer.fillRect(0, 0, size, size);
+                gameBoard[y][x].paintLabels(layer, size);
+                layer.translate(-x * size, -y * size);
+            }
+        }
+        layer.dispose();
+    }
+
     /***
      * creates all pieces and assigns them to corresponding positions on the board
      */
@@ -139,13 +335,12 @@ public abstract class Board extends JPanel implements MouseListener {
     }
 
     /***
-     * calls all relevant JPanel methods to set the size of the board
+     * calls all relevant JPanel methods to set the starting size of the board
      * @param size - dimension that panel should be set to
      */
     private void setPanelDimensions(Dimension size) {
         this.setPreferredSize(size);
-        this.setMaximumSize(size);
-        this.setMinimumSize(size);
+        this.setMinimumSize(MIN_DIMENSION); //board can grow or shrink with the window, squares are kept square by GameGUI
         this.setSize(size);
     }
 
@@ -162,7 +357,18 @@ public abstract class Board extends JPanel implements MouseListener {
      */
     protected abstract void nextTurn();
 
+    public void setHistory(MoveHistory history) { this.history = history; }
+    public void setJournal(MoveJournal journal) { this.journal = journal; }
+    public void setClocks(long playerOne, long playerTwo) {
+        clocks[0] = playerOne;
+        clocks[1] = playerTwo;
+        turnStarted = System.currentTimeMillis();
+    }
+
     // getter
+    public int getColorSet() { return this.colorSet; }
+    public MoveHistory getHistory() { return this.history; }
+    public long getClock(int player) { return this.clocks[player]; }
     public Side getTurn() { return this.turn; }
     public boolean getSaved() { return this.saved; }
     public GameGUI getGameGUI() { return this.gameGUI; }
@@ -170,6 +376,39 @@ public abstract class Board extends JPanel implements MouseListener {
     public Piece getSelectedPiece() { return this.selectedPiece; }
     public List<Position> getMovablePositions() { return this.selectedMovablePositions; }
 
+    /***
+     * adds a move that was just made to history, called by attemptMove once the move is legal
+     * @param fromY - y index the piece moved from
+     * @param fromX - x index the piece moved from
+     * @param to - position the piece moved to
+     */
+    protected void recordMove(int fromY, int fromX, Position to) {
+        int move = MoveHistory.encode(fromY, fromX, to.getPosY(), to.getPosX(), MoveHistory.PROMOTE_NONE);
+        history.add(move, System.currentTimeMillis());
+        if (journal != null)
+            journal.append(move);
+    }
+
+    /***
+     * sets the promotion of the move just recorded, chess promotions are chosen after the pawn has moved
+     * @param promotion - one of the MoveHistory PROMOTE constants
+     */
+    protected void recordPromotion(int promotion) {
+        history.setLastPromotion(promotion);
+        if (journal != null)
+            journal.appendPromotion(promotion);
+    }
+
+    /***
+     * adds the time since the last turn ended to a player's clock, called when their turn ends
+     * @param player - 0 for player one, 1 for player two
+     */
+    protected void chargeClock(int player) {
+        long now = System.currentTimeMillis();
+        clocks[player] += now - turnStarted;
+        turnStarted = now;
+    }
+
     /***
      * checks if board can currently be saved
      * @return - returns true if board can be saved, false if it can not
@@ -192,7 +431,6 @@ public abstract class Board extends JPanel implements MouseListener {
     protected void highlightLegalPositions(List<Position> positions) {
         for(int i = 0; i < positions.size(); i++)
             positions.get(i).setHighLight(true);
-        repaint();
     }
 
     /***
@@ -202,7 +440,6 @@ public abstract class Board extends JPanel implements MouseListener {
     protected void dehighlightlegalPositions(List<Position> positions) {
         for(int i = 0; i < positions.size(); i++)
             positions.get(i).setHighLight(false);
-        repaint();
     }
 
     
@@ -222,7 +459,12 @@ public abstract class Board extends JPanel implements MouseListener {
     @Override
     public void mouseClicked(MouseEvent e) {
         gameGUI.clearSpeechOutput(); //dont leave output up if user decides to use mouse instead   
-        Position clickedPosition = (Position) this.getComponentAt(new Point(e.getX(), e.getY()));
+        if (!gameGUI.isHumanTurn())
+        {
+            gameGUI.updateInvalidMove("Wait for the computer to move");
+            return;
+        }
+        Position clickedPosition = positionAt(e.getX(), e.getY());
         if(e.getButton() == MouseEvent.BUTTON1 && selectedPiece == null) 
         {
             if(!clickedPosition.isFree() && clickedPosition.getPiece().getSide() == turn)
@@ -240,7 +482,6 @@ public abstract class Board extends JPanel implements MouseListener {
             attemptMove(clickedPosition);
         else
             deselectPiece();
-        repaint();
     }
 
     /*** 
@@ -257,6 +498,11 @@ public abstract class Board extends JPanel implements MouseListener {
     	}
     	else if (speechReceived.equals("<unk>")) //<unk> means recognizer did not understand speech, will tell user using boardGUI
             return;
+        if (!gameGUI.isHumanTurn())
+        {
+            gameGUI.updateInvalidMove("Wait for the computer to move");
+            return;
+        }
     	String[] coordinates = speechReceived.split(" ");
         if (coordinates.length == 1)
         {
@@ -285,7 +531,6 @@ public abstract class Board extends JPanel implements MouseListener {
             attemptMove(spokenPosition);
         else
             deselectPiece();
-        repaint();
     }
 
     /***
@@ -301,9 +546,12 @@ public abstract class Board extends JPanel implements MouseListener {
     protected abstract void moveAndUnhighlight(Position chosen);
 
     /***
-     * called by gameGUI when either main menu or quit button is pressed, overridden in chessboard so that it can close promotion window if either of these buttons are pressed
+     * called by gameGUI when either main menu or quit button is pressed, stops any animation, overridden in chessboard so that it can also close promotion window if either of these buttons are pressed
      */
-    public void dispose() { }
+    public void dispose() {
+        if (animator != null)
+            animator.stop();
+    }
 
     /***
      * used for debugging, mostly for check/checkmate tests since I can't otherwise see those boards, should not be called in finished project
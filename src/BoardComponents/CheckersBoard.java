@@ -5,6 +5,8 @@ import GUI.GameGUI;
 import Information.Tag;
 import Information.Tag.Side;
 
+import Notation.Pdn;
+
 import Pieces.Piece;
 import Pieces.CheckersPawn;
 import Pieces.CheckersKing;
@@ -21,6 +23,15 @@ public class CheckersBoard extends Board {
 
     public CheckersBoard(GameGUI gui, String[] pieces) {
         super(gui, pieces);
+        recordStart();
+    }
+
+    /***
+     * keeps the position a loaded game starts from in its history as a PDN FEN, so the moves can be exported without the position before them
+     */
+    private void recordStart() {
+        String fen = Pdn.toFen(CheckersPosition.fromBoard(this));
+        history.setStart(fen.equals(Pdn.START) ? null : fen);
     }
 
     public void updateBoardGUI() {
@@ -49,6 +60,7 @@ public class CheckersBoard extends Board {
         else
         {
             attackMade = false;
+            chargeClock(turn == Side.BLACK ? 0 : 1);
             turn = (this.turn == Side.BLACK) ? Side.RED : Side.BLACK;
             gameGUI.updateCurrentTurn(turn);
             availableAttacks = false;
@@ -210,10 +222,13 @@ public class CheckersBoard extends Board {
     public void attemptMove(Position chosen) {
         if (selectedMovablePositions.contains(chosen))
         {
-            if (Math.abs(chosen.getPosY() - selectedPiece.getPosition().getPosY()) > 1) //attacking
+            int fromY = selectedPiece.getPosition().getPosY();
+            int fromX = selectedPiece.getPosition().getPosX();
+            if (Math.abs(chosen.getPosY() - fromY) > 1) //attacking
             {
                 attackPiece(chosen);
                 moveAndUnhighlight(chosen);
+                recordMove(fromY, fromX, chosen);
                 attackMade = true;
                 if (selectedPiece.getLegalMoves(gameBoard).size() > 0) //if attackmade is true, getLegalMoves will only return attacks
                 {
@@ -230,6 +245,7 @@ public class CheckersBoard extends Board {
                 else
                 {
                     moveAndUnhighlight(chosen);
+                    recordMove(fromY, fromX, chosen);
                     deselectPiece();
                     nextTurn();
                 }
@@ -247,9 +263,14 @@ public class CheckersBoard extends Board {
     protected void moveAndUnhighlight(Position chosen) {
         selectedPiece.getPosition().setSelect(false);
         dehighlightlegalPositions(selectedMovablePositions);
+        Position from = selectedPiece.getPosition();
         selectedPiece.move(chosen);
+        animateMove(selectedPiece, from);
         if (selectedPiece.name().equals("(P)") && (chosen.getPosY() == 7 && selectedPiece.getSide() == Side.RED) || (chosen.getPosY() == 0 && selectedPiece.getSide() == Side.BLACK)) //pawn has reached far side
+        {
             promote(chosen);
+            animatePromotion(selectedPiece, chosen.getPiece());
+        }
         saved = false;
     }
 
@@ -267,7 +288,8 @@ public class CheckersBoard extends Board {
             xShift = 1;
         else
             xShift = -1;
-        gameBoard[chosen.getPosY() + yShift][chosen.getPosX() + xShift].removePiece();
+        Position jumped = gameBoard[chosen.getPosY() + yShift][chosen.getPosX() + xShift];
+        animateCapture(jumped.removePiece(), jumped);
     }
 
     /***
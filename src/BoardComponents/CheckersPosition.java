@@ -0,0 +1,215 @@
+package BoardComponents;
+
+import java.util.Arrays;
+
+import Information.Tag;
+import Information.Tag.Side;
+
+import Pieces.Piece;
+
+/***
+ * compact copy of a checkers position without any pieces or positions, used to replay and check moves without building a board
+ * squares are numbered y * 8 + x like gameBoard, black starts at the bottom and moves up the board (towards y = 0), red moves down
+ * moves are single steps or single hops of a jump packed by MoveHistory, the same way CheckersBoard records them
+ */
+public class CheckersPosition {
+    //piece codes, the same codes GameSave stores, RED is added for red pieces
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KING = 6;
+    public static final int RED = 8;
+    public static final int MAX_MOVES = 48; //twelve kings with four moves each, more than any position can have
+
+    private final byte[] squares = new byte[64];
+    private boolean redToMove;
+
+    public CheckersPosition() {
+        clear();
+    }
+
+    /***
+     * empties the board, black moves first
+     */
+    public void clear() {
+        Arrays.fill(squares, (byte) EMPTY);
+        redToMove = false;
+    }
+
+    /***
+     * copies the current state of a checkers board
+     * @param board - board to copy
+     * @return - position matching the board
+     */
+    public static CheckersPosition fromBoard(CheckersBoard board) {
+        CheckersPosition position = new CheckersPosition();
+        Position[][] gameBoard = board.getGameBoard();
+        for (int y = 0; y < Tag.SIZE_MAX; y++)
+        {
+            for (int x = 0; x < Tag.SIZE_MAX; x++)
+            {
+                Piece piece = gameBoard[y][x].getPiece();
+                if (piece != null)
+                    position.squares[y * 8 + x] = (byte) ((piece.name().equals("(K)") ? KING : PAWN) | (piece.getSide() == Side.RED ? RED : 0));
+            }
+        }
+        position.redToMove = board.getTurn() == Side.RED;
+        return position;
+    }
+
+    /***
+     * @param other - position to copy into this one
+     */
+    public void copyFrom(CheckersPosition other) {
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        redToMove = other.redToMove;
+    }
+
+    // setters
+    public void setPiece(int square, int code) { this.squares[square] = (byte) code; }
+    public void setRedToMove(boolean red) { this.redToMove = red; }
+
+    // getters
+    public int getPiece(int square) { return this.squares[square]; }
+    public boolean isRedToMove() { return this.redToMove; }
+
+    /***
+     * makes a move without checking that it is legal, a jump is one hop so a double jump is two moves
+     * the turn only passes to the other player once the move can not be followed by another jump, the same way CheckersBoard keeps a player attacking
+     * @param move - move packed by MoveHistory
+     * @return - true if the same player moves again (the piece jumped and can jump again), false if the turn passed
+     */
+    public boolean applyMove(int move) {
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        int piece = squares[from];
+        boolean red = (piece & RED) != 0;
+        squares[from] = EMPTY;
+        boolean jump = Math.abs(to / 8 - from / 8) == 2;
+        if (jump)
+            squares[(from + to) / 2] = EMPTY; //square jumped over is halfway between
+        boolean promoted = (piece & 7) == PAWN && to / 8 == (red ? 7 : 0);
+        squares[to] = (byte) (promoted ? KING | (piece & RED) : piece);
+        if (jump && !promoted && hasJump(to)) //promoting ends the turn, the new king does not keep attacking
+            return true;
+        redToMove = !red;
+        return false;
+    }
+
+    /***
+     * finds every move the player to move can start their turn with, only jumps if any piece can jump since attacking is mandatory
+     * @param moves - array to fill, at least MAX_MOVES long
+     * @return - number of moves put in moves
+     */
+    public int generate(int[] moves) {
+        int count = 0;
+        for (int square = 0; square < 64; square++)
+        {
+            if (isFriendly(square))
+                count = generateJumps(square, moves, count);
+        }
+        if (count > 0)
+            return count;
+        for (int square = 0; square < 64; square++)
+        {
+            if (isFriendly(square))
+                count = generateSteps(square, moves, count);
+        }
+        return count;
+    }
+
+    /***
+     * adds the one square moves one piece can make, these are only legal when the player to move has no jump
+     * @param square - square of the piece
+     * @param moves - array to add to
+     * @param count - number of moves already in moves
+     * @return - number of moves in moves after adding
+     */
+    public int generateSteps(int square, int[] moves, int count) {
+        int piece = squares[square];
+        if (piece == EMPTY)
+            return count;
+        int forward = ((piece & RED) != 0) ? 1 : -1;
+        count = addStep(square, forward, 1, moves, count);
+        count = addStep(square, forward, -1, moves, count);
+        if ((piece & 7) == KING)
+        {
+            count = addStep(square, -forward, 1, moves, count);
+            count = addStep(square, -forward, -1, moves, count);
+        }
+        return count;
+    }
+
+    /***
+     * adds the jumps one piece can make, used to find how a jump continues
+     * @param square - square of the piece
+     * @param moves - array to add to
+     * @param count - number of moves already in moves
+     * @return - number of moves in moves after adding
+     */
+    public int generateJumps(int square, int[] moves, int count) {
+        int piece = squares[square];
+        if (piece == EMPTY)
+            return count;
+        int forward = ((piece & RED) != 0) ? 1 : -1;
+        for (int xShift = -1; xShift <= 1; xShift += 2)
+        {
+            if (canJump(square, forward, xShift))
+                moves[count++] = square | ((square + 16 * forward + 2 * xShift) << 6);
+            if ((piece & 7) == KING && canJump(square, -forward, xShift))
+                moves[count++] = square | ((square - 16 * forward + 2 * xShift) << 6);
+        }
+        return count;
+    }
+
+    /***
+     * @return - true if the piece on square belongs to the player to move
+     */
+    public boolean isFriendly(int square) {
+        return squares[square] != EMPTY && ((squares[square] & RED) != 0) == redToMove;
+    }
+
+    private int addStep(int square, int yShift, int xShift, int[] moves, int count) {
+        int y = square / 8 + yShift;
+        int x = square % 8 + xShift;
+        if (y >= 0 && y < 8 && x >= 0 && x < 8 && squares[y * 8 + x] == EMPTY)
+            moves[count++] = square | ((y * 8 + x) << 6);
+        return count;
+    }
+
+    /***
+     * checks the four diagonals of a piece for an enemy piece with a free square behind it, pawns only attack forward
+     * @param square - square of the piece
+     * @return - true if the piece on square can jump
+     */
+    public boolean hasJump(int square) {
+        int piece = squares[square];
+        if (piece == EMPTY)
+            return false;
+        boolean red = (piece & RED) != 0;
+        int forward = red ? 1 : -1;
+        if (canJump(square, forward, 1) || canJump(square, forward, -1))
+            return true;
+        return (piece & 7) == KING && (canJump(square, -forward, 1) || canJump(square, -forward, -1));
+    }
+
+    private boolean canJump(int square, int yShift, int xShift) {
+        int y = square / 8;
+        int x = square % 8;
+        if (y + 2 * yShift < 0 || y + 2 * yShift > 7 || x + 2 * xShift < 0 || x + 2 * xShift > 7)
+            return false;
+        int jumped = squares[(y + yShift) * 8 + x + xShift];
+        return jumped != EMPTY && ((jumped ^ squares[square]) & RED) != 0 && squares[(y + 2 * yShift) * 8 + x + 2 * xShift] == EMPTY;
+    }
+
+    /***
+     * @return - true if the player to move has a jump, which means they must attack
+     */
+    public boolean anyJump() {
+        for (int square = 0; square < 64; square++)
+        {
+            if (isFriendly(square) && hasJump(square))
+                return true;
+        }
+        return false;
+    }
+}
@@ -20,6 +20,7 @@ import GUI.GameGUI;
 
 import Information.Tag;
 import Information.Tag.Side;
+import Notation.Fen;
 
 import Pieces.Bishop;
 import Pieces.King;
@@ -35,6 +36,10 @@ public class ChessBoard extends Board {
     private Piece promotionPiece;
     private Piece wKing; //store kings for check and checkmate, assigned during initialize methods
     private Piece bKing;
+    private int halfmoveClock = 0; //moves since the last capture or pawn move, for the fifty move rule and FEN
+    private int fullmoveNumber = 1; //starts at 1 and goes up after each black move
+    private int autoPromotion = MoveHistory.PROMOTE_NONE; //piece a move from playMove promotes to, chosen without the promotion window
+    private boolean showHanging; //mark the pieces the other side can win, off until turned on
 
     public ChessBoard(GameGUI gui, int colorSet) {
         super(gui, colorSet);
@@ -49,6 +54,7 @@ public class ChessBoard extends Board {
 
     public ChessBoard(GameGUI gui, String[] pieces) {
         super(gui, pieces);
+        recordStart();
     }
 
     /***
@@ -61,6 +67,7 @@ public class ChessBoard extends Board {
             return;
         else
         {
+            chargeClock(turn == Side.WHITE ? 0 : 1);
             turn = (this.turn == Side.BLACK) ? Side.WHITE : Side.BLACK;
             gameGUI.updateCurrentTurn(turn);
         }
@@ -92,6 +99,81 @@ public class ChessBoard extends Board {
         gameGUI.updateCurrentTurn(this.turn);
         if( !checkHighlight()) //makes call to checkHighlight and updates board accordingly, if king is not in check test for stalemate
             stalemateHighlight();
+        updateHanging();
+    }
+
+    /***
+     * shows or hides a mark on every piece the other side can win material by taking
+     * @param show - true to show the marks
+     */
+    public void setShowHanging(boolean show) {
+        this.showHanging = show;
+        updateHanging();
+    }
+
+    public boolean isShowingHanging() { return this.showHanging; }
+
+    /***
+     * marks the pieces of either side that a legal capture wins material from once the exchange on their square is played out (static exchange evaluation),
+     * so a piece attacked by a cheaper piece counts as hanging even when it is defended, clears every mark if they are hidden or the game is over
+     */
+    public void updateHanging() {
+        boolean[] hanging = new boolean[64];
+        if (showHanging && turn != Side.OVER)
+        {
+            ChessPosition position = ChessPosition.fromBoard(this);
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int[] gains = new int[StaticExchange.MAX_SWAPS];
+            for (int side = 0; side < 2; side++)
+            {
+                if (side == 1) //the captures of the side not to move, it could not take en passant next move
+                {
+                    position.setWhiteToMove(!position.isWhiteToMove());
+                    position.setEnPassant(ChessPosition.NO_SQUARE);
+                }
+                int count = MoveGenerator.generate(position, moves);
+                for (int i = 0; i < count; i++)
+                {
+                    int to = MoveHistory.getTo(moves[i]);
+                    int target = position.getPiece(to);
+                    if (target != ChessPosition.EMPTY && (target & 7) != ChessPosition.KING && !hanging[to]
+                        && StaticExchange.see(position, moves[i], gains) > 0 && MoveGenerator.isLegal(position, moves[i]))
+                        hanging[to] = true;
+                }
+            }
+        }
+        for (int y = 0; y < Tag.SIZE_MAX; y++)
+        {
+            for (int x = 0; x < Tag.SIZE_MAX; x++)
+                gameBoard[y][x].setHanging(hanging[y * 8 + x]);
+        }
+    }
+
+    /***
+     * @return - pawn that can currently be taken with en passant, null if there is not one
+     */
+    public Piece getEnPassantPawn() { return this.enPassantPawn; }
+    public int getHalfmoveClock() { return this.halfmoveClock; }
+    public int getFullmoveNumber() { return this.fullmoveNumber; }
+
+    /***
+     * sets the move counters of a board loaded from a FEN or save, the token format does not hold them
+     * @param halfmove - moves since the last capture or pawn move
+     * @param fullmove - number of the current full move
+     */
+    public void setMoveCounters(int halfmove, int fullmove) {
+        this.halfmoveClock = halfmove;
+        this.fullmoveNumber = fullmove;
+        if (history.size() == 0) //counters are part of the start position
+            recordStart();
+    }
+
+    /***
+     * keeps the position a loaded game starts from in its history, so the moves can be exported without the position before them
+     */
+    private void recordStart() {
+        String fen = Fen.toFen(ChessPosition.fromBoard(this));
+        history.setStart(fen.equals(Fen.START) ? null : fen);
     }
 
     /***
@@ -184,8 +266,7 @@ public class ChessBoard extends Board {
                 check = true;
             }
         }
-        repaint();
-        return check; //stored as boolean so that repaint can be called before return
+        return check;
     }
 
     /***
@@ -384,13 +465,14 @@ public class ChessBoard extends Board {
         {
             Piece rook = gameBoard[y][0].removePiece();
             gameBoard[y][3].setPiece(rook);
+            animateMove(rook, gameBoard[y][0]);
         }
         else if (chosen.getPosX() == 6) //is king going right, will always be x = 2 or 6 but using else if instead of else to prevent unlikely bugs
         {
             Piece rook = gameBoard[y][7].removePiece();
             gameBoard[y][5].setPiece(rook);
+            animateMove(rook, gameBoard[y][7]);
         }
-        repaint();
     }
 
     /***
@@ -402,6 +484,7 @@ public class ChessBoard extends Board {
         if (promotionPiece != null)
         {
             Side side = promotionPiece.getSide();
+            Piece pawn = promotionPiece;
             Position temp = promotionPiece.getPosition();
             temp.removePiece();
             clearPromotion();
@@ -433,8 +516,10 @@ public class ChessBoard extends Board {
                 else
                     temp.setPiece(new Knight(side, temp, Tag.WHITE_KNIGHT));
             }
+            animatePromotion(pawn, temp.getPiece());
+            recordPromotion(MoveHistory.promotionCode(name));
+            chargeClock(side == Side.WHITE ? 0 : 1);
             turn = (side == Side.WHITE) ? Side.BLACK : Side.WHITE;
-            repaint();
             updateBoardGUI();
         }
         deselectPiece();
@@ -537,11 +622,23 @@ public class ChessBoard extends Board {
             {
                 if (moveLegal(selectedPiece, chosen)) //move does not place yourself into check
                 {
+                    int fromY = selectedPiece.getPosition().getPosY();
+                    int fromX = selectedPiece.getPosition().getPosX();
+                    boolean resetsClock = selectedPiece.name().equals("(P)") || !chosen.isFree(); //en passant is a pawn move so it does not need its own check
                     checkSpecialCases(selectedPiece, chosen);
                     moveAndUnhighlight(chosen); //move after special rules have been checked
+                    recordMove(fromY, fromX, chosen);
+                    halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+                    if (turn == Side.BLACK)
+                        fullmoveNumber++;
 
                     //after moving, check for promotion, nextTurn() cannot be called in promotion case because promotion pauses game, nextTurn() would reassign turn and allow players to move before promotion selection is made
-                    if (selectedPiece.name().equals("(P)") && (selectedPiece.getPosition().getPosY() == 7 || selectedPiece.getPosition().getPosY() == 0))
+                    if (selectedPiece.name().equals("(P)") && (selectedPiece.getPosition().getPosY() == 7 || selectedPiece.getPosition().getPosY() == 0) && autoPromotion != MoveHistory.PROMOTE_NONE)
+                    {
+                        promotionPiece = selectedPiece;
+                        promote(MoveHistory.promotionName(autoPromotion));
+                    }
+                    else if (selectedPiece.name().equals("(P)") && (selectedPiece.getPosition().getPosY() == 7 || selectedPiece.getPosition().getPosY() == 0))
                     {
                         promotionPiece = selectedPiece;
                         deselectPiece();
@@ -570,6 +667,23 @@ public class ChessBoard extends Board {
             gameGUI.updateInvalidMove("Can not attack own piece");
     }
 
+    /***
+     * makes a move chosen by the computer the same way a player's move is made, by selecting the piece and calling attemptMove
+     * @param move - legal move packed by MoveHistory, a promotion is made to its piece without opening the promotion window
+     */
+    public void playMove(int move) {
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        deselectPiece();
+        selectPiece(gameBoard[from / 8][from % 8].getPiece());
+        autoPromotion = MoveHistory.getPromotion(move);
+        try {
+            attemptMove(gameBoard[to / 8][to % 8]);
+        } finally {
+            autoPromotion = MoveHistory.PROMOTE_NONE;
+        }
+    }
+
     /***
      * this method is responsible for checking for castling and en passant
      * @param moving - piece to move, does not rely on selectedPiece because check test copy boards do not have selected pieces
@@ -585,7 +699,7 @@ public class ChessBoard extends Board {
             {
                 Position enPassantedPawn = enPassantPawn.getPosition(); //save position so that it can removed after en passant is cleared
                 clearEnPassant();
-                enPassantedPawn.removePiece();
+                animateCapture(enPassantedPawn.removePiece(), enPassantedPawn);
             }
         }
         else if (piece.name().equals("(K)")) //piece is king, may be castling
@@ -603,7 +717,11 @@ public class ChessBoard extends Board {
         selectedPiece.getPosition().setSelect(false);
         wKing.getPosition().setCheck(false);
         bKing.getPosition().setCheck(false);
+        Position from = selectedPiece.getPosition();
+        Piece captured = chosen.getPiece();
         selectedPiece.move(chosen);
+        animateCapture(captured, chosen);
+        animateMove(selectedPiece, from);
         saved = false;
     }
 
@@ -803,5 +921,8 @@ public class ChessBoard extends Board {
     }
 
     @Override
-    public void dispose() { clearPromotion(); }
+    public void dispose() {
+        super.dispose();
+        clearPromotion();
+    }
 }
@@ -0,0 +1,309 @@
+package BoardComponents;
+
+import java.util.Arrays;
+
+import Information.Tag;
+import Information.Tag.Side;
+
+import Pieces.Piece;
+
+/***
+ * compact copy of a chess position without any pieces or positions, used to move positions in and out of the program (FEN, saves) without building a board
+ * squares are numbered y * 8 + x like gameBoard, so square 0 is A8 and 63 is H1
+ */
+public class ChessPosition {
+    //piece codes, BLACK is added for black pieces
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+    public static final int BLACK = 8;
+    public static final String[] NAMES = {"", "(P)", "(N)", "(B)", "(R)", "(Q)", "(K)"};
+
+    //castling rights
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int NO_SQUARE = -1;
+
+    private final byte[] squares = new byte[64];
+    private long occupied; //bit y * 8 + x set for each square with a piece, kept in step with squares
+    private boolean whiteToMove;
+    private int castling;
+    private int enPassant; //square a pawn can move to when taking en passant (FEN style), not the square of the pawn being taken
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private int[] undo = new int[32]; //state makeMove can not rebuild from the move itself, one entry per move made
+    private int undoSize;
+
+    public ChessPosition() {
+        clear();
+    }
+
+    /***
+     * empties the board and resets every field, lets one position be reused when reading many positions
+     */
+    public void clear() {
+        Arrays.fill(squares, (byte) EMPTY);
+        occupied = 0;
+        whiteToMove = true;
+        castling = 0;
+        enPassant = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        undoSize = 0;
+    }
+
+    // setters
+    public void setPiece(int square, int code) {
+        this.squares[square] = (byte) code;
+        if (code == EMPTY)
+            this.occupied &= ~(1L << square);
+        else
+            this.occupied |= 1L << square;
+    }
+    public void setWhiteToMove(boolean white) { this.whiteToMove = white; }
+    public void setCastling(int castling) { this.castling = castling; }
+    public void setEnPassant(int square) { this.enPassant = square; }
+    public void setHalfmoveClock(int halfmove) { this.halfmoveClock = halfmove; }
+    public void setFullmoveNumber(int fullmove) { this.fullmoveNumber = fullmove; }
+
+    // getters
+    public int getPiece(int square) { return this.squares[square]; }
+    public long getOccupied() { return this.occupied; }
+    public boolean isWhiteToMove() { return this.whiteToMove; }
+    public int getCastling() { return this.castling; }
+    public int getEnPassant() { return this.enPassant; }
+    public int getHalfmoveClock() { return this.halfmoveClock; }
+    public int getFullmoveNumber() { return this.fullmoveNumber; }
+
+    /***
+     * @param name - piece name such as (Q)
+     * @return - piece code without color, EMPTY if name is not a chess piece
+     */
+    public static int codeOf(String name) {
+        for (int code = PAWN; code <= KING; code++)
+        {
+            if (NAMES[code].equals(name))
+                return code;
+        }
+        return EMPTY;
+    }
+
+    /***
+     * copies the current state of a chess board
+     * @param board - board to copy
+     * @return - position matching the board, including castling rights worked out from which kings and rooks have moved
+     */
+    public static ChessPosition fromBoard(ChessBoard board) {
+        ChessPosition position = new ChessPosition();
+        Position[][] gameBoard = board.getGameBoard();
+        for (int y = 0; y < Tag.SIZE_MAX; y++)
+        {
+            for (int x = 0; x < Tag.SIZE_MAX; x++)
+            {
+                Piece piece = gameBoard[y][x].getPiece();
+                if (piece != null)
+                    position.setPiece(y * 8 + x, codeOf(piece.name()) | (piece.getSide() == Side.BLACK ? BLACK : 0));
+            }
+        }
+        position.whiteToMove = board.getTurn() != Side.BLACK;
+        if (unmoved(gameBoard[7][4], "(K)", Side.WHITE))
+        {
+            if (unmoved(gameBoard[7][7], "(R)", Side.WHITE)) position.castling |= WHITE_KING_SIDE;
+            if (unmoved(gameBoard[7][0], "(R)", Side.WHITE)) position.castling |= WHITE_QUEEN_SIDE;
+        }
+        if (unmoved(gameBoard[0][4], "(K)", Side.BLACK))
+        {
+            if (unmoved(gameBoard[0][7], "(R)", Side.BLACK)) position.castling |= BLACK_KING_SIDE;
+            if (unmoved(gameBoard[0][0], "(R)", Side.BLACK)) position.castling |= BLACK_QUEEN_SIDE;
+        }
+        Piece enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null)
+        {
+            int pawnSquare = enPassantPawn.getPosition().getPosY() * 8 + enPassantPawn.getPosition().getPosX();
+            position.enPassant = pawnSquare + (enPassantPawn.getSide() == Side.WHITE ? 8 : -8); //square the pawn skipped over
+        }
+        position.halfmoveClock = board.getHalfmoveClock();
+        position.fullmoveNumber = board.getFullmoveNumber();
+        return position;
+    }
+
+    private static boolean unmoved(Position position, String name, Side side) {
+        return !position.isFree() && position.getPiece().name().equals(name) && position.getPiece().getSide() == side && !position.getPiece().getMoved();
+    }
+
+    /***
+     * makes a move without checking that it is legal, used to replay moves that were legal when they were made
+     * castling, en passant, promotion, castling rights, and both counters are updated the same way ChessBoard updates them
+     * @param move - move packed by MoveHistory
+     */
+    public void applyMove(int move) {
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        int piece = squares[from];
+        int type = piece & 7;
+        int color = piece & BLACK;
+        boolean capture = squares[to] != EMPTY;
+        if (type == PAWN && to == enPassant) //taking en passant, the pawn taken is beside the pawn moving, not on the square it moves to
+        {
+            int taken = to + (color == BLACK ? -8 : 8);
+            squares[taken] = EMPTY;
+            occupied &= ~(1L << taken);
+            capture = true;
+        }
+        else if (type == KING && Math.abs(to - from) == 2) //castling, move the rook over the king
+        {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            squares[(from + to) / 2] = squares[rookFrom];
+            squares[rookFrom] = EMPTY;
+            occupied ^= (1L << rookFrom) | (1L << ((from + to) / 2));
+        }
+        int promotion = MoveHistory.getPromotion(move);
+        squares[to] = (byte) ((promotion == MoveHistory.PROMOTE_NONE) ? piece : (promotion + 1) | color); //promotion codes are one below the piece codes
+        squares[from] = EMPTY;
+        occupied = (occupied | (1L << to)) & ~(1L << from);
+        enPassant = (type == PAWN && Math.abs(to - from) == 16) ? (from + to) / 2 : NO_SQUARE;
+        castling &= ~(castlingLost(from) | castlingLost(to));
+        halfmoveClock = (type == PAWN || capture) ? 0 : halfmoveClock + 1;
+        if (color == BLACK)
+            fullmoveNumber++;
+        whiteToMove = color == BLACK;
+    }
+
+    /***
+     * makes a move so that it can be taken back with unmakeMove, used to try moves when searching or checking legality
+     * @param move - move packed by MoveHistory
+     */
+    public void makeMove(int move) {
+        if (undoSize == undo.length)
+            undo = Arrays.copyOf(undo, undoSize * 2);
+        //captured piece (4 bits), castling rights (4), en passant square + 1 (7), halfmove clock (rest)
+        undo[undoSize++] = (squares[MoveHistory.getTo(move)] & 0xf) | (castling << 4) | ((enPassant + 1) << 8) | (halfmoveClock << 15);
+        applyMove(move);
+    }
+
+    /***
+     * takes back the last move made with makeMove
+     * @param move - the same move that was passed to makeMove
+     */
+    public void unmakeMove(int move) {
+        int state = undo[--undoSize];
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        whiteToMove = !whiteToMove;
+        int color = whiteToMove ? 0 : BLACK;
+        int piece = (MoveHistory.getPromotion(move) == MoveHistory.PROMOTE_NONE) ? squares[to] : PAWN | color;
+        squares[from] = (byte) piece;
+        squares[to] = (byte) (state & 0xf);
+        occupied |= 1L << from;
+        if ((state & 0xf) == EMPTY)
+            occupied &= ~(1L << to);
+        enPassant = ((state >> 8) & 0x7f) - 1;
+        castling = (state >> 4) & 0xf;
+        halfmoveClock = state >>> 15;
+        if ((piece & 7) == PAWN && to == enPassant) //put back the pawn taken en passant
+        {
+            int taken = to + (color == BLACK ? -8 : 8);
+            squares[taken] = (byte) (PAWN | (color ^ BLACK));
+            occupied |= 1L << taken;
+        }
+        else if ((piece & 7) == KING && Math.abs(to - from) == 2) //put the castled rook back in its corner
+        {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            squares[rookFrom] = squares[(from + to) / 2];
+            squares[(from + to) / 2] = EMPTY;
+            occupied ^= (1L << rookFrom) | (1L << ((from + to) / 2));
+        }
+        if (color == BLACK)
+            fullmoveNumber--;
+    }
+
+    /***
+     * @param black - true for the black king
+     * @return - square of the king, NO_SQUARE if it is not on the board
+     */
+    public int kingSquare(boolean black) {
+        byte king = (byte) (KING | (black ? BLACK : 0));
+        for (int square = 0; square < 64; square++)
+        {
+            if (squares[square] == king)
+                return square;
+        }
+        return NO_SQUARE;
+    }
+
+    /***
+     * @return - castling rights lost when a piece moves from or to a square, a king or rook moving or a rook being taken
+     */
+    private static int castlingLost(int square) {
+        switch (square)
+        {
+            case 60: return WHITE_KING_SIDE | WHITE_QUEEN_SIDE;
+            case 63: return WHITE_KING_SIDE;
+            case 56: return WHITE_QUEEN_SIDE;
+            case 4: return BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+            case 7: return BLACK_KING_SIDE;
+            case 0: return BLACK_QUEEN_SIDE;
+            default: return 0;
+        }
+    }
+
+    /***
+     * @return - square of the pawn that can be taken en passant, NO_SQUARE if there is none
+     */
+    public int getEnPassantPawnSquare() {
+        if (enPassant == NO_SQUARE)
+            return NO_SQUARE;
+        int pawnSquare = enPassant + (whiteToMove ? 8 : -8); //black pawn in front of the target when white is to move
+        int pawn = whiteToMove ? (PAWN | BLACK) : PAWN;
+        return (pawnSquare >= 0 && pawnSquare < 64 && squares[pawnSquare] == pawn) ? pawnSquare : NO_SQUARE;
+    }
+
+    /***
+     * converts this position to the space separated format ChessBoard reads, the halfmove and fullmove counters are not part of it and are set on the board separately
+     * @param playerOne - name of the white player
+     * @param playerTwo - name of the black player
+     * @param colorSet - color set of the board
+     * @return - tokens for ChessBoard(String[]) or ChessGameGUI
+     */
+    public String[] toTokens(String playerOne, String playerTwo, int colorSet) {
+        StringBuilder tokens = new StringBuilder();
+        tokens.append(playerOne.replace(' ', '_')).append(' ').append(playerTwo.replace(' ', '_')).append(' ').append(colorSet).append(' ');
+        tokens.append(whiteToMove ? "white" : "black");
+        for (int square = 0; square < 64; square++)
+        {
+            int code = squares[square];
+            if (code == EMPTY)
+                continue;
+            boolean black = (code & BLACK) != 0;
+            int y = square / 8;
+            int x = square % 8;
+            tokens.append(' ').append(NAMES[code & 7]).append(black ? 'b' : 'w').append(y).append(x);
+            tokens.append(moved(code & 7, black, y, x) ? 't' : 'f');
+        }
+        int pawnSquare = getEnPassantPawnSquare();
+        tokens.append(' ').append(pawnSquare == NO_SQUARE ? "null" : String.valueOf(pawnSquare / 8) + String.valueOf(pawnSquare % 8));
+        return tokens.toString().split(" ");
+    }
+
+    /***
+     * rebuilds the moved flag the board uses for kings, rooks, and pawns from castling rights and pawn ranks
+     */
+    private boolean moved(int piece, boolean black, int y, int x) {
+        if (piece == PAWN)
+            return y != (black ? 1 : 6);
+        if (piece == KING)
+            return (castling & (black ? BLACK_KING_SIDE | BLACK_QUEEN_SIDE : WHITE_KING_SIDE | WHITE_QUEEN_SIDE)) == 0;
+        if (piece == ROOK && y == (black ? 0 : 7) && (x == 0 || x == 7))
+        {
+            int right = black ? (x == 7 ? BLACK_KING_SIDE : BLACK_QUEEN_SIDE) : (x == 7 ? WHITE_KING_SIDE : WHITE_QUEEN_SIDE);
+            return (castling & right) == 0;
+        }
+        return true;
+    }
+}
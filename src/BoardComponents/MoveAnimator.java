@@ -0,0 +1,256 @@
+package BoardComponents;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.Timer;
+
+import Pieces.Piece;
+
+/***
+ * slides pieces between positions after a move instead of having them jump there, drawn by the board on top of its positions so nothing is laid out again while a piece is moving
+ * every animation is driven by one timer paced at 60 frames a second, the timer only runs while something is moving
+ */
+public class MoveAnimator {
+    public static final int FRAME_MILLIS = 16;
+    public static final int SLIDE_MILLIS = 180;
+
+    private Logger logger = Logger.getLogger(getClass().getName());
+    private Board board;
+    private Timer timer;
+    private List<Sprite> sprites;
+    private long batchStart; //start time shared by everything scheduled during one event, such as the king and rook when castling, -1 until something is scheduled
+    private long queueEnd; //time the last scheduled animation finishes, later moves wait for it so multi-jumps play one hop at a time
+    private long lastTick;
+    //frame statistics, reset each time the animator goes idle
+    private int frames;
+    private int droppedFrames;
+    private long totalRenderNanos;
+    private long maxRenderNanos;
+
+    /***
+     * one piece being drawn by the animator, either sliding from one position to another or fading out after being captured
+     */
+    private class Sprite {
+        private Piece piece;
+        private Position from;
+        private Position to;
+        private long start;
+        private boolean fade;
+        private int lastX, lastY; //where the sprite was last drawn, repainted once it moves on
+        private boolean drawn;
+
+        private Sprite(Piece piece, Position from, Position to, long start, boolean fade) {
+            this.piece = piece;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.fade = fade;
+        }
+
+        /***
+         * @return - fraction of this animation completed at the given time, between 0 and 1
+         */
+        private float progress(long now) {
+            return Math.max(0f, Math.min(1f, (now - start) / (float) SLIDE_MILLIS));
+        }
+    }
+
+    public MoveAnimator(Board board) {
+        this.board = board;
+        this.sprites = new ArrayList<Sprite>();
+        this.batchStart = -1;
+        this.timer = new Timer(FRAME_MILLIS, (e) -> tick());
+        this.timer.setCoalesce(true); //a late frame is skipped instead of firing twice in a row
+    }
+
+    /***
+     * animates a piece that has already been moved on the board, hides it at its destination until its sprite arrives
+     * @param piece - piece that moved, already set at to
+     * @param from - position the piece moved from
+     * @param to - position the piece moved to
+     */
+    public void slide(Piece piece, Position from, Position to) {
+        sprites.add(new Sprite(piece, from, to, scheduleStart(), false));
+        to.setDisplayPiece(false);
+        start();
+    }
+
+    /***
+     * fades out a piece that has already been removed from the board, timed with the move that captured it
+     * @param piece - piece that was captured
+     * @param at - position it was captured on
+     */
+    public void capture(Piece piece, Position at) {
+        if (piece == null)
+            return;
+        sprites.add(new Sprite(piece, at, at, scheduleStart(), true));
+        start();
+    }
+
+    /***
+     * swaps the piece drawn by any animation, called when a pawn is promoted while it is still sliding so the new piece is what arrives
+     * @param oldPiece - piece being replaced
+     * @param newPiece - piece replacing it, already set on the board
+     */
+    public void replacePiece(Piece oldPiece, Piece newPiece) {
+        for (Sprite sprite : sprites)
+        {
+            if (sprite.piece == oldPiece && !sprite.fade)
+            {
+                sprite.piece = newPiece;
+                newPiece.getPosition().setDisplayPiece(false);
+            }
+        }
+    }
+
+    public boolean isAnimating() { return !sprites.isEmpty(); }
+
+    /***
+     * stops the timer and shows every piece where it belongs, called when the board is closed
+     */
+    public void stop() {
+        timer.stop();
+        List<Sprite> finished = new ArrayList<Sprite>(sprites);
+        sprites.clear();
+        for (Sprite sprite : finished)
+            reveal(sprite);
+    }
+
+    private long scheduleStart() {
+        if (batchStart < 0)
+        {
+            batchStart = Math.max(System.currentTimeMillis(), queueEnd);
+            queueEnd = batchStart + SLIDE_MILLIS;
+        }
+        return batchStart;
+    }
+
+    private void start() {
+        if (!timer.isRunning())
+        {
+            lastTick = System.nanoTime();
+            timer.start();
+        }
+    }
+
+    /***
+     * called by the timer every frame, repaints the squares under every sprite and finishes animations that are done
+     */
+    private void tick() {
+        long tickTime = System.nanoTime();
+        long elapsed = tickTime - lastTick;
+        if (elapsed > FRAME_MILLIS * 1500000L) //more than one and a half frames since the last tick
+            droppedFrames += (int) (elapsed / (FRAME_MILLIS * 1000000L)) - 1;
+        lastTick = tickTime;
+        batchStart = -1; //anything scheduled from now on belongs to a new event
+        long now = System.currentTimeMillis();
+        int size = board.squareSize();
+        for (int i = sprites.size() - 1; i >= 0; i--)
+        {
+            Sprite sprite = sprites.get(i);
+            if (sprite.drawn)
+                board.repaint(sprite.lastX, sprite.lastY, size, size);
+            if (sprite.progress(now) >= 1f)
+            {
+                sprites.remove(i);
+                reveal(sprite);
+            }
+            else
+                board.repaint(spriteX(sprite, now, size), spriteY(sprite, now, size), size, size);
+        }
+        if (sprites.isEmpty())
+        {
+            timer.stop();
+            logStatistics();
+        }
+    }
+
+    /***
+     * shows a piece at its destination once the last animation moving it is done, unless it has been moved or taken since
+     */
+    private void reveal(Sprite sprite) {
+        if (sprite.fade)
+            return;
+        for (Sprite other : sprites)
+        {
+            if (other.piece == sprite.piece && !other.fade)
+                return; //still has another hop to make
+        }
+        if (sprite.to.getPiece() == sprite.piece)
+            sprite.to.setDisplayPiece(true);
+    }
+
+    private static float ease(float t) { return t * t * (3 - 2 * t); }
+
+    private int spriteX(Sprite sprite, long now, int size) {
+        float t = ease(sprite.progress(now));
+        return Math.round((sprite.from.getPosX() + (sprite.to.getPosX() - sprite.from.getPosX()) * t) * size);
+    }
+
+    private int spriteY(Sprite sprite, long now, int size) {
+        float t = ease(sprite.progress(now));
+        return Math.round((sprite.from.getPosY() + (sprite.to.getPosY() - sprite.from.getPosY()) * t) * size);
+    }
+
+    /***
+     * draws every sprite on top of the board, called from Board.paint after positions are painted
+     * @param g - graphics of the board
+     */
+    public void paintSprites(Graphics g) {
+        long now = System.currentTimeMillis();
+        int size = board.squareSize();
+        Graphics2D g2 = (Graphics2D) g;
+        Composite composite = g2.getComposite();
+        for (Sprite sprite : sprites)
+        {
+            if (now < sprite.start && !sprite.fade)
+                continue; //queued behind another hop, the piece is not shown until it starts moving
+            int x = spriteX(sprite, now, size);
+            int y = spriteY(sprite, now, size);
+            if (sprite.fade)
+                g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1f - sprite.progress(now)));
+            g.translate(x, y);
+            sprite.piece.draw(g, size);
+            g.translate(-x, -y);
+            g2.setComposite(composite);
+            sprite.lastX = x;
+            sprite.lastY = y;
+            sprite.drawn = true;
+        }
+    }
+
+    /***
+     * records how long the board took to paint a frame while animating
+     * @param nanos - time spent in Board.paint
+     */
+    public void recordFrame(long nanos) {
+        frames++;
+        totalRenderNanos += nanos;
+        maxRenderNanos = Math.max(maxRenderNanos, nanos);
+    }
+
+    public int getFrames() { return this.frames; }
+    public int getDroppedFrames() { return this.droppedFrames; }
+    public double getAverageRenderMillis() { return (frames == 0) ? 0 : totalRenderNanos / (frames * 1000000.0); }
+    public double getMaxRenderMillis() { return maxRenderNanos / 1000000.0; }
+
+    /***
+     * logs frame statistics for the animations that just finished and resets them
+     */
+    private void logStatistics() {
+        if (frames > 0)
+            logger.log(Level.FINE, String.format("Animated %d frames, average render %.2f ms, max render %.2f ms, %d dropped frames", frames, getAverageRenderMillis(), getMaxRenderMillis(), droppedFrames));
+        frames = 0;
+        droppedFrames = 0;
+        totalRenderNanos = 0;
+        maxRenderNanos = 0;
+    }
+}
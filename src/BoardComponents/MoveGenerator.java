@@ -0,0 +1,259 @@
+package BoardComponents;
+
+/***
+ * chess move generation on a ChessPosition, much faster than asking every piece for its legal moves on a board because nothing is copied to test for check
+ * moves are packed the same way as MoveHistory, a pawn reaching the last rank gives one move per promotion piece
+ * pseudo legal moves follow how pieces move but may leave the king in check, legal moves are the pseudo legal moves that do not
+ */
+public class MoveGenerator {
+    public static final int MAX_MOVES = 256; //more than any position can have
+
+    private static final int[][] KNIGHT = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}}; //{y, x}
+    private static final int[][] KING = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] DIAGONALS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] LINES = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    private MoveGenerator() { }
+
+    /***
+     * @param position - position to generate moves for, the side to move is used
+     * @param moves - array to fill, at least MAX_MOVES long
+     * @return - number of pseudo legal moves put in moves
+     */
+    public static int generate(ChessPosition position, int[] moves) {
+        int count = 0;
+        int friendly = position.isWhiteToMove() ? 0 : ChessPosition.BLACK;
+        for (int from = 0; from < 64; from++)
+        {
+            int piece = position.getPiece(from);
+            if (piece != ChessPosition.EMPTY && (piece & ChessPosition.BLACK) == friendly)
+                count = generateFrom(position, from, moves, count);
+        }
+        return count;
+    }
+
+    /***
+     * adds the pseudo legal moves of one piece, used when only one piece or piece type is needed
+     * @param position - position to generate moves in
+     * @param from - square of the piece
+     * @param moves - array to add to
+     * @param count - number of moves already in moves
+     * @return - number of moves in moves after adding
+     */
+    public static int generateFrom(ChessPosition position, int from, int[] moves, int count) {
+        int piece = position.getPiece(from);
+        boolean black = (piece & ChessPosition.BLACK) != 0;
+        int friendly = piece & ChessPosition.BLACK;
+        switch (piece & 7)
+        {
+            case ChessPosition.PAWN: return pawnMoves(position, from, black, moves, count);
+            case ChessPosition.KNIGHT: return stepMoves(position, from, KNIGHT, friendly, moves, count);
+            case ChessPosition.BISHOP: return slideMoves(position, from, DIAGONALS, friendly, moves, count);
+            case ChessPosition.ROOK: return slideMoves(position, from, LINES, friendly, moves, count);
+            case ChessPosition.QUEEN:
+                count = slideMoves(position, from, DIAGONALS, friendly, moves, count);
+                return slideMoves(position, from, LINES, friendly, moves, count);
+            case ChessPosition.KING:
+                count = stepMoves(position, from, KING, friendly, moves, count);
+                return castlingMoves(position, from, black, moves, count);
+            default: return count;
+        }
+    }
+
+    /***
+     * @param position - position to generate moves for, the side to move is used
+     * @param moves - array to fill, at least MAX_MOVES long
+     * @return - number of legal moves put in moves
+     */
+    public static int generateLegal(ChessPosition position, int[] moves) {
+        int count = generate(position, moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (isLegal(position, moves[i]))
+                moves[legal++] = moves[i];
+        }
+        return legal;
+    }
+
+    /***
+     * checks that a pseudo legal move does not leave the mover's king in check
+     * @param position - position before the move, left unchanged
+     * @param move - pseudo legal move for the side to move
+     * @return - true if the move is legal
+     */
+    public static boolean isLegal(ChessPosition position, int move) {
+        boolean black = !position.isWhiteToMove();
+        position.makeMove(move);
+        int king = position.kingSquare(black);
+        boolean legal = king == ChessPosition.NO_SQUARE || !isAttacked(position, king, !black);
+        position.unmakeMove(move);
+        return legal;
+    }
+
+    /***
+     * @param position - position to check
+     * @return - true if the side to move is in check
+     */
+    public static boolean inCheck(ChessPosition position) {
+        boolean black = !position.isWhiteToMove();
+        int king = position.kingSquare(black);
+        return king != ChessPosition.NO_SQUARE && isAttacked(position, king, !black);
+    }
+
+    /***
+     * works outward from the square instead of generating the attacker's moves, so it only looks at squares a piece could attack from
+     * @param position - position to check
+     * @param square - square that may be attacked
+     * @param byBlack - true to look for black attackers, false for white
+     * @return - true if any piece of that color attacks the square
+     */
+    public static boolean isAttacked(ChessPosition position, int square, boolean byBlack) {
+        int enemy = byBlack ? ChessPosition.BLACK : 0;
+        int y = square / 8;
+        int x = square % 8;
+        int pawnY = byBlack ? y - 1 : y + 1; //black pawns attack down the board (towards y = 7) so they sit above the square
+        if (pawnY >= 0 && pawnY < 8)
+        {
+            if (x > 0 && position.getPiece(pawnY * 8 + x - 1) == (ChessPosition.PAWN | enemy)) return true;
+            if (x < 7 && position.getPiece(pawnY * 8 + x + 1) == (ChessPosition.PAWN | enemy)) return true;
+        }
+        if (attackedByStep(position, y, x, KNIGHT, ChessPosition.KNIGHT | enemy) || attackedByStep(position, y, x, KING, ChessPosition.KING | enemy))
+            return true;
+        return attackedBySlide(position, y, x, DIAGONALS, ChessPosition.BISHOP | enemy, ChessPosition.QUEEN | enemy)
+            || attackedBySlide(position, y, x, LINES, ChessPosition.ROOK | enemy, ChessPosition.QUEEN | enemy);
+    }
+
+    private static boolean attackedByStep(ChessPosition position, int y, int x, int[][] steps, int attacker) {
+        for (int[] step : steps)
+        {
+            int toY = y + step[0];
+            int toX = x + step[1];
+            if (toY >= 0 && toY < 8 && toX >= 0 && toX < 8 && position.getPiece(toY * 8 + toX) == attacker)
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean attackedBySlide(ChessPosition position, int y, int x, int[][] directions, int attacker, int queen) {
+        for (int[] direction : directions)
+        {
+            int toY = y + direction[0];
+            int toX = x + direction[1];
+            while (toY >= 0 && toY < 8 && toX >= 0 && toX < 8)
+            {
+                int piece = position.getPiece(toY * 8 + toX);
+                if (piece != ChessPosition.EMPTY)
+                {
+                    if (piece == attacker || piece == queen)
+                        return true;
+                    break; //blocked
+                }
+                toY += direction[0];
+                toX += direction[1];
+            }
+        }
+        return false;
+    }
+
+    private static int pawnMoves(ChessPosition position, int from, boolean black, int[] moves, int count) {
+        int y = from / 8;
+        int x = from % 8;
+        int forward = black ? 1 : -1;
+        int toY = y + forward;
+        if (toY < 0 || toY > 7)
+            return count;
+        boolean promotes = toY == (black ? 7 : 0);
+        if (position.getPiece(toY * 8 + x) == ChessPosition.EMPTY)
+        {
+            count = addPawnMove(from, toY * 8 + x, promotes, moves, count);
+            int doubleY = y + 2 * forward;
+            if (y == (black ? 1 : 6) && position.getPiece(doubleY * 8 + x) == ChessPosition.EMPTY)
+                moves[count++] = from | ((doubleY * 8 + x) << 6);
+        }
+        for (int side = -1; side <= 1; side += 2)
+        {
+            int toX = x + side;
+            if (toX < 0 || toX > 7)
+                continue;
+            int to = toY * 8 + toX;
+            int target = position.getPiece(to);
+            if ((target != ChessPosition.EMPTY && ((target & ChessPosition.BLACK) != 0) != black) || to == position.getEnPassant())
+                count = addPawnMove(from, to, promotes, moves, count);
+        }
+        return count;
+    }
+
+    private static int addPawnMove(int from, int to, boolean promotes, int[] moves, int count) {
+        int move = from | (to << 6);
+        if (!promotes)
+        {
+            moves[count++] = move;
+            return count;
+        }
+        for (int promotion = MoveHistory.PROMOTE_QUEEN; promotion >= MoveHistory.PROMOTE_KNIGHT; promotion--) //queen first, it is the one usually wanted
+            moves[count++] = move | (promotion << 12);
+        return count;
+    }
+
+    private static int stepMoves(ChessPosition position, int from, int[][] steps, int friendly, int[] moves, int count) {
+        int y = from / 8;
+        int x = from % 8;
+        for (int[] step : steps)
+        {
+            int toY = y + step[0];
+            int toX = x + step[1];
+            if (toY < 0 || toY > 7 || toX < 0 || toX > 7)
+                continue;
+            int target = position.getPiece(toY * 8 + toX);
+            if (target == ChessPosition.EMPTY || (target & ChessPosition.BLACK) != friendly)
+                moves[count++] = from | ((toY * 8 + toX) << 6);
+        }
+        return count;
+    }
+
+    private static int slideMoves(ChessPosition position, int from, int[][] directions, int friendly, int[] moves, int count) {
+        int y = from / 8;
+        int x = from % 8;
+        for (int[] direction : directions)
+        {
+            int toY = y + direction[0];
+            int toX = x + direction[1];
+            while (toY >= 0 && toY < 8 && toX >= 0 && toX < 8)
+            {
+                int target = position.getPiece(toY * 8 + toX);
+                if (target == ChessPosition.EMPTY)
+                    moves[count++] = from | ((toY * 8 + toX) << 6);
+                else
+                {
+                    if ((target & ChessPosition.BLACK) != friendly)
+                        moves[count++] = from | ((toY * 8 + toX) << 6);
+                    break;
+                }
+                toY += direction[0];
+                toX += direction[1];
+            }
+        }
+        return count;
+    }
+
+    /***
+     * castling needs the right, empty squares between king and rook, and a king that is not in check and does not pass through an attacked square
+     * the square the king lands on is checked with every other move by isLegal
+     */
+    private static int castlingMoves(ChessPosition position, int from, boolean black, int[] moves, int count) {
+        int home = black ? 4 : 60;
+        int castling = position.getCastling();
+        int kingSide = black ? ChessPosition.BLACK_KING_SIDE : ChessPosition.WHITE_KING_SIDE;
+        int queenSide = black ? ChessPosition.BLACK_QUEEN_SIDE : ChessPosition.WHITE_QUEEN_SIDE;
+        if (from != home || (castling & (kingSide | queenSide)) == 0 || isAttacked(position, home, !black))
+            return count;
+        if ((castling & kingSide) != 0 && position.getPiece(home + 1) == ChessPosition.EMPTY && position.getPiece(home + 2) == ChessPosition.EMPTY
+            && !isAttacked(position, home + 1, !black))
+            moves[count++] = home | ((home + 2) << 6);
+        if ((castling & queenSide) != 0 && position.getPiece(home - 1) == ChessPosition.EMPTY && position.getPiece(home - 2) == ChessPosition.EMPTY
+            && position.getPiece(home - 3) == ChessPosition.EMPTY && !isAttacked(position, home - 1, !black))
+            moves[count++] = home | ((home - 2) << 6);
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+package BoardComponents;
+
+import java.util.Arrays;
+
+/***
+ * every move made on a board in order, each move is packed into a short (from square, to square, and promotion) so long games stay small in memory and in save files
+ * squares are numbered y * 8 + x, the same order as gameBoard, so square 0 is the top left (A8) and 63 the bottom right (H1)
+ * a checkers jump is stored as one move per hop
+ * each move also keeps the time it was made, and a history keeps the position it started from when that is not the usual starting position
+ */
+public class MoveHistory {
+    //promotion codes stored in the top bits of a move, chess only
+    public static final int PROMOTE_NONE = 0;
+    public static final int PROMOTE_KNIGHT = 1;
+    public static final int PROMOTE_BISHOP = 2;
+    public static final int PROMOTE_ROOK = 3;
+    public static final int PROMOTE_QUEEN = 4;
+
+    private short[] moves;
+    private long[] times; //milliseconds since 1970 each move was made, 0 if it is not known
+    private int size;
+    private String start; //FEN (PDN FEN for checkers) of the position before the first move, null for the usual start
+
+    public MoveHistory() {
+        moves = new short[64];
+        times = new long[64];
+        size = 0;
+    }
+
+    /***
+     * packs a move into the 15 bits stored for it
+     * @param fromY - y index the piece moved from
+     * @param fromX - x index the piece moved from
+     * @param toY - y index the piece moved to
+     * @param toX - x index the piece moved to
+     * @param promotion - one of the PROMOTE constants
+     * @return - packed move
+     */
+    public static int encode(int fromY, int fromX, int toY, int toX, int promotion) {
+        return (fromY * 8 + fromX) | ((toY * 8 + toX) << 6) | (promotion << 12);
+    }
+
+    public static int getFrom(int move) { return move & 0x3f; }
+    public static int getTo(int move) { return (move >> 6) & 0x3f; }
+    public static int getPromotion(int move) { return (move >> 12) & 0x7; }
+
+    /***
+     * converts a piece name from promote to its promotion code
+     * @param name - name of the piece such as (Q)
+     * @return - matching PROMOTE constant, PROMOTE_NONE if name is not a promotion piece
+     */
+    public static int promotionCode(String name) {
+        if (name.equals("(Q)")) return PROMOTE_QUEEN;
+        else if (name.equals("(R)")) return PROMOTE_ROOK;
+        else if (name.equals("(B)")) return PROMOTE_BISHOP;
+        else if (name.equals("(N)")) return PROMOTE_KNIGHT;
+        return PROMOTE_NONE;
+    }
+
+    /***
+     * converts a promotion code back to the piece name promote expects
+     * @param promotion - PROMOTE constant other than PROMOTE_NONE
+     * @return - name of the piece such as (Q)
+     */
+    public static String promotionName(int promotion) {
+        if (promotion == PROMOTE_ROOK) return "(R)";
+        else if (promotion == PROMOTE_BISHOP) return "(B)";
+        else if (promotion == PROMOTE_KNIGHT) return "(N)";
+        return "(Q)";
+    }
+
+    public void add(int move) {
+        add(move, 0);
+    }
+
+    /***
+     * @param move - packed move
+     * @param time - milliseconds since 1970 the move was made, 0 if it is not known
+     */
+    public void add(int move, long time) {
+        if (size == moves.length)
+        {
+            moves = Arrays.copyOf(moves, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        times[size] = time;
+        moves[size++] = (short) move;
+    }
+
+    /***
+     * @return - new history with the same moves, times, and start
+     */
+    public MoveHistory copy() {
+        MoveHistory copy = new MoveHistory();
+        copy.moves = Arrays.copyOf(moves, Math.max(64, size));
+        copy.times = Arrays.copyOf(times, Math.max(64, size));
+        copy.size = size;
+        copy.start = start;
+        return copy;
+    }
+
+    public void setStart(String fen) { this.start = fen; }
+
+    /***
+     * sets the promotion of the last move, chess promotions are chosen after the pawn has already moved
+     * @param promotion - one of the PROMOTE constants
+     */
+    public void setLastPromotion(int promotion) {
+        if (size > 0)
+            moves[size - 1] = (short) ((moves[size - 1] & 0xfff) | (promotion << 12));
+    }
+
+    public int get(int index) { return moves[index] & 0xffff; }
+    public long getTime(int index) { return times[index]; }
+    public String getStart() { return this.start; }
+    public int size() { return this.size; }
+}
@@ -1,10 +1,13 @@
 package BoardComponents;
 
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
 import java.awt.Graphics;
 
 import javax.swing.BorderFactory;
 import javax.swing.JComponent;
+import javax.swing.border.Border;
 
 import Information.Tag;
 
@@ -14,6 +17,23 @@ public class Position extends JComponent {
     //combined for border of legal moves
     public static final Color DARK_BORDER = new Color(223, 213, 206);
     public static final Color LIGHT_BORDER = new Color(68, 44, 27);
+    //borders are shared by every position, setBorder is a no-op when the same instance is passed in again
+    private static final Border EMPTY_BORDER = BorderFactory.createEmptyBorder();
+    private static final Border HIGHLIGHT_BORDER = BorderFactory.createEtchedBorder(LIGHT_BORDER, DARK_BORDER);
+    private static final Color HANGING_COLOR = new Color(240, 140, 0); //orange, apart from every board's check red
+    //indicies into SQUARE_COLORS, listed in the order paintComponent checks them
+    private static final int NORMAL = 0;
+    private static final int HIGHLIGHTED = 1;
+    private static final int SELECTED = 2;
+    private static final int CHECK = 3;
+    private static final int CHECKMATE = 4;
+    //every background a square can have, [colorSet][0 for dark, 1 for light][state], blended once here instead of on every paint
+    private static final Color[][][] SQUARE_COLORS = createSquareColors();
+    //square sizes the label offsets below were picked for, board squares and the 2x2 previews in settings
+    private static final int LABEL_BASE_SQUARE = SpriteCache.BASE_SQUARE;
+    private static final int PREVIEW_BASE_SQUARE = 25;
+    private static final String[] letters = {"A", "B", "C", "D", "E", "F", "G", "H"};
+    private static final String[] numbers = {"1", "2", "3", "4", "5", "6", "7", "8"};
 
     private int posX;
     private int posY;
@@ -26,9 +46,11 @@ public class Position extends JComponent {
     private boolean selected;
     private boolean check;
     private boolean checkmate;
+    private boolean hanging; //the other side wins material by taking the piece here
     private boolean enPassant; //this position can be taken with en passant
-    private String[] letters = {"A", "B", "C", "D", "E", "F", "G", "H"};
-    private String[] numbers = {"1", "2", "3", "4", "5", "6", "7", "8"};
+    private Font labelFont; //derived from the default font the first time this position is painted at a given size
+    private int labelFontWidth;
+    private Board renderer; //board painting this position when it uses the single layer renderer, null when this position is its own component
 
     public Position(int x, int y, boolean light, int fontSize, int colorSet) {
         setPosX(x);
@@ -39,7 +61,6 @@ public class Position extends JComponent {
         setDisplayPiece(false);
         setSelect(false);
         setCheck(false);
-        this.setBorder(BorderFactory.createEmptyBorder());
         enPassant = false;
         this.fontSize = fontSize;
     }
@@ -55,18 +76,61 @@ public class Position extends JComponent {
     public boolean isFree() { return (this.piece == null); }
     public boolean getEnPassant() { return (this.enPassant); }
     public boolean isCheck() { return this.check == true; }
+    public boolean isHanging() { return this.hanging; }
 
     // setters
     public void setPosX(int x) { this.posX = x; }
     public void setPosY(int y) { this.posY = y; }
     public void setShade(Boolean shade) { this.ligherShade = shade; }
-    public void setHighLight(Boolean highlighed) { this.highLight = highlighed; }
-    public void setSelect(boolean select) { this.selected = select; }
-    public void setCheck(boolean check) { this.check = check; }
-    public void setCheckmate(boolean checkmate) { this.checkmate = checkmate; }
-    public void setDisplayPiece(boolean display) { this.displayPiece = display; }
+    public void setHighLight(Boolean highlighed) {
+        if (this.highLight != highlighed)
+            markDirty();
+        this.highLight = highlighed;
+        this.setBorder(highlighed ? HIGHLIGHT_BORDER : EMPTY_BORDER);
+    }
+    public void setSelect(boolean select) {
+        if (this.selected != select)
+            markDirty();
+        this.selected = select;
+    }
+    public void setCheck(boolean check) {
+        if (this.check != check)
+            markDirty();
+        this.check = check;
+    }
+    public void setCheckmate(boolean checkmate) {
+        if (this.checkmate != checkmate)
+            markDirty();
+        this.checkmate = checkmate;
+    }
+    public void setHanging(boolean hanging) {
+        if (this.hanging != hanging)
+            markDirty();
+        this.hanging = hanging;
+    }
+    public void setDisplayPiece(boolean display) {
+        if (this.displayPiece != display)
+            markDirty();
+        this.displayPiece = display;
+    }
     public void setEnPassant(boolean passant) { this.enPassant = passant; }
 
+    /***
+     * marks only this position's bounds as needing to be repainted, Swing's RepaintManager merges every dirty position from the same event into one paint so the board never has to repaint all 64 squares after a move
+     */
+    private void markDirty() {
+        if (renderer != null)
+            renderer.repaintSquare(posX, posY);
+        else
+            repaint();
+    }
+
+    /***
+     * called by board when it switches to the single layer renderer, from then on changes to this position repaint that square of the board instead of this component
+     * @param board - board that paints this position
+     */
+    public void setRenderer(Board board) { this.renderer = board; }
+
 
     /***
      * sets piece at this position and displays piece
@@ -76,6 +140,7 @@ public class Position extends JComponent {
         this.piece = piece;
         setDisplayPiece(true);
         piece.setPosition(this);
+        markDirty(); //piece may be replaced without displayPiece changing, such as promotion
     }
 
     /***
@@ -97,7 +162,7 @@ public class Position extends JComponent {
      * @param ratio - weighted percent of c2 in returned color
      * @return - blended color based on above parameters
      */
-    public Color blend( Color c1, Color c2, float ratio ) {
+    public static Color blend( Color c1, Color c2, float ratio ) {
         if ( ratio > 1f ) ratio = 1f;
         else if ( ratio < 0f ) ratio = 0f;
         float iRatio = 1.0f - ratio;
@@ -123,64 +188,130 @@ public class Position extends JComponent {
         return new Color( a << 24 | r << 16 | g << 8 | b );
     }
 
+    /***
+     * builds every background color for every color set, called once when the class is loaded
+     * @return - colors indexed by [colorSet][0 for dark, 1 for light][NORMAL, HIGHLIGHTED, SELECTED, CHECK or CHECKMATE]
+     */
+    private static Color[][][] createSquareColors() {
+        Color[][][] colors = new Color[Tag.ColorChoice.length][2][5];
+        for (int i = 0; i < Tag.ColorChoice.length; i++)
+        {
+            Color[] choice = Tag.ColorChoice[i];
+            colors[i][1][NORMAL] = choice[1];
+            colors[i][1][HIGHLIGHTED] = choice[3];
+            colors[i][1][SELECTED] = blend(choice[1], choice[4], 0.3f);
+            colors[i][1][CHECK] = blend(choice[1], choice[5], 0.45f);
+            colors[i][1][CHECKMATE] = choice[5];
+            colors[i][0][NORMAL] = choice[0];
+            colors[i][0][HIGHLIGHTED] = choice[2];
+            colors[i][0][SELECTED] = blend(choice[0], choice[4], 0.3f);
+            colors[i][0][CHECK] = blend(choice[0], choice[5], (i == 3 ? 0.55f : 0.3f)); //red mixes really badly with the dark green so special check for if its green board
+            colors[i][0][CHECKMATE] = choice[5];
+        }
+        return colors;
+    }
+
+    /***
+     * picks which precomputed background this position needs, highlight takes priority over selected, check, and checkmate
+     * @return - NORMAL, HIGHLIGHTED, SELECTED, CHECK, or CHECKMATE
+     */
+    private int squareState() {
+        if (highLight) return HIGHLIGHTED;
+        else if (selected) return SELECTED;
+        else if (check) return CHECK;
+        else if (checkmate) return CHECKMATE;
+        else return NORMAL;
+    }
+
+    /***
+     * @return - true if this position is painted with anything other than its plain light or dark color
+     */
+    public boolean hasSquareState() { return squareState() != NORMAL; }
+
+    /***
+     * @return - plain light or dark color of this position, used by the single layer board to build its cached background
+     */
+    public Color getBaseColor() { return SQUARE_COLORS[colorSet][ligherShade ? 1 : 0][NORMAL]; }
+
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        paintSquare(g, this.getWidth(), this.getHeight(), true);
+    }
+
+    /***
+     * paints this position with its top left corner at 0, 0 of g, shared by paintComponent and the single layer board (which translates g to this square first)
+     * @param g - graphics to paint with
+     * @param width - width of the square
+     * @param height - height of the square
+     * @param background - true to always fill the square, false if a plain square and its labels have already been drawn underneath and only state colors and pieces are needed
+     */
+    public void paintSquare(Graphics g, int width, int height, boolean background) {
+        boolean filled = background || squareState() != NORMAL;
         // draw light or dark position
-        if(this.ligherShade) { 
-            if(highLight) g.setColor(Tag.ColorChoice[colorSet][3]);
-            else if (selected) g.setColor(blend(Tag.ColorChoice[colorSet][1], Tag.ColorChoice[colorSet][4], 0.3f));
-            else if (check) g.setColor(blend(Tag.ColorChoice[colorSet][1], Tag.ColorChoice[colorSet][5], 0.45f));
-            else if (checkmate) g.setColor(Tag.ColorChoice[colorSet][5]);
-            else g.setColor(Tag.ColorChoice[colorSet][1]);
-        } else {
-            if(highLight) g.setColor(Tag.ColorChoice[colorSet][2]);
-            else if (selected) g.setColor(blend(Tag.ColorChoice[colorSet][0], Tag.ColorChoice[colorSet][4], 0.3f));
-            else if (check) g.setColor(blend(Tag.ColorChoice[colorSet][0], Tag.ColorChoice[colorSet][5], (colorSet == 3 ? 0.55f : 0.3f))); //red mixes really badly with the dark green so special check for if its green board
-            else if (checkmate) g.setColor(Tag.ColorChoice[colorSet][5]);
-            else g.setColor(Tag.ColorChoice[colorSet][0]);
+        if (filled)
+        {
+            g.setColor(SQUARE_COLORS[colorSet][ligherShade ? 1 : 0][squareState()]);
+            g.fillRect(0, 0, width, height);
         }
-        /*
-        if(this.ligherShade) { 
-            if(highLight) this.setBackground(Tag.ColorChoice[colorSet][3]);
-            else if (selected) this.setBackground(blend(Tag.ColorChoice[colorSet][1], Tag.ColorChoice[colorSet][4], 0.3f));
-            else if (check) this.setBackground(blend(Tag.ColorChoice[colorSet][1], Tag.ColorChoice[colorSet][5], 0.45f));
-            else if (checkmate) this.setBackground(Tag.ColorChoice[colorSet][5]);
-            else this.setBackground(Tag.ColorChoice[colorSet][1]);
-        } else {
-            if(highLight) this.setBackground(Tag.ColorChoice[colorSet][2]);
-            else if (selected) this.setBackground(blend(Tag.ColorChoice[colorSet][0], Tag.ColorChoice[colorSet][4], 0.3f));
-            else if (check) this.setBackground(blend(Tag.ColorChoice[colorSet][0], Tag.ColorChoice[colorSet][5], (colorSet == 2 ? 0.55f : 0.3f))); //red mixes really badly with the dark green so special check for if its green board
-            else if (checkmate) this.setBackground(Tag.ColorChoice[colorSet][5]);
-            else this.setBackground(Tag.ColorChoice[colorSet][0]);
+        // display piece if it is at current position
+        boolean drawn = this.piece != null && displayPiece;
+        if (drawn)
+        {
+            piece.draw(g, Math.min(width, height));
+            if (hanging) //dot in the top right corner, clear of the coordinate labels
+            {
+                int dot = Math.max(4, width / 6);
+                g.setColor(HANGING_COLOR);
+                g.fillOval(width - dot - width / 16, width / 16, dot, dot);
+                g.setColor(LIGHT_BORDER);
+                g.drawOval(width - dot - width / 16, width / 16, dot, dot);
+            }
         }
-        */
-
-        // highlight position
-        if(highLight) this.setBorder(BorderFactory.createEtchedBorder(LIGHT_BORDER, DARK_BORDER));
-        else this.setBorder(BorderFactory.createEmptyBorder());
+        if (filled || drawn) //labels go on top of the piece, a plain empty square already shows them from the background
+            paintLabels(g, width);
+    }
 
-        g.fillRect(0, 0, this.getWidth(), this.getHeight());
-        //this.setBackground(g.getColor());
-        // display piece if it is at current position
-        if(this.piece != null && displayPiece)
-            piece.draw(g);
+    /***
+     * draws the coordinate letter along the bottom row and number along the left column, offsets and font are scaled from the size the board was designed for
+     * @param g - graphics to paint with, top left corner at 0, 0 of this square
+     * @param width - width of the square
+     */
+    public void paintLabels(Graphics g, int width) {
+        if (this.posY != 7 && this.posX != 0)
+            return;
+        float scale = width / (float) (fontSize == 20 ? LABEL_BASE_SQUARE : PREVIEW_BASE_SQUARE);
+        if (labelFont == null || labelFontWidth != width)
+        {
+            labelFont = g.getFont().deriveFont(fontSize * scale);
+            labelFontWidth = width;
+        }
+        g.setColor(Tag.ColorChoice[colorSet][8]);
+        g.setFont(labelFont);
         if (this.posY == 7)
         {
-            g.setColor(Tag.ColorChoice[colorSet][8]);
-            g.setFont(g.getFont().deriveFont((float) fontSize));
             if (fontSize == 20)
-                g.drawString(letters[posX], 65, 74);
+                g.drawString(letters[posX], Math.round(65 * scale), Math.round(74 * scale));
             else
-                g.drawString(letters[posX], 15, 21);
+                g.drawString(letters[posX], Math.round(15 * scale), Math.round(21 * scale));
         }
         if (this.posX == 0)
         {
-            g.setColor(Tag.ColorChoice[colorSet][8]);
-            g.setFont(g.getFont().deriveFont((float) fontSize));
             if (fontSize == 20)
-                g.drawString(numbers[7 - posY], 4, 22);
+                g.drawString(numbers[7 - posY], Math.round(4 * scale), Math.round(22 * scale));
             else
-                g.drawString(numbers[7 - posY], 1, 10);
+                g.drawString(numbers[7 - posY], Math.round(1 * scale), Math.round(10 * scale));
         }
     }
+
+    /***
+     * paints the etched highlight border, only needed by the single layer board since a displayed position paints its own border
+     * @param c - component being painted
+     * @param g - graphics to paint with, top left corner at 0, 0 of this square
+     * @param width - width of the square
+     * @param height - height of the square
+     */
+    public void paintHighlightBorder(Component c, Graphics g, int width, int height) {
+        if (highLight)
+            HIGHLIGHT_BORDER.paintBorder(c, g, 0, 0, width, height);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+package BoardComponents;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.Window;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import Information.Tag;
+
+/***
+ * loads every piece image once and keeps copies of them pre-scaled to the size of the board's squares, so pieces are always drawn at native resolution without scaling during paint
+ * scaled copies are grouped into buckets by square size in device pixels and built on a background thread whenever the board is resized
+ */
+public class SpriteCache {
+    //square size the original images were made for, 75 pixel images in 85 pixel squares
+    public static final int BASE_SQUARE = Tag.IMAGE_WIDTH + 10;
+    //squares are rounded to a multiple of this many pixels so that dragging the window does not build a new bucket every pixel
+    private static final int BUCKET_STEP = 4;
+    //most buckets kept at once, the one farthest from the newest bucket is dropped when there are more
+    private static final int MAX_BUCKETS = 3;
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    private static final Map<String, BufferedImage> originals = new ConcurrentHashMap<String, BufferedImage>();
+    private static final Map<Integer, Map<String, BufferedImage>> buckets = new ConcurrentHashMap<Integer, Map<String, BufferedImage>>();
+    private static final Map<Integer, Boolean> pending = new ConcurrentHashMap<Integer, Boolean>();
+    private static volatile int latestBucket = BASE_SQUARE;
+    private static final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Sprite cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SpriteCache() { }
+
+    /***
+     * loads an image the first time it is asked for, every piece using the same file shares one image
+     * @param imageFileName - path of the image, from Tag
+     * @return - the image at its original size, or null if it could not be read
+     */
+    public static BufferedImage getOriginal(String imageFileName) {
+        BufferedImage image = originals.get(imageFileName);
+        if (image == null)
+        {
+            image = readImage(imageFileName);
+            if (image != null)
+                originals.put(imageFileName, image);
+        }
+        return image;
+    }
+
+    private static BufferedImage readImage(String imageFileName) {
+        try { return ImageIO.read(new File(imageFileName)); //try catch because different java versions require different paths to find and render image
+        }
+        catch (IOException e) {
+            try {
+                return ImageIO.read(new File("VoiceControlChess\\" + imageFileName));
+            } catch (IOException a) { a.printStackTrace(); }
+        }
+        return null;
+    }
+
+    /***
+     * rounds a square size to the bucket its sprites are stored in, the original size is its own bucket so the default board uses the images untouched
+     * @param squarePixels - width of a square in device pixels
+     * @return - bucket for that square size
+     */
+    public static int bucket(int squarePixels) {
+        if (squarePixels == BASE_SQUARE)
+            return BASE_SQUARE;
+        return Math.max(BUCKET_STEP, Math.round(squarePixels / (float) BUCKET_STEP) * BUCKET_STEP);
+    }
+
+    /***
+     * starts building sprites for a square size in the background if they are not already built, called by board when it is resized
+     * @param squarePixels - width of a square in device pixels
+     * @param config - configuration of the screen the board is on, used to create images in its native format, may be null
+     */
+    public static void prepare(int squarePixels, GraphicsConfiguration config) {
+        final int size = bucket(squarePixels);
+        latestBucket = size;
+        if (size == BASE_SQUARE || (buckets.containsKey(size) && buckets.get(size).size() == originals.size()))
+            return;
+        if (pending.putIfAbsent(size, Boolean.TRUE) != null)
+            return;
+        builder.execute(() -> {
+            try {
+                if (size == latestBucket) //skip sizes the window was dragged through before this one started
+                    buildBucket(size, config);
+            }
+            finally {
+                pending.remove(size);
+            }
+        });
+    }
+
+    /***
+     * scales every loaded image for one bucket and publishes them together, then repaints so boards pick them up
+     */
+    private static void buildBucket(int size, GraphicsConfiguration config) {
+        Map<String, BufferedImage> existing = buckets.get(size);
+        Map<String, BufferedImage> built = new ConcurrentHashMap<String, BufferedImage>();
+        if (existing != null)
+            built.putAll(existing);
+        for (Map.Entry<String, BufferedImage> original : originals.entrySet())
+        {
+            if (!built.containsKey(original.getKey()))
+                built.put(original.getKey(), scale(original.getValue(), size, config));
+        }
+        buckets.put(size, built);
+        evictBuckets(size);
+        SwingUtilities.invokeLater(() -> {
+            for (Window window : Window.getWindows())
+                window.repaint();
+        });
+    }
+
+    private static void evictBuckets(int newest) {
+        while (buckets.size() > MAX_BUCKETS)
+        {
+            int farthest = newest;
+            for (int size : buckets.keySet())
+            {
+                if (Math.abs(size - newest) > Math.abs(farthest - newest))
+                    farthest = size;
+            }
+            buckets.remove(farthest);
+        }
+    }
+
+    /***
+     * scales an image for a square size, shrinking by halves first so large reductions keep their quality
+     * @param image - original image
+     * @param size - bucket the image is being scaled for
+     * @param config - screen configuration to create a compatible image for, may be null
+     * @return - image scaled by size / BASE_SQUARE
+     */
+    private static BufferedImage scale(BufferedImage image, int size, GraphicsConfiguration config) {
+        int targetWidth = Math.max(1, Math.round(image.getWidth() * size / (float) BASE_SQUARE));
+        int targetHeight = Math.max(1, Math.round(image.getHeight() * size / (float) BASE_SQUARE));
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight)
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2, null);
+        return resize(current, targetWidth, targetHeight, config);
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height, GraphicsConfiguration config) {
+        BufferedImage resized = (config != null) ? config.createCompatibleImage(width, height, Transparency.TRANSLUCENT) : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = resized.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return resized;
+    }
+
+    /***
+     * finds the closest built sprite for a bucket, falls back to the original until the bucket is ready
+     */
+    private static BufferedImage lookup(String imageFileName, int size) {
+        Map<String, BufferedImage> bucket = buckets.get(size);
+        if (bucket != null && bucket.containsKey(imageFileName))
+            return bucket.get(imageFileName);
+        BufferedImage closest = getOriginal(imageFileName);
+        int closestSize = BASE_SQUARE;
+        for (Map.Entry<Integer, Map<String, BufferedImage>> entry : buckets.entrySet())
+        {
+            BufferedImage image = entry.getValue().get(imageFileName);
+            if (image != null && Math.abs(entry.getKey() - size) < Math.abs(closestSize - size))
+            {
+                closest = image;
+                closestSize = entry.getKey();
+            }
+        }
+        return closest;
+    }
+
+    /***
+     * draws a piece image inside a square, called by pieces from draw
+     * @param g - graphics with its origin at the top left of the square
+     * @param imageFileName - image to draw
+     * @param offsetX - x offset of the image inside a BASE_SQUARE sized square, scaled with the square
+     * @param offsetY - y offset of the image inside a BASE_SQUARE sized square, scaled with the square
+     * @param squareSize - width of the square being drawn in
+     */
+    public static void draw(Graphics g, String imageFileName, int offsetX, int offsetY, int squareSize) {
+        Graphics2D g2 = (Graphics2D) g;
+        double deviceScale = g2.getTransform().getScaleX();
+        int deviceSquare = (int) Math.round(squareSize * deviceScale);
+        int size = bucket(deviceSquare);
+        BufferedImage image = lookup(imageFileName, size);
+        if (image == null)
+            return;
+        BufferedImage original = getOriginal(imageFileName);
+        if (image != original || size != BASE_SQUARE)
+        {
+            if (!buckets.containsKey(size) || !buckets.get(size).containsKey(imageFileName))
+                prepare(deviceSquare, g2.getDeviceConfiguration());
+        }
+        //keep the image centered where the correctly sized sprite goes if its bucket is not built yet
+        double expectedWidth = original.getWidth() * deviceSquare / (double) BASE_SQUARE;
+        double expectedHeight = original.getHeight() * deviceSquare / (double) BASE_SQUARE;
+        double x = (offsetX * deviceSquare / (double) BASE_SQUARE + (expectedWidth - image.getWidth()) / 2) / deviceScale;
+        double y = (offsetY * deviceSquare / (double) BASE_SQUARE + (expectedHeight - image.getHeight()) / 2) / deviceScale;
+        drawDeviceImage(g2, image, x, y);
+    }
+
+    /***
+     * draws an image one image pixel to one screen pixel, on scaled (HiDPI) screens the transform is removed for the draw so the image is not resampled
+     * @param g2 - graphics to draw with
+     * @param image - image already sized in device pixels
+     * @param x - x coordinate in the graphics' own (unscaled) coordinates
+     * @param y - y coordinate in the graphics' own (unscaled) coordinates
+     */
+    public static void drawDeviceImage(Graphics2D g2, BufferedImage image, double x, double y) {
+        AffineTransform transform = g2.getTransform();
+        if (transform.getScaleX() == 1 && transform.getScaleY() == 1 && transform.getShearX() == 0 && transform.getShearY() == 0)
+        {
+            g2.drawImage(image, (int) Math.round(x), (int) Math.round(y), null);
+            return;
+        }
+        int deviceX = (int) Math.round(transform.getTranslateX() + x * transform.getScaleX());
+        int deviceY = (int) Math.round(transform.getTranslateY() + y * transform.getScaleY());
+        g2.setTransform(IDENTITY);
+        g2.drawImage(image, deviceX, deviceY, null);
+        g2.setTransform(transform);
+    }
+}
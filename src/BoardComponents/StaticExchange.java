@@ -0,0 +1,203 @@
+package BoardComponents;
+
+import java.util.Arrays;
+
+/***
+ * static exchange evaluation: what a capture wins once every piece that can take on its square has taken, least valuable first, while taking again still pays
+ * sets of squares are longs with bit y * 8 + x set, a piece taking lets the sliders lined up behind it attack through its square (x-rays)
+ * nothing is allocated after the class is loaded, pins are not seen
+ */
+public class StaticExchange {
+    public static final int MAX_SWAPS = 33; //length of the gains array see needs, one capture for each of 32 pieces and the start
+    //by piece code without color, the king's value is never gained since it is never taken
+    private static final int[] VALUES = {0, 100, 320, 330, 500, 900, 0};
+    //piece code made by each promotion code
+    private static final int[] PROMOTED = {ChessPosition.PAWN, ChessPosition.KNIGHT, ChessPosition.BISHOP, ChessPosition.ROOK, ChessPosition.QUEEN};
+
+    //squares a piece of each kind attacks the square from, indexed by the square attacked
+    private static final long[] KNIGHT_FROM = new long[64];
+    private static final long[] KING_FROM = new long[64];
+    private static final long[] WHITE_PAWN_FROM = new long[64];
+    private static final long[] BLACK_PAWN_FROM = new long[64];
+    //squares outward from each square in each direction, lines then diagonals, nearest first
+    private static final int[][][] RAYS = new int[64][8][];
+    private static final byte[][] DIRECTION_TO = new byte[64][64]; //index into RAYS of the ray from the first square through the second, -1 if not on one
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}}; //{y, x}
+    private static final int[][] KNIGHT = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+
+    static {
+        for (int square = 0; square < 64; square++)
+        {
+            int y = square / 8;
+            int x = square % 8;
+            for (int[] step : KNIGHT)
+                KNIGHT_FROM[square] |= bit(y + step[0], x + step[1]);
+            for (int d = 0; d < 8; d++)
+            {
+                KING_FROM[square] |= bit(y + DIRECTIONS[d][0], x + DIRECTIONS[d][1]);
+                int length = 0;
+                while (bit(y + DIRECTIONS[d][0] * (length + 1), x + DIRECTIONS[d][1] * (length + 1)) != 0)
+                    length++;
+                RAYS[square][d] = new int[length];
+                for (int i = 0; i < length; i++)
+                    RAYS[square][d][i] = (y + DIRECTIONS[d][0] * (i + 1)) * 8 + x + DIRECTIONS[d][1] * (i + 1);
+            }
+            Arrays.fill(DIRECTION_TO[square], (byte) -1);
+            for (int d = 0; d < 8; d++)
+            {
+                for (int to : RAYS[square][d])
+                    DIRECTION_TO[square][to] = (byte) d;
+            }
+            //white pawns attack towards y = 0 so they sit below the square, black pawns above
+            WHITE_PAWN_FROM[square] = bit(y + 1, x - 1) | bit(y + 1, x + 1);
+            BLACK_PAWN_FROM[square] = bit(y - 1, x - 1) | bit(y - 1, x + 1);
+        }
+    }
+
+    private StaticExchange() { }
+
+    /***
+     * @param position - position the pieces are read from
+     * @param square - square attacked
+     * @param occupied - squares still holding a piece, a piece whose square is left out neither attacks nor blocks, so taking it out shows what attacks through it
+     * @return - set of the squares of every piece of either color in occupied that attacks square
+     */
+    public static long attackersTo(ChessPosition position, int square, long occupied) {
+        long attackers = matching(position, KNIGHT_FROM[square] & occupied, ChessPosition.KNIGHT) | matching(position, KING_FROM[square] & occupied, ChessPosition.KING);
+        long pawns = matching(position, (WHITE_PAWN_FROM[square] | BLACK_PAWN_FROM[square]) & occupied, ChessPosition.PAWN);
+        for (long rest = pawns; rest != 0; rest &= rest - 1)
+        {
+            int from = Long.numberOfTrailingZeros(rest);
+            boolean black = (position.getPiece(from) & ChessPosition.BLACK) != 0;
+            if ((((black ? BLACK_PAWN_FROM : WHITE_PAWN_FROM)[square] >>> from) & 1) != 0) //a pawn only attacks forward
+                attackers |= 1L << from;
+        }
+        for (int d = 0; d < 8; d++)
+            attackers |= sliderOnRay(position, square, d, 0, occupied);
+        return attackers;
+    }
+
+    /***
+     * @param start - index on the ray to start looking from
+     * @return - the square of the first piece on the ray from start on as a set, if it slides along the ray, otherwise 0
+     */
+    private static long sliderOnRay(ChessPosition position, int square, int d, int start, long occupied) {
+        int[] ray = RAYS[square][d];
+        for (int i = start; i < ray.length; i++)
+        {
+            int from = ray[i];
+            if ((occupied & (1L << from)) == 0)
+                continue;
+            int type = position.getPiece(from) & 7;
+            if (type == ChessPosition.QUEEN || type == ((d < 4) ? ChessPosition.ROOK : ChessPosition.BISHOP))
+                return 1L << from;
+            return 0; //the first piece on the ray blocks the rest
+        }
+        return 0;
+    }
+
+    /***
+     * @return - attackers without the piece on removed, and with any slider behind it on the same ray that now attacks through its square
+     */
+    private static long withoutAttacker(ChessPosition position, int square, long attackers, int removed, long occupied) {
+        attackers &= ~(1L << removed);
+        int d = DIRECTION_TO[square][removed];
+        if (d < 0)
+            return attackers;
+        int distance = Math.max(Math.abs(removed / 8 - square / 8), Math.abs(removed % 8 - square % 8));
+        return attackers | sliderOnRay(position, square, d, distance, occupied); //the ray starts next to square, so index distance is just past removed
+    }
+
+    /***
+     * @param position - position before the move
+     * @param move - capture or promotion, packed as in MoveHistory, a quiet move is scored as the exchange after moving to the square
+     * @param gains - scratch array at least MAX_SWAPS long
+     * @return - material the side making the move wins, in centipawns, negative if it loses material
+     */
+    public static int see(ChessPosition position, int move, int[] gains) {
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        int mover = position.getPiece(from);
+        int victim = position.getPiece(to);
+        long occupied = position.getOccupied() & ~(1L << from);
+        if ((mover & 7) == ChessPosition.PAWN && victim == ChessPosition.EMPTY && to == position.getEnPassant())
+        {
+            victim = ChessPosition.PAWN;
+            occupied &= ~(1L << position.getEnPassantPawnSquare());
+        }
+        gains[0] = VALUES[victim & 7];
+        int onSquare = VALUES[mover & 7];
+        int promotion = MoveHistory.getPromotion(move);
+        if (promotion != MoveHistory.PROMOTE_NONE)
+        {
+            onSquare = VALUES[PROMOTED[promotion]];
+            gains[0] += onSquare - VALUES[ChessPosition.PAWN];
+        }
+        boolean black = (mover & ChessPosition.BLACK) != 0;
+        long attackers = attackersTo(position, to, occupied);
+        int d = 0;
+        while (d < MAX_SWAPS - 1)
+        {
+            black = !black;
+            int next = leastValuable(position, attackers, black);
+            if (next == ChessPosition.NO_SQUARE)
+                break;
+            int type = position.getPiece(next) & 7;
+            if (type == ChessPosition.KING && leastValuable(position, attackers, !black) != ChessPosition.NO_SQUARE) //the king can not take a defended piece
+                break;
+            d++;
+            gains[d] = onSquare - gains[d - 1]; //what this side has if the exchange stops after it takes
+            onSquare = VALUES[type];
+            if (type == ChessPosition.PAWN && (to < 8 || to >= 56))
+            {
+                onSquare = VALUES[ChessPosition.QUEEN];
+                gains[d] += onSquare - VALUES[ChessPosition.PAWN];
+            }
+            if (gains[d] < -gains[d - 1]) //even if nothing takes back this side does better to stop before taking, so nothing later matters
+                break;
+            occupied &= ~(1L << next);
+            attackers = withoutAttacker(position, to, attackers, next, occupied);
+        }
+        for (; d > 0; d--) //each side takes only if it does better than stopping
+            gains[d - 1] = -Math.max(-gains[d - 1], gains[d]);
+        return gains[0];
+    }
+
+    /***
+     * @return - square of the least valuable piece of the color in the set, NO_SQUARE if none
+     */
+    private static int leastValuable(ChessPosition position, long set, boolean black) {
+        int best = ChessPosition.NO_SQUARE;
+        int bestType = 7;
+        int color = black ? ChessPosition.BLACK : 0;
+        for (long rest = set; rest != 0; rest &= rest - 1)
+        {
+            int square = Long.numberOfTrailingZeros(rest);
+            int piece = position.getPiece(square);
+            if ((piece & ChessPosition.BLACK) == color && (piece & 7) < bestType)
+            {
+                best = square;
+                bestType = piece & 7;
+            }
+        }
+        return best;
+    }
+
+    /***
+     * @return - the squares of the set holding a piece of the type, either color
+     */
+    private static long matching(ChessPosition position, long set, int type) {
+        long found = 0;
+        for (long rest = set; rest != 0; rest &= rest - 1)
+        {
+            int square = Long.numberOfTrailingZeros(rest);
+            if ((position.getPiece(square) & 7) == type)
+                found |= 1L << square;
+        }
+        return found;
+    }
+
+    private static long bit(int y, int x) {
+        return (y >= 0 && y < 8 && x >= 0 && x < 8) ? 1L << (y * 8 + x) : 0;
+    }
+}
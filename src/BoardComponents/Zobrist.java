@@ -0,0 +1,101 @@
+package BoardComponents;
+
+/***
+ * 64 bit hashes of chess positions, the same position always gets the same hash however it was reached, in this run of the program and in any other
+ * a hash is the XOR of a fixed random key for each piece on its square, the side to move, each castling right, and the en passant file
+ * the keys come from a fixed seed so hashes written to disk stay valid
+ */
+public class Zobrist {
+    private static final long[][] PIECES = new long[16][64]; //[piece code][square], codes without a piece are never used
+    private static final long[] CASTLING = new long[16]; //one key per set of castling rights
+    private static final long[] EN_PASSANT = new long[8]; //by file
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x5643434843455353L; //"VCCHCESS"
+        for (int code = 0; code < 16; code++)
+        {
+            for (int square = 0; square < 64; square++)
+            {
+                seed = next(seed);
+                PIECES[code][square] = mix(seed);
+            }
+        }
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++)
+        {
+            seed = next(seed);
+            rights[i] = mix(seed);
+        }
+        for (int set = 0; set < 16; set++)
+        {
+            for (int i = 0; i < rights.length; i++)
+            {
+                if ((set & (1 << i)) != 0)
+                    CASTLING[set] ^= rights[i];
+            }
+        }
+        for (int file = 0; file < 8; file++)
+        {
+            seed = next(seed);
+            EN_PASSANT[file] = mix(seed);
+        }
+        seed = next(seed);
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() { }
+
+    private static long next(long seed) {
+        return seed + 0x9e3779b97f4a7c15L;
+    }
+
+    /***
+     * splitmix64 finalizer, spreads the bits of an evenly spaced seed over the whole key
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /***
+     * @param position - position to hash
+     * @return - hash of the pieces, side to move, castling rights, and the en passant file when a pawn can take en passant, the move counters are left out
+     */
+    public static long hash(ChessPosition position) {
+        long hash = 0;
+        for (int square = 0; square < 64; square++)
+        {
+            int piece = position.getPiece(square);
+            if (piece != ChessPosition.EMPTY)
+                hash ^= PIECES[piece][square];
+        }
+        if (!position.isWhiteToMove())
+            hash ^= BLACK_TO_MOVE;
+        hash ^= CASTLING[position.getCastling()];
+        if (canTakeEnPassant(position))
+            hash ^= EN_PASSANT[position.getEnPassant() % 8];
+        return hash;
+    }
+
+    // keys, for code that keeps a hash up to date move by move
+    public static long piece(int code, int square) { return PIECES[code][square]; }
+    public static long castling(int rights) { return CASTLING[rights]; }
+    public static long enPassant(int file) { return EN_PASSANT[file]; }
+    public static long blackToMove() { return BLACK_TO_MOVE; }
+
+    /***
+     * a pawn that just moved two squares only changes the position when a pawn of the other side stands beside it,
+     * otherwise the same position reached without the double step would get a different hash
+     * @return - true if a pawn of the side to move is next to the pawn that can be taken en passant
+     */
+    public static boolean canTakeEnPassant(ChessPosition position) {
+        int pawnSquare = position.getEnPassantPawnSquare();
+        if (pawnSquare == ChessPosition.NO_SQUARE)
+            return false;
+        int pawn = ChessPosition.PAWN | (position.isWhiteToMove() ? 0 : ChessPosition.BLACK);
+        int file = pawnSquare % 8;
+        return (file > 0 && position.getPiece(pawnSquare - 1) == pawn) || (file < 7 && position.getPiece(pawnSquare + 1) == pawn);
+    }
+}
@@ -0,0 +1,191 @@
+package Engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.MoveHistory;
+import BoardComponents.Zobrist;
+
+import Notation.San;
+
+/***
+ * analyses a position until it is given another: a search with no limits on its own thread finds the best few lines, deeper each iteration,
+ * each finished iteration is published as an Analysis that can be read from any thread at any time without waiting, the event dispatch thread polls it as often as it wants to redraw
+ * the transposition table is kept from position to position, so after a move most of what was found about the line played is still there
+ */
+public class Analyzer {
+    public static final int DEFAULT_LINES = 3;
+    private static final SearchLimits NO_LIMITS = new SearchLimits(0, 0, 0); //until the position changes
+    private static final long SHUTDOWN_MILLIS = 100;
+
+    private final ExecutorService analyst = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Chess analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ParallelSearch search;
+    private final AtomicReference<Analysis> latest = new AtomicReference<>();
+    private volatile int generation; //counts up on every new position and stop, an iteration from an older generation is not published
+
+    /***
+     * what is known about the position being analysed, never changed once published
+     */
+    public static class Analysis {
+        private final int generation;
+        private final long hash;
+        private final boolean whiteToMove;
+        private final Search.Result result;
+        private final String[][] moves;
+
+        Analysis(int generation, long hash, boolean whiteToMove, Search.Result result, String[][] moves) {
+            this.generation = generation;
+            this.hash = hash;
+            this.whiteToMove = whiteToMove;
+            this.result = result;
+            this.moves = moves;
+        }
+
+        // getters
+        public long getHash() { return this.hash; }
+        public boolean isWhiteToMove() { return this.whiteToMove; }
+
+        /***
+         * @return - the last finished iteration, null before the first, its move is 0 if the position has no legal moves
+         */
+        public Search.Result getResult() { return this.result; }
+
+        /***
+         * @param line - index into the result's lines
+         * @return - the line's moves in SAN
+         */
+        public String[] getMoves(int line) { return this.moves[line]; }
+
+        /***
+         * @param line - index into the result's lines
+         * @return - the line's score from white's side, as chess programs show it
+         */
+        public int getWhiteScore(int line) {
+            int score = result.getLines()[line].getScore();
+            return whiteToMove ? score : -score;
+        }
+    }
+
+    /***
+     * @param lines - best lines to find
+     */
+    public Analyzer(int lines) {
+        this(lines, EnginePlayer.DEFAULT_TABLE_MEGABYTES, Runtime.getRuntime().availableProcessors());
+    }
+
+    /***
+     * @param lines - best lines to find
+     * @param tableMegabytes - size of the transposition table, kept for every position analysed
+     * @param threads - threads searching
+     */
+    public Analyzer(int lines, int tableMegabytes, int threads) {
+        search = new ParallelSearch(new TranspositionTable(tableMegabytes), threads);
+        search.setMultiPv(lines);
+    }
+
+    /***
+     * stops analysing the last position and starts on this one
+     * @param position - position to analyse, copied before this returns
+     * @param history - moves of the game so far, used to see repetitions, copied before this returns
+     */
+    public void analyze(ChessPosition position, MoveHistory history) {
+        ChessPosition root = new ChessPosition();
+        Search.copy(position, root);
+        MoveHistory moves = history.copy();
+        int analyzing = stop();
+        long hash = Zobrist.hash(root);
+        latest.set(new Analysis(analyzing, hash, root.isWhiteToMove(), null, new String[0][]));
+        analyst.execute(() -> {
+            if (analyzing != generation)
+                return;
+            ChessPosition scratch = new ChessPosition();
+            try {
+                Search.Result last = search.search(root, EnginePlayer.gameHashes(moves), NO_LIMITS,
+                    result -> publish(new Analysis(analyzing, hash, root.isWhiteToMove(), result, san(root, result, scratch))), () -> analyzing != generation);
+                if (last.getMove() == 0) //no legal moves, there was no iteration to publish
+                    publish(new Analysis(analyzing, hash, root.isWhiteToMove(), last, new String[0][]));
+            } catch (RuntimeException error) {
+                System.out.println("Analysis search failed");
+                error.printStackTrace();
+            }
+        });
+    }
+
+    /***
+     * @return - the latest analysis, of the last position given to analyze, null if stopped
+     */
+    public Analysis getAnalysis() {
+        return latest.get();
+    }
+
+    /***
+     * stops analysing, the table is kept for the next position
+     * @return - the new generation
+     */
+    public synchronized int stop() {
+        generation++;
+        search.stop();
+        latest.set(null); //after the generation changes, so an older iteration being published is either replaced or sees it changed
+        return generation;
+    }
+
+    /***
+     * stops analysing and ends the analysis threads, waiting a little for them, safe to call more than once
+     * @return - true if every thread has ended
+     */
+    public boolean shutdown() {
+        stop();
+        analyst.shutdownNow();
+        search.shutdown();
+        try {
+            return analyst.awaitTermination(SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS) && search.awaitTermination(SHUTDOWN_MILLIS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /***
+     * replaces the latest analysis if it is of the same generation, so an iteration finishing just as the position changes can not replace the new position's analysis
+     */
+    private void publish(Analysis analysis) {
+        Analysis current;
+        do
+        {
+            current = latest.get();
+            if (current == null || current.generation != analysis.generation)
+                return;
+        } while (!latest.compareAndSet(current, analysis));
+    }
+
+    /***
+     * writes each line of a result in SAN, here on the analysis thread so the event dispatch thread only has to show it
+     * @param scratch - position to play the lines out on
+     */
+    private static String[][] san(ChessPosition root, Search.Result result, ChessPosition scratch) {
+        int[] list = new int[MoveGenerator.MAX_MOVES];
+        Search.Line[] lines = result.getLines();
+        String[][] moves = new String[lines.length][];
+        for (int line = 0; line < lines.length; line++)
+        {
+            int[] pv = lines[line].getPv();
+            Search.copy(root, scratch);
+            moves[line] = new String[pv.length];
+            for (int i = 0; i < pv.length; i++)
+            {
+                moves[line][i] = San.toSan(scratch, pv[i], list);
+                scratch.applyMove(pv[i]);
+            }
+        }
+        return moves;
+    }
+}
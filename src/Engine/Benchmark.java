@@ -0,0 +1,209 @@
+package Engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+
+import Notation.Fen;
+
+/***
+ * measures the search on a fixed suite of positions, each searched to the same depth with a fresh table
+ * by default it shows how the parallel search scales: the time to reach the depth, nodes per second, and the speedup over one thread for 1, 2, 4, ... threads
+ * with "ordering" it shows what move ordering saves: nodes to each depth and the branching factor with and without MVV-LVA, killers and history
+ * with "network" it compares how fast the handcrafted and the neural evaluations score positions, alone and in the search
+ */
+public class Benchmark {
+    //middlegame and endgame positions, quiet and tactical
+    private static final String[] SUITE = {
+        Fen.START,
+        "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r2q1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 9",
+        "2rr2k1/1p3pp1/p3pn1p/4q3/2P1N3/1P4P1/P3QP1P/3RR1K1 w - - 0 24",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "8/k7/3p4/p2P1p2/P2P1P2/8/8/K7 w - - 0 1",
+        "4r1k1/pp3ppp/2p5/8/2P1n3/1P2B3/P4PPP/3R2K1 b - - 0 22"};
+
+    private Benchmark() { }
+
+    /***
+     * @param args - [most threads, default all cores] [depth, default 7] [table megabytes, default 64], or ordering [depth] [table megabytes],
+     * or network [network file, default random weights] [nodes searched in each position, default 100000]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("network"))
+        {
+            long nodes = (args.length > 2) ? Long.parseLong(args[2]) : 100000;
+            networkReport((args.length > 1) ? Paths.get(args[1]) : null, nodes);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("ordering"))
+        {
+            int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 7;
+            int megabytes = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+            orderingReport(depth, megabytes);
+            return;
+        }
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 7;
+        int megabytes = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+        System.out.printf("%d positions to depth %d, %d MB table%n", SUITE.length, depth, megabytes);
+        System.out.printf("%7s %10s %12s %10s %8s%n", "threads", "time ms", "nodes", "knps", "speedup");
+        run(1, depth, megabytes); //warms up the JIT so the first row is not slowed by it
+        long oneThread = 0;
+        for (int threads = 1; threads <= maxThreads; threads = (threads == maxThreads) ? threads + 1 : Math.min(threads * 2, maxThreads))
+        {
+            long[] measured = run(threads, depth, megabytes);
+            if (threads == 1)
+                oneThread = measured[0];
+            System.out.printf("%7d %10d %12d %10d %8.2f%n", threads, measured[0] / 1000000, measured[1],
+                measured[1] * 1000000 / Math.max(1, measured[0]), (double) oneThread / Math.max(1, measured[0]));
+        }
+    }
+
+    /***
+     * prints nodes to each depth summed over the suite and the effective branching factor, the nodes of one depth over those of the depth before,
+     * first with captures ordered only by the table's move, then with the full ordering
+     */
+    private static void orderingReport(int depth, int megabytes) {
+        System.out.printf("%d positions to depth %d, %d MB table, one thread%n", SUITE.length, depth, megabytes);
+        long[][] nodesTo = new long[2][depth + 1];
+        String[] summaries = new String[2];
+        for (int pass = 0; pass < 2; pass++)
+        {
+            TranspositionTable table = new TranspositionTable(megabytes);
+            Search search = new Search(table);
+            search.setOrdering(pass == 1);
+            long[] totals = nodesTo[pass];
+            long cutoffs = 0;
+            long firstMoveCutoffs = 0;
+            long quiescenceNodes = 0;
+            long nodes = 0;
+            long nanos = 0;
+            for (String fen : SUITE)
+            {
+                table.clear();
+                long start = System.nanoTime();
+                Search.Result result = search.search(Fen.parse(fen), new long[0], SearchLimits.depth(depth), iteration -> totals[iteration.getDepth()] += iteration.getNodes());
+                nanos += System.nanoTime() - start;
+                for (int later = result.getDepth() + 1; later <= depth; later++) //a search ending early at a mate costs nothing more at later depths
+                    totals[later] += result.getNodes();
+                nodes += result.getNodes();
+                cutoffs += search.getCutoffs();
+                firstMoveCutoffs += search.getFirstMoveCutoffs();
+                quiescenceNodes += search.getQuiescenceNodes();
+            }
+            summaries[pass] = String.format("%-8s %d ms, %d nodes, %.1f%% in quiescence, %.1f%% of cutoffs on the first move", (pass == 0) ? "plain" : "ordered",
+                nanos / 1000000, nodes, 100.0 * quiescenceNodes / Math.max(1, nodes), 100.0 * firstMoveCutoffs / Math.max(1, cutoffs));
+        }
+        System.out.printf("%5s %14s %6s %14s %6s %8s%n", "depth", "plain nodes", "ebf", "ordered nodes", "ebf", "saved");
+        for (int d = 1; d <= depth; d++)
+        {
+            System.out.printf("%5d %14d %6.2f %14d %6.2f %7.1f%%%n", d, nodesTo[0][d], branching(nodesTo[0], d), nodesTo[1][d], branching(nodesTo[1], d),
+                100.0 * (nodesTo[0][d] - nodesTo[1][d]) / Math.max(1, nodesTo[0][d]));
+        }
+        for (String summary : summaries)
+            System.out.println(summary);
+    }
+
+    /***
+     * prints positions scored per second by each evaluation, each scoring every position one move from the suite's, made and taken back as in the search,
+     * then nodes per second searching each position of the suite for the same number of nodes, the depths reached differ since the scores do
+     * @param path - network file, null to write a network of random weights to a temporary file and load that, which is as fast as a trained one
+     */
+    private static void networkReport(Path path, long searchNodes) throws IOException {
+        Network network;
+        if (path != null)
+            network = Network.load(path);
+        else
+        {
+            Path temporary = Files.createTempFile("network", ".vcnn");
+            try {
+                Network.random(256, 16, 32, 1).save(temporary);
+                network = Network.load(temporary);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        System.out.printf("network of %d hidden, %d, %d%n", network.getHidden(), network.getFirstLayer(), network.getSecondLayer());
+        SearchEvaluator[] evaluators = {new IncrementalEval(), new NeuralEval(network)};
+        String[] names = {"handcrafted", "neural"};
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int e = 0; e < evaluators.length; e++)
+        {
+            SearchEvaluator evaluator = evaluators[e];
+            long scored = 0;
+            long sum = 0;
+            long nanos = 0;
+            for (int round = 0; round < 400; round++)
+            {
+                if (round == 100) //the rounds before warm up the JIT
+                {
+                    scored = 0;
+                    nanos = 0;
+                }
+                long start = System.nanoTime();
+                for (String fen : SUITE)
+                {
+                    ChessPosition position = Fen.parse(fen);
+                    evaluator.reset(position);
+                    int count = MoveGenerator.generate(position, moves);
+                    for (int i = 0; i < count; i++)
+                    {
+                        evaluator.makeMove(position, moves[i]);
+                        position.makeMove(moves[i]);
+                        sum += evaluator.evaluate(position);
+                        position.unmakeMove(moves[i]);
+                        evaluator.unmakeMove();
+                    }
+                    scored += count;
+                }
+                nanos += System.nanoTime() - start;
+            }
+            System.out.printf("%-12s %8d positions per ms, make, score and unmake (%d)%n", names[e], scored * 1000000 / Math.max(1, nanos), sum);
+        }
+        for (int e = 0; e < 2; e++)
+        {
+            Search search = new Search(new TranspositionTable(64));
+            search.setNetwork((e == 0) ? null : network);
+            long nodes = 0;
+            long nanos = 0;
+            for (String fen : SUITE)
+            {
+                long start = System.nanoTime();
+                nodes += search.search(Fen.parse(fen), new long[0], SearchLimits.nodes(searchNodes), null).getNodes();
+                nanos += System.nanoTime() - start;
+            }
+            System.out.printf("%-12s %8d nodes searched in %d ms, %d knps%n", names[e], nodes, nanos / 1000000, nodes * 1000000 / Math.max(1, nanos));
+        }
+    }
+
+    private static double branching(long[] nodesTo, int depth) {
+        return (depth < 2) ? 0 : (double) (nodesTo[depth] - nodesTo[depth - 1]) / Math.max(1, nodesTo[depth - 1] - nodesTo[depth - 2]);
+    }
+
+    /***
+     * @return - total nanoseconds to depth and total nodes over the suite
+     */
+    private static long[] run(int threads, int depth, int megabytes) {
+        TranspositionTable table = new TranspositionTable(megabytes);
+        ParallelSearch search = new ParallelSearch(table, threads);
+        long nanos = 0;
+        long nodes = 0;
+        for (String fen : SUITE)
+        {
+            table.clear();
+            ChessPosition position = Fen.parse(fen);
+            long start = System.nanoTime();
+            Search.Result result = search.search(position, new long[0], SearchLimits.depth(depth), null);
+            nanos += System.nanoTime() - start;
+            nodes += result.getNodes();
+        }
+        search.shutdown();
+        return new long[] {nanos, nodes};
+    }
+}
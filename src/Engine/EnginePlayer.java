@@ -0,0 +1,289 @@
+package Engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveHistory;
+import BoardComponents.Zobrist;
+
+import Notation.Fen;
+
+/***
+ * a computer player, it searches on its own thread so the board keeps responding while it thinks, then hands its move to the event dispatch thread
+ * after moving it ponders: it searches the position after the reply its search expects while the opponent thinks,
+ * if that reply is played the search carries on under the move's limits instead of starting over, otherwise it is stopped, what it stored in the table is kept either way
+ * it only ponders when the limits are of time, a depth or node limit would be reached long before the reply and the move played would be deeper than the level allows
+ */
+public class EnginePlayer {
+    public static final int DEFAULT_TABLE_MEGABYTES = 64;
+    private static final SearchLimits PONDER_LIMITS = new SearchLimits(0, 0, 0); //until the opponent moves
+    private static final long SHUTDOWN_MILLIS = 100; //longest shutdown waits for the threads to end, a search stops at its next node so they take far less
+
+    private final ExecutorService thinker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Chess engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ParallelSearch search;
+    private volatile SearchLimits limits;
+    private volatile int generation; //counts up on every think and cancel, a move from an older generation is thrown away
+    private volatile boolean ponder = true;
+    //the ponder search, guarded by this
+    private long ponderHash; //position the ponder search is of
+    private int ponderPly = -1; //history size of that position, -1 when not pondering
+    private Consumer<Search.Result> ponderTaker; //where the ponder search's result goes once it finishes, set when its reply was played
+    private int ponderHits;
+    private int ponderMisses;
+    private long clockMillis = -1; //time left on the engine's clock when limits has one, -1 until the first move, guarded by this
+
+    /***
+     * @param limits - how long each move may be searched
+     */
+    public EnginePlayer(SearchLimits limits) {
+        this(limits, DEFAULT_TABLE_MEGABYTES, Runtime.getRuntime().availableProcessors());
+    }
+
+    /***
+     * @param limits - how long each move may be searched
+     * @param tableMegabytes - size of the transposition table, kept from move to move for the whole game
+     * @param threads - threads searching each move
+     */
+    public EnginePlayer(SearchLimits limits, int tableMegabytes, int threads) {
+        this.limits = limits;
+        this.search = new ParallelSearch(new TranspositionTable(tableMegabytes), threads);
+    }
+
+    /***
+     * @param limits - how long each move may be searched from the next on, a clock starts again at the time it gives
+     */
+    public synchronized void setLimits(SearchLimits limits) {
+        this.limits = limits;
+        clockMillis = -1;
+    }
+
+    public SearchLimits getLimits() { return this.limits; }
+
+    /***
+     * @return - time left on the engine's clock, -1 if it does not play on a clock or has not started
+     */
+    public synchronized long getClockMillis() { return limits.hasClock() ? clockMillis : -1; }
+    public void setPonder(boolean ponder) { this.ponder = ponder; }
+    public boolean isPondering() { return this.ponder; }
+
+    /***
+     * @return - true if pondering is on and the limits allow it
+     */
+    private boolean canPonder(SearchLimits limits) {
+        return ponder && limits.getDepth() == 0 && limits.getNodes() == 0;
+    }
+    public synchronized int getPonderHits() { return this.ponderHits; }
+    public synchronized int getPonderMisses() { return this.ponderMisses; }
+
+    /***
+     * @return - the share of ponder searches whose reply was played, 0 before any
+     */
+    public synchronized double getPonderHitRate() {
+        return (ponderHits + ponderMisses == 0) ? 0 : (double) ponderHits / (ponderHits + ponderMisses);
+    }
+
+    /***
+     * @param network - network to score positions with from the next move on, null for the handcrafted evaluation
+     */
+    public void setNetwork(Network network) {
+        thinker.execute(() -> search.setNetwork(network)); //on the search's own thread, so never during a search
+    }
+
+    /***
+     * starts searching for a move, any search already running is cancelled
+     * @param position - position to move in, copied before this returns
+     * @param history - moves of the game so far, used to see repetitions, copied before this returns
+     * @param onMove - called on the event dispatch thread with the result, unless the search is cancelled first, its move is 0 if there are no legal moves
+     */
+    public void think(ChessPosition position, MoveHistory history, Consumer<Search.Result> onMove) {
+        long started = System.nanoTime();
+        if (ponderHit(position, history, onMove))
+            return;
+        ChessPosition root = new ChessPosition();
+        Search.copy(position, root);
+        MoveHistory moves = history.copy();
+        SearchLimits searchLimits = moveLimits();
+        int thinking = cancel();
+        thinker.execute(() -> {
+            if (thinking != generation)
+                return;
+            long[] hashes = gameHashes(moves);
+            Search.Result result;
+            try {
+                result = search.search(root, hashes, searchLimits, null, () -> thinking != generation);
+            } catch (RuntimeException error) {
+                System.out.println("Engine search failed");
+                error.printStackTrace();
+                return;
+            }
+            hand(result, thinking, onMove, started);
+            int ply = moves.size();
+            while (canPonder(limits) && result != null && result.getPv().length >= 2) //after a hit the engine has moved again, so it ponders again
+            {
+                int[] pv = result.getPv();
+                hashes = Arrays.copyOf(hashes, hashes.length + 2);
+                hashes[hashes.length - 2] = Zobrist.hash(root);
+                root.applyMove(pv[0]);
+                hashes[hashes.length - 1] = Zobrist.hash(root);
+                root.applyMove(pv[1]);
+                ply += 2;
+                result = ponder(root, hashes, ply, thinking);
+            }
+        });
+    }
+
+    /***
+     * adopts the ponder search if it is of the position to move in
+     * @return - true if it was, its result goes to onMove as think's would
+     */
+    private synchronized boolean ponderHit(ChessPosition position, MoveHistory history, Consumer<Search.Result> onMove) {
+        if (ponderPly < 0)
+            return false;
+        boolean hit = ponderPly == history.size() && ponderHash == Zobrist.hash(position);
+        ponderPly = -1;
+        if (!hit || !canPonder(limits)) //the limits may have been changed while pondering, the search is then thrown away without counting as a miss
+        {
+            if (!hit)
+                ponderMisses++;
+            notifyAll();
+            return false;
+        }
+        ponderHits++;
+        int thinking = generation;
+        long started = System.nanoTime();
+        ponderTaker = result -> hand(result, thinking, onMove, started);
+        search.ponderHit(moveLimits());
+        notifyAll();
+        return true;
+    }
+
+    /***
+     * searches the position after the engine's move and the reply expected to it until the opponent moves, on the engine's thread
+     * @param position - position after the reply
+     * @param hashes - hashes of the game before position
+     * @param ply - history size of position
+     * @return - the search's result if the reply was played, it has been handed over as the engine's move, null if it was not
+     */
+    private Search.Result ponder(ChessPosition position, long[] hashes, int ply, int thinking) {
+        synchronized (this) {
+            if (thinking != generation)
+                return null;
+            ponderHash = Zobrist.hash(position);
+            ponderPly = ply;
+        }
+        Search.Result result = null;
+        try {
+            result = search.search(position, hashes, PONDER_LIMITS, null, () -> thinking != generation);
+        } catch (RuntimeException error) {
+            System.out.println("Engine ponder search failed");
+            error.printStackTrace();
+        }
+        Consumer<Search.Result> taker;
+        synchronized (this) {
+            try {
+                while (thinking == generation && ponderTaker == null && ponderPly == ply) //it ended early, at a mate or forced move, the reply is still to come
+                    wait();
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            search.ponderHit(null); //a hit too late to be taken up must not carry over to the next search
+            taker = ponderTaker;
+            ponderTaker = null;
+            if (thinking != generation || taker == null)
+                return null;
+        }
+        if (result == null) //there is no ponder search to adopt, search the position under the move's limits
+            result = search.search(position, hashes, moveLimits(), null, () -> thinking != generation);
+        taker.accept(result);
+        return result;
+    }
+
+    /***
+     * @return - limits for the move about to be searched, with the time left on the engine's clock if it plays on one
+     */
+    private synchronized SearchLimits moveLimits() {
+        if (!limits.hasClock())
+            return limits;
+        if (clockMillis < 0)
+            clockMillis = limits.getClockMillis();
+        return limits.withClock(Math.max(1, clockMillis)); //a clock at 0 would be no limit at all
+    }
+
+    /***
+     * gives a result to the event dispatch thread, unless the search was cancelled first, taking the time it used off the engine's clock
+     * @param started - when the move was asked for
+     */
+    private void hand(Search.Result result, int thinking, Consumer<Search.Result> onMove, long started) {
+        synchronized (this) {
+            if (thinking != generation) //cancelled, perhaps by shutdown, which leaves this thread interrupted
+                return;
+            if (limits.hasClock())
+                clockMillis += limits.getIncrementMillis() - (System.nanoTime() - started) / 1000000;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (thinking == generation)
+                onMove.accept(result);
+        });
+    }
+
+    /***
+     * stops the search being run, its move is never handed over
+     * @return - the new generation
+     */
+    public synchronized int cancel() {
+        search.stop();
+        ponderPly = -1;
+        ponderTaker = null;
+        generation++;
+        notifyAll();
+        return generation;
+    }
+
+    /***
+     * cancels any search and ends the engine's threads, waiting a little for them, safe to call more than once
+     * @return - true if every thread has ended
+     */
+    public boolean shutdown() {
+        cancel();
+        thinker.shutdownNow();
+        search.shutdown();
+        try {
+            return thinker.awaitTermination(SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS) && search.awaitTermination(SHUTDOWN_MILLIS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /***
+     * replays a game from its start to get the hash of every position before the last
+     * @return - hashes oldest first, empty if the history can not be replayed
+     */
+    static long[] gameHashes(MoveHistory history) {
+        long[] hashes = new long[history.size()];
+        try {
+            String start = history.getStart();
+            ChessPosition position = Fen.parse((start == null) ? Fen.START : start);
+            for (int i = 0; i < history.size(); i++)
+            {
+                hashes[i] = Zobrist.hash(position);
+                position.applyMove(history.get(i));
+            }
+        } catch (IllegalArgumentException error) {
+            return new long[0];
+        }
+        return hashes;
+    }
+}
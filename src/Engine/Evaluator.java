@@ -0,0 +1,277 @@
+package Engine;
+
+import BoardComponents.ChessPosition;
+
+/***
+ * scores a position in centipawns from the side to move's point of view: material and piece-square tables, pawn structure, and king safety
+ * every term has a middlegame and an endgame value, blended by how much material is left (the game phase) so, for example, the king hides early and walks to the center late
+ * the search keeps the material and piece-square sums up to date move by move with IncrementalEval, evaluate here adds them up from scratch
+ * sets of squares are longs with bit y * 8 + x set, y = 0 the eighth rank
+ */
+public class Evaluator {
+    //indexed by piece code without color, used for ordering captures
+    public static final int[] VALUES = {0, 100, 320, 330, 500, 900, 0};
+    public static final int MAX_PHASE = 24; //phase of the starting material, knights and bishops count 1, rooks 2, queens 4
+
+    private static final int[] MIDDLEGAME_VALUES = {0, 82, 337, 365, 477, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {0, 94, 281, 297, 512, 936, 0};
+    private static final int[] PHASES = {0, 0, 1, 1, 2, 4, 0};
+
+    //bonus by square for white, black reads them mirrored
+    private static final int[] PAWN_MIDDLEGAME = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+        40, 40, 40, 45, 45, 40, 40, 40,
+        10, 10, 20, 30, 30, 20, 10, 10,
+         5,  5, 10, 25, 25, 10,  5,  5,
+         0,  0,  5, 20, 20,  5,  0,  0,
+         5, -5,-10,  0,  0,-10, -5,  5,
+         5, 10, 10,-20,-20, 10, 10,  5,
+         0,  0,  0,  0,  0,  0,  0,  0};
+    private static final int[] PAWN_ENDGAME = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+        80, 80, 80, 80, 80, 80, 80, 80,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        30, 30, 30, 30, 30, 30, 30, 30,
+        15, 15, 15, 15, 15, 15, 15, 15,
+         5,  5,  5,  5,  5,  5,  5,  5,
+         0,  0,  0,  0,  0,  0,  0,  0,
+         0,  0,  0,  0,  0,  0,  0,  0};
+    private static final int[] KNIGHT_BONUS = {
+        -50,-40,-30,-30,-30,-30,-40,-50,
+        -40,-20,  0,  0,  0,  0,-20,-40,
+        -30,  0, 10, 15, 15, 10,  0,-30,
+        -30,  5, 15, 20, 20, 15,  5,-30,
+        -30,  0, 15, 20, 20, 15,  0,-30,
+        -30,  5, 10, 15, 15, 10,  5,-30,
+        -40,-20,  0,  5,  5,  0,-20,-40,
+        -50,-40,-30,-30,-30,-30,-40,-50};
+    private static final int[] BISHOP_BONUS = {
+        -20,-10,-10,-10,-10,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5, 10, 10,  5,  0,-10,
+        -10,  5,  5, 10, 10,  5,  5,-10,
+        -10,  0, 10, 10, 10, 10,  0,-10,
+        -10, 10, 10, 10, 10, 10, 10,-10,
+        -10,  5,  0,  0,  0,  0,  5,-10,
+        -20,-10,-10,-10,-10,-10,-10,-20};
+    private static final int[] ROOK_BONUS = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+         5, 10, 10, 10, 10, 10, 10,  5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+         0,  0,  0,  5,  5,  0,  0,  0};
+    private static final int[] QUEEN_BONUS = {
+        -20,-10,-10, -5, -5,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5,  5,  5,  5,  0,-10,
+         -5,  0,  5,  5,  5,  5,  0, -5,
+          0,  0,  5,  5,  5,  5,  0, -5,
+        -10,  5,  5,  5,  5,  5,  0,-10,
+        -10,  0,  5,  0,  0,  0,  0,-10,
+        -20,-10,-10, -5, -5,-10,-10,-20};
+    private static final int[] KING_MIDDLEGAME = {
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -20,-30,-30,-40,-40,-30,-30,-20,
+        -10,-20,-20,-20,-20,-20,-20,-10,
+         20, 20,  0,  0,  0,  0, 20, 20,
+         20, 30, 10,  0,  0, 10, 30, 20};
+    private static final int[] KING_ENDGAME = {
+        -50,-40,-30,-20,-20,-30,-40,-50,
+        -30,-20,-10,  0,  0,-10,-20,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-30,  0,  0,  0,  0,-30,-30,
+        -50,-30,-30,-30,-30,-30,-30,-50};
+
+    //value and bonus together by piece code with color and square, from white's point of view so black's are negative
+    private static final int[][] MIDDLEGAME = new int[16][64];
+    private static final int[][] ENDGAME = new int[16][64];
+
+    //pawn structure, by ranks a pawn has advanced from its own second rank for passed pawns
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+    //king safety, middlegame only since it matters less as pieces come off
+    private static final int SHIELD_NEAR = 10; //own pawn right in front of the king, by file beside or in front
+    private static final int SHIELD_FAR = 5; //own pawn two ranks in front
+    private static final int SHIELD_MISSING = -15;
+    private static final int OPEN_FILE_NEAR_KING = -15; //no pawns at all on a file beside or in front of the king
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[][] PASSED_SPAN = new long[2][64]; //squares ahead on the same and adjacent files, white then black, an enemy pawn there stops the pawn being passed
+
+    static {
+        int[][] middlegame = {null, PAWN_MIDDLEGAME, KNIGHT_BONUS, BISHOP_BONUS, ROOK_BONUS, QUEEN_BONUS, KING_MIDDLEGAME};
+        int[][] endgame = {null, PAWN_ENDGAME, KNIGHT_BONUS, BISHOP_BONUS, ROOK_BONUS, QUEEN_BONUS, KING_ENDGAME};
+        for (int type = ChessPosition.PAWN; type <= ChessPosition.KING; type++)
+        {
+            for (int square = 0; square < 64; square++)
+            {
+                int mirrored = (7 - square / 8) * 8 + square % 8; //the same square seen from black's side
+                MIDDLEGAME[type][square] = MIDDLEGAME_VALUES[type] + middlegame[type][square];
+                ENDGAME[type][square] = ENDGAME_VALUES[type] + endgame[type][square];
+                MIDDLEGAME[type | ChessPosition.BLACK][square] = -(MIDDLEGAME_VALUES[type] + middlegame[type][mirrored]);
+                ENDGAME[type | ChessPosition.BLACK][square] = -(ENDGAME_VALUES[type] + endgame[type][mirrored]);
+            }
+        }
+        for (int x = 0; x < 8; x++)
+        {
+            for (int y = 0; y < 8; y++)
+                FILES[x] |= 1L << (y * 8 + x);
+        }
+        for (int x = 0; x < 8; x++)
+            ADJACENT_FILES[x] = ((x > 0) ? FILES[x - 1] : 0) | ((x < 7) ? FILES[x + 1] : 0);
+        for (int square = 0; square < 64; square++)
+        {
+            int y = square / 8;
+            long span = FILES[square % 8] | ADJACENT_FILES[square % 8];
+            for (int ahead = 0; ahead < 8; ahead++)
+            {
+                long rank = 0xffL << (ahead * 8);
+                if (ahead < y)
+                    PASSED_SPAN[0][square] |= span & rank; //white moves towards y = 0
+                else if (ahead > y)
+                    PASSED_SPAN[1][square] |= span & rank;
+            }
+        }
+    }
+
+    private Evaluator() { }
+
+    /***
+     * scores a position from scratch, the search uses IncrementalEval instead, which gives the same score
+     * @param position - position to score
+     * @return - positive if the side to move is better
+     */
+    public static int evaluate(ChessPosition position) {
+        int middlegame = 0; //white's point of view
+        int endgame = 0;
+        int phase = 0;
+        long whitePawns = 0;
+        long blackPawns = 0;
+        int whiteKing = ChessPosition.NO_SQUARE;
+        int blackKing = ChessPosition.NO_SQUARE;
+        for (int square = 0; square < 64; square++)
+        {
+            int piece = position.getPiece(square);
+            if (piece == ChessPosition.EMPTY)
+                continue;
+            middlegame += MIDDLEGAME[piece][square];
+            endgame += ENDGAME[piece][square];
+            phase += PHASES[piece & 7];
+            if (piece == ChessPosition.PAWN)
+                whitePawns |= 1L << square;
+            else if (piece == (ChessPosition.PAWN | ChessPosition.BLACK))
+                blackPawns |= 1L << square;
+            else if (piece == ChessPosition.KING)
+                whiteKing = square;
+            else if (piece == (ChessPosition.KING | ChessPosition.BLACK))
+                blackKing = square;
+        }
+        long pawns = pawnStructure(whitePawns, blackPawns);
+        middlegame += middlegameOf(pawns) + kingShield(whiteKing, false, whitePawns, blackPawns) - kingShield(blackKing, true, whitePawns, blackPawns);
+        int score = taper(middlegame, endgame + endgameOf(pawns), phase);
+        return position.isWhiteToMove() ? score : -score;
+    }
+
+    // reading the tables, by piece code with color, white's point of view
+    static int middlegame(int piece, int square) { return MIDDLEGAME[piece][square]; }
+    static int endgame(int piece, int square) { return ENDGAME[piece][square]; }
+    static int phase(int piece) { return PHASES[piece & 7]; }
+
+    /***
+     * @param whitePawns - squares of white's pawns
+     * @param blackPawns - squares of black's pawns
+     * @return - doubled, isolated and passed pawn terms from white's point of view, middlegame in the low 32 bits and endgame in the high, read back with middlegameOf and endgameOf
+     */
+    static long pawnStructure(long whitePawns, long blackPawns) {
+        int middlegame = 0;
+        int endgame = 0;
+        for (int color = 0; color < 2; color++)
+        {
+            long own = (color == 0) ? whitePawns : blackPawns;
+            long enemy = (color == 0) ? blackPawns : whitePawns;
+            int sign = (color == 0) ? 1 : -1;
+            for (int x = 0; x < 8; x++)
+            {
+                int onFile = Long.bitCount(own & FILES[x]);
+                if (onFile > 1)
+                {
+                    middlegame += sign * DOUBLED_MIDDLEGAME * (onFile - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (onFile - 1);
+                }
+                if (onFile > 0 && (own & ADJACENT_FILES[x]) == 0)
+                {
+                    middlegame += sign * ISOLATED_MIDDLEGAME * onFile;
+                    endgame += sign * ISOLATED_ENDGAME * onFile;
+                }
+            }
+            for (long rest = own; rest != 0; rest &= rest - 1)
+            {
+                int square = Long.numberOfTrailingZeros(rest);
+                if ((PASSED_SPAN[color][square] & enemy) == 0)
+                {
+                    int advanced = (color == 0) ? 6 - square / 8 : square / 8 - 1;
+                    middlegame += sign * PASSED_MIDDLEGAME[advanced];
+                    endgame += sign * PASSED_ENDGAME[advanced];
+                }
+            }
+        }
+        return pack(middlegame, endgame);
+    }
+
+    /***
+     * @param king - square of the king
+     * @param black - color of the king
+     * @param whitePawns - squares of white's pawns
+     * @param blackPawns - squares of black's pawns
+     * @return - middlegame score for the pawns in front of the king, from that king's side's point of view
+     */
+    static int kingShield(int king, boolean black, long whitePawns, long blackPawns) {
+        if (king == ChessPosition.NO_SQUARE)
+            return 0;
+        long own = black ? blackPawns : whitePawns;
+        int forward = black ? 8 : -8;
+        int x = king % 8;
+        int score = 0;
+        for (int file = Math.max(0, x - 1); file <= Math.min(7, x + 1); file++)
+        {
+            int near = king - x + file + forward;
+            int far = near + forward;
+            if (near >= 0 && near < 64 && (own & (1L << near)) != 0)
+                score += SHIELD_NEAR;
+            else if (far >= 0 && far < 64 && (own & (1L << far)) != 0)
+                score += SHIELD_FAR;
+            else
+                score += SHIELD_MISSING;
+            if (((whitePawns | blackPawns) & FILES[file]) == 0)
+                score += OPEN_FILE_NEAR_KING;
+        }
+        return score;
+    }
+
+    static long pack(int middlegame, int endgame) { return (middlegame & 0xffffffffL) | ((long) endgame << 32); }
+    static int middlegameOf(long packed) { return (int) packed; }
+    static int endgameOf(long packed) { return (int) (packed >> 32); }
+
+    /***
+     * blends middlegame and endgame scores by the material left
+     * @param phase - MAX_PHASE with all pieces on the board, 0 with only kings and pawns
+     */
+    static int taper(int middlegame, int endgame, int phase) {
+        phase = Math.min(phase, MAX_PHASE); //promotions can add more than the starting material
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
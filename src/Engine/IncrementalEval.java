@@ -0,0 +1,193 @@
+package Engine;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveHistory;
+import BoardComponents.Zobrist;
+
+import java.util.Arrays;
+
+/***
+ * the sums Evaluator scores a position from, kept up to date as moves are made and taken back instead of added up over all 64 squares each time
+ * a move changes the material and piece-square sums of at most four squares, the pawns only change on pawn moves and captures of pawns,
+ * so pawn structure is cached by a hash of the pawns alone and found again for most positions of a search
+ */
+public class IncrementalEval extends SearchEvaluator {
+    private static final int CACHE_SIZE = 1 << 14; //pawn structures remembered, a power of 2
+
+    private int middlegame; //material and piece-square sums, white's point of view
+    private int endgame;
+    private int phase;
+    private long whitePawns;
+    private long blackPawns;
+    private long pawnKey; //Zobrist keys of the pawns alone
+    private int whiteKing;
+    private int blackKing;
+
+    //what makeMove changed, to put back in unmakeMove
+    private int[] savedScores = new int[3 * 64]; //middlegame, endgame and phase of each move made
+    private long[] savedPawns = new long[3 * 64]; //white pawns, black pawns and pawn key
+    private int[] savedKings = new int[2 * 64];
+    private int savedSize;
+
+    private final long[] cacheKeys = new long[CACHE_SIZE];
+    private final long[] cacheScores = new long[CACHE_SIZE]; //packed as Evaluator.pawnStructure returns them
+    private long cacheHits;
+    private long cacheProbes;
+
+    /***
+     * adds the sums up from scratch
+     * @param position - position moves will be made from
+     */
+    @Override
+    public void reset(ChessPosition position) {
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+        whitePawns = 0;
+        blackPawns = 0;
+        pawnKey = 0;
+        whiteKing = ChessPosition.NO_SQUARE;
+        blackKing = ChessPosition.NO_SQUARE;
+        savedSize = 0;
+        for (int square = 0; square < 64; square++)
+        {
+            int piece = position.getPiece(square);
+            if (piece != ChessPosition.EMPTY)
+                add(piece, square);
+        }
+    }
+
+    /***
+     * updates the sums for a move, call it before the position makes the move
+     * @param position - position the move is about to be made in
+     * @param move - move packed as in MoveHistory
+     */
+    @Override
+    public void makeMove(ChessPosition position, int move) {
+        if (savedSize * 2 == savedKings.length)
+        {
+            savedScores = Arrays.copyOf(savedScores, savedSize * 6);
+            savedPawns = Arrays.copyOf(savedPawns, savedSize * 6);
+            savedKings = Arrays.copyOf(savedKings, savedSize * 4);
+        }
+        savedScores[savedSize * 3] = middlegame;
+        savedScores[savedSize * 3 + 1] = endgame;
+        savedScores[savedSize * 3 + 2] = phase;
+        savedPawns[savedSize * 3] = whitePawns;
+        savedPawns[savedSize * 3 + 1] = blackPawns;
+        savedPawns[savedSize * 3 + 2] = pawnKey;
+        savedKings[savedSize * 2] = whiteKing;
+        savedKings[savedSize * 2 + 1] = blackKing;
+        savedSize++;
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        int piece = position.getPiece(from);
+        int victim = position.getPiece(to);
+        int type = piece & 7;
+        if (victim != ChessPosition.EMPTY)
+            remove(victim, to);
+        else if (type == ChessPosition.PAWN && to == position.getEnPassant())
+            remove(position.getPiece(position.getEnPassantPawnSquare()), position.getEnPassantPawnSquare());
+        else if (type == ChessPosition.KING && Math.abs(to - from) == 2) //the rook jumps over the king
+        {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rook = position.getPiece(rookFrom);
+            remove(rook, rookFrom);
+            add(rook, (from + to) / 2);
+        }
+        remove(piece, from);
+        int promotion = MoveHistory.getPromotion(move);
+        if (promotion != MoveHistory.PROMOTE_NONE)
+            piece = (piece & ChessPosition.BLACK) | (ChessPosition.PAWN + promotion); //promotion codes count up from the knight as piece codes do
+        add(piece, to);
+    }
+
+    /***
+     * puts the sums back as they were before the last makeMove
+     */
+    @Override
+    public void unmakeMove() {
+        savedSize--;
+        middlegame = savedScores[savedSize * 3];
+        endgame = savedScores[savedSize * 3 + 1];
+        phase = savedScores[savedSize * 3 + 2];
+        whitePawns = savedPawns[savedSize * 3];
+        blackPawns = savedPawns[savedSize * 3 + 1];
+        pawnKey = savedPawns[savedSize * 3 + 2];
+        whiteKing = savedKings[savedSize * 2];
+        blackKing = savedKings[savedSize * 2 + 1];
+    }
+
+    /***
+     * @param position - the position the sums are kept for, only read for the side to move
+     * @return - the same score as Evaluator.evaluate, positive if the side to move is better
+     */
+    @Override
+    public int evaluate(ChessPosition position) {
+        long pawns = pawnStructure();
+        int shield = Evaluator.kingShield(whiteKing, false, whitePawns, blackPawns) - Evaluator.kingShield(blackKing, true, whitePawns, blackPawns);
+        int score = Evaluator.taper(middlegame + Evaluator.middlegameOf(pawns) + shield, endgame + Evaluator.endgameOf(pawns), phase);
+        return position.isWhiteToMove() ? score : -score;
+    }
+
+    // getters
+    public long getCacheHits() { return this.cacheHits; }
+    public long getCacheProbes() { return this.cacheProbes; }
+
+    /***
+     * @return - pawn structure packed as Evaluator.pawnStructure returns it, from the cache if these pawns were seen before
+     * with no pawns the key is 0, the same as an empty slot, but the structure is 0 then too
+     */
+    private long pawnStructure() {
+        int slot = (int) pawnKey & (CACHE_SIZE - 1);
+        cacheProbes++;
+        if (cacheKeys[slot] == pawnKey)
+        {
+            cacheHits++;
+            return cacheScores[slot];
+        }
+        long scores = Evaluator.pawnStructure(whitePawns, blackPawns);
+        cacheKeys[slot] = pawnKey;
+        cacheScores[slot] = scores;
+        return scores;
+    }
+
+    private void add(int piece, int square) {
+        middlegame += Evaluator.middlegame(piece, square);
+        endgame += Evaluator.endgame(piece, square);
+        phase += Evaluator.phase(piece);
+        switch (piece)
+        {
+            case ChessPosition.PAWN:
+                whitePawns |= 1L << square;
+                pawnKey ^= Zobrist.piece(piece, square);
+                break;
+            case ChessPosition.PAWN | ChessPosition.BLACK:
+                blackPawns |= 1L << square;
+                pawnKey ^= Zobrist.piece(piece, square);
+                break;
+            case ChessPosition.KING:
+                whiteKing = square;
+                break;
+            case ChessPosition.KING | ChessPosition.BLACK:
+                blackKing = square;
+                break;
+        }
+    }
+
+    private void remove(int piece, int square) {
+        middlegame -= Evaluator.middlegame(piece, square);
+        endgame -= Evaluator.endgame(piece, square);
+        phase -= Evaluator.phase(piece);
+        if (piece == ChessPosition.PAWN)
+        {
+            whitePawns &= ~(1L << square);
+            pawnKey ^= Zobrist.piece(piece, square);
+        }
+        else if (piece == (ChessPosition.PAWN | ChessPosition.BLACK))
+        {
+            blackPawns &= ~(1L << square);
+            pawnKey ^= Zobrist.piece(piece, square);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package Engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import BoardComponents.ChessPosition;
+
+import SaveFiles.AtomicFile;
+
+/***
+ * weights of an efficiently updatable neural network (NNUE) that scores positions, shared by every search thread, NeuralEval runs it
+ * the input is one feature for each piece on its square, seen from each side: the side's own pieces first, and black's board turned over so both sides see their pieces moving up
+ * the feature transformer adds a column of int16 weights for each piece on the board into an accumulator for each side,
+ * which only changes by a few columns a move, then small int8 layers turn the two accumulators, the side to move's first, into a score
+ * network file, all numbers big endian: magic, version, hidden, first layer, second layer (4 each), unused (12),
+ * then feature transformer biases (hidden int16), weights (INPUTS columns of hidden int16),
+ * each dense layer's biases (int32 each output) then weights (a row of int8 for each output), the first layer's inputs being both accumulators, and the output layer the same with one output
+ */
+public class Network {
+    private static final int MAGIC = 0x56434e4e; //"VCNN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    public static final int INPUTS = 2 * 6 * 64; //own and other side, piece kind, square
+    public static final int ACTIVATION_MAX = 127; //clipped relu, every activation is 0 to this
+    public static final int WEIGHT_SHIFT = 6; //int8 weights are fixed point with this many fraction bits
+    public static final int OUTPUT_DIVISOR = 16; //output layer sum for one centipawn
+
+    private final int hidden;
+    private final int firstLayer;
+    private final int secondLayer;
+    //widened from the file to the types the loops add in, int8 weights become shorts
+    final short[] featureBiases;
+    final short[] featureWeights; //feature * hidden + i
+    final int[] firstBiases;
+    final short[] firstWeights; //input * firstLayer + output, turned from the file's rows so an input's weights are together and a zero input can be skipped
+    final int[] secondBiases;
+    final short[] secondWeights; //input * secondLayer + output
+    final int outputBias;
+    final short[] outputWeights;
+
+    private Network(int hidden, int firstLayer, int secondLayer, ByteBuffer weights) {
+        this.hidden = hidden;
+        this.firstLayer = firstLayer;
+        this.secondLayer = secondLayer;
+        featureBiases = readShorts(weights, hidden);
+        featureWeights = readShorts(weights, INPUTS * hidden);
+        firstBiases = readInts(weights, firstLayer);
+        firstWeights = transpose(readBytes(weights, firstLayer * 2 * hidden), firstLayer);
+        secondBiases = readInts(weights, secondLayer);
+        secondWeights = transpose(readBytes(weights, secondLayer * firstLayer), secondLayer);
+        outputBias = weights.getInt();
+        outputWeights = readBytes(weights, secondLayer);
+    }
+
+    /***
+     * reads a network file, mapped into memory rather than read through a stream, the weights are copied out of the mapping before this returns
+     * @param path - network file
+     * @return - the network
+     * @throws IOException - if the file can not be read or is not a network file
+     */
+    public static Network load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Not a network file: " + path);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int hidden = map.getInt(8);
+            int firstLayer = map.getInt(12);
+            int secondLayer = map.getInt(16);
+            if (map.getInt(0) != MAGIC || map.getInt(4) > VERSION || hidden <= 0 || firstLayer <= 0 || secondLayer <= 0
+                || channel.size() != HEADER_BYTES + size(hidden, firstLayer, secondLayer))
+                throw new IOException("Not a network file: " + path);
+            map.position(HEADER_BYTES);
+            return new Network(hidden, firstLayer, secondLayer, map);
+        }
+    }
+
+    /***
+     * writes the network in the format load reads
+     * @param path - file to write, replaced whole so a crash leaves the old file
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (int) size(hidden, firstLayer, secondLayer));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden).putInt(firstLayer).putInt(secondLayer).putInt(0).putInt(0).putInt(0);
+        for (short bias : featureBiases)
+            buffer.putShort(bias);
+        for (short weight : featureWeights)
+            buffer.putShort(weight);
+        putLayer(buffer, firstBiases, transpose(firstWeights, firstWeights.length / firstLayer));
+        putLayer(buffer, secondBiases, transpose(secondWeights, secondWeights.length / secondLayer));
+        putLayer(buffer, new int[] {outputBias}, outputWeights);
+        buffer.flip();
+        AtomicFile.write(path, buffer);
+    }
+
+    /***
+     * makes a network of random weights, it plays badly but runs as fast as a trained one, for measuring speed without a network file
+     * @param seed - the same seed makes the same network
+     */
+    public static Network random(int hidden, int firstLayer, int secondLayer, long seed) {
+        Random random = new Random(seed);
+        ByteBuffer buffer = ByteBuffer.allocate((int) size(hidden, firstLayer, secondLayer));
+        for (int i = 0; i < hidden + INPUTS * hidden; i++)
+            buffer.putShort((short) (random.nextInt(129) - 64)); //32 pieces can not overflow an accumulator
+        int[] layers = {2 * hidden, firstLayer, firstLayer, secondLayer, secondLayer, 1}; //inputs then outputs of each layer
+        for (int layer = 0; layer < layers.length; layer += 2)
+        {
+            for (int i = 0; i < layers[layer + 1]; i++)
+                buffer.putInt(random.nextInt(2001) - 1000);
+            for (int i = 0; i < layers[layer] * layers[layer + 1]; i++)
+                buffer.put((byte) (random.nextInt(65) - 32));
+        }
+        buffer.flip();
+        return new Network(hidden, firstLayer, secondLayer, buffer);
+    }
+
+    /***
+     * @param piece - piece code with color
+     * @param square - square of the piece, y * 8 + x with y = 0 the eighth rank
+     * @param black - true for black's side of the accumulators
+     * @return - index of the feature transformer column for the piece as the side sees it
+     */
+    static int feature(int piece, int square, boolean black) {
+        boolean own = ((piece & ChessPosition.BLACK) != 0) == black;
+        if (black)
+            square ^= 56; //turn the board over
+        return ((own ? 0 : 6) + (piece & 7) - 1) * 64 + square;
+    }
+
+    // getters
+    public int getHidden() { return this.hidden; }
+    public int getFirstLayer() { return this.firstLayer; }
+    public int getSecondLayer() { return this.secondLayer; }
+
+    /***
+     * @return - bytes of the weights after the header
+     */
+    private static long size(int hidden, int firstLayer, int secondLayer) {
+        return 2L * hidden * (1 + INPUTS) + 4L * firstLayer + 2L * hidden * firstLayer + 4L * secondLayer + (long) firstLayer * secondLayer + 4 + secondLayer;
+    }
+
+    private static short[] readShorts(ByteBuffer buffer, int count) {
+        short[] values = new short[count];
+        buffer.asShortBuffer().get(values);
+        buffer.position(buffer.position() + 2 * count);
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    private static short[] readBytes(ByteBuffer buffer, int count) {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++)
+            values[i] = buffer.get();
+        return values;
+    }
+
+    /***
+     * @param weights - matrix of rows, rows * columns long
+     * @return - the matrix with rows and columns swapped
+     */
+    private static short[] transpose(short[] weights, int rows) {
+        int columns = weights.length / rows;
+        short[] turned = new short[weights.length];
+        for (int row = 0; row < rows; row++)
+        {
+            for (int column = 0; column < columns; column++)
+                turned[column * rows + row] = weights[row * columns + column];
+        }
+        return turned;
+    }
+
+    private static void putLayer(ByteBuffer buffer, int[] biases, short[] weights) {
+        for (int bias : biases)
+            buffer.putInt(bias);
+        for (short weight : weights)
+            buffer.put((byte) weight);
+    }
+}
@@ -0,0 +1,176 @@
+package Engine;
+
+import java.util.Arrays;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveHistory;
+
+/***
+ * scores positions with a Network, keeping both sides' accumulators up to date move by move: a quiet move takes away the column of the piece's old square and adds its new one,
+ * instead of adding up a column for every piece on the board
+ * each move made gets its own accumulators so taking it back is only stepping back to the ones before
+ * the loops are kept plain, counted and branch free over arrays so the JIT can turn them into SIMD instructions
+ */
+public class NeuralEval extends SearchEvaluator {
+    private final Network network;
+    private final int hidden;
+    private short[][] white = new short[64][]; //accumulators from white's side, one for the root and each move made after it
+    private short[][] black = new short[64][];
+    private int ply;
+    private final short[] input; //clipped accumulators, the side to move's first
+    private final short[] first; //outputs of the dense layers
+    private final short[] second;
+    private final int[] sums; //a dense layer's outputs before the relu
+
+    /***
+     * @param network - weights, shared with other threads
+     */
+    public NeuralEval(Network network) {
+        this.network = network;
+        hidden = network.getHidden();
+        input = new short[2 * hidden];
+        first = new short[network.getFirstLayer()];
+        second = new short[network.getSecondLayer()];
+        sums = new int[Math.max(first.length, second.length)];
+    }
+
+    @Override
+    public void reset(ChessPosition position) {
+        ply = 0;
+        short[] whiteSide = accumulator(white, 0);
+        short[] blackSide = accumulator(black, 0);
+        System.arraycopy(network.featureBiases, 0, whiteSide, 0, hidden);
+        System.arraycopy(network.featureBiases, 0, blackSide, 0, hidden);
+        for (int square = 0; square < 64; square++)
+        {
+            int piece = position.getPiece(square);
+            if (piece == ChessPosition.EMPTY)
+                continue;
+            addColumn(whiteSide, Network.feature(piece, square, false));
+            addColumn(blackSide, Network.feature(piece, square, true));
+        }
+    }
+
+    @Override
+    public void makeMove(ChessPosition position, int move) {
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        int piece = position.getPiece(from);
+        int victim = position.getPiece(to);
+        int type = piece & 7;
+        int moved = piece;
+        int promotion = MoveHistory.getPromotion(move);
+        if (promotion != MoveHistory.PROMOTE_NONE)
+            moved = (piece & ChessPosition.BLACK) | (ChessPosition.PAWN + promotion);
+        int victimSquare = to;
+        int rookFrom = ChessPosition.NO_SQUARE;
+        if (victim == ChessPosition.EMPTY && type == ChessPosition.PAWN && to == position.getEnPassant())
+        {
+            victimSquare = position.getEnPassantPawnSquare();
+            victim = position.getPiece(victimSquare);
+        }
+        else if (type == ChessPosition.KING && Math.abs(to - from) == 2) //castling, the rook jumps over the king
+            rookFrom = (to > from) ? from + 3 : from - 4;
+        if (ply + 1 == white.length)
+        {
+            white = Arrays.copyOf(white, white.length * 2);
+            black = Arrays.copyOf(black, black.length * 2);
+        }
+        for (int side = 0; side < 2; side++)
+        {
+            boolean blackSide = side == 1;
+            short[][] sides = blackSide ? black : white;
+            short[] after = accumulator(sides, ply + 1);
+            update(sides[ply], after, Network.feature(moved, to, blackSide), Network.feature(piece, from, blackSide));
+            if (victim != ChessPosition.EMPTY)
+                removeColumn(after, Network.feature(victim, victimSquare, blackSide));
+            else if (rookFrom != ChessPosition.NO_SQUARE)
+            {
+                int rook = position.getPiece(rookFrom);
+                update(after, after, Network.feature(rook, (from + to) / 2, blackSide), Network.feature(rook, rookFrom, blackSide));
+            }
+        }
+        ply++;
+    }
+
+    @Override
+    public void unmakeMove() {
+        ply--;
+    }
+
+    @Override
+    public int evaluate(ChessPosition position) {
+        boolean whiteToMove = position.isWhiteToMove();
+        clip(whiteToMove ? white[ply] : black[ply], 0);
+        clip(whiteToMove ? black[ply] : white[ply], hidden);
+        dense(input, network.firstWeights, network.firstBiases, first);
+        dense(first, network.secondWeights, network.secondBiases, second);
+        int sum = network.outputBias;
+        for (int i = 0; i < second.length; i++)
+            sum += second[i] * network.outputWeights[i];
+        return sum / Network.OUTPUT_DIVISOR;
+    }
+
+    /***
+     * @return - the accumulators of a ply, made the first time the ply is reached
+     */
+    private short[] accumulator(short[][] sides, int ply) {
+        if (sides[ply] == null)
+            sides[ply] = new short[hidden];
+        return sides[ply];
+    }
+
+    private void addColumn(short[] accumulator, int feature) {
+        short[] weights = network.featureWeights;
+        int column = feature * hidden;
+        for (int i = 0; i < hidden; i++)
+            accumulator[i] += weights[column + i];
+    }
+
+    private void removeColumn(short[] accumulator, int feature) {
+        short[] weights = network.featureWeights;
+        int column = feature * hidden;
+        for (int i = 0; i < hidden; i++)
+            accumulator[i] -= weights[column + i];
+    }
+
+    /***
+     * after = before with the added column in and the removed one out, in one pass
+     */
+    private void update(short[] before, short[] after, int added, int removed) {
+        short[] weights = network.featureWeights;
+        int add = added * hidden;
+        int remove = removed * hidden;
+        for (int i = 0; i < hidden; i++)
+            after[i] = (short) (before[i] + weights[add + i] - weights[remove + i]);
+    }
+
+    /***
+     * copies an accumulator into the input through the clipped relu
+     */
+    private void clip(short[] accumulator, int offset) {
+        for (int i = 0; i < hidden; i++)
+            input[offset + i] = (short) Math.min(Math.max(accumulator[i], 0), Network.ACTIVATION_MAX);
+    }
+
+    /***
+     * one fully connected layer with clipped relu outputs, adding in each input's weights to every output at once so the inputs the relu left at 0 cost nothing
+     * @param weights - input * out.length + output
+     */
+    private void dense(short[] in, short[] weights, int[] biases, short[] out) {
+        int outputs = out.length;
+        int[] sums = this.sums;
+        System.arraycopy(biases, 0, sums, 0, outputs);
+        for (int i = 0; i < in.length; i++)
+        {
+            int value = in[i];
+            if (value == 0)
+                continue;
+            int row = i * outputs;
+            for (int o = 0; o < outputs; o++)
+                sums[o] += value * weights[row + o];
+        }
+        for (int o = 0; o < outputs; o++)
+            out[o] = (short) Math.min(Math.max(sums[o] >> Network.WEIGHT_SHIFT, 0), Network.ACTIVATION_MAX);
+    }
+}
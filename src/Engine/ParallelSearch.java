@@ -0,0 +1,159 @@
+package Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import BoardComponents.ChessPosition;
+
+/***
+ * a lazy SMP search: helper threads search the same root as the main thread without any coordination except the transposition table they share,
+ * each skipping different depths so they soon search different parts of the tree, and what they store lets the main thread cut off sooner
+ * the main thread's best line is the result, the helpers are stopped once it finishes
+ */
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final Search main;
+    private final Search[] helpers;
+    private final ExecutorService helperThreads;
+
+    /***
+     * @param table - table shared by every thread
+     * @param threads - threads searching, at least 1, the calling thread is one of them
+     */
+    public ParallelSearch(TranspositionTable table, int threads) {
+        this.table = table;
+        main = new Search(table);
+        helpers = new Search[Math.max(0, threads - 1)];
+        for (int i = 0; i < helpers.length; i++)
+        {
+            helpers[i] = new Search(table);
+            helpers[i].joinTeam(i + 1, null);
+        }
+        main.joinTeam(0, helpers);
+        AtomicInteger count = new AtomicInteger();
+        helperThreads = (helpers.length == 0) ? null : Executors.newFixedThreadPool(helpers.length, r -> {
+            Thread thread = new Thread(r, "Chess engine helper " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /***
+     * searches on the calling thread and the helpers until a limit is reached or stop is called, the arguments are as for Search.search
+     * @return - the main thread's result, with the nodes of every thread
+     */
+    public Search.Result search(ChessPosition root, long[] gameHashes, SearchLimits limits, Consumer<Search.Result> progress) {
+        return search(root, gameHashes, limits, progress, null);
+    }
+
+    /***
+     * searches as above, also stopping once cancelled is true, as Search.search, the helpers stop with the main thread
+     */
+    public Search.Result search(ChessPosition root, long[] gameHashes, SearchLimits limits, Consumer<Search.Result> progress, BooleanSupplier cancelled) {
+        table.newSearch();
+        main.prepare();
+        for (Search helper : helpers)
+            helper.prepare();
+        SearchLimits helperLimits = new SearchLimits(0, 0, 0); //helpers search until the main thread is done
+        List<Future<?>> running = new ArrayList<>();
+        for (Search helper : helpers)
+            running.add(helperThreads.submit(() -> helper.search(root, gameHashes, helperLimits, null)));
+        Search.Result result;
+        try {
+            result = main.search(root, gameHashes, limits, (progress == null) ? null : iteration -> progress.accept(withAllNodes(iteration)), cancelled);
+        } finally {
+            for (Search helper : helpers)
+                helper.stop();
+            for (Future<?> helper : running)
+                awaitHelper(helper);
+        }
+        return withAllNodes(result);
+    }
+
+    /***
+     * stops the search, safe to call from any thread
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers)
+            helper.stop();
+    }
+
+    /***
+     * adopts the search in progress with new limits counted from now, as Search.ponderHit, safe to call from any thread
+     */
+    public void ponderHit(SearchLimits limits) {
+        main.ponderHit(limits);
+    }
+
+    /***
+     * @param multiPv - lines the main thread finds, as Search.setMultiPv, the helpers only look for the best move and fill the table
+     */
+    public void setMultiPv(int multiPv) {
+        main.setMultiPv(multiPv);
+    }
+
+    /***
+     * stops the search and ends the helper threads
+     */
+    public void shutdown() {
+        stop();
+        if (helperThreads != null)
+            helperThreads.shutdownNow();
+    }
+
+    /***
+     * waits for the helper threads to end after shutdown
+     * @return - true if they ended in time
+     */
+    public boolean awaitTermination(long millis) throws InterruptedException {
+        return helperThreads == null || helperThreads.awaitTermination(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /***
+     * @return - positions searched by every thread in the current or last search
+     */
+    public long getNodes() {
+        long nodes = main.getNodes();
+        for (Search helper : helpers)
+            nodes += helper.getNodes();
+        return nodes;
+    }
+
+    public int getThreads() { return helpers.length + 1; }
+
+    /***
+     * @param network - network every thread scores positions with, null for the handcrafted evaluation, not to be changed while searching
+     */
+    public void setNetwork(Network network) {
+        main.setNetwork(network);
+        for (Search helper : helpers)
+            helper.setNetwork(network);
+    }
+
+    private Search.Result withAllNodes(Search.Result result) {
+        return new Search.Result(result.getMove(), result.getScore(), result.getDepth(), getNodes(), result.getMillis(), result.getPv(), result.getLines());
+    }
+
+    /***
+     * waits for a helper to finish, a helper failing does not stop the main thread's result being used
+     */
+    private static void awaitHelper(Future<?> helper) {
+        try {
+            helper.get();
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException error) {
+            System.out.println("Search helper failed");
+            error.printStackTrace();
+        }
+    }
+}
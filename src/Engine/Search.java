@@ -0,0 +1,731 @@
+package Engine;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.MoveHistory;
+import BoardComponents.StaticExchange;
+import BoardComponents.Zobrist;
+
+/***
+ * finds the best move in a chess position with an iterative deepening principal variation search:
+ * each iteration searches one ply deeper, starting with the best line of the one before, and every move after the first is searched with a null window that only proves it is no better
+ * past the last ply only captures and promotions are searched, until the position is quiet, so an exchange is never scored half done
+ * moves are tried best guess first: the move the table remembers, captures of the most valuable piece by the least valuable, the quiet moves that cut off at the same ply before (killers),
+ * captures that lose material once the exchange is played out (static exchange evaluation), then the rest by how often they cut off anywhere in the search (history)
+ * past the last ply losing captures are not searched at all
+ * a search is not thread safe, each thread searching needs its own, ParallelSearch runs several sharing one transposition table
+ */
+public class Search {
+    public static final int MATE = 30000; //score of mate now, a mate found further away scores less
+    public static final int INFINITE = 32000;
+    public static final int MAX_PLY = 64;
+    private static final int CHECK_EVERY = 1024; //nodes between checks of the limits
+    //helper threads skip some depths so they are not all searching the same iteration, helper i uses entry (i - 1) % 20
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+    //move ordering scores, each kind of move is tried before the next
+    private static final int ORDER_HASH = 1 << 30;
+    private static final int ORDER_CAPTURE = 1 << 24;
+    private static final int ORDER_KILLER = 1 << 20;
+    private static final int ORDER_LOSING_CAPTURE = 1 << 19;
+    private static final int[] PROMOTION_VALUES = {0, 220, 230, 400, 800}; //by promotion code, the value gained less the pawn
+    private static final int HISTORY_MAX = 1 << 19; //history scores are halved when one gets this large, so they stay below losing captures
+
+    private final TranspositionTable table;
+    private final ChessPosition position = new ChessPosition();
+    private SearchEvaluator eval = new IncrementalEval();
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1]; //best line found from each ply
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] orderScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[16][64]; //by piece code and destination
+    private final int[] gains = new int[StaticExchange.MAX_SWAPS];
+    private int multiPv = 1; //lines to find an exact score for at the root
+    private final int[] lineScores = new int[MoveGenerator.MAX_MOVES]; //by root move, in the order of rootMoves, when finding more than one line
+    private final int[][] linePvs = new int[MoveGenerator.MAX_MOVES][MAX_PLY + 1];
+    private final int[] lineLengths = new int[MoveGenerator.MAX_MOVES];
+    private int lineCount; //lines with an exact score after the last iteration
+    private boolean ordering = true; //false leaves out MVV-LVA, killers and history before the last ply, to measure what they save
+    private long[] hashes = new long[256]; //positions of the game then of the line being searched, for repetitions
+    private int hashCount;
+    private SearchLimits limits;
+    private volatile SearchLimits ponderHitLimits; //limits to search under from now on, set from another thread when a ponder search is adopted
+    private long startNanos;
+    private long limitNanos; //when the limits started counting, later than the start of a ponder search that was adopted
+    private long limitNodes;
+    private int iterationDepth;
+    private final TimeManager time = new TimeManager();
+    private long nodes;
+    private long quiescenceNodes;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private volatile boolean stopped;
+    private BooleanSupplier cancelled; //asked at each check of the limits, so a stop given before the search started is not lost, null if there is none
+    private int helper; //0 unless this is a helper thread of a parallel search
+    private Search[] team; //other threads of a parallel search, their nodes count toward the node limit
+
+    /***
+     * @param table - table to remember positions in, it may be shared with other searches
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /***
+     * what a search found, after each iteration and at the end
+     */
+    public static class Result {
+        private final int move;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final long millis;
+        private final int[] pv;
+        private final Line[] lines;
+
+        Result(int move, int score, int depth, long nodes, long millis, int[] pv) {
+            this(move, score, depth, nodes, millis, pv, new Line[] {new Line(score, pv)});
+        }
+
+        Result(int move, int score, int depth, long nodes, long millis, int[] pv, Line[] lines) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.millis = millis;
+            this.pv = pv;
+            this.lines = lines;
+        }
+
+        // getters
+        public int getMove() { return this.move; }
+        public int getScore() { return this.score; }
+        public int getDepth() { return this.depth; }
+        public long getNodes() { return this.nodes; }
+        public long getMillis() { return this.millis; }
+        public int[] getPv() { return this.pv; }
+
+        /***
+         * @return - the best lines found, best first, one unless more were asked for with setMultiPv, the first is the same as the score and pv
+         */
+        public Line[] getLines() { return this.lines; }
+
+        /***
+         * @return - true if the score is a forced mate for either side
+         */
+        public boolean isMate() { return Math.abs(score) >= MATE - MAX_PLY; }
+
+        @Override
+        public String toString() {
+            return "depth " + depth + " score " + score + " nodes " + nodes + " time " + millis + " ms";
+        }
+    }
+
+    /***
+     * one root move's line and its exact score
+     */
+    public static class Line {
+        private final int score;
+        private final int[] pv;
+
+        Line(int score, int[] pv) {
+            this.score = score;
+            this.pv = pv;
+        }
+
+        // getters
+        public int getScore() { return this.score; }
+        public int[] getPv() { return this.pv; }
+
+        /***
+         * @return - true if the score is a forced mate for either side
+         */
+        public boolean isMate() { return Math.abs(score) >= MATE - MAX_PLY; }
+    }
+
+    /***
+     * searches until a limit is reached or stop is called
+     * @param root - position to search, left unchanged
+     * @param gameHashes - Zobrist hashes of the positions before root in the game, oldest first, so the search sees repetitions, may be empty
+     * @param limits - when to stop
+     * @param progress - told the result of each finished iteration, may be null
+     * @return - the best move of the deepest finished iteration, 0 if root has no legal moves
+     */
+    public Result search(ChessPosition root, long[] gameHashes, SearchLimits limits, Consumer<Result> progress) {
+        return search(root, gameHashes, limits, progress, null);
+    }
+
+    /***
+     * searches as above, also stopping once cancelled is true, which unlike stop can not be missed by a search that has not started yet
+     * @param cancelled - asked every few thousand nodes from the searching thread, may be null
+     */
+    public Result search(ChessPosition root, long[] gameHashes, SearchLimits limits, Consumer<Result> progress, BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        copy(root, position);
+        eval.reset(position);
+        this.limits = limits;
+        startNanos = System.nanoTime();
+        limitNanos = startNanos;
+        limitNodes = 0;
+        time.start(limits);
+        nodes = 0;
+        quiescenceNodes = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        for (int[] plyKillers : killers)
+            Arrays.fill(plyKillers, 0);
+        for (int[] pieceHistory : history) //what cut off last move is still a fair guess, but new cutoffs should soon count more
+        {
+            for (int to = 0; to < 64; to++)
+                pieceHistory[to] >>= 3;
+        }
+        if (helper == 0 && team == null) //a parallel search does this for all its threads before starting them, so a helper starting late can not miss a stop
+        {
+            stopped = false;
+            table.newSearch();
+        }
+        hashCount = 0;
+        for (long hash : gameHashes)
+            pushHash(hash);
+        pushHash(Zobrist.hash(position));
+        Result best = new Result(0, 0, 0, 0, 0, new int[0]);
+        int count = MoveGenerator.generateLegal(position, moves[0]);
+        if (count == 0)
+            return best;
+        if (cancelled != null && cancelled.getAsBoolean())
+            stopped = true;
+        int[] rootMoves = Arrays.copyOf(moves[0], count);
+        best = new Result(rootMoves[0], 0, 0, 0, 0, new int[] {rootMoves[0]});
+        for (int depth = 1; depth < MAX_PLY; depth++)
+        {
+            if (this.limits.getDepth() > 0 && depth > this.limits.getDepth()) //read each time, a ponder hit can change the limits
+                break;
+            iterationDepth = depth;
+            if (helper > 0 && depth > 1 && ((depth + SKIP_PHASE[(helper - 1) % 20]) / SKIP_SIZE[(helper - 1) % 20]) % 2 != 0)
+                continue;
+            int score = searchRoot(rootMoves, depth);
+            if (stopped && depth > 1) //an unfinished iteration may not have looked at the move that refutes its choice
+                break;
+            best = new Result(pv[0][0], score, depth, nodes, elapsedMillis(), Arrays.copyOf(pv[0], pvLength[0]), lines(score));
+            table.store(hashes[hashCount - 1], best.move, score, depth, TranspositionTable.EXACT, 0);
+            if (progress != null)
+                progress.accept(best);
+            if (stopped || count == 1 || Math.abs(score) >= MATE - depth) //a forced move or a mate found needs no deeper search
+                break;
+            if (time.iterationDone(best.move, limitMillis()))
+                break;
+        }
+        return new Result(best.move, best.score, best.depth, nodes, elapsedMillis(), best.pv, best.lines);
+    }
+
+    /***
+     * stops the search, it returns the best move found so far, safe to call from any thread
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getNodes() { return this.nodes; }
+    public long getQuiescenceNodes() { return this.quiescenceNodes; }
+    public long getCutoffs() { return this.cutoffs; }
+    public long getFirstMoveCutoffs() { return this.firstMoveCutoffs; }
+
+    /***
+     * @param ordering - false to order moves before the last ply only by the table's move then captures first, for measuring what the other ordering saves,
+     * captures past the last ply are always ordered since the search there has no table to fall back on
+     */
+    public void setOrdering(boolean ordering) { this.ordering = ordering; }
+
+    /***
+     * @param multiPv - root moves to find the exact score and line of, the best first, 1 to only find the best move, which is quickest, not to be changed while searching
+     */
+    public void setMultiPv(int multiPv) { this.multiPv = Math.max(1, multiPv); }
+
+    /***
+     * @param network - network to score positions with, null for the handcrafted evaluation, not to be changed while searching
+     */
+    public void setNetwork(Network network) { this.eval = (network == null) ? new IncrementalEval() : new NeuralEval(network); }
+
+    /***
+     * makes this search one thread of a parallel search
+     * @param helper - 0 for the main thread, which reports the result, above 0 for a helper
+     * @param team - the helpers, given to the main thread so its node limit counts their nodes, null for a helper
+     */
+    void joinTeam(int helper, Search[] team) {
+        this.helper = helper;
+        this.team = team;
+    }
+
+    /***
+     * makes the search in progress stop by new limits, counted from now, used to adopt a search of the position the engine expected while the opponent was thinking
+     * the limits are taken up at the next check, within a few thousand nodes, safe to call from any thread
+     * @param limits - limits from now on, null to take back limits not taken up yet
+     */
+    public void ponderHit(SearchLimits limits) {
+        ponderHitLimits = limits;
+    }
+
+    /***
+     * readies a thread of a parallel search to be started
+     */
+    void prepare() {
+        stopped = false;
+    }
+
+    /***
+     * searches each root move, moving the best to the front so the next iteration starts with it
+     */
+    private int searchRoot(int[] rootMoves, int depth) {
+        if (multiPv > 1)
+            return searchRootLines(rootMoves, depth);
+        int alpha = -INFINITE;
+        int beta = INFINITE;
+        pvLength[0] = 0;
+        for (int i = 0; i < rootMoves.length; i++)
+        {
+            int move = rootMoves[i];
+            makeMove(move);
+            pushHash(Zobrist.hash(position));
+            int score;
+            if (i == 0)
+                score = -search(depth - 1, -beta, -alpha, 1);
+            else
+            {
+                score = -search(depth - 1, -alpha - 1, -alpha, 1);
+                if (score > alpha && !stopped)
+                    score = -search(depth - 1, -beta, -alpha, 1);
+            }
+            hashCount--;
+            unmakeMove(move);
+            if (stopped && i > 0)
+                break;
+            if (score > alpha)
+            {
+                alpha = score;
+                updatePv(0, move);
+                System.arraycopy(rootMoves, 0, rootMoves, 1, i); //best first, the rest keep their order
+                rootMoves[0] = move;
+            }
+        }
+        return alpha;
+    }
+
+    /***
+     * searches each root move for the best multiPv lines: the first ones with a full window, each after with a null window at the worst line kept,
+     * searching it again with a full window only if it beats that line, so a move that is not among the best costs about as much as without more lines
+     * the moves are kept sorted best first as they are searched, their scores and lines in lineScores and linePvs, a move that did not beat the worst line is scored no higher than it
+     */
+    private int searchRootLines(int[] rootMoves, int depth) {
+        int lines = Math.min(multiPv, rootMoves.length);
+        lineCount = 0;
+        for (int i = 0; i < rootMoves.length; i++)
+        {
+            int move = rootMoves[i];
+            int alpha = (i < lines) ? -INFINITE : lineScores[lines - 1];
+            makeMove(move);
+            pushHash(Zobrist.hash(position));
+            int score;
+            if (i < lines)
+                score = -search(depth - 1, -INFINITE, INFINITE, 1);
+            else
+            {
+                score = -search(depth - 1, -alpha - 1, -alpha, 1);
+                if (score > alpha && !stopped)
+                    score = -search(depth - 1, -INFINITE, INFINITE, 1);
+            }
+            hashCount--;
+            unmakeMove(move);
+            if (stopped && i > 0)
+                break;
+            int[] line = linePvs[i];
+            line[0] = move;
+            System.arraycopy(pv[1], 0, line, 1, pvLength[1]);
+            int length = pvLength[1] + 1;
+            int at = i;
+            while (at > 0 && score > lineScores[at - 1]) //insert it among the moves already searched, ties keep their order
+            {
+                rootMoves[at] = rootMoves[at - 1];
+                lineScores[at] = lineScores[at - 1];
+                linePvs[at] = linePvs[at - 1];
+                lineLengths[at] = lineLengths[at - 1];
+                at--;
+            }
+            rootMoves[at] = move;
+            lineScores[at] = score;
+            linePvs[at] = line;
+            lineLengths[at] = length;
+            lineCount = Math.min(lines, i + 1);
+        }
+        System.arraycopy(linePvs[0], 0, pv[0], 0, lineLengths[0]);
+        pvLength[0] = lineLengths[0];
+        return lineScores[0];
+    }
+
+    /***
+     * @param score - score of the best line
+     * @return - the lines of the iteration just finished, best first
+     */
+    private Line[] lines(int score) {
+        if (multiPv == 1)
+            return new Line[] {new Line(score, Arrays.copyOf(pv[0], pvLength[0]))};
+        Line[] lines = new Line[lineCount];
+        for (int i = 0; i < lines.length; i++)
+            lines[i] = new Line(lineScores[i], Arrays.copyOf(linePvs[i], lineLengths[i]));
+        return lines;
+    }
+
+    /***
+     * negamax alpha beta search with a null window for every move after the first
+     * a position already searched at least as deeply ends the search here if its stored score is outside the window, except on the principal variation where the exact line is wanted
+     * @param depth - plies left to search
+     * @param ply - plies from the root
+     * @return - score from the side to move's point of view, only exact when it is between alpha and beta
+     */
+    private int search(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (depth <= 0)
+            return isDraw() ? 0 : quiesce(alpha, beta, ply);
+        if (++nodes % CHECK_EVERY == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (isDraw())
+            return 0;
+        if (ply >= MAX_PLY - 1)
+            return eval.evaluate(position);
+        boolean inCheck = MoveGenerator.inCheck(position);
+        if (inCheck) //look one ply further at checks so a mate or a lost piece just past the horizon is seen
+            depth++;
+        long key = hashes[hashCount - 1];
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0)
+        {
+            hashMove = TranspositionTable.getMove(entry);
+            if (TranspositionTable.getDepth(entry) >= depth && beta - alpha == 1)
+            {
+                int score = TranspositionTable.getScore(entry, ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && score >= beta) || (bound == TranspositionTable.UPPER && score <= alpha))
+                    return score;
+            }
+        }
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int count = MoveGenerator.generate(position, list);
+        scoreMoves(list, scores, count, hashMove, ply, ordering);
+        boolean black = !position.isWhiteToMove();
+        int originalAlpha = alpha;
+        int legal = 0;
+        int best = -INFINITE;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int move = nextMove(list, scores, i, count);
+            makeMove(move);
+            int king = position.kingSquare(black);
+            if (king != ChessPosition.NO_SQUARE && MoveGenerator.isAttacked(position, king, !black))
+            {
+                unmakeMove(move);
+                continue;
+            }
+            legal++;
+            pushHash(Zobrist.hash(position));
+            int score;
+            if (legal == 1)
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            else
+            {
+                score = -search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta)
+                    score = -search(depth - 1, -beta, -alpha, ply + 1);
+            }
+            hashCount--;
+            unmakeMove(move);
+            if (stopped)
+                return 0;
+            if (score > best)
+            {
+                best = score;
+                if (score > alpha)
+                {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta)
+                    {
+                        cutoffs++;
+                        if (legal == 1)
+                            firstMoveCutoffs++;
+                        if (captured(move) == ChessPosition.EMPTY && MoveHistory.getPromotion(move) == MoveHistory.PROMOTE_NONE)
+                            rememberQuiet(move, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+        if (legal == 0)
+            return inCheck ? -MATE + ply : 0; //checkmate or stalemate
+        int bound = (best >= beta) ? TranspositionTable.LOWER : (best > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    /***
+     * searches captures and promotions only, the side to move may stand pat instead since a quiet move is usually at least as good as not capturing
+     * in check every move is searched, there is no standing pat when the king is attacked
+     * @return - score from the side to move's point of view, only exact when it is between alpha and beta
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        quiescenceNodes++;
+        if (++nodes % CHECK_EVERY == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (ply >= MAX_PLY - 1)
+            return eval.evaluate(position);
+        boolean inCheck = MoveGenerator.inCheck(position);
+        int best = -INFINITE;
+        if (!inCheck)
+        {
+            best = eval.evaluate(position);
+            if (best >= beta)
+                return best;
+            if (best > alpha)
+                alpha = best;
+        }
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int count = MoveGenerator.generate(position, list);
+        if (!inCheck)
+            count = keepCaptures(list, count);
+        scoreMoves(list, scores, count, 0, ply, true);
+        boolean black = !position.isWhiteToMove();
+        int legal = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int move = nextMove(list, scores, i, count);
+            if (!inCheck && scores[i] < ORDER_CAPTURE) //the rest lose material, standing pat is better
+                break;
+            makeMove(move);
+            int king = position.kingSquare(black);
+            if (king != ChessPosition.NO_SQUARE && MoveGenerator.isAttacked(position, king, !black))
+            {
+                unmakeMove(move);
+                continue;
+            }
+            legal++;
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            unmakeMove(move);
+            if (stopped)
+                return 0;
+            if (score > best)
+            {
+                best = score;
+                if (score > alpha)
+                {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta)
+                        break;
+                }
+            }
+        }
+        if (inCheck && legal == 0)
+            return -MATE + ply;
+        return best;
+    }
+
+    /***
+     * @return - count of captures and promotions, moved to the front of list
+     */
+    private int keepCaptures(int[] list, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (captured(list[i]) != ChessPosition.EMPTY || MoveHistory.getPromotion(list[i]) != MoveHistory.PROMOTE_NONE)
+                list[kept++] = list[i];
+        }
+        return kept;
+    }
+
+    /***
+     * gives every move a score for how likely it is to cut off the search, higher first
+     * @param hashMove - best move stored for the position, 0 if none
+     * @param ordered - false to score captures alike and quiet moves alike
+     */
+    private void scoreMoves(int[] list, int[] scores, int count, int hashMove, int ply, boolean ordered) {
+        for (int i = 0; i < count; i++)
+        {
+            int move = list[i];
+            int victim = captured(move);
+            int promotion = MoveHistory.getPromotion(move);
+            if (move == hashMove)
+                scores[i] = ORDER_HASH;
+            else if (victim != ChessPosition.EMPTY || promotion != MoveHistory.PROMOTE_NONE)
+            {
+                int attacker = position.getPiece(MoveHistory.getFrom(move)) & 7;
+                if (!ordered)
+                    scores[i] = ORDER_CAPTURE;
+                else if (Evaluator.VALUES[victim & 7] < Evaluator.VALUES[attacker] && StaticExchange.see(position, move, gains) < 0) //taking a piece worth as much never loses
+                    scores[i] = ORDER_LOSING_CAPTURE + (Evaluator.VALUES[victim & 7] + PROMOTION_VALUES[promotion]) * 8 - attacker;
+                else //most valuable victim first, then least valuable attacker, a promotion counts as winning the piece it becomes
+                    scores[i] = ORDER_CAPTURE + (Evaluator.VALUES[victim & 7] + PROMOTION_VALUES[promotion]) * 8 - attacker;
+            }
+            else if (!ordered)
+                scores[i] = 0;
+            else if (move == killers[ply][0])
+                scores[i] = ORDER_KILLER + 1;
+            else if (move == killers[ply][1])
+                scores[i] = ORDER_KILLER;
+            else
+                scores[i] = history[position.getPiece(MoveHistory.getFrom(move))][MoveHistory.getTo(move)];
+        }
+    }
+
+    /***
+     * swaps the highest scored of the moves from index on to index, picking them as they are needed saves sorting moves never tried after a cutoff
+     * @return - the move at index
+     */
+    private static int nextMove(int[] list, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++)
+        {
+            if (scores[i] > scores[best])
+                best = i;
+        }
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    /***
+     * remembers a quiet move that cut off the search, as a killer at its ply and in the history table, deeper cutoffs count more
+     */
+    private void rememberQuiet(int move, int depth, int ply) {
+        if (killers[ply][0] != move)
+        {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] pieceHistory = history[position.getPiece(MoveHistory.getFrom(move))];
+        int to = MoveHistory.getTo(move);
+        pieceHistory[to] += depth * depth;
+        if (pieceHistory[to] >= HISTORY_MAX)
+        {
+            for (int[] other : history)
+            {
+                for (int square = 0; square < 64; square++)
+                    other[square] >>= 1;
+            }
+        }
+    }
+
+    /***
+     * @return - piece code the move captures, EMPTY if none, an en passant capture takes a pawn from beside the square moved to
+     */
+    private int captured(int move) {
+        int to = MoveHistory.getTo(move);
+        int target = position.getPiece(to);
+        if (target == ChessPosition.EMPTY && to == position.getEnPassant() && (position.getPiece(MoveHistory.getFrom(move)) & 7) == ChessPosition.PAWN)
+            return ChessPosition.PAWN | (position.isWhiteToMove() ? ChessPosition.BLACK : 0);
+        return target;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /***
+     * makes a move in the position searched, keeping the evaluation's sums up to date
+     */
+    private void makeMove(int move) {
+        eval.makeMove(position, move);
+        position.makeMove(move);
+    }
+
+    private void unmakeMove(int move) {
+        position.unmakeMove(move);
+        eval.unmakeMove();
+    }
+
+    /***
+     * @return - true if the fifty move rule applies or the position was reached before, a repetition is scored as a draw since repeating once can be repeated again
+     */
+    private boolean isDraw() {
+        if (position.getHalfmoveClock() >= 100)
+            return true;
+        long hash = hashes[hashCount - 1];
+        int earliest = Math.max(0, hashCount - 1 - position.getHalfmoveClock()); //a capture or pawn move can not be undone, so no position before it repeats
+        for (int i = hashCount - 3; i >= earliest; i -= 2)
+        {
+            if (hashes[i] == hash)
+                return true;
+        }
+        return false;
+    }
+
+    private void pushHash(long hash) {
+        if (hashCount == hashes.length)
+            hashes = Arrays.copyOf(hashes, hashCount * 2);
+        hashes[hashCount++] = hash;
+    }
+
+    private void checkLimits() {
+        long total = nodes;
+        if (team != null)
+        {
+            for (Search other : team)
+                total += other.nodes;
+        }
+        SearchLimits adopted = ponderHitLimits;
+        if (adopted != null)
+        {
+            ponderHitLimits = null;
+            limits = adopted;
+            limitNanos = System.nanoTime();
+            limitNodes = total;
+            time.start(limits);
+        }
+        if ((limits.getNodes() > 0 && total - limitNodes >= limits.getNodes()) || (time.getHardMillis() > 0 && limitMillis() >= time.getHardMillis())
+            || (limits.getDepth() > 0 && iterationDepth > limits.getDepth()) || (cancelled != null && cancelled.getAsBoolean()))
+            stopped = true;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    /***
+     * @return - milliseconds since the limits started counting
+     */
+    private long limitMillis() {
+        return (System.nanoTime() - limitNanos) / 1000000;
+    }
+
+    /***
+     * copies a position, the search makes and takes back moves on its own copy
+     */
+    static void copy(ChessPosition from, ChessPosition to) {
+        to.clear();
+        for (int square = 0; square < 64; square++)
+            to.setPiece(square, from.getPiece(square));
+        to.setWhiteToMove(from.isWhiteToMove());
+        to.setCastling(from.getCastling());
+        to.setEnPassant(from.getEnPassant());
+        to.setHalfmoveClock(from.getHalfmoveClock());
+        to.setFullmoveNumber(from.getFullmoveNumber());
+    }
+}
@@ -0,0 +1,33 @@
+package Engine;
+
+import BoardComponents.ChessPosition;
+
+/***
+ * an evaluation the search keeps up to date as it makes and takes back moves, so scoring a position only costs what the moves changed
+ * one per search thread, they are not safe to share
+ */
+public abstract class SearchEvaluator {
+    /***
+     * works out the state from scratch
+     * @param position - position moves will be made from
+     */
+    public abstract void reset(ChessPosition position);
+
+    /***
+     * updates the state for a move, call it before the position makes the move
+     * @param position - position the move is about to be made in
+     * @param move - move packed as in MoveHistory
+     */
+    public abstract void makeMove(ChessPosition position, int move);
+
+    /***
+     * puts the state back as it was before the last makeMove
+     */
+    public abstract void unmakeMove();
+
+    /***
+     * @param position - the position the state is kept for
+     * @return - score in centipawns, positive if the side to move is better
+     */
+    public abstract int evaluate(ChessPosition position);
+}
@@ -0,0 +1,84 @@
+package Engine;
+
+/***
+ * how long a search may run, it stops at whichever limit is reached first, a limit of 0 is no limit
+ * a clock gives the time left for the game instead of for the move, TimeManager decides how much of it each move gets
+ */
+public class SearchLimits {
+    //strengths offered on the main menu, weakest first
+    public static final String[] LEVEL_NAMES = {"Easy (depth 2)", "Medium (depth 4)", "Hard (1 second)", "Expert (5 seconds)", "Fixed (200k nodes)", "Blitz (5 minutes + 3 seconds)"};
+
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+    private final long clockMillis;
+    private final long incrementMillis;
+    private final int movesToGo;
+
+    /***
+     * @param depth - deepest iteration, in plies
+     * @param nodes - most positions to search
+     * @param millis - longest time to search
+     */
+    public SearchLimits(int depth, long nodes, long millis) {
+        this(depth, nodes, millis, 0, 0, 0);
+    }
+
+    /***
+     * @param clockMillis - time left on the side to move's clock for the rest of the game, or until the next time control
+     * @param incrementMillis - time added to the clock after each move
+     * @param movesToGo - moves until the next time control, 0 if the clock is for the rest of the game
+     */
+    private SearchLimits(int depth, long nodes, long millis, long clockMillis, long incrementMillis, int movesToGo) {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.clockMillis = clockMillis;
+        this.incrementMillis = incrementMillis;
+        this.movesToGo = movesToGo;
+    }
+
+    public static SearchLimits depth(int depth) { return new SearchLimits(depth, 0, 0); }
+    public static SearchLimits nodes(long nodes) { return new SearchLimits(0, nodes, 0); }
+    public static SearchLimits time(long millis) { return new SearchLimits(0, 0, millis); }
+    public static SearchLimits clock(long clockMillis, long incrementMillis, int movesToGo) { return new SearchLimits(0, 0, 0, clockMillis, incrementMillis, movesToGo); }
+
+    /***
+     * @param level - index into LEVEL_NAMES
+     * @return - limits for that strength
+     */
+    public static SearchLimits level(int level) {
+        switch (level)
+        {
+            case 0: return depth(2);
+            case 1: return depth(4);
+            case 2: return time(1000);
+            case 3: return time(5000);
+            case 4: return nodes(200000);
+            default: return clock(5 * 60 * 1000, 3000, 0);
+        }
+    }
+
+    /***
+     * @param clockMillis - time left now
+     * @return - the same limits with the clock at that time
+     */
+    public SearchLimits withClock(long clockMillis) {
+        return new SearchLimits(depth, nodes, millis, clockMillis, incrementMillis, movesToGo);
+    }
+
+    // getters
+    public int getDepth() { return this.depth; }
+    public long getNodes() { return this.nodes; }
+    public long getMillis() { return this.millis; }
+    public long getClockMillis() { return this.clockMillis; }
+    public long getIncrementMillis() { return this.incrementMillis; }
+    public int getMovesToGo() { return this.movesToGo; }
+    public boolean hasClock() { return this.clockMillis > 0; }
+
+    @Override
+    public String toString() {
+        String clock = hasClock() ? ", clock " + clockMillis + " + " + incrementMillis + " ms" + ((movesToGo > 0) ? " for " + movesToGo + " moves" : "") : "";
+        return "depth " + depth + ", nodes " + nodes + ", " + millis + " ms" + clock;
+    }
+}
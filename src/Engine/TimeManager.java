@@ -0,0 +1,67 @@
+package Engine;
+
+/***
+ * decides how long a search on a clock runs: a soft limit, after which no new iteration is started, and a hard limit at which the search is stopped wherever it is
+ * the soft limit is a fair share of the clock, stretched while the best move keeps changing between iterations, since an unsettled search gains the most from more time,
+ * and shrunk once the best move has been the same for several iterations
+ * a fixed time per move is a hard limit alone, so it is always used up
+ */
+class TimeManager {
+    private static final long OVERHEAD_MILLIS = 50; //kept back on the clock for handing the move over
+    private static final int DEFAULT_MOVES_TO_GO = 30; //moves the clock is shared over when there is no time control to reach
+    private static final int MAX_MOVES_TO_GO = 50;
+    private static final double HARD_SHARE = 0.25; //most of the clock one move may use
+    private static final double HARD_STRETCH = 5; //most a move may use as a multiple of its soft limit
+    private static final double NEXT_ITERATION = 0.6; //share of the soft limit after which the next iteration would likely not finish in time
+    private static final double MOST_UNSTABLE = 2.5;
+    private static final double MOST_STABLE = 0.6;
+
+    private long softMillis; //0 for none
+    private long hardMillis;
+    private double instability; //multiplies the soft limit
+    private int lastBest;
+
+    /***
+     * works out the limits for a search about to start, or a ponder search adopted, counted from now
+     */
+    void start(SearchLimits limits) {
+        instability = 1;
+        lastBest = 0;
+        if (!limits.hasClock())
+        {
+            softMillis = 0;
+            hardMillis = limits.getMillis();
+            return;
+        }
+        int movesToGo = (limits.getMovesToGo() > 0) ? Math.min(limits.getMovesToGo(), MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long available = Math.max(1, limits.getClockMillis() - OVERHEAD_MILLIS);
+        long share = available / movesToGo + limits.getIncrementMillis() * 3 / 4;
+        hardMillis = Math.max(1, Math.min((long) (available * HARD_SHARE), (long) (share * HARD_STRETCH)));
+        if (limits.getMovesToGo() == 1)
+            hardMillis = available; //the last move before the time control may use everything
+        softMillis = Math.max(1, Math.min(share, hardMillis));
+        if (limits.getMillis() > 0) //a fixed limit as well caps both
+        {
+            hardMillis = Math.min(hardMillis, limits.getMillis());
+            softMillis = Math.min(softMillis, hardMillis);
+        }
+    }
+
+    /***
+     * called after each finished iteration
+     * @param best - best move of the iteration
+     * @param elapsedMillis - time since the limits started
+     * @return - true if the search should not start another iteration
+     */
+    boolean iterationDone(int best, long elapsedMillis) {
+        if (lastBest != 0)
+            instability = (best != lastBest) ? Math.min(instability * 1.5 + 0.2, MOST_UNSTABLE) : Math.max(instability * 0.9, MOST_STABLE);
+        lastBest = best;
+        return softMillis > 0 && elapsedMillis >= softMillis * instability * NEXT_ITERATION;
+    }
+
+    /***
+     * @return - time at which the search must stop, 0 for none
+     */
+    long getHardMillis() { return this.hardMillis; }
+}
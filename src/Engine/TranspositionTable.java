@@ -0,0 +1,187 @@
+package Engine;
+
+import java.nio.ByteBuffer;
+
+/***
+ * remembers what searches found about positions so a position reached again by another move order is not searched again, and its best move is tried first
+ * the table lives outside the Java heap in direct buffers, so a table of several gigabytes adds nothing to garbage collection (the JVM may need -XX:MaxDirectMemorySize to allow it)
+ * entries are 16 bytes: the position's hash XORed with the data, then the data (move, score, depth, bound, age), four entries to a 64 byte bucket
+ * reads and writes take no lock, threads sharing the table may write the same entry at once, and a read whose two halves came from different writes
+ * fails the XOR check and is treated as a miss, so no thread ever uses data that belongs to another position
+ */
+public class TranspositionTable {
+    //bounds, what a stored score says about the real score
+    public static final int LOWER = 1; //the search failed high, the real score is at least this
+    public static final int UPPER = 2; //the search failed low, the real score is at most this
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    private static final int SEGMENT_SHIFT = 24; //buckets per buffer, 1 GB, a buffer can not be larger than 2 GB
+    private static final int AGE_MASK = 0x3f;
+
+    private final ByteBuffer[] segments;
+    private final long buckets;
+    private volatile int age; //counts up every search, entries from older searches are replaced first
+
+    /***
+     * @param megabytes - size of the table, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        buckets = Math.max(1, (long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+        int count = (int) ((buckets + (1L << SEGMENT_SHIFT) - 1) >> SEGMENT_SHIFT);
+        segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++)
+        {
+            long segmentBuckets = Math.min(1L << SEGMENT_SHIFT, buckets - ((long) i << SEGMENT_SHIFT));
+            segments[i] = ByteBuffer.allocateDirect((int) (segmentBuckets * BUCKET_BYTES)); //direct buffers start zeroed, an all zero entry is empty
+        }
+    }
+
+    /***
+     * starts a new search, the entries of earlier searches are kept but are the first replaced
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /***
+     * empties the table, only call it while no search is using the table
+     */
+    public void clear() {
+        for (ByteBuffer segment : segments)
+        {
+            for (int i = 0; i < segment.capacity(); i += 8)
+                segment.putLong(i, 0);
+        }
+    }
+
+    /***
+     * @param key - Zobrist hash of the position
+     * @return - data stored for the position, 0 if it is not in the table, read it with the static getters
+     */
+    public long probe(long key) {
+        long bucket = bucketOf(key);
+        ByteBuffer segment = segments[(int) (bucket >> SEGMENT_SHIFT)];
+        int offset = (int) (bucket & ((1L << SEGMENT_SHIFT) - 1)) * BUCKET_BYTES;
+        for (int i = 0; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES)
+        {
+            long data = segment.getLong(offset + 8);
+            if ((segment.getLong(offset) ^ data) == key && data != 0)
+                return data;
+        }
+        return 0;
+    }
+
+    /***
+     * stores what a search found, replacing the entry for the same position, otherwise the entry in its bucket that is from the oldest search or was searched least deeply
+     * @param key - Zobrist hash of the position
+     * @param move - best move found, 0 if none, the move already stored is kept then
+     * @param score - score from the side to move's point of view
+     * @param depth - plies the position was searched to
+     * @param bound - EXACT, LOWER, or UPPER
+     * @param ply - plies from the root, mate scores are stored as distance from the position, not the root
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        long bucket = bucketOf(key);
+        ByteBuffer segment = segments[(int) (bucket >> SEGMENT_SHIFT)];
+        int first = (int) (bucket & ((1L << SEGMENT_SHIFT) - 1)) * BUCKET_BYTES;
+        int current = age;
+        int victim = first;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int i = 0, offset = first; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES)
+        {
+            long data = segment.getLong(offset + 8);
+            if (data == 0)
+            {
+                if (victimWorth > Integer.MIN_VALUE) //an empty entry is used unless the same position is found later in the bucket
+                {
+                    victim = offset;
+                    victimWorth = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            if ((segment.getLong(offset) ^ data) == key)
+            {
+                if (move == 0)
+                    move = getMove(data);
+                if (bound != EXACT && depth < getDepth(data) - 2 && getAge(data) == current) //a much deeper result from this search is worth more than a bound
+                    return;
+                victim = offset;
+                break;
+            }
+            int worth = getDepth(data) - 8 * ((current - getAge(data)) & AGE_MASK);
+            if (worth < victimWorth)
+            {
+                victim = offset;
+                victimWorth = worth;
+            }
+        }
+        long data = (move & 0xffffL) | ((long) (toStored(score, ply) & 0xffff) << 16) | ((long) Math.max(0, Math.min(255, depth)) << 32)
+            | ((long) bound << 40) | ((long) current << 42);
+        segment.putLong(victim + 8, data);
+        segment.putLong(victim, key ^ data);
+    }
+
+    /***
+     * maps the top half of the key onto the buckets, works for any number of buckets
+     */
+    private long bucketOf(long key) {
+        return ((key >>> 32) * buckets) >>> 32;
+    }
+
+    // reading data returned by probe
+    public static int getMove(long data) { return (int) (data & 0xffff); }
+    public static int getDepth(long data) { return (int) ((data >>> 32) & 0xff); }
+    public static int getBound(long data) { return (int) ((data >>> 40) & 3); }
+    private static int getAge(long data) { return (int) ((data >>> 42) & AGE_MASK); }
+
+    /***
+     * @param data - data returned by probe
+     * @param ply - plies from the root of the search reading it
+     * @return - stored score, a mate score made relative to the root again
+     */
+    public static int getScore(long data, int ply) {
+        int score = (short) (data >>> 16);
+        if (score >= Search.MATE - Search.MAX_PLY)
+            return score - ply;
+        if (score <= -Search.MATE + Search.MAX_PLY)
+            return score + ply;
+        return score;
+    }
+
+    private static int toStored(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY)
+            return score + ply;
+        if (score <= -Search.MATE + Search.MAX_PLY)
+            return score - ply;
+        return score;
+    }
+
+    /***
+     * @return - entries in use by the current search per thousand, estimated from the first thousand buckets
+     */
+    public int hashfull() {
+        long sample = Math.min(1000, buckets);
+        int used = 0;
+        for (long bucket = 0; bucket < sample; bucket++)
+        {
+            int offset = (int) bucket * BUCKET_BYTES;
+            for (int i = 0; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES)
+            {
+                long data = segments[0].getLong(offset + 8);
+                if (data != 0 && getAge(data) == age)
+                    used++;
+            }
+        }
+        return (int) (used * 1000 / (sample * BUCKET_ENTRIES));
+    }
+
+    /***
+     * @return - bytes the table takes
+     */
+    public long getBytes() {
+        return buckets * BUCKET_BYTES;
+    }
+}
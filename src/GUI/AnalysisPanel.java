@@ -0,0 +1,136 @@
+package GUI;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+
+import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+
+import Information.Tag;
+
+import Engine.Analyzer;
+import Engine.Search;
+
+/***
+ * shows an Analyzer's lines next to the board: a bar filled white from the bottom as far as white is ahead, and the best lines with their scores and depth
+ * a timer reads the analyzer's latest analysis a few times a second and redraws only if it changed, so a search finishing hundreds of shallow iterations a second costs the event dispatch thread nothing more
+ */
+public class AnalysisPanel extends JPanel {
+    private static final int REFRESH_MILLIS = 250;
+    private static final int PLIES_SHOWN = 10; //moves of each line written out
+    private static final double BAR_SCALE = 400; //centipawns for white to fill about three quarters of the bar
+
+    private final Analyzer analyzer;
+    private final EvalBar bar = new EvalBar();
+    private final JTextArea lines = new JTextArea();
+    private final Timer refresh = new Timer(REFRESH_MILLIS, e -> refresh());
+    private Analyzer.Analysis shown;
+
+    /***
+     * @param analyzer - analyzer to show, the panel does not start or stop it
+     * @param colorSet - color set of the game
+     */
+    public AnalysisPanel(Analyzer analyzer, int colorSet) {
+        super(new BorderLayout(6, 0));
+        this.analyzer = analyzer;
+        this.setBackground(Tag.ColorChoice[colorSet][6]);
+        bar.setPreferredSize(new Dimension(24, 240));
+        lines.setEnabled(false);
+        lines.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        lines.setBackground(Tag.ColorChoice[colorSet][6]);
+        lines.setDisabledTextColor(Tag.ColorChoice[colorSet][9]);
+        lines.setLineWrap(true);
+        lines.setWrapStyleWord(true);
+        lines.setPreferredSize(new Dimension(260, 240));
+        this.add(bar, BorderLayout.WEST);
+        this.add(lines, BorderLayout.CENTER);
+    }
+
+    /***
+     * starts or stops following the analyzer, it should be stopped when the panel is taken away
+     */
+    public void setRefreshing(boolean refreshing) {
+        if (refreshing)
+            refresh.start();
+        else
+            refresh.stop();
+    }
+
+    /***
+     * shows the latest analysis if it is not already shown, called by the timer on the event dispatch thread
+     */
+    private void refresh() {
+        Analyzer.Analysis analysis = analyzer.getAnalysis();
+        if (analysis == shown)
+            return;
+        shown = analysis;
+        Search.Result result = (analysis == null) ? null : analysis.getResult();
+        if (result == null)
+        {
+            bar.setWhiteScore(0, false);
+            lines.setText((analysis == null) ? "Analysis stopped" : "Analysing...");
+            return;
+        }
+        if (result.getMove() == 0)
+        {
+            bar.setWhiteScore(0, false);
+            lines.setText("No legal moves");
+            return;
+        }
+        bar.setWhiteScore(analysis.getWhiteScore(0), result.isMate());
+        StringBuilder text = new StringBuilder("Depth " + result.getDepth() + ", " + result.getNodes() / 1000 + "k nodes\n");
+        for (int line = 0; line < result.getLines().length; line++)
+        {
+            text.append('\n').append(scoreText(analysis.getWhiteScore(line), result.getLines()[line].isMate()));
+            String[] moves = analysis.getMoves(line);
+            for (int i = 0; i < Math.min(moves.length, PLIES_SHOWN); i++)
+                text.append(' ').append(moves[i]);
+            text.append('\n');
+        }
+        lines.setText(text.toString());
+    }
+
+    /***
+     * @param whiteScore - score from white's side
+     * @return - the score in pawns, or who mates in how many moves
+     */
+    private static String scoreText(int whiteScore, boolean mate) {
+        if (!mate)
+            return String.format("%+6.2f", whiteScore / 100.0);
+        int moves = (Search.MATE - Math.abs(whiteScore) + 1) / 2;
+        return ((whiteScore > 0) ? "    #" : "   #-") + moves;
+    }
+
+    /***
+     * a vertical bar, white from the bottom up to white's share of the position and black above it, half and half when it is even
+     */
+    private static class EvalBar extends JPanel {
+        private double whiteShare = 0.5;
+
+        /***
+         * @param whiteScore - score from white's side, turned into a share that nears all or nothing as the score grows
+         * @param mate - true to fill the bar for the side that mates
+         */
+        void setWhiteScore(int whiteScore, boolean mate) {
+            whiteShare = mate ? ((whiteScore > 0) ? 1 : 0) : 1 / (1 + Math.exp(-whiteScore * Math.log(3) / BAR_SCALE)); //BAR_SCALE is 3 to 1
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            int black = (int) Math.round(getHeight() * (1 - whiteShare));
+            g.setColor(Color.DARK_GRAY);
+            g.fillRect(0, 0, getWidth(), black);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, black, getWidth(), getHeight() - black);
+            g.setColor(Color.GRAY);
+            g.drawLine(0, getHeight() / 2, getWidth(), getHeight() / 2);
+            g.drawRect(0, 0, getWidth() - 1, getHeight() - 1);
+        }
+    }
+}
@@ -1,21 +1,31 @@
 package GUI;
 
 import java.awt.BorderLayout;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
-
-import java.io.FileWriter;
+import javax.swing.KeyStroke;
+import javax.swing.AbstractAction;
 
 import Information.Tag;
 import Information.Tag.Side;
 
 import BoardComponents.CheckersBoard;
 
+import Notation.PdnWriter;
+
+import SaveFiles.GameSave;
+
 import SpeechRecognizer.SpeechRecognizerMain;
 
 public class CheckersGameGUI extends GameGUI {
+    private String result = "*"; //PDN result, set when the game ends
     public CheckersGameGUI(MainGUI main, SpeechRecognizerMain speech, String playerOne, String playerTwo, int colorSet) {
         super(main, speech, playerOne, playerTwo, colorSet);
     }
@@ -61,18 +71,32 @@ public class CheckersGameGUI extends GameGUI {
                 speechOutput.replaceRange("Please finish the current move before saving", 0, speechOutput.getText().length());
         }
         else
-        {
-            try {
-                FileWriter writer = new FileWriter("./savedgames/Checkers.txt", false);
-                writer.write(playerOneName + " " + playerTwoName + " " + boardGUI.asString());
-                writer.close();
-                boardGUI.setSaved();
-                speechOutput.replaceRange("Saved", 0, speechOutput.getText().length());
-            }
-            catch (Exception error) {
-                error.getStackTrace();
+            saveGame();
+    }
+
+    protected void addKeyBindings() {
+        super.addKeyBindings();
+        this.boardGUI.getInputMap(IFW).put(KeyStroke.getKeyStroke("P"), "pdn");
+        this.boardGUI.getActionMap().put("pdn", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                copyPdnItemActionPerformed(e);
             }
+        });
+    }
+
+    /***
+     * copies every move of this game as PDN so it can be pasted into other checkers programs
+     */
+    protected void copyPdnItemActionPerformed(ActionEvent e) {
+        StringWriter pdn = new StringWriter();
+        try {
+            new PdnWriter(pdn).write(GameSave.fromBoard(boardGUI, playerOneName, playerTwoName), result);
+        } catch (IOException | IllegalArgumentException error) {
+            speechOutput.replaceRange("Could not write PDN: " + error.getMessage(), 0, speechOutput.getText().length());
+            return;
         }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(pdn.toString()), null);
+        speechOutput.replaceRange("Copied PDN of " + boardGUI.getHistory().size() + " moves", 0, speechOutput.getText().length());
     }
 
     public void updateCurrentTurn(Side side)
@@ -86,6 +110,9 @@ public class CheckersGameGUI extends GameGUI {
     }
 
     public void updateGameOver(Side side, String winCondition) {
+        endJournal();
+        result = (side == Side.BLACK) ? "1-0" : "0-1";
+        archiveGame(result);
         speechOutput.replaceRange(winCondition, 0, speechOutput.getText().length());
         String playerName = getTurnPlayerName(side);
             currentTurn.replaceRange("Winner: " + playerName, 0, currentTurn.getText().length());
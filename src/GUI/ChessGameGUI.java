@@ -1,21 +1,51 @@
 package GUI;
 
 import java.awt.BorderLayout;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import java.io.IOException;
+import java.io.StringWriter;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
-
-import java.io.FileWriter;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.AbstractAction;
 
 import Information.Tag;
 import Information.Tag.Side;
 
 import BoardComponents.ChessBoard;
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+
+import Engine.Analyzer;
+import Engine.EnginePlayer;
+import Engine.Network;
+import Engine.Search;
+import Engine.SearchLimits;
+
+import Notation.Fen;
+import Notation.PgnWriter;
+import Notation.San;
+
+import SaveFiles.GameSave;
+import SaveFiles.PositionIndex;
 
 import SpeechRecognizer.SpeechRecognizerMain;
 
 public class ChessGameGUI extends GameGUI {
+    private String result = "*"; //PGN result, set when the game ends
+    private OpeningExplorer explorer; //null until it is first opened
+    private EnginePlayer engine; //null when both sides are people
+    private Side engineSide;
+    private int engineThinkingAt = -1; //history size of the position the engine is searching, -1 when it is not searching
+    private Analyzer analyzer; //null until analysis is first turned on
+    private AnalysisPanel analysisPanel; //null when analysis is off
     public ChessGameGUI(MainGUI main, SpeechRecognizerMain speech, String playerOne, String playerTwo, int colorSet) {
         super(main, speech, playerOne, playerTwo, colorSet);
     }
@@ -61,18 +91,237 @@ public class ChessGameGUI extends GameGUI {
                 speechOutput.replaceRange("Please promote the pawn before saving", 0, speechOutput.getText().length());
         }
         else
+            saveGame();
+    }
+
+    protected void addKeyBindings() {
+        super.addKeyBindings();
+        this.boardGUI.getInputMap(IFW).put(KeyStroke.getKeyStroke("F"), "fen");
+        this.boardGUI.getActionMap().put("fen", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                copyFenItemActionPerformed(e);
+            }
+        });
+        this.boardGUI.getInputMap(IFW).put(KeyStroke.getKeyStroke("P"), "pgn");
+        this.boardGUI.getActionMap().put("pgn", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                copyPgnItemActionPerformed(e);
+            }
+        });
+        this.boardGUI.getInputMap(IFW).put(KeyStroke.getKeyStroke("E"), "explorer");
+        this.boardGUI.getActionMap().put("explorer", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                explorerItemActionPerformed(e);
+            }
+        });
+        this.boardGUI.getInputMap(IFW).put(KeyStroke.getKeyStroke("H"), "hanging");
+        this.boardGUI.getActionMap().put("hanging", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                hangingItemActionPerformed(e);
+            }
+        });
+        this.boardGUI.getInputMap(IFW).put(KeyStroke.getKeyStroke("A"), "analysis");
+        this.boardGUI.getActionMap().put("analysis", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                analysisItemActionPerformed(e);
+            }
+        });
+    }
+
+    /***
+     * lets the computer play one side, it moves as soon as it is that side's turn
+     * @param side - side the computer plays
+     * @param limits - how long it may think about each move
+     * @param network - network it scores positions with, null for the handcrafted evaluation
+     * @param ponder - true to let it think on the player's time, only done when limits are of time
+     */
+    public void setEngine(Side side, SearchLimits limits, Network network, boolean ponder) {
+        engine = new EnginePlayer(limits);
+        engine.setPonder(ponder);
+        if (network != null)
+            engine.setNetwork(network);
+        engineSide = side;
+        gameGUI.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent event) {
+                engine.shutdown();
+            }
+        });
+        startEngineTurn();
+    }
+
+    /***
+     * stops the engine's search and ends its threads, so leaving the game never waits on it
+     */
+    @Override
+    protected void stopBackgroundWork() {
+        if (engine != null)
+            engine.shutdown();
+        shutdownAnalysis();
+    }
+
+    @Override
+    public boolean isHumanTurn() {
+        return engine == null || boardGUI.getTurn() != engineSide;
+    }
+
+    /***
+     * starts the engine searching if it is its turn and it is not already searching this position, the board stays usable while it searches
+     */
+    private void startEngineTurn() {
+        int ply = boardGUI.getHistory().size();
+        if (engine == null || boardGUI.getTurn() != engineSide || engineThinkingAt == ply)
+            return;
+        engineThinkingAt = ply;
+        speechOutput.replaceRange("Thinking...", 0, speechOutput.getText().length());
+        engine.think(ChessPosition.fromBoard((ChessBoard) boardGUI), boardGUI.getHistory(), result -> playEngineMove(result, ply));
+    }
+
+    /***
+     * plays the engine's move through the board the same way a player's move is made, called on the event dispatch thread
+     * @param result - what the search found
+     * @param ply - history size when the search started, the move is dropped if the game has moved on
+     */
+    private void playEngineMove(Search.Result result, int ply) {
+        engineThinkingAt = -1;
+        if (result.getMove() == 0 || boardGUI.getTurn() != engineSide || boardGUI.getHistory().size() != ply || !gameGUI.isDisplayable())
+            return;
+        ChessPosition position = ChessPosition.fromBoard((ChessBoard) boardGUI);
+        String san = San.toSan(position, result.getMove(), new int[MoveGenerator.MAX_MOVES]);
+        ((ChessBoard) boardGUI).playMove(result.getMove());
+        int whiteScore = (engineSide == Side.WHITE) ? result.getScore() : -result.getScore(); //search scores are for the side to move, shown from white's side like other chess programs
+        String score = result.isMate() ? ((whiteScore > 0) ? "white mates" : "black mates") : String.format("%+.2f", whiteScore / 100.0);
+        int predicted = engine.getPonderHits();
+        int pondered = predicted + engine.getPonderMisses();
+        String ponderHits = (pondered == 0) ? "" : ", predicted " + predicted + " of " + pondered + " replies"; //how often it could think on the player's time
+        long clock = engine.getClockMillis();
+        String clockLeft = (clock < 0) ? "" : String.format(", %d:%02d left", clock / 60000, Math.max(0, clock) / 1000 % 60);
+        if (boardGUI.getTurn() != Side.OVER)
+            speechOutput.replaceRange("Computer played " + san + " (depth " + result.getDepth() + ", " + result.getNodes() + " nodes, " + score + ponderHits + clockLeft + ")", 0, speechOutput.getText().length());
+    }
+
+    /***
+     * shows or hides the opening explorer, which lists the moves played from the current position in archived games
+     */
+    protected void explorerItemActionPerformed(ActionEvent e) {
+        if (explorer != null && explorer.isVisible())
+        {
+            explorer.setVisible(false);
+            return;
+        }
+        if (explorer == null)
         {
             try {
-                FileWriter writer = new FileWriter("./savedgames/Chess.txt", false);
-                writer.write(playerOneName + " " + playerTwoName + " " + boardGUI.asString());
-                writer.close();
-                boardGUI.setSaved();
-                speechOutput.replaceRange("Saved", 0, speechOutput.getText().length());
-            }
-            catch (Exception error) {
-                error.getStackTrace();
+                explorer = new OpeningExplorer(gameGUI, colorSet);
+            } catch (IOException error) {
+                speechOutput.replaceRange("Could not open the game archive: " + error.getMessage(), 0, speechOutput.getText().length());
+                error.printStackTrace();
+                return;
             }
+            gameGUI.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent event) {
+                    explorer.dispose();
+                }
+            });
+        }
+        explorer.refresh(); //games may have been archived since it was last shown
+        explorer.showPosition(ChessPosition.fromBoard((ChessBoard) boardGUI));
+        explorer.setVisible(true);
+    }
+
+    /***
+     * shows or hides the orange dots on pieces the other side can win material by taking
+     */
+    protected void hangingItemActionPerformed(ActionEvent e) {
+        ChessBoard board = (ChessBoard) boardGUI;
+        board.setShowHanging(!board.isShowingHanging());
+        speechOutput.replaceRange(board.isShowingHanging() ? "Hanging pieces are marked" : "Hanging pieces are not marked", 0, speechOutput.getText().length());
+    }
+
+    /***
+     * shows or hides the analysis beside the board, while it is shown the position on the board is searched with no limit and its best lines are kept up to date as moves are made
+     */
+    protected void analysisItemActionPerformed(ActionEvent e) {
+        if (analysisPanel != null)
+        {
+            analyzer.stop();
+            analysisPanel.setRefreshing(false);
+            gameGUI.remove(analysisPanel);
+            gameGUI.setSize(gameGUI.getWidth() - analysisPanel.getWidth(), gameGUI.getHeight());
+            gameGUI.revalidate();
+            analysisPanel = null;
+            speechOutput.replaceRange("Analysis off", 0, speechOutput.getText().length());
+            return;
         }
+        if (analyzer == null)
+        {
+            analyzer = new Analyzer(Analyzer.DEFAULT_LINES);
+            gameGUI.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent event) {
+                    shutdownAnalysis();
+                }
+            });
+        }
+        analysisPanel = new AnalysisPanel(analyzer, colorSet);
+        gameGUI.add(analysisPanel, BorderLayout.LINE_END);
+        gameGUI.setSize(gameGUI.getWidth() + analysisPanel.getPreferredSize().width, gameGUI.getHeight());
+        gameGUI.revalidate();
+        analysisPanel.setRefreshing(true);
+        analyzePosition();
+        speechOutput.replaceRange("Analysis on", 0, speechOutput.getText().length());
+    }
+
+    /***
+     * stops the analysis panel's timer, which would otherwise keep the closed game alive, and ends the analysis threads
+     */
+    private void shutdownAnalysis() {
+        if (analysisPanel != null)
+            analysisPanel.setRefreshing(false);
+        if (analyzer != null)
+            analyzer.shutdown();
+    }
+
+    /***
+     * starts the analysis over on the position on the board, what it learned of the last position is kept
+     */
+    private void analyzePosition() {
+        if (analysisPanel != null)
+            analyzer.analyze(ChessPosition.fromBoard((ChessBoard) boardGUI), boardGUI.getHistory());
+    }
+
+    /***
+     * copies the current position as FEN so it can be pasted into other chess programs
+     */
+    protected void copyFenItemActionPerformed(ActionEvent e) {
+        String fen = Fen.toFen(ChessPosition.fromBoard((ChessBoard) boardGUI));
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(fen), null);
+        speechOutput.replaceRange("Copied FEN: " + fen, 0, speechOutput.getText().length());
+    }
+
+    /***
+     * copies every move of this game as PGN so it can be pasted into other chess programs
+     */
+    protected void copyPgnItemActionPerformed(ActionEvent e) {
+        StringWriter pgn = new StringWriter();
+        try {
+            new PgnWriter(pgn).write(GameSave.fromBoard(boardGUI, playerOneName, playerTwoName), result);
+        } catch (IOException | IllegalArgumentException error) {
+            speechOutput.replaceRange("Could not write PGN: " + error.getMessage(), 0, speechOutput.getText().length());
+            return;
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(pgn.toString()), null);
+        speechOutput.replaceRange("Copied PGN of " + boardGUI.getHistory().size() + " moves", 0, speechOutput.getText().length());
+    }
+
+    /***
+     * sets the move counters after loading a FEN, the tokens the board is created from do not hold them
+     * @param halfmove - moves since the last capture or pawn move
+     * @param fullmove - number of the current full move
+     */
+    public void setMoveCounters(int halfmove, int fullmove) {
+        ((ChessBoard) boardGUI).setMoveCounters(halfmove, fullmove);
     }
 
     public void updateCurrentTurn(Side side)
@@ -87,14 +336,44 @@ public class ChessGameGUI extends GameGUI {
             replace += playerTwoName;
         }
         currentTurn.replaceRange(replace, 0, currentTurn.getText().length());
+        if (explorer != null && explorer.isVisible())
+            explorer.showPosition(ChessPosition.fromBoard((ChessBoard) boardGUI));
+        if (engine != null && side == engineSide)
+            SwingUtilities.invokeLater(() -> startEngineTurn()); //the board is still finishing the move, en passant and game over are checked after this
+        if (analysisPanel != null)
+            SwingUtilities.invokeLater(() -> analyzePosition());
     }
 
     public void updateGameOver(Side side, String endCondition) {
+        endJournal();
+        if (engine != null)
+            engine.cancel();
         speechOutput.replaceRange(endCondition, 0, speechOutput.getText().length());
         String playerName = getTurnPlayerName(side);
         if (endCondition.equals("Stalemate")) //no winner so bottom text needs special label
+        {
+            result = "1/2-1/2";
             currentTurn.replaceRange(playerName + " has no remaining moves", 0, currentTurn.getText().length());
+        }
         else
+        {
+            result = (side == Side.WHITE) ? "1-0" : "0-1";
             currentTurn.replaceRange("Winner: " + playerName, 0, currentTurn.getText().length());
+        }
+        archiveGame(result);
+    }
+
+    /***
+     * opens the position index first so the game is indexed as soon as it is archived
+     */
+    @Override
+    protected void archiveGame(String result) {
+        try {
+            PositionIndex.getIndex();
+        } catch (IOException error) {
+            System.out.println("Could not open the position index");
+            error.printStackTrace();
+        }
+        super.archiveGame(result);
     }
 }
@@ -1,8 +1,11 @@
 package GUI;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Container;
 import java.awt.FlowLayout;
 import java.awt.Dimension;
+import java.awt.LayoutManager;
 import java.awt.GridLayout;
 import java.awt.GridBagLayout;
 import java.awt.GridBagConstraints;
@@ -20,7 +23,16 @@ import javax.swing.KeyStroke;
 import javax.swing.BorderFactory;
 import javax.swing.AbstractAction;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import BoardComponents.Board;
+import BoardComponents.ChessBoard;
+
+import SaveFiles.GameArchive;
+import SaveFiles.GameSave;
+import SaveFiles.MoveJournal;
+import SaveFiles.SaveStore;
 
 import Information.Tag;
 import Information.Tag.Side;
@@ -39,6 +51,8 @@ public abstract class GameGUI {
     protected Board boardGUI;
     protected MainGUI main;
     protected SpeechRecognizerMain speech;
+    protected AtomicInteger saveSlot = new AtomicInteger(0); //slot in the save store this game was loaded from or last saved to, 0 until it is saved, set by the save writer thread
+    protected MoveJournal journal; //every move of this game so it can be recovered if the program closes before it is saved, null once the game is over or left
 
     public GameGUI(MainGUI main, SpeechRecognizerMain speech, String playerOne, String playerTwo, int colorSet) { 
         this.main = main;
@@ -47,6 +61,7 @@ public abstract class GameGUI {
         this.playerOneName = playerOne;
         this.playerTwoName = playerTwo;
         initializeGameGUI();
+        startJournal();
         speech.updateGame(boardGUI);
         addKeyBindings();
     }
@@ -59,6 +74,7 @@ public abstract class GameGUI {
         this.playerOneName = playerOne;
         this.playerTwoName = playerTwo;
         initializeGameGUI(pieces);
+        startJournal();
         speech.updateGame(boardGUI);
         addKeyBindings();
     }
@@ -145,7 +161,12 @@ public abstract class GameGUI {
         boardPanel.add(left, BorderLayout.WEST);
         boardPanel.add(right, BorderLayout.EAST);
         boardPanel.add(bottom, BorderLayout.SOUTH);
-        boardPanel.add(boardGUI, BorderLayout.CENTER);
+        if (main.getSingleLayerBoard())
+            boardGUI.useSingleLayerRenderer();
+        JPanel boardHolder = new JPanel(new SquareLayout()); //keeps the board square and centered when the window is resized
+        boardHolder.setBackground(Tag.ColorChoice[colorSet][6]);
+        boardHolder.add(boardGUI);
+        boardPanel.add(boardHolder, BorderLayout.CENTER);
         this.gameGUI.add(boardPanel, BorderLayout.CENTER);
     }
     
@@ -154,7 +175,28 @@ public abstract class GameGUI {
         this.gameGUI.setMinimumSize(gameGUI.getPreferredSize());
         this.gameGUI.setLocationRelativeTo(null);
         this.gameGUI.setVisible(true);
-        this.gameGUI.setResizable(false);
+        this.gameGUI.setResizable(true);
+    }
+
+    /***
+     * lays out the board as the largest square that fits in its holder, rounded down so all 8 squares are the same size, and centers it
+     */
+    private static class SquareLayout implements LayoutManager {
+        public void layoutContainer(Container parent) {
+            if (parent.getComponentCount() == 0)
+                return;
+            int side = Math.min(parent.getWidth(), parent.getHeight());
+            side -= side % Tag.SIZE_MAX;
+            parent.getComponent(0).setBounds((parent.getWidth() - side) / 2, (parent.getHeight() - side) / 2, side, side);
+        }
+        public Dimension preferredLayoutSize(Container parent) {
+            return (parent.getComponentCount() == 0) ? new Dimension() : parent.getComponent(0).getPreferredSize();
+        }
+        public Dimension minimumLayoutSize(Container parent) {
+            return (parent.getComponentCount() == 0) ? new Dimension() : parent.getComponent(0).getMinimumSize();
+        }
+        public void addLayoutComponent(String name, Component comp) { }
+        public void removeLayoutComponent(Component comp) { }
     }
 
     public class toggleDisplay extends JPanel {
@@ -284,13 +326,94 @@ public abstract class GameGUI {
     }
 
     protected abstract void saveItemActionPerformed(ActionEvent e);
+
+    /***
+     * copies the game and hands it to the save store to write in the background, the result is shown in speech output once it is on disk
+     */
+    protected void saveGame() {
+        GameSave save = GameSave.fromBoard(boardGUI, playerOneName, playerTwoName);
+        int movesSaved = boardGUI.getHistory().size();
+        try {
+            speechOutput.replaceRange("Saving...", 0, speechOutput.getText().length());
+            SaveStore.getStore().saveLater(saveSlot, save, new SaveStore.Listener() {
+                public void saved(int slot) {
+                    if (boardGUI.getHistory().size() == movesSaved) //a move made while saving is not in this save
+                        boardGUI.setSaved();
+                    if (journal != null)
+                        journal.setSlot(slot);
+                    speechOutput.replaceRange("Saved to slot " + slot, 0, speechOutput.getText().length());
+                }
+                public void failed(IOException error) {
+                    speechOutput.replaceRange("Could not save: " + error.getMessage(), 0, speechOutput.getText().length());
+                    error.printStackTrace();
+                }
+            });
+        }
+        catch (IOException error) {
+            speechOutput.replaceRange("Could not save: " + error.getMessage(), 0, speechOutput.getText().length());
+            error.printStackTrace();
+        }
+    }
+
+    /***
+     * restores what the token format does not hold, move history and clocks, after a binary save is loaded
+     * @param save - save this game was created from
+     * @param slot - slot the save was read from so saving again replaces it, 0 if it did not come from the save store
+     */
+    public void restoreSave(GameSave save, int slot) {
+        save.restore(boardGUI);
+        boardGUI.setSaved();
+        this.saveSlot.set(slot);
+        startJournal(); //journal started by the constructor did not have the history
+    }
+
+    /***
+     * starts a new journal from the game as it is now, replacing the old one, moves are appended by the board as they are made
+     */
+    protected void startJournal() {
+        endJournal();
+        journal = new MoveJournal(GameSave.fromBoard(boardGUI, playerOneName, playerTwoName), saveSlot.get());
+        boardGUI.setJournal(journal);
+    }
+
+    /***
+     * deletes this game's journal, called once the game is over or the player leaves it, a game that is left without either of these keeps its journal and is offered on the next start
+     */
+    protected void endJournal() {
+        if (journal == null)
+            return;
+        boardGUI.setJournal(null);
+        journal.finish();
+        journal = null;
+    }
     
+    /***
+     * keeps a finished game in the game archive, the game is written on the archive's own thread
+     * @param result - 1-0 if player one won, 0-1 if player two won, 1/2-1/2 for a draw
+     */
+    protected void archiveGame(String result) {
+        int gameType = (boardGUI instanceof ChessBoard) ? GameSave.CHESS : GameSave.CHECKERS;
+        try {
+            GameArchive.getArchive().appendLater(new GameArchive.Game(gameType, playerOneName, playerTwoName, result, boardGUI.getHistory().copy()));
+        } catch (IOException error) {
+            System.out.println("Could not open the game archive");
+            error.printStackTrace();
+        }
+    }
+
+    /***
+     * stops whatever the game runs on other threads before its window closes, nothing by default
+     */
+    protected void stopBackgroundWork() { }
+
     protected void mainMenuItemActionPerformed(ActionEvent e) {
         String message = "Are you sure you want to return to the main menu?";
         if (!boardGUI.getSaved() && boardGUI.getTurn() != Side.OVER)
             message += "\nThis game has not been saved.";
         int quit = JOptionPane.showConfirmDialog(gameGUI, message, "Main Menu", JOptionPane.OK_CANCEL_OPTION);
         if(quit == JOptionPane.OK_OPTION) {
+            stopBackgroundWork();
+            endJournal();
             boardGUI.dispose();
             gameGUI.dispose();
             speechToggle.turnOffToggle(); //make sure voice recognizer is reset to toggle off before another board is created
@@ -305,6 +428,8 @@ public abstract class GameGUI {
         int quit = JOptionPane.showConfirmDialog(gameGUI, message, "Quit", JOptionPane.OK_CANCEL_OPTION);
         if(quit == JOptionPane.OK_OPTION) 
         {
+            stopBackgroundWork();
+            endJournal();
             boardGUI.dispose();
             gameGUI.dispose();
             main.exit();
@@ -365,6 +490,14 @@ public abstract class GameGUI {
         }
     }
 
+    /***
+     * called by board before it acts on a click or speech, a computer player's pieces can not be moved for it
+     * @return - true if the side to move is played by a person
+     */
+    public boolean isHumanTurn() {
+        return true;
+    }
+
     /***
      * updates current turn displayed at the bottom of the screen
      * @param side - current turn
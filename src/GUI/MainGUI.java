@@ -5,6 +5,8 @@ import java.awt.Dimension;
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowFocusListener;
 
@@ -16,23 +18,64 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.JRadioButton;
+import javax.swing.JCheckBox;
 import javax.swing.ButtonGroup;
 import javax.swing.SwingUtilities;
 import javax.swing.BorderFactory;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
 import java.util.Scanner;
 
 import Information.Tag;
+import Information.Tag.Side;
+import BoardComponents.ChessPosition;
+import BoardComponents.CheckersPosition;
 import BoardComponents.Position;
+import Notation.Fen;
+import Notation.Pdn;
+import Notation.PdnReader;
+import Notation.PdnWriter;
+import Notation.PgnGame;
+import Notation.PgnImporter;
+import Notation.PgnWriter;
+import Engine.Network;
+import Engine.SearchLimits;
+import SaveFiles.GameArchive;
+import SaveFiles.PositionIndex;
+import SaveFiles.GameSave;
+import SaveFiles.MoveJournal;
+import SaveFiles.SaveStore;
 import SpeechRecognizer.SpeechRecognizerMain;
 
 public class MainGUI implements Runnable {
     private SpeechRecognizerMain speech = new SpeechRecognizerMain();
     private static final int COLUMN_SPACE = 10;
     private int colorSet;
+    private boolean singleLayerBoard; //draw the board as one component instead of 64, second line of Settings.txt
+    private String networkFile = ""; //network the computer scores positions with, empty for the handcrafted evaluation, third line of Settings.txt
+    private Network network; //loaded from networkFile, kept for the next game
+    private String networkLoaded; //file network was loaded from
 
     private JFrame mainGUI;
     private JPanel gameTitlePanel;
@@ -42,6 +85,9 @@ public class MainGUI implements Runnable {
     private JPanel buttons;
     private JTextField blackPlayerTextField;
     private JTextField whitePlayerTextField;
+    private JComboBox<String> computerSide;
+    private JComboBox<String> computerStrength;
+    private JCheckBox computerPonder;
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(new MainGUI());
@@ -52,6 +98,30 @@ public class MainGUI implements Runnable {
         initializeMainMenu();
         mainGUI.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         mainGUI.setVisible(true);
+        offerResume();
+    }
+
+    /***
+     * looks for games that were still being played when the program last closed without being finished or left from the menu, and offers to resume each one from its move journal
+     */
+    private void offerResume() {
+        for (MoveJournal.Recovery recovery : MoveJournal.findUnfinished())
+        {
+            GameSave save = recovery.getSave();
+            String game = (save.getGameType() == GameSave.CHESS) ? "chess" : "checkers";
+            String message = "A " + game + " game between " + save.getPlayerOne() + " and " + save.getPlayerTwo() + " was not finished when the program closed.\n"
+                + recovery.getMoves() + " moves were made since it was last opened. Resume it?";
+            Object[] options = {"Resume", "Discard", "Later"};
+            int choice = JOptionPane.showOptionDialog(mainGUI, message, "Unfinished Game", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+            if (choice == 0)
+            {
+                openSave(save, recovery.getSlot());
+                recovery.discard(); //resumed game starts its own journal
+                return; //only one game can be played at a time, any others are offered next time
+            }
+            else if (choice == 1)
+                recovery.discard();
+        }
     }
 
     private void assignColorSet() {
@@ -60,6 +130,10 @@ public class MainGUI implements Runnable {
             Scanner myReader = new Scanner(saveFile);
             String savedColorSet = myReader.nextLine();
             colorSet = Integer.valueOf(savedColorSet);
+            if (myReader.hasNextLine()) //older settings files only have the color set
+                singleLayerBoard = Boolean.valueOf(myReader.nextLine().trim());
+            if (myReader.hasNextLine())
+                networkFile = myReader.nextLine().trim();
             myReader.close();
         
       } catch (FileNotFoundException error) {
@@ -150,6 +224,7 @@ public class MainGUI implements Runnable {
         //third, empty panel to leave more space between player panel and buttons
         JPanel buttonSpacer = new JPanel();
         buttonSpacer.setBackground(Tag.ColorChoice[1][6]);
+        addComputerChoices(buttonSpacer);
         playerPanel.setLayout(new GridLayout(3, 1, 0, 0));
         playerPanel.add(whitePlayerPanel);
         playerPanel.add(blackPlayerPanel);
@@ -158,6 +233,71 @@ public class MainGUI implements Runnable {
         mainGUI.add(playerPanel, BorderLayout.CENTER);
     }
 
+    /***
+     * adds the choice of which chess side the computer plays, if either, and how strong it is
+     * @param panel - panel below the player fields
+     */
+    private void addComputerChoices(JPanel panel) {
+        JLabel computerLabel = new JLabel("Computer:");
+        computerLabel.setForeground(Tag.ColorChoice[1][9]);
+        computerSide = new JComboBox<String>(new String[] {"No computer", "Plays black", "Plays white"});
+        computerStrength = new JComboBox<String>(SearchLimits.LEVEL_NAMES);
+        computerStrength.setSelectedIndex(1);
+        computerPonder = new JCheckBox("Ponder", true);
+        computerPonder.setBackground(Tag.ColorChoice[1][6]);
+        computerPonder.setForeground(Tag.ColorChoice[1][9]);
+        computerSide.setToolTipText("Side the computer plays in chess");
+        computerStrength.setToolTipText("How long the computer thinks about each move");
+        computerPonder.setToolTipText("Lets the computer think while it is your turn, only at the strengths limited by time");
+        panel.add(computerLabel);
+        panel.add(computerSide);
+        panel.add(computerStrength);
+        panel.add(computerPonder);
+    }
+
+    /***
+     * @return - side the computer plays, null if both sides are people
+     */
+    private Side chosenComputerSide() {
+        if (computerSide.getSelectedIndex() == 1)
+            return Side.BLACK;
+        else if (computerSide.getSelectedIndex() == 2)
+            return Side.WHITE;
+        return null;
+    }
+
+    /***
+     * lets the computer play the side picked on the main menu, if one was picked
+     * @param game - chess game that has just been opened
+     */
+    private void addComputer(ChessGameGUI game) {
+        Side side = chosenComputerSide();
+        if (side != null)
+            game.setEngine(side, SearchLimits.level(computerStrength.getSelectedIndex()), engineNetwork(), computerPonder.isSelected());
+    }
+
+    /***
+     * loads the network picked in the settings the first time a game needs it
+     * @return - the network, null for the handcrafted evaluation, which is also used if the file can not be read
+     */
+    private Network engineNetwork() {
+        if (networkFile.isEmpty())
+            return null;
+        if (!networkFile.equals(networkLoaded))
+        {
+            try {
+                network = Network.load(Paths.get(networkFile));
+                networkLoaded = networkFile;
+            } catch (IOException | RuntimeException error) {
+                System.out.println("Could not load network " + networkFile);
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(mainGUI, "Could not load network " + networkFile + ": " + error.getMessage() + "\nThe computer will use its handcrafted evaluation.", "Network", JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
+        }
+        return network;
+    }
+
     /***
      * adds player text boxes where players can enter their names
      */
@@ -173,21 +313,24 @@ public class MainGUI implements Runnable {
     }
 
     /***
-     * adds settings, help, and quit buttons at the bottom of the screen
+     * adds saves, settings, help, and quit buttons at the bottom of the screen
      */
     private void addButtons() {
         buttons = new JPanel();
         buttons.setBackground(Tag.ColorChoice[1][6]);
-        buttons.setLayout(new GridLayout(1, 3, 45, 10));
+        buttons.setLayout(new GridLayout(1, 4, 30, 10));
         JPanel buttonWrapper = new JPanel();
         buttonWrapper.setBackground(Tag.ColorChoice[1][6]);
         buttonWrapper.setPreferredSize(new Dimension(600, 120));
+        final JButton saves = new JButton("Saves");
         final JButton settings = new JButton("Settings");
         final JButton help = new JButton("Help");
         final JButton quit = new JButton("Quit");
+        saves.addActionListener(e -> savesItemActionPerformed(e));
         settings.addActionListener(e -> settingsItemActionPerformed(e));
         help.addActionListener(e -> helpItemActionPerformed(e));
         quit.addActionListener(e -> quitItemActionPerformed(e));
+        buttons.add(saves);
         buttons.add(settings);
         buttons.add(help);
         buttons.add(quit);
@@ -195,6 +338,12 @@ public class MainGUI implements Runnable {
         mainGUI.add(buttonWrapper, BorderLayout.SOUTH);
     }
 
+    /***
+     * called by GameGUI when creating the board display
+     * @return - true if the board should be drawn by the single layer renderer
+     */
+    public boolean getSingleLayerBoard() { return this.singleLayerBoard; }
+
     /***
      * called by GameGUI if user returns to main menu, used to redisplay MainGUI
      */
@@ -213,7 +362,11 @@ public class MainGUI implements Runnable {
             playerTwo = "black";
         else
             playerTwo = blackPlayerTextField.getText();
-        new ChessGameGUI(this, speech, playerOne, playerTwo, colorSet);
+        if (chosenComputerSide() == Side.WHITE && whitePlayerTextField.getText().length() == 0)
+            playerOne = "Computer";
+        else if (chosenComputerSide() == Side.BLACK && blackPlayerTextField.getText().length() == 0)
+            playerTwo = "Computer";
+        addComputer(new ChessGameGUI(this, speech, playerOne, playerTwo, colorSet));
         mainGUI.setVisible(false);
     }
 
@@ -232,35 +385,145 @@ public class MainGUI implements Runnable {
     }
 
     private void loadChessItemActionPerformed(ActionEvent e) {
+        String[] options = {"Saved game", "FEN", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(mainGUI, "Load the saved game or a position from FEN?", "Load", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice == 0)
+            loadGame("Chess");
+        else if (choice == 1)
+            loadFen();
+    }
+
+    /***
+     * asks for a FEN or EPD position and starts a chess game from it with the names and colors from the main menu
+     */
+    private void loadFen() {
+        String fen = JOptionPane.showInputDialog(mainGUI, "Paste a FEN or EPD position", Fen.START);
+        if (fen == null || fen.trim().length() == 0)
+            return;
+        ChessPosition position;
         try {
-                File saveFile = new File("./savedgames/Chess.txt");
-                Scanner myReader = new Scanner(saveFile);
-                String savedGame = myReader.nextLine();
-                String[] pieces = savedGame.split(" "); //list of words separated by spaces
-                myReader.close();
-                new ChessGameGUI(this, pieces, speech, pieces[0], pieces[1], Integer.valueOf(pieces[2]));
-                mainGUI.setVisible(false);
-            
-          } catch (FileNotFoundException error) {
-            System.out.println("No save found");
-            error.printStackTrace();
-          }
+            position = Fen.parseEpd(fen.trim()); //reads FEN lines too
+        } catch (IllegalArgumentException error) {
+            JOptionPane.showMessageDialog(mainGUI, error.getMessage(), "Load", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String playerOne = (whitePlayerTextField.getText().length() == 0) ? "white" : whitePlayerTextField.getText();
+        String playerTwo = (blackPlayerTextField.getText().length() == 0) ? "black" : blackPlayerTextField.getText();
+        String[] pieces = position.toTokens(playerOne, playerTwo, colorSet);
+        ChessGameGUI game = new ChessGameGUI(this, pieces, speech, playerOne, playerTwo, colorSet);
+        game.setMoveCounters(position.getHalfmoveClock(), position.getFullmoveNumber());
+        addComputer(game);
+        mainGUI.setVisible(false);
     }
 
     private void loadCheckersItemActionPerformed(ActionEvent e) {
+        String[] options = {"Saved game", "PDN file", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(mainGUI, "Load the saved game or a game from a PDN file?", "Load", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice == 0)
+            loadGame("Checkers");
+        else if (choice == 1)
+            loadPdn();
+    }
+
+    /***
+     * asks for a PDN file, reads every game in it, and starts the chosen game from its last position with every move in its history
+     */
+    private void loadPdn() {
+        JFileChooser chooser = new JFileChooser(SaveStore.DIRECTORY);
+        if (chooser.showOpenDialog(mainGUI) != JFileChooser.APPROVE_OPTION)
+            return;
+        List<PgnGame> games = Collections.synchronizedList(new ArrayList<>());
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        PgnImporter importer = new PgnImporter(Runtime.getRuntime().availableProcessors(), PdnReader::new);
         try {
-                File saveFile = new File("./savedgames/Checkers.txt");
-                Scanner myReader = new Scanner(saveFile);
-                String savedGame = myReader.nextLine();
-                String[] pieces = savedGame.split(" "); //list of words separated by spaces
-                myReader.close();
+            importer.importFile(chooser.getSelectedFile().toPath(), game -> {
+                if (game.isValid())
+                    games.add(game);
+                else
+                    errors.add("Game " + (game.getNumber() + 1) + ": " + game.getError());
+            });
+        } catch (IOException error) {
+            JOptionPane.showMessageDialog(mainGUI, "Could not read " + chooser.getSelectedFile() + ": " + error.getMessage(), "Load", JOptionPane.ERROR_MESSAGE);
+            return;
+        } finally {
+            importer.shutdown();
+        }
+        if (games.isEmpty())
+        {
+            JOptionPane.showMessageDialog(mainGUI, errors.isEmpty() ? "No games found" : errors.get(0), "Load", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        games.sort(Comparator.comparingLong(PgnGame::getNumber)); //games are read in parallel so they finish out of order
+        String[] labels = new String[games.size()];
+        for (int i = 0; i < labels.length; i++)
+        {
+            PgnGame game = games.get(i);
+            labels[i] = (game.getNumber() + 1) + ". " + game.getTag("Black") + " - " + game.getTag("White") + " " + game.getResult();
+        }
+        Object chosen = JOptionPane.showInputDialog(mainGUI, games.size() + " games read" + (errors.isEmpty() ? "" : ", " + errors.size() + " invalid"), "Load", JOptionPane.QUESTION_MESSAGE, null, labels, labels[0]);
+        if (chosen == null)
+            return;
+        PgnGame game = games.get(Arrays.asList(labels).indexOf(chosen));
+        String playerOne = (game.getTag("Black") == null) ? "black" : game.getTag("Black");
+        String playerTwo = (game.getTag("White") == null) ? "red" : game.getTag("White");
+        CheckersPosition start = Pdn.parse((game.getStartFen() == null) ? Pdn.START : game.getStartFen());
+        openSave(GameSave.fromPosition(start, playerOne, playerTwo, colorSet).replay(game.getMoves()), 0);
+    }
+
+    /***
+     * loads the most recently saved game of a type from the save store, falls back to the single save files written by older versions
+     * @param gameName - Chess or Checkers, name of the old save files
+     */
+    private void loadGame(String gameName) {
+        int gameType = gameName.equals("Chess") ? GameSave.CHESS : GameSave.CHECKERS;
+        try {
+            SaveStore.Entry latest = SaveStore.getStore().latest(gameType);
+            if (latest != null)
+            {
+                openSave(SaveStore.getStore().load(latest.getSlot()), latest.getSlot());
+                return;
+            }
+            Path binarySave = Paths.get("./savedgames/" + gameName + ".vcg");
+            if (Files.exists(binarySave))
+            {
+                openSave(GameSave.read(binarySave), 0);
+                return;
+            }
+            File saveFile = new File("./savedgames/" + gameName + ".txt");
+            Scanner myReader = new Scanner(saveFile);
+            String savedGame = myReader.nextLine();
+            String[] pieces = savedGame.split(" "); //list of words separated by spaces
+            myReader.close();
+            if (gameType == GameSave.CHESS)
+                new ChessGameGUI(this, pieces, speech, pieces[0], pieces[1], Integer.valueOf(pieces[2]));
+            else
                 new CheckersGameGUI(this, pieces, speech, pieces[0], pieces[1], Integer.valueOf(pieces[2]));
-                mainGUI.setVisible(false);
-            
-          } catch (FileNotFoundException error) {
+            mainGUI.setVisible(false);
+        } catch (FileNotFoundException error) {
             System.out.println("No save found");
             error.printStackTrace();
-          }
+        } catch (IOException error) {
+            System.out.println("Could not read save");
+            error.printStackTrace();
+        }
+    }
+
+    /***
+     * starts a game from a binary save
+     * @param save - save to start from
+     * @param slot - slot the save came from, 0 if it was not in the save store
+     */
+    private void openSave(GameSave save, int slot) {
+        String[] pieces = save.toTokens();
+        GameGUI game;
+        if (save.getGameType() == GameSave.CHESS)
+            game = new ChessGameGUI(this, pieces, speech, save.getPlayerOne(), save.getPlayerTwo(), save.getColorSet());
+        else
+            game = new CheckersGameGUI(this, pieces, speech, save.getPlayerOne(), save.getPlayerTwo(), save.getColorSet());
+        game.restoreSave(save, slot);
+        if (game instanceof ChessGameGUI)
+            addComputer((ChessGameGUI) game);
+        mainGUI.setVisible(false);
     }
 
     private void helpItemActionPerformed(ActionEvent e) {
@@ -268,6 +531,7 @@ public class MainGUI implements Runnable {
         "Enter player names or let them default to their respective colors\n" +
         "Press play to start a new game or load to load a previous save\n" +
         "The left play and load buttons will launch chess and the right will launch checkers\n" +
+        "Load opens the most recent save, press saves to pick any saved game\n" +
         "Left click or press the speak button and say the name of the square to select\n" +
         "Because the speech recognizer can mishear you, please say one square at a time\n" +
         "For example, say 'alpha two' to select and then 'alpha four' to move that piece\n" +
@@ -289,10 +553,197 @@ public class MainGUI implements Runnable {
      * called by quit buttons in main and game GUI, public so that gameGUI can access it, otherwise gameGUI would be disposed and mainGUI would just be invisible, leaving the program running
      */
     public void exit() {
+        SaveStore.awaitWrites(5000); //finish a save made just before quitting
+        MoveJournal.awaitWrites(1000);
+        GameArchive.awaitWrites(1000);
+        PositionIndex.awaitWrites(1000);
         speech.stopSpeechRecognizerThread();
         mainGUI.dispatchEvent(new WindowEvent(mainGUI, WindowEvent.WINDOW_CLOSING));
     }
 
+    /***
+     * opens the save browser, which lists every game in the save store and opens the one picked
+     * @param e - default actionevent
+     */
+    private void savesItemActionPerformed(ActionEvent e) {
+        try {
+            new SaveBrowser(SaveStore.getStore());
+        } catch (IOException error) {
+            JOptionPane.showMessageDialog(mainGUI, "Could not open saved games: " + error.getMessage(), "Saves", JOptionPane.ERROR_MESSAGE);
+            error.printStackTrace();
+        }
+    }
+
+    public class SaveBrowser extends JFrame {
+        private SaveStore store;
+        private List<SaveStore.Entry> entries;
+        private SaveTableModel model;
+        private JTable table;
+        private JTextField playerFilter;
+        private JComboBox<String> gameFilter;
+
+        public SaveBrowser(SaveStore store) {
+            super("Saved Games");
+            this.store = store;
+            this.entries = new ArrayList<SaveStore.Entry>();
+            this.setIconImage(new ImageIcon(Tag.LAZY_ICON).getImage());
+            this.setSize(560, 420);
+            this.setLocationRelativeTo(mainGUI);
+            this.getContentPane().setBackground(Tag.ColorChoice[1][6]);
+            createFilters();
+            createTable();
+            createBrowserButtons();
+            refresh();
+            this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            this.setVisible(true);
+        }
+
+        /***
+         * creates the player name filter and game type choice at the top of the frame, the list is filtered as the user types
+         */
+        private void createFilters() {
+            JPanel filters = new JPanel();
+            filters.setBackground(Tag.ColorChoice[1][6]);
+            JLabel playerLabel = new JLabel("Player:");
+            playerLabel.setForeground(Tag.ColorChoice[1][9]);
+            playerFilter = new JTextField(COLUMN_SPACE);
+            playerFilter.getDocument().addDocumentListener(new DocumentListener() {
+                public void insertUpdate(DocumentEvent e) { refresh(); }
+                public void removeUpdate(DocumentEvent e) { refresh(); }
+                public void changedUpdate(DocumentEvent e) { refresh(); }
+            });
+            gameFilter = new JComboBox<String>(new String[] {"All games", "Chess", "Checkers"});
+            gameFilter.addActionListener(e -> refresh());
+            filters.add(playerLabel);
+            filters.add(playerFilter);
+            filters.add(gameFilter);
+            this.add(filters, BorderLayout.NORTH);
+        }
+
+        private void createTable() {
+            model = new SaveTableModel();
+            table = new JTable(model);
+            table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            table.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2)
+                        openItemActionPerformed(null);
+                }
+            });
+            this.add(new JScrollPane(table), BorderLayout.CENTER);
+        }
+
+        private void createBrowserButtons() {
+            JPanel buttonWrapper = new JPanel();
+            buttonWrapper.setBackground(Tag.ColorChoice[1][6]);
+            JButton open = new JButton("Open");
+            JButton delete = new JButton("Delete");
+            JButton export = new JButton("Export PGN/PDN");
+            open.setBackground(Tag.ColorChoice[1][7]);
+            delete.setBackground(Tag.ColorChoice[1][7]);
+            export.setBackground(Tag.ColorChoice[1][7]);
+            open.addActionListener(e -> openItemActionPerformed(e));
+            delete.addActionListener(e -> deleteItemActionPerformed(e));
+            export.addActionListener(e -> exportItemActionPerformed(e));
+            buttonWrapper.add(open);
+            buttonWrapper.add(delete);
+            buttonWrapper.add(export);
+            this.add(buttonWrapper, BorderLayout.SOUTH);
+        }
+
+        /***
+         * reads the list again from the store's index with the current filters
+         */
+        private void refresh() {
+            int gameType = SaveStore.ANY_GAME;
+            if (gameFilter.getSelectedIndex() == 1)
+                gameType = GameSave.CHESS;
+            else if (gameFilter.getSelectedIndex() == 2)
+                gameType = GameSave.CHECKERS;
+            entries = store.list(gameType, playerFilter.getText().trim());
+            model.fireTableDataChanged();
+        }
+
+        private void openItemActionPerformed(ActionEvent e) {
+            int row = table.getSelectedRow();
+            if (row < 0)
+                return;
+            int slot = entries.get(row).getSlot();
+            try {
+                GameSave save = store.load(slot);
+                this.dispose();
+                openSave(save, slot);
+            } catch (IOException error) {
+                JOptionPane.showMessageDialog(this, "Could not open slot " + slot + ": " + error.getMessage(), "Saves", JOptionPane.ERROR_MESSAGE);
+                error.printStackTrace();
+            }
+        }
+
+        private void deleteItemActionPerformed(ActionEvent e) {
+            int row = table.getSelectedRow();
+            if (row < 0)
+                return;
+            int slot = entries.get(row).getSlot();
+            int delete = JOptionPane.showConfirmDialog(this, "Delete the game in slot " + slot + "?", "Delete", JOptionPane.OK_CANCEL_OPTION);
+            if (delete == JOptionPane.OK_OPTION)
+            {
+                store.delete(slot);
+                refresh();
+            }
+        }
+
+        /***
+         * writes every saved chess game to savedgames/games.pgn and every checkers game to savedgames/games.pdn on a background thread, the files are written one game at a time
+         * @param e - default actionevent
+         */
+        private void exportItemActionPerformed(ActionEvent e) {
+            Path path = Paths.get(SaveStore.DIRECTORY, "games.pgn");
+            Path checkersPath = Paths.get(SaveStore.DIRECTORY, "games.pdn");
+            new Thread(() -> {
+                String message;
+                int type;
+                try {
+                    message = "Exported " + PgnWriter.exportAll(store, path) + " chess games to " + path + "\nExported " + PdnWriter.exportAll(store, checkersPath) + " checkers games to " + checkersPath;
+                    type = JOptionPane.INFORMATION_MESSAGE;
+                } catch (IOException error) {
+                    message = "Could not export games: " + error.getMessage();
+                    type = JOptionPane.ERROR_MESSAGE;
+                    error.printStackTrace();
+                }
+                String shown = message;
+                int shownType = type;
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, shown, "Export PGN/PDN", shownType));
+            }, "PGN export").start();
+        }
+
+        /***
+         * shows the filtered entries, one row per slot
+         */
+        private class SaveTableModel extends AbstractTableModel {
+            private final String[] columns = {"Slot", "Game", "Player 1", "Player 2", "Moves", "Saved"};
+            private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+            public int getRowCount() { return entries.size(); }
+            public int getColumnCount() { return columns.length; }
+            @Override
+            public String getColumnName(int column) { return columns[column]; }
+
+            public Object getValueAt(int row, int column) {
+                SaveStore.Entry entry = entries.get(row);
+                switch (column)
+                {
+                    case 0: return entry.getSlot();
+                    case 1: return (entry.getGameType() == GameSave.CHESS) ? "Chess" : "Checkers";
+                    case 2: return entry.getPlayerOne();
+                    case 3: return entry.getPlayerTwo();
+                    case 4: return entry.getMoveCount();
+                    default: return dateFormat.format(new Date(entry.getLastModified()));
+                }
+            }
+        }
+    }
+
     /***
      * this method creates a new JFrame that allows the user to pick which color set they want for the board, writes preferred color to Settings.txt or automatically closes if the user clicks out of it
      * @param e - default actionevent
@@ -306,9 +757,11 @@ public class MainGUI implements Runnable {
         JRadioButton colorSetTwo;
         JRadioButton colorSetThree;
         JRadioButton colorSetFour;
+        JCheckBox singleLayer;
+        JTextField networkField;
         public Settings() {
             this.setIconImage(new ImageIcon(Tag.SETTINGS_LOGO).getImage());
-            this.setSize(300, 525);
+            this.setSize(300, 565);
             this.setLocationRelativeTo(mainGUI);
             createInstructions();
             createDemoDisplays();
@@ -418,9 +871,21 @@ public class MainGUI implements Runnable {
             apply.setBackground(Tag.ColorChoice[1][7]);
             apply.addActionListener(e -> applyItemActionPerformed(e));
             JPanel buttonWrapper = new JPanel();
-            buttonWrapper.setPreferredSize(new Dimension(300, 50));
+            buttonWrapper.setPreferredSize(new Dimension(300, 90));
             buttonWrapper.setBackground(Tag.ColorChoice[1][6]);
+            singleLayer = new JCheckBox("Single layer board", singleLayerBoard);
+            singleLayer.setToolTipText("Draws the board as one component, faster on low power hardware");
+            singleLayer.setBackground(Tag.ColorChoice[1][6]);
+            singleLayer.setForeground(Tag.ColorChoice[1][9]);
+            //a path typed in rather than a file chooser, which would take the focus and close this window
+            JLabel networkLabel = new JLabel("Network file:");
+            networkLabel.setForeground(Tag.ColorChoice[1][9]);
+            networkField = new JTextField(networkFile, 14);
+            networkField.setToolTipText("Neural network the computer scores positions with, leave empty for its handcrafted evaluation");
+            buttonWrapper.add(singleLayer);
             buttonWrapper.add(apply);
+            buttonWrapper.add(networkLabel);
+            buttonWrapper.add(networkField);
             this.add(buttonWrapper, BorderLayout.SOUTH);
         }
         private void applyItemActionPerformed(ActionEvent e) {
@@ -432,9 +897,11 @@ public class MainGUI implements Runnable {
                 colorSet = 2;
             else 
                 colorSet = 3;
+            singleLayerBoard = singleLayer.isSelected();
+            networkFile = networkField.getText().trim();
             try {
                 FileWriter writer = new FileWriter("./savedgames/Settings.txt", false);
-                writer.write(String.valueOf(colorSet));
+                writer.write(String.valueOf(colorSet) + "\n" + String.valueOf(singleLayerBoard) + "\n" + networkFile);
                 writer.close();
             }
             catch (Exception error) {
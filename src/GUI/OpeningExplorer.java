@@ -0,0 +1,217 @@
+package GUI;
+
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.swing.ImageIcon;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import Information.Tag;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.Zobrist;
+
+import Notation.San;
+
+import SaveFiles.GameArchive;
+import SaveFiles.PositionIndex;
+
+/***
+ * shows what was played from the position on the board in the archived games: each move with how often it was played and how those games ended,
+ * and the most recent games the position was reached in, it follows the board as moves are made
+ */
+public class OpeningExplorer extends JFrame {
+    private static final int MAX_GAMES = 50; //most recent games listed
+
+    private final PositionIndex index;
+    private final GameArchive archive;
+    private final JLabel summary;
+    private final MoveTableModel moveModel = new MoveTableModel();
+    private final GameTableModel gameModel = new GameTableModel();
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES]; //only used on the explorer's thread
+    private final ExecutorService lookups = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Opening explorer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long shownHash;
+    private volatile int requested; //counts up on every position asked for, a lookup of an older one is not shown
+    private List<String> moveNames = new ArrayList<>();
+    private List<PositionIndex.NextMove> moves = new ArrayList<>();
+    private List<GameArchive.Game> games = new ArrayList<>();
+    private int[] plies = new int[0];
+
+    /***
+     * @param owner - game window the explorer is placed next to
+     * @param colorSet - color set of the game
+     * @throws IOException - if the index or the archive could not be opened
+     */
+    public OpeningExplorer(JFrame owner, int colorSet) throws IOException {
+        super("Opening Explorer");
+        this.index = PositionIndex.getIndex();
+        this.archive = GameArchive.getArchive();
+        this.setIconImage(new ImageIcon(Tag.LAZY_ICON).getImage());
+        this.setSize(420, 520);
+        this.setLocation(owner.getX() + owner.getWidth(), owner.getY());
+        this.getContentPane().setBackground(Tag.ColorChoice[colorSet][6]);
+        summary = new JLabel(" ");
+        summary.setForeground(Tag.ColorChoice[colorSet][9]);
+        this.add(summary, BorderLayout.NORTH);
+        JPanel tables = new JPanel(new GridLayout(2, 1));
+        tables.add(new JScrollPane(new JTable(moveModel)));
+        tables.add(new JScrollPane(new JTable(gameModel)));
+        this.add(tables, BorderLayout.CENTER);
+        this.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+    }
+
+    /***
+     * looks up a position and shows it, nothing is done if it is already shown
+     * the lookup waits on the index while it is being written out, and reading the listed games takes a read each, so both are done on the explorer's own thread
+     * and only then shown on the event dispatch thread, unless another position was asked for by then
+     * @param position - position on the board, not changed after it is given
+     */
+    public void showPosition(ChessPosition position) {
+        long hash = Zobrist.hash(position);
+        if (hash == shownHash)
+            return;
+        shownHash = hash;
+        int request = ++requested;
+        try {
+            lookups.execute(() -> lookUp(position, request));
+        } catch (RejectedExecutionException error) {
+            //disposed, there is nothing to show it in
+        }
+    }
+
+    /***
+     * looks up a position and reads its games, called on the explorer's thread
+     * @param request - what requested was when the position was asked for, it is dropped once another has been asked for
+     */
+    private void lookUp(ChessPosition position, int request) {
+        if (request != requested)
+            return;
+        try {
+            PositionIndex.Lookup lookup = index.lookup(position, MAX_GAMES);
+            List<String> names = new ArrayList<>();
+            for (PositionIndex.NextMove move : lookup.getMoves())
+                names.add((move.getMove() == PositionIndex.NO_MOVE) ? "(game ended)" : San.toSan(position, move.getMove(), scratch));
+            List<GameArchive.Game> read = new ArrayList<>();
+            try {
+                for (long id : lookup.getGameIds())
+                {
+                    if (request != requested)
+                        return;
+                    read.add(archive.read(id, false));
+                }
+            } catch (IOException | RuntimeException error) {
+                System.out.println("Could not read archived games");
+                error.printStackTrace();
+            }
+            PositionIndex.NextMove total = lookup.getTotal();
+            String text = (total.getGames() == 0) ? "Not in any archived game" : "Reached in " + total.getGames() + " games: " + percents(total);
+            if (index.isCatchingUp())
+                text += " (still indexing)";
+            String shownText = String.format(" %s, %.1f ms", text, lookup.getNanos() / 1e6);
+            SwingUtilities.invokeLater(() -> {
+                if (request != requested)
+                    return;
+                moves = lookup.getMoves();
+                moveNames = names;
+                games = read;
+                plies = lookup.getPlies();
+                summary.setText(shownText);
+                moveModel.fireTableDataChanged();
+                gameModel.fireTableDataChanged();
+            });
+        } catch (RuntimeException error) {
+            System.out.println("Opening explorer lookup failed");
+            error.printStackTrace();
+        }
+    }
+
+    /***
+     * shows the next lookup even if the position has not changed, used after games were added
+     */
+    public void refresh() {
+        shownHash = 0;
+    }
+
+    /***
+     * also ends the explorer's thread, a lookup already running finishes but is not shown
+     */
+    @Override
+    public void dispose() {
+        requested++;
+        lookups.shutdownNow();
+        super.dispose();
+    }
+
+    private static String percents(PositionIndex.NextMove move) {
+        return "white " + percent(move.getWhiteWins(), move.getGames()) + " draw " + percent(move.getDraws(), move.getGames()) + " black " + percent(move.getBlackWins(), move.getGames());
+    }
+
+    private static String percent(int part, int whole) {
+        return Math.round(100.0 * part / Math.max(1, whole)) + "%";
+    }
+
+    /***
+     * one row per move played from the position, most played first
+     */
+    private class MoveTableModel extends AbstractTableModel {
+        private final String[] columns = {"Move", "Games", "White", "Draw", "Black"};
+
+        public int getRowCount() { return moves.size(); }
+        public int getColumnCount() { return columns.length; }
+        @Override
+        public String getColumnName(int column) { return columns[column]; }
+
+        public Object getValueAt(int row, int column) {
+            PositionIndex.NextMove move = moves.get(row);
+            switch (column)
+            {
+                case 0: return moveNames.get(row);
+                case 1: return move.getGames();
+                case 2: return percent(move.getWhiteWins(), move.getGames());
+                case 3: return percent(move.getDraws(), move.getGames());
+                default: return percent(move.getBlackWins(), move.getGames());
+            }
+        }
+    }
+
+    /***
+     * one row per game the position was reached in, most recent first
+     */
+    private class GameTableModel extends AbstractTableModel {
+        private final String[] columns = {"Game", "White", "Black", "Result", "Move"};
+
+        public int getRowCount() { return games.size(); }
+        public int getColumnCount() { return columns.length; }
+        @Override
+        public String getColumnName(int column) { return columns[column]; }
+
+        public Object getValueAt(int row, int column) {
+            GameArchive.Game game = games.get(row);
+            switch (column)
+            {
+                case 0: return game.getId();
+                case 1: return game.getPlayerOne();
+                case 2: return game.getPlayerTwo();
+                case 3: return game.getResult();
+                default: return plies[row] / 2 + 1; //full move the position was reached at
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package Notation;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import BoardComponents.ChessPosition;
+
+/***
+ * reads and writes chess positions as FEN and EPD
+ * the readers walk a CharSequence by index and never split or copy it, so a whole file of positions can be read from one buffer into one reused ChessPosition
+ */
+public class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String PIECE_LETTERS = " pnbrqk"; //index is the ChessPosition piece code
+
+    private Fen() { }
+
+    /***
+     * reads a FEN string
+     * @param fen - FEN, the halfmove and fullmove counters may be left off
+     * @return - the position
+     * @throws IllegalArgumentException - if fen is not a valid position
+     */
+    public static ChessPosition parse(CharSequence fen) {
+        ChessPosition position = new ChessPosition();
+        int end = parse(fen, 0, fen.length(), position);
+        if (skipSpaces(fen, end, fen.length()) != fen.length())
+            throw error("unexpected text after FEN", end);
+        return position;
+    }
+
+    /***
+     * reads a FEN from part of a longer sequence
+     * @param text - characters holding the FEN
+     * @param start - index the FEN starts at, leading spaces are skipped
+     * @param end - index reading must stop at
+     * @param into - position to fill, cleared first
+     * @return - index just after the last field read
+     * @throws IllegalArgumentException - if the text is not a valid position
+     */
+    public static int parse(CharSequence text, int start, int end, ChessPosition into) {
+        return parseCounters(text, parseFields(text, start, end, into), end, into);
+    }
+
+    /***
+     * reads the optional halfmove and fullmove counters after the four position fields
+     * @return - index just after the last counter read
+     */
+    private static int parseCounters(CharSequence text, int i, int end, ChessPosition into) {
+        int next = skipSpaces(text, i, end);
+        if (next < end && isDigit(text.charAt(next)))
+        {
+            i = next;
+            int value = 0;
+            while (i < end && isDigit(text.charAt(i)))
+                value = value * 10 + (text.charAt(i++) - '0');
+            into.setHalfmoveClock(value);
+            next = skipSpaces(text, i, end);
+            if (next < end && isDigit(text.charAt(next)))
+            {
+                i = next;
+                value = 0;
+                while (i < end && isDigit(text.charAt(i)))
+                    value = value * 10 + (text.charAt(i++) - '0');
+                into.setFullmoveNumber(Math.max(1, value));
+            }
+        }
+        return i;
+    }
+
+    /***
+     * reads an EPD line, the four position fields followed by operations such as hmvc 0; or id "name";
+     * @param epd - EPD line
+     * @return - the position, with the counters taken from the hmvc and fmvn operations when they are present
+     * @throws IllegalArgumentException - if epd is not a valid position
+     */
+    public static ChessPosition parseEpd(CharSequence epd) {
+        ChessPosition position = new ChessPosition();
+        parseEpd(epd, 0, epd.length(), position, null);
+        return position;
+    }
+
+    /***
+     * reads an EPD record from part of a longer sequence
+     * @param text - characters holding the record
+     * @param start - index the record starts at
+     * @param end - index the record ends at, usually the end of its line
+     * @param into - position to fill, cleared first
+     * @param operations - map every operation is added to with its operands as written, null to skip them
+     * @return - end, every operation up to it is consumed
+     * @throws IllegalArgumentException - if the text is not a valid position or an operation is not closed
+     */
+    public static int parseEpd(CharSequence text, int start, int end, ChessPosition into, Map<String, String> operations) {
+        int i = parseCounters(text, parseFields(text, start, end, into), end, into); //plenty of position files are FEN lines, counters are read if they are there
+        while (true)
+        {
+            i = skipSpaces(text, i, end);
+            if (i >= end)
+                return end;
+            int opcodeStart = i;
+            while (i < end && text.charAt(i) != ' ' && text.charAt(i) != ';')
+                i++;
+            int opcodeEnd = i;
+            int operandStart = skipSpaces(text, i, end);
+            boolean quoted = false;
+            i = operandStart;
+            while (i < end && (quoted || text.charAt(i) != ';'))
+            {
+                if (text.charAt(i) == '"')
+                    quoted = !quoted;
+                i++;
+            }
+            if (i >= end)
+                throw error("operation is missing its ;", opcodeStart);
+            int operandEnd = i++;
+            if (matches(text, opcodeStart, opcodeEnd, "hmvc"))
+                into.setHalfmoveClock(readInt(text, operandStart, operandEnd));
+            else if (matches(text, opcodeStart, opcodeEnd, "fmvn"))
+                into.setFullmoveNumber(Math.max(1, readInt(text, operandStart, operandEnd)));
+            if (operations != null)
+                operations.put(text.subSequence(opcodeStart, opcodeEnd).toString(), text.subSequence(operandStart, operandEnd).toString().trim());
+        }
+    }
+
+    /***
+     * reads every EPD record in a block of text, one per line, reusing one position for all of them
+     * @param text - lines of EPD, blank lines are skipped
+     * @param consumer - called with each position, the position is overwritten by the next record so it must be copied to be kept
+     * @return - number of positions read
+     * @throws IllegalArgumentException - if a line is not a valid position, the message holds the line number
+     */
+    public static int forEachEpd(CharSequence text, Consumer<ChessPosition> consumer) {
+        ChessPosition position = new ChessPosition();
+        int count = 0;
+        int line = 1;
+        int length = text.length();
+        int i = 0;
+        while (i < length)
+        {
+            int lineEnd = i;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n')
+                lineEnd++;
+            int contentEnd = (lineEnd > i && text.charAt(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+            if (skipSpaces(text, i, contentEnd) < contentEnd)
+            {
+                try {
+                    parseEpd(text, i, contentEnd, position, null);
+                }
+                catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + line + ": " + e.getMessage(), e);
+                }
+                consumer.accept(position);
+                count++;
+            }
+            i = lineEnd + 1;
+            line++;
+        }
+        return count;
+    }
+
+    /***
+     * reads the four fields FEN and EPD share, placement, side to move, castling, and en passant
+     * @return - index just after the en passant field
+     */
+    private static int parseFields(CharSequence text, int start, int end, ChessPosition into) {
+        into.clear();
+        int i = skipSpaces(text, start, end);
+        int y = 0;
+        int x = 0;
+        int whiteKings = 0;
+        int blackKings = 0;
+        while (i < end && text.charAt(i) != ' ')
+        {
+            char c = text.charAt(i);
+            if (c == '/')
+            {
+                if (x != 8 || y == 7)
+                    throw error("rank " + (8 - y) + " does not have 8 squares", i);
+                y++;
+                x = 0;
+            }
+            else if (c >= '1' && c <= '8')
+            {
+                x += c - '0';
+                if (x > 8)
+                    throw error("rank " + (8 - y) + " has more than 8 squares", i);
+            }
+            else
+            {
+                int code = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (code <= 0)
+                    throw error("'" + c + "' is not a piece", i);
+                if (x >= 8)
+                    throw error("rank " + (8 - y) + " has more than 8 squares", i);
+                boolean black = Character.isLowerCase(c);
+                if (code == ChessPosition.KING)
+                {
+                    if (black) blackKings++;
+                    else whiteKings++;
+                }
+                into.setPiece(y * 8 + x, code | (black ? ChessPosition.BLACK : 0));
+                x++;
+            }
+            i++;
+        }
+        if (y != 7 || x != 8)
+            throw error("placement does not cover 8 ranks of 8 squares", i);
+        if (whiteKings != 1 || blackKings != 1)
+            throw error("each side needs exactly one king", start);
+
+        i = expectField(text, i, end, "side to move");
+        char side = text.charAt(i++);
+        if (side != 'w' && side != 'b')
+            throw error("side to move must be w or b", i - 1);
+        into.setWhiteToMove(side == 'w');
+
+        i = expectField(text, i, end, "castling");
+        int castling = 0;
+        if (text.charAt(i) == '-')
+            i++;
+        else
+        {
+            while (i < end && text.charAt(i) != ' ')
+            {
+                char c = text.charAt(i);
+                if (c == 'K') castling |= ChessPosition.WHITE_KING_SIDE;
+                else if (c == 'Q') castling |= ChessPosition.WHITE_QUEEN_SIDE;
+                else if (c == 'k') castling |= ChessPosition.BLACK_KING_SIDE;
+                else if (c == 'q') castling |= ChessPosition.BLACK_QUEEN_SIDE;
+                else throw error("'" + c + "' is not a castling right", i);
+                i++;
+            }
+        }
+        into.setCastling(castling);
+
+        i = expectField(text, i, end, "en passant");
+        if (text.charAt(i) == '-')
+            i++;
+        else
+        {
+            if (i + 1 >= end)
+                throw error("en passant square is incomplete", i);
+            char file = text.charAt(i);
+            char rank = text.charAt(i + 1);
+            if (file < 'a' || file > 'h' || (rank != '3' && rank != '6'))
+                throw error("en passant square must be on the third or sixth rank", i);
+            into.setEnPassant((8 - (rank - '0')) * 8 + (file - 'a'));
+            i += 2;
+        }
+        if (i < end && text.charAt(i) != ' ')
+            throw error("unexpected '" + text.charAt(i) + "'", i);
+        return i;
+    }
+
+    /***
+     * moves past the spaces before a required field
+     * @return - index of the first character of the field
+     */
+    private static int expectField(CharSequence text, int i, int end, String field) {
+        int next = skipSpaces(text, i, end);
+        if (next == i || next >= end)
+            throw error("missing " + field, i);
+        return next;
+    }
+
+    private static int skipSpaces(CharSequence text, int i, int end) {
+        while (i < end && (text.charAt(i) == ' ' || text.charAt(i) == '\t'))
+            i++;
+        return i;
+    }
+
+    private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+    private static boolean matches(CharSequence text, int start, int end, String word) {
+        if (end - start != word.length())
+            return false;
+        for (int i = 0; i < word.length(); i++)
+        {
+            if (text.charAt(start + i) != word.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static int readInt(CharSequence text, int start, int end) {
+        int i = skipSpaces(text, start, end);
+        if (i >= end || !isDigit(text.charAt(i)))
+            throw error("expected a number", i);
+        int value = 0;
+        while (i < end && isDigit(text.charAt(i)))
+            value = value * 10 + (text.charAt(i++) - '0');
+        return value;
+    }
+
+    private static IllegalArgumentException error(String message, int index) {
+        return new IllegalArgumentException("Invalid FEN at " + index + ": " + message);
+    }
+
+    /***
+     * writes a position as FEN
+     * @param position - position to write
+     * @return - FEN including the halfmove and fullmove counters
+     */
+    public static String toFen(ChessPosition position) {
+        return appendFen(position, new StringBuilder(90)).toString();
+    }
+
+    /***
+     * writes a position as FEN onto a builder, lets many positions be written without a string for each
+     * @param position - position to write
+     * @param out - builder to append to
+     * @return - out
+     */
+    public static StringBuilder appendFen(ChessPosition position, StringBuilder out) {
+        appendFields(position, out);
+        return out.append(' ').append(position.getHalfmoveClock()).append(' ').append(position.getFullmoveNumber());
+    }
+
+    /***
+     * writes a position as EPD, the counters become hmvc and fmvn operations
+     * @param position - position to write
+     * @return - EPD record
+     */
+    public static String toEpd(ChessPosition position) {
+        StringBuilder out = appendFields(position, new StringBuilder(100));
+        return out.append(" hmvc ").append(position.getHalfmoveClock()).append("; fmvn ").append(position.getFullmoveNumber()).append(';').toString();
+    }
+
+    private static StringBuilder appendFields(ChessPosition position, StringBuilder out) {
+        for (int y = 0; y < 8; y++)
+        {
+            int empty = 0;
+            for (int x = 0; x < 8; x++)
+            {
+                int code = position.getPiece(y * 8 + x);
+                if (code == ChessPosition.EMPTY)
+                    empty++;
+                else
+                {
+                    if (empty > 0)
+                        out.append(empty);
+                    empty = 0;
+                    char letter = PIECE_LETTERS.charAt(code & 7);
+                    out.append((code & ChessPosition.BLACK) != 0 ? letter : Character.toUpperCase(letter));
+                }
+            }
+            if (empty > 0)
+                out.append(empty);
+            if (y < 7)
+                out.append('/');
+        }
+        out.append(position.isWhiteToMove() ? " w " : " b ");
+        int castling = position.getCastling();
+        if (castling == 0)
+            out.append('-');
+        else
+        {
+            if ((castling & ChessPosition.WHITE_KING_SIDE) != 0) out.append('K');
+            if ((castling & ChessPosition.WHITE_QUEEN_SIDE) != 0) out.append('Q');
+            if ((castling & ChessPosition.BLACK_KING_SIDE) != 0) out.append('k');
+            if ((castling & ChessPosition.BLACK_QUEEN_SIDE) != 0) out.append('q');
+        }
+        int enPassant = position.getEnPassant();
+        if (enPassant == ChessPosition.NO_SQUARE)
+            out.append(" -");
+        else
+            out.append(' ').append((char) ('a' + enPassant % 8)).append(8 - enPassant / 8);
+        return out;
+    }
+}
@@ -0,0 +1,83 @@
+package Notation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/***
+ * the parts of writing PGN and PDN games that are the same, tag pairs and movetext lines kept under 80 characters
+ * games are written one at a time straight to a Writer so exporting a large collection never holds more than one game in memory
+ */
+public abstract class GameWriter implements Closeable {
+    private static final int LINE_LENGTH = 79; //PGN export format keeps movetext lines under 80 characters, PDN follows it
+
+    protected final Writer out;
+    private int column;
+
+    /***
+     * @param out - where games are written, wrap it in a BufferedWriter if it is not buffered
+     */
+    protected GameWriter(Writer out) {
+        this.out = out;
+    }
+
+    protected void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+
+    /***
+     * ends the tags of a game, movetext starts on the next line
+     */
+    protected void startMovetext() throws IOException {
+        out.write('\n');
+        column = 0;
+    }
+
+    /***
+     * writes the result and the blank line after a game
+     */
+    protected void endMovetext(String result) throws IOException {
+        writeToken(result);
+        out.write("\n\n");
+    }
+
+    /***
+     * writes a token of movetext, starting a new line instead of going past the line length
+     */
+    protected void writeToken(String token) throws IOException {
+        if (column > 0 && column + 1 + token.length() > LINE_LENGTH)
+        {
+            out.write('\n');
+            column = 0;
+        }
+        else if (column > 0)
+        {
+            out.write(' ');
+            column++;
+        }
+        out.write(token);
+        column += token.length();
+    }
+
+    /***
+     * writes how long a move took as an [%emt] comment
+     * @param millis - time between the move and the one before it
+     */
+    protected void writeElapsed(long millis) throws IOException {
+        long seconds = millis / 1000;
+        writeToken("{[%emt " + String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60) + "]}");
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
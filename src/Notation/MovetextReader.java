@@ -0,0 +1,159 @@
+package Notation;
+
+/***
+ * reads the parts PGN and PDN games share: tag pairs, then movetext with comments, variations, numeric annotations, and a result
+ * only the main line is kept, each move token is handed to the subclass, which plays it on its own position
+ */
+public abstract class MovetextReader implements PgnImporter.GameReader {
+    /***
+     * reads a game, a reader is not thread safe so each thread reading games needs its own
+     * @param text - characters holding the game
+     * @param start - index the game starts at
+     * @param end - index just after the game
+     * @return - the game, with an error set if it is not valid (an illegal or ambiguous move, a bad tag or FEN, or a result that does not match its tag)
+     */
+    @Override
+    public PgnGame read(CharSequence text, int start, int end) {
+        PgnGame game = new PgnGame();
+        startGame();
+        boolean inMovetext = false;
+        boolean finished = false; //result has been read
+        int variations = 0;
+        int i = start;
+        while (i < end && game.isValid())
+        {
+            char c = text.charAt(i);
+            if (c <= ' ')
+                i++;
+            else if (c == '{') //comment, runs to the closing brace
+                i = skipPast(text, i, end, '}');
+            else if (c == ';' || (c == '%' && (i == start || text.charAt(i - 1) == '\n'))) //comment or escape, runs to the end of the line
+                i = skipPast(text, i, end, '\n');
+            else if (c == '(')
+            {
+                variations++;
+                i++;
+            }
+            else if (c == ')')
+            {
+                variations = Math.max(0, variations - 1);
+                i++;
+            }
+            else if (c == '[' && !inMovetext)
+                i = readTag(text, i, end, game);
+            else
+            {
+                int tokenEnd = i;
+                while (tokenEnd < end && text.charAt(tokenEnd) > ' ' && "{}();[".indexOf(text.charAt(tokenEnd)) < 0)
+                    tokenEnd++;
+                inMovetext = true;
+                if (variations == 0 && c != '$') //numeric annotations and moves in variations are skipped
+                {
+                    if (finished)
+                        game.setError("Text after the result: " + text.subSequence(i, tokenEnd));
+                    else if (isResult(text, i, tokenEnd))
+                    {
+                        game.setResult(text.subSequence(i, tokenEnd).toString());
+                        finished = true;
+                    }
+                    else
+                        readMove(text, i, tokenEnd, game);
+                }
+                i = Math.max(tokenEnd, i + 1);
+            }
+        }
+        if (game.isValid())
+        {
+            String tagResult = game.getTag("Result");
+            if (!finished)
+                game.setError("Missing result");
+            else if (tagResult != null && !tagResult.equals(game.getResult()))
+                game.setError("Result " + game.getResult() + " does not match Result tag " + tagResult);
+        }
+        return game;
+    }
+
+    /***
+     * sets the position back to the usual start before each game
+     */
+    protected abstract void startGame();
+
+    /***
+     * sets the position moves start from, called for a FEN tag
+     * @param fen - value of the tag
+     * @param game - game being read, its start FEN is set if fen is valid
+     * @throws IllegalArgumentException - if fen is not a valid position
+     */
+    protected abstract void readFen(String fen, PgnGame game);
+
+    /***
+     * plays one move token, which may start with a move number, on the position and adds it to the game, or sets an error on the game
+     * @param text - characters holding the game
+     * @param i - index the token starts at
+     * @param end - index just after the token
+     * @param game - game being read
+     */
+    protected abstract void readMove(CharSequence text, int i, int end, PgnGame game);
+
+    /***
+     * @return - true if the token is a game result
+     */
+    protected abstract boolean isResult(CharSequence text, int start, int end);
+
+    /***
+     * reads one tag pair such as [Event "Casual"], a FEN tag sets the position moves start from
+     * @return - index just after the closing bracket
+     */
+    private int readTag(CharSequence text, int i, int end, PgnGame game) {
+        i++;
+        int nameStart = i;
+        while (i < end && text.charAt(i) > ' ' && text.charAt(i) != '"')
+            i++;
+        String name = text.subSequence(nameStart, i).toString();
+        while (i < end && text.charAt(i) != '"')
+            i++;
+        StringBuilder value = new StringBuilder();
+        for (i++; i < end && text.charAt(i) != '"'; i++)
+        {
+            if (text.charAt(i) == '\\' && i + 1 < end)
+                i++;
+            value.append(text.charAt(i));
+        }
+        int close = skipPast(text, i, end, ']');
+        if (i >= end || text.charAt(close - 1) != ']')
+        {
+            game.setError("Unterminated tag " + name);
+            return end;
+        }
+        game.getTags().put(name, value.toString());
+        if (name.equals("FEN"))
+        {
+            try {
+                readFen(value.toString(), game);
+            } catch (IllegalArgumentException error) {
+                game.setError("FEN tag: " + error.getMessage());
+            }
+        }
+        return close;
+    }
+
+    protected static boolean matches(CharSequence text, int start, int end, String token) {
+        if (end - start != token.length())
+            return false;
+        for (int i = 0; i < token.length(); i++)
+        {
+            if (text.charAt(start + i) != token.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /***
+     * @return - index just after the next closing character, end if there is none
+     */
+    private static int skipPast(CharSequence text, int i, int end, char close) {
+        while (i < end && text.charAt(i) != close)
+            i++;
+        return Math.min(end, i + 1);
+    }
+}
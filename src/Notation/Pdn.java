@@ -0,0 +1,157 @@
+package Notation;
+
+import BoardComponents.CheckersPosition;
+
+/***
+ * square numbers and positions for checkers in PDN, the portable draughts notation used by checkers programs and databases
+ * the 32 playable squares are numbered 1 to 32 starting from black's back rank, so black starts on 1 to 12 and red on 21 to 32
+ * PDN calls red White, black moves first in both, and results are written with player one (black) first so 1-0 is a black win
+ */
+public class Pdn {
+    public static final String START = "B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12";
+
+    private Pdn() { }
+
+    /***
+     * @param square - playable square numbered y * 8 + x like CheckersPosition
+     * @return - PDN number of the square, 1 to 32
+     */
+    public static int squareNumber(int square) {
+        return 4 * (7 - square / 8) + (7 - square % 8) / 2 + 1;
+    }
+
+    /***
+     * @param number - PDN number of a square
+     * @return - square numbered y * 8 + x, -1 if number is not 1 to 32
+     */
+    public static int squareOf(int number) {
+        if (number < 1 || number > 32)
+            return -1;
+        int y = 7 - (number - 1) / 4;
+        int x = 7 - 2 * ((number - 1) % 4) - (y % 2); //playable squares are on odd columns of even rows and even columns of odd rows
+        return y * 8 + x;
+    }
+
+    /***
+     * reads a PDN FEN such as B:W18,24,K27:B12,16,K22 (side to move, then each color's squares with K before kings), ranges such as W21-32 are allowed
+     * @param fen - the FEN
+     * @return - the position
+     * @throws IllegalArgumentException - if fen is not a valid position
+     */
+    public static CheckersPosition parse(CharSequence fen) {
+        CheckersPosition position = new CheckersPosition();
+        parse(fen, 0, fen.length(), position);
+        return position;
+    }
+
+    /***
+     * reads a PDN FEN from part of a longer sequence
+     * @param text - characters holding the FEN
+     * @param start - index the FEN starts at
+     * @param end - index just after the FEN
+     * @param into - position to fill, cleared first
+     * @throws IllegalArgumentException - if the text is not a valid position
+     */
+    public static void parse(CharSequence text, int start, int end, CheckersPosition into) {
+        into.clear();
+        while (start < end && text.charAt(start) <= ' ')
+            start++;
+        while (end > start && (text.charAt(end - 1) <= ' ' || text.charAt(end - 1) == '.'))
+            end--;
+        if (start == end)
+            throw error("empty FEN", start);
+        char turn = Character.toUpperCase(text.charAt(start));
+        if (turn != 'B' && turn != 'W')
+            throw error("side to move must be B or W", start);
+        into.setRedToMove(turn == 'W');
+        int i = start + 1;
+        while (i < end)
+        {
+            if (text.charAt(i) != ':')
+                throw error("expected :", i);
+            i++;
+            if (i == end)
+                break;
+            char color = Character.toUpperCase(text.charAt(i));
+            if (color != 'B' && color != 'W')
+                throw error("color must be B or W", i);
+            int side = (color == 'W') ? CheckersPosition.RED : 0;
+            i++;
+            while (i < end && text.charAt(i) != ':')
+            {
+                if (text.charAt(i) == ',')
+                    i++;
+                int piece = CheckersPosition.PAWN;
+                if (i < end && Character.toUpperCase(text.charAt(i)) == 'K')
+                {
+                    piece = CheckersPosition.KING;
+                    i++;
+                }
+                int first = 0;
+                int numberStart = i;
+                while (i < end && isDigit(text.charAt(i)))
+                    first = first * 10 + (text.charAt(i++) - '0');
+                if (i == numberStart)
+                    throw error("expected a square number", i);
+                int last = first;
+                if (i < end && text.charAt(i) == '-')
+                {
+                    i++;
+                    last = 0;
+                    numberStart = i;
+                    while (i < end && isDigit(text.charAt(i)))
+                        last = last * 10 + (text.charAt(i++) - '0');
+                    if (i == numberStart || last < first)
+                        throw error("invalid range", numberStart);
+                }
+                for (int number = first; number <= last; number++)
+                {
+                    int square = squareOf(number);
+                    if (square < 0)
+                        throw error("no square " + number, numberStart);
+                    if (into.getPiece(square) != CheckersPosition.EMPTY)
+                        throw error("square " + number + " is listed twice", numberStart);
+                    into.setPiece(square, piece | side);
+                }
+            }
+        }
+    }
+
+    /***
+     * writes a position as a PDN FEN, kings are marked with K
+     * @param position - position to write
+     * @return - the FEN
+     */
+    public static String toFen(CheckersPosition position) {
+        StringBuilder fen = new StringBuilder(80);
+        fen.append(position.isRedToMove() ? 'W' : 'B');
+        appendSide(position, CheckersPosition.RED, 'W', fen);
+        appendSide(position, 0, 'B', fen);
+        return fen.toString();
+    }
+
+    private static void appendSide(CheckersPosition position, int side, char color, StringBuilder fen) {
+        fen.append(':').append(color);
+        boolean first = true;
+        for (int number = 1; number <= 32; number++)
+        {
+            int piece = position.getPiece(squareOf(number));
+            if (piece == CheckersPosition.EMPTY || (piece & CheckersPosition.RED) != side)
+                continue;
+            if (!first)
+                fen.append(',');
+            if ((piece & 7) == CheckersPosition.KING)
+                fen.append('K');
+            fen.append(number);
+            first = false;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException error(String message, int index) {
+        return new IllegalArgumentException("Invalid PDN FEN at " + index + ": " + message);
+    }
+}
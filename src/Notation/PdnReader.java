@@ -0,0 +1,201 @@
+package Notation;
+
+import BoardComponents.CheckersPosition;
+import BoardComponents.MoveHistory;
+
+/***
+ * reads one checkers game of PDN, every move is checked against the checkers rules: attacking is mandatory, a jump must go on while it can, and promoting ends it
+ * moves are square numbers joined by - for a move or x for a jump (11-15, 15x24x31), a jump may also give only where it starts and ends (15x31) when there is one way to get there
+ * the game keeps one move per hop, the way CheckersBoard records them
+ */
+public class PdnReader extends MovetextReader {
+    private static final int MAX_HOPS = 12; //a jump can not take more pieces than the other player has
+
+    private final CheckersPosition position = new CheckersPosition(); //reused for every game read by this reader
+    private final CheckersPosition[] positions = new CheckersPosition[MAX_HOPS + 1]; //position before each hop while searching for a jump
+    private final int[][] hops = new int[MAX_HOPS + 1][CheckersPosition.MAX_MOVES];
+    private final int[] squares = new int[MAX_HOPS + 1]; //squares named by the move being read
+    private final int[] path = new int[MAX_HOPS];
+    private final int[] found = new int[MAX_HOPS];
+    private int squareCount;
+    private int foundLength;
+    private int foundCount;
+    private int exactCount; //turns found that land on exactly the squares named, no more
+    private int moveNumber;
+
+    public PdnReader() {
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = new CheckersPosition();
+    }
+
+    @Override
+    protected void startGame() {
+        Pdn.parse(Pdn.START, 0, Pdn.START.length(), position);
+        moveNumber = 1;
+    }
+
+    @Override
+    protected void readFen(String fen, PgnGame game) {
+        Pdn.parse(fen, 0, fen.length(), position);
+        game.setStartFen(fen);
+    }
+
+    /***
+     * strips a move number (12. or 12...) from the front of a token and plays the move after it, if there is one
+     */
+    @Override
+    protected void readMove(CharSequence text, int i, int end, PgnGame game) {
+        String type = game.getTag("GameType");
+        if (type != null && !type.startsWith("21")) //21 is English draughts, the only kind of checkers this program plays
+        {
+            game.setError("Unsupported GameType " + type);
+            return;
+        }
+        int number = i;
+        while (number < end && Character.isDigit(text.charAt(number)))
+            number++;
+        if (number < end && text.charAt(number) == '.')
+        {
+            i = number;
+            while (i < end && text.charAt(i) == '.')
+                i++;
+        }
+        while (end > i && (text.charAt(end - 1) == '!' || text.charAt(end - 1) == '?'))
+            end--;
+        if (i == end)
+            return;
+        String error = readSquares(text, i, end);
+        if (error == null)
+            error = resolve();
+        if (error != null)
+        {
+            game.setError("Move " + moveNumber + (position.isRedToMove() ? "... " : ". ") + text.subSequence(i, end) + ": " + error);
+            return;
+        }
+        if (position.isRedToMove())
+            moveNumber++;
+        for (int hop = 0; hop < foundLength; hop++)
+        {
+            position.applyMove(found[hop]);
+            game.getMoves().add(found[hop]);
+        }
+    }
+
+    @Override
+    protected boolean isResult(CharSequence text, int start, int end) {
+        return matches(text, start, end, "1-0") || matches(text, start, end, "0-1") || matches(text, start, end, "2-0") || matches(text, start, end, "0-2")
+            || matches(text, start, end, "1-1") || matches(text, start, end, "1/2-1/2") || matches(text, start, end, "*");
+    }
+
+    /***
+     * reads the square numbers of a move into squares
+     * @return - null if the move was read, otherwise what is wrong with it
+     */
+    private String readSquares(CharSequence text, int i, int end) {
+        squareCount = 0;
+        while (i < end)
+        {
+            int number = 0;
+            int start = i;
+            while (i < end && Character.isDigit(text.charAt(i)))
+                number = number * 10 + (text.charAt(i++) - '0');
+            if (i == start || number > 32)
+                return "Invalid move";
+            if (squareCount == squares.length)
+                return "Too many squares";
+            squares[squareCount++] = Pdn.squareOf(number);
+            if (i < end)
+            {
+                char separator = text.charAt(i++);
+                if ((separator != '-' && separator != 'x' && separator != 'X' && separator != ':') || i == end)
+                    return "Invalid move";
+            }
+        }
+        if (squareCount < 2 || squares[0] < 0)
+            return "Invalid move";
+        for (int k = 1; k < squareCount; k++)
+        {
+            if (squares[k] < 0)
+                return "Invalid move";
+        }
+        return null;
+    }
+
+    /***
+     * finds the one legal turn that starts on the first square, passes the other squares in order, and ends on the last one
+     * a turn that lands on exactly the squares named is taken over longer ones, a king circling back to the same square would otherwise make 22x29 ambiguous
+     * @return - null if exactly one turn matches, with its hops in found, otherwise why the move is not legal
+     */
+    private String resolve() {
+        foundCount = 0;
+        exactCount = 0;
+        int from = squares[0];
+        if (!position.isFriendly(from))
+            return "Illegal move";
+        int count = position.generateJumps(from, hops[0], 0);
+        if (count == 0) //any jump is allowed when there is one, a move only when no piece can jump
+        {
+            if (squareCount != 2 || Math.abs(squares[1] / 8 - from / 8) != 1)
+                return "Illegal move";
+            if (position.anyJump())
+                return "Must jump";
+            count = position.generateSteps(from, hops[0], 0);
+            for (int i = 0; i < count; i++)
+            {
+                if (MoveHistory.getTo(hops[0][i]) == squares[1])
+                {
+                    found[0] = hops[0][i];
+                    foundLength = 1;
+                    return null;
+                }
+            }
+            return "Illegal move";
+        }
+        positions[0].copyFrom(position);
+        for (int i = 0; i < count; i++)
+            search(0, hops[0][i], 1);
+        if (foundCount == 0)
+            return "Illegal move";
+        if (exactCount > 1 || (exactCount == 0 && foundCount > 1))
+            return "Ambiguous jump, give the squares it passes through";
+        return null;
+    }
+
+    /***
+     * tries one hop of a jump and every way the jump can go on from there
+     * @param depth - hops made before this one
+     * @param move - the hop
+     * @param next - index of the next square the move names that has not been reached
+     */
+    private void search(int depth, int move, int next) {
+        CheckersPosition after = positions[depth + 1];
+        after.copyFrom(positions[depth]);
+        path[depth] = move;
+        int to = MoveHistory.getTo(move);
+        if (next < squareCount && to == squares[next])
+            next++;
+        if (!after.applyMove(move)) //turn is over
+        {
+            if (next == squareCount && to == squares[squareCount - 1])
+                record(depth + 1);
+            return;
+        }
+        if (depth + 1 == MAX_HOPS)
+            return;
+        int count = after.generateJumps(to, hops[depth + 1], 0);
+        for (int i = 0; i < count; i++)
+            search(depth + 1, hops[depth + 1][i], next);
+    }
+
+    private void record(int length) {
+        boolean exact = length == squareCount - 1;
+        if ((exact && exactCount == 0) || (foundCount == 0 && exactCount == 0))
+        {
+            System.arraycopy(path, 0, found, 0, length);
+            foundLength = length;
+        }
+        foundCount++;
+        if (exact)
+            exactCount++;
+    }
+}
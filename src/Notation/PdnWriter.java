@@ -0,0 +1,144 @@
+package Notation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import BoardComponents.CheckersPosition;
+import BoardComponents.MoveHistory;
+
+import SaveFiles.GameSave;
+import SaveFiles.SaveStore;
+
+/***
+ * writes checkers games as PDN, one game at a time
+ * the hops in the move history are put back together into turns, a jump is written with every square it lands on (15x24x31) so no reader has to work out its path
+ */
+public class PdnWriter extends GameWriter {
+    private final CheckersPosition position = new CheckersPosition();
+    private final StringBuilder turn = new StringBuilder(16);
+
+    /***
+     * @param out - where games are written, wrap it in a BufferedWriter if it is not buffered
+     */
+    public PdnWriter(Writer out) {
+        super(out);
+    }
+
+    /***
+     * writes a saved checkers game
+     * @param save - checkers save
+     * @param result - 1-0 if black (player one) won, 0-1 if red won, 1/2-1/2, or * for a game that has not finished
+     * @throws IOException - if the writer fails
+     */
+    public void write(GameSave save, String result) throws IOException {
+        MoveHistory history = save.getHistory();
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Casual Game");
+        tags.put("Site", "Voice Controlled Checkers");
+        tags.put("Date", (history.size() > 0 && history.getTime(0) != 0) ? new SimpleDateFormat("yyyy.MM.dd").format(new Date(history.getTime(0))) : "????.??.??");
+        tags.put("Round", "-");
+        tags.put("Black", save.getPlayerOne());
+        tags.put("White", save.getPlayerTwo());
+        write(tags, history, result);
+    }
+
+    /***
+     * writes a game
+     * @param tags - tag pairs in order, GameType, Result, and FEN are added from the other arguments
+     * @param history - hops, and the PDN FEN they start from if it is not the usual start
+     * @param result - 1-0, 0-1, 1/2-1/2, or *
+     * @throws IOException - if the writer fails
+     * @throws IllegalArgumentException - if the history start is not a valid PDN FEN
+     */
+    public void write(Map<String, String> tags, MoveHistory history, String result) throws IOException {
+        String start = history.getStart();
+        Pdn.parse((start == null) ? Pdn.START : start, 0, (start == null) ? Pdn.START.length() : start.length(), position);
+        writeTag("GameType", "21");
+        for (Map.Entry<String, String> tag : tags.entrySet())
+            writeTag(tag.getKey(), tag.getValue());
+        writeTag("Result", result);
+        if (start != null)
+            writeTag("FEN", start);
+        startMovetext();
+        int moveNumber = 1;
+        long lastTime = 0; //time the previous turn ended
+        boolean commented = false; //the previous turn was followed by its time
+        int i = 0;
+        while (i < history.size())
+        {
+            boolean red = position.isRedToMove();
+            if (!red)
+                writeToken(moveNumber + ".");
+            else if (i == 0 || commented) //red's move needs the move number with three dots when it starts the game or follows a comment
+                writeToken(moveNumber + "...");
+            turn.setLength(0);
+            int move = history.get(i);
+            boolean jump = Math.abs(MoveHistory.getTo(move) / 8 - MoveHistory.getFrom(move) / 8) == 2;
+            turn.append(Pdn.squareNumber(MoveHistory.getFrom(move)));
+            boolean again;
+            do
+            {
+                move = history.get(i);
+                turn.append(jump ? 'x' : '-').append(Pdn.squareNumber(MoveHistory.getTo(move)));
+                again = position.applyMove(move);
+                i++;
+            } while (again && i < history.size());
+            writeToken(turn.toString());
+            long time = history.getTime(i - 1);
+            commented = lastTime != 0 && time != 0;
+            if (commented)
+                writeElapsed(time - lastTime);
+            lastTime = time;
+            if (red)
+                moveNumber++;
+        }
+        endMovetext(result);
+    }
+
+    /***
+     * writes every checkers game in a save store to one PDN file, loading and writing one game at a time
+     * games are written as unfinished (*) since a finished game can not be saved
+     * @param store - store to export
+     * @param path - PDN file to create or replace
+     * @return - number of games written
+     * @throws IOException - if the file could not be written, games that can not be loaded are skipped
+     */
+    public static int exportAll(SaveStore store, Path path) throws IOException {
+        int written = 0;
+        try (PdnWriter writer = new PdnWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            for (SaveStore.Entry entry : store.list(GameSave.CHECKERS, ""))
+            {
+                GameSave save;
+                try {
+                    save = store.load(entry.getSlot());
+                } catch (IOException error) {
+                    System.out.println("Skipped slot " + entry.getSlot() + ": " + error.getMessage());
+                    continue;
+                }
+                writer.write(save, "*");
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /***
+     * exports the checkers games in the save store from the command line
+     * @param args - PDN file to write, defaults to savedgames/games.pdn
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get((args.length > 0) ? args[0] : SaveStore.DIRECTORY + "/games.pdn");
+        long start = System.currentTimeMillis();
+        int written = exportAll(SaveStore.getStore(), path);
+        System.out.println("Exported " + written + " games to " + path + " in " + (System.currentTimeMillis() - start) + " ms");
+        SaveStore.getStore().close();
+    }
+}
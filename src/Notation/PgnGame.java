@@ -0,0 +1,44 @@
+package Notation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveHistory;
+
+/***
+ * one game read from a PGN or PDN file, its tags in the order they were written, the moves as MoveHistory moves, and the result
+ * a game that could not be read keeps everything read before the problem and an error describing it
+ * checkers games keep one move per hop of a jump, the same way CheckersBoard records them
+ */
+public class PgnGame {
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private final MoveHistory moves = new MoveHistory();
+    private String startFen; //null for the standard starting position, a PDN FEN for checkers
+    private long number; //games before this one in its file
+    private String result = "*";
+    private String error;
+
+    // setters
+    void setStartFen(String fen) { this.startFen = fen; }
+    void setResult(String result) { this.result = result; }
+    void setError(String error) { this.error = error; }
+    void setNumber(long number) { this.number = number; }
+
+    // getters
+    public Map<String, String> getTags() { return this.tags; }
+    public String getTag(String name) { return this.tags.get(name); }
+    public MoveHistory getMoves() { return this.moves; }
+    public String getResult() { return this.result; }
+    public String getError() { return this.error; }
+    public String getStartFen() { return this.startFen; }
+    public long getNumber() { return this.number; }
+    public boolean isValid() { return this.error == null; }
+
+    /***
+     * @return - the position a chess game started from, from its FEN tag if it has one
+     */
+    public ChessPosition getStartPosition() {
+        return (startFen == null) ? Fen.parse(Fen.START) : Fen.parse(startFen);
+    }
+}
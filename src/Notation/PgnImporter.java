@@ -0,0 +1,294 @@
+package Notation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/***
+ * reads PGN files of any size, such as opening databases or regression suites, using every processor
+ * the file is read in fixed size chunks and split into games as it goes, games are handed to a fork join pool in batches and each game is read and validated by PgnReader
+ * PDN files of checkers games are split the same way and read by PdnReader
+ * only a few batches can be waiting at once, reading blocks until the pool catches up, so memory use does not grow with the size of the file
+ */
+public class PgnImporter {
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int BATCH_GAMES = 256;
+    private static final int BATCH_BYTES = 1 << 20;
+    private static final int SPLIT_GAMES = 16; //batches are split in half until they are this small
+
+    /***
+     * receives every game read, called on the pool threads so it must be thread safe
+     */
+    public interface GameHandler {
+        void game(PgnGame game);
+    }
+
+    /***
+     * reads one game from its text, each pool thread gets its own reader so readers do not need to be thread safe
+     */
+    public interface GameReader {
+        PgnGame read(CharSequence text, int start, int end);
+    }
+
+    /***
+     * totals for one import
+     */
+    public static class Result {
+        private final long games;
+        private final long invalid;
+        private final long bytes;
+        private final long nanos;
+
+        private Result(long games, long invalid, long bytes, long nanos) {
+            this.games = games;
+            this.invalid = invalid;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        // getters
+        public long getGames() { return this.games; }
+        public long getInvalid() { return this.invalid; }
+        public long getBytes() { return this.bytes; }
+        public long getMillis() { return this.nanos / 1000000; }
+        public double getGamesPerSecond() { return (nanos == 0) ? 0 : games * 1e9 / nanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%d games (%d invalid), %.1f MB in %d ms, %.0f games/s", games, invalid, bytes / 1e6, getMillis(), getGamesPerSecond());
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final Semaphore batchesWaiting;
+    private final ThreadLocal<GameReader> readers;
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+
+    /***
+     * @param threads - number of threads reading games
+     */
+    public PgnImporter(int threads) {
+        this(threads, PgnReader::new);
+    }
+
+    /***
+     * @param threads - number of threads reading games
+     * @param reader - creates the reader for each thread, PdnReader::new for checkers
+     */
+    public PgnImporter(int threads, Supplier<? extends GameReader> reader) {
+        this.pool = new ForkJoinPool(threads);
+        this.batchesWaiting = new Semaphore(threads * 2);
+        this.readers = ThreadLocal.withInitial(reader);
+    }
+
+    /***
+     * reads every game in a file, returns once all of them have been handed to handler
+     * @param path - PGN or PDN file
+     * @param handler - receives each game, valid or not
+     * @return - totals for the file
+     * @throws IOException - if the file could not be read
+     */
+    public Result importFile(Path path, GameHandler handler) throws IOException {
+        long start = System.nanoTime();
+        games.set(0);
+        invalid.set(0);
+        long bytes = 0;
+        long number = 0; //games split before the current batch
+        List<byte[]> batch = new ArrayList<>();
+        int batchBytes = 0;
+        GameSplitter splitter = new GameSplitter();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES);
+            while (channel.read(chunk) >= 0)
+            {
+                chunk.flip();
+                bytes += chunk.remaining();
+                while (chunk.hasRemaining())
+                {
+                    byte[] game = splitter.next(chunk);
+                    if (game == null)
+                        continue;
+                    batch.add(game);
+                    batchBytes += game.length;
+                    if (batch.size() >= BATCH_GAMES || batchBytes >= BATCH_BYTES)
+                    {
+                        submit(batch, number, handler);
+                        number += batch.size();
+                        batch = new ArrayList<>();
+                        batchBytes = 0;
+                    }
+                }
+                chunk.clear();
+            }
+            byte[] last = splitter.finish();
+            if (last != null)
+                batch.add(last);
+            if (!batch.isEmpty())
+                submit(batch, number, handler);
+            batchesWaiting.acquireUninterruptibly(pool.getParallelism() * 2); //every batch is done once every permit is back
+            batchesWaiting.release(pool.getParallelism() * 2);
+        }
+        return new Result(games.get(), invalid.get(), bytes, System.nanoTime() - start);
+    }
+
+    /***
+     * stops the pool threads, the importer can not be used after
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void submit(List<byte[]> batch, long number, GameHandler handler) {
+        batchesWaiting.acquireUninterruptibly();
+        pool.execute(new ReadGames(batch, number, 0, batch.size(), handler, true));
+    }
+
+    /***
+     * reads part of a batch, splitting it in half while it is large so idle threads can take half
+     */
+    private class ReadGames extends RecursiveAction {
+        private final List<byte[]> batch;
+        private final long number; //number of the first game in the batch
+        private final int from;
+        private final int to;
+        private final GameHandler handler;
+        private final boolean whole; //the task for the whole batch releases its permit once every part is done
+
+        ReadGames(List<byte[]> batch, long number, int from, int to, GameHandler handler, boolean whole) {
+            this.batch = batch;
+            this.number = number;
+            this.from = from;
+            this.to = to;
+            this.handler = handler;
+            this.whole = whole;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (to - from > SPLIT_GAMES)
+                {
+                    int middle = (from + to) / 2;
+                    invokeAll(new ReadGames(batch, number, from, middle, handler, false), new ReadGames(batch, number, middle, to, handler, false));
+                    return;
+                }
+                GameReader reader = readers.get();
+                for (int i = from; i < to; i++)
+                {
+                    String text = new String(batch.get(i), StandardCharsets.UTF_8);
+                    PgnGame game;
+                    try {
+                        game = reader.read(text, 0, text.length());
+                    } catch (RuntimeException error) { //a game that breaks the reader is reported like any other invalid game
+                        game = new PgnGame();
+                        game.setError(String.valueOf(error));
+                    }
+                    game.setNumber(number + i);
+                    games.incrementAndGet();
+                    if (!game.isValid())
+                        invalid.incrementAndGet();
+                    handler.game(game);
+                }
+            } finally {
+                if (whole)
+                    batchesWaiting.release();
+            }
+        }
+    }
+
+    /***
+     * finds where one game ends and the next begins as bytes arrive, a new game starts at a tag ([ at the start of a line) that comes after movetext
+     * braces are followed so a comment with a line starting with [ does not split a game
+     */
+    private static class GameSplitter {
+        private byte[] game = new byte[4096];
+        private int size;
+        private boolean lineStart = true;
+        private boolean inMovetext;
+        private boolean inComment;
+
+        /***
+         * @param chunk - bytes read, consumed up to the end of the next complete game
+         * @return - the complete game, null if the chunk ran out first
+         */
+        byte[] next(ByteBuffer chunk) {
+            while (chunk.hasRemaining())
+            {
+                byte b = chunk.get();
+                if (lineStart && b == '[' && inMovetext && !inComment)
+                {
+                    byte[] complete = Arrays.copyOf(game, size);
+                    size = 0;
+                    inMovetext = false;
+                    add(b);
+                    lineStart = false;
+                    return complete;
+                }
+                add(b);
+                if (b == '{')
+                    inComment = true;
+                else if (b == '}')
+                    inComment = false;
+                else if (lineStart && b > ' ' && b != '[')
+                    inMovetext = true;
+                if (b == '\n')
+                    lineStart = true;
+                else if (b != '\r' && b != ' ' && b != '\t')
+                    lineStart = false;
+            }
+            return null;
+        }
+
+        /***
+         * @return - the last game in the file, null if only whitespace was left
+         */
+        byte[] finish() {
+            for (int i = 0; i < size; i++)
+            {
+                if (game[i] > ' ')
+                    return Arrays.copyOf(game, size);
+            }
+            return null;
+        }
+
+        private void add(byte b) {
+            if (size == game.length)
+                game = Arrays.copyOf(game, size * 2);
+            game[size++] = b;
+        }
+    }
+
+    /***
+     * imports a PGN or PDN file from the command line and prints how fast it was read and the first invalid games, used for regression runs over large databases
+     * @param args - path of the PGN or PDN file (read as checkers if it ends in .pdn), then optionally the number of threads
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0)
+        {
+            System.out.println("Usage: PgnImporter <file.pgn|file.pdn> [threads]");
+            return;
+        }
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        PgnImporter importer = args[0].toLowerCase().endsWith(".pdn") ? new PgnImporter(threads, PdnReader::new) : new PgnImporter(threads);
+        AtomicLong shown = new AtomicLong();
+        Result result = importer.importFile(Paths.get(args[0]), game -> {
+            if (!game.isValid() && shown.incrementAndGet() <= 10)
+                System.out.println("Game " + (game.getNumber() + 1) + ", " + game.getTag("White") + " - " + game.getTag("Black") + ": " + game.getError());
+        });
+        importer.shutdown();
+        System.out.println(result);
+    }
+}
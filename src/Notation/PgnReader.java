@@ -0,0 +1,51 @@
+package Notation;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+
+/***
+ * reads one game of PGN (tag pairs then movetext), every move is resolved against the legal moves of the position it is played in
+ * comments, variations, numeric annotations, and move numbers are skipped, only the main line is kept
+ */
+public class PgnReader extends MovetextReader {
+    private final ChessPosition position = new ChessPosition(); //reused for every game read by this reader
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+
+    @Override
+    protected void startGame() {
+        position.clear();
+        Fen.parse(Fen.START, 0, Fen.START.length(), position);
+    }
+
+    @Override
+    protected void readFen(String fen, PgnGame game) {
+        Fen.parse(fen, 0, fen.length(), position);
+        game.setStartFen(fen);
+    }
+
+    /***
+     * strips a move number (12. or 12...) from the front of a token and plays the move after it, if there is one
+     */
+    @Override
+    protected void readMove(CharSequence text, int i, int end, PgnGame game) {
+        while (i < end && Character.isDigit(text.charAt(i)) && !(text.charAt(i) == '0' && i + 1 < end && text.charAt(i + 1) == '-')) //0-0 is castling, not a move number
+            i++;
+        while (i < end && text.charAt(i) == '.')
+            i++;
+        if (i == end)
+            return;
+        CharSequence san = text.subSequence(i, end);
+        try {
+            int move = San.parse(position, san, scratch);
+            position.applyMove(move);
+            game.getMoves().add(move);
+        } catch (IllegalArgumentException error) {
+            game.setError("Move " + position.getFullmoveNumber() + (position.isWhiteToMove() ? ". " : "... ") + error.getMessage());
+        }
+    }
+
+    @Override
+    protected boolean isResult(CharSequence text, int start, int end) {
+        return matches(text, start, end, "1-0") || matches(text, start, end, "0-1") || matches(text, start, end, "1/2-1/2") || matches(text, start, end, "*");
+    }
+}
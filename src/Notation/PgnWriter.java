@@ -0,0 +1,129 @@
+package Notation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.MoveHistory;
+
+import SaveFiles.GameSave;
+import SaveFiles.SaveStore;
+
+/***
+ * writes chess games as PGN, one game at a time straight to a Writer so exporting a large collection never holds more than one game in memory
+ * moves are written in SAN from the move history, and the time taken by each move is written as an [%emt] comment when the history has move times
+ */
+public class PgnWriter extends GameWriter {
+    private final ChessPosition position = new ChessPosition();
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+
+    /***
+     * @param out - where games are written, wrap it in a BufferedWriter if it is not buffered
+     */
+    public PgnWriter(Writer out) {
+        super(out);
+    }
+
+    /***
+     * writes a saved chess game
+     * @param save - chess save
+     * @param result - 1-0, 0-1, 1/2-1/2, or * for a game that has not finished
+     * @throws IOException - if the writer fails
+     */
+    public void write(GameSave save, String result) throws IOException {
+        MoveHistory history = save.getHistory();
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Casual Game");
+        tags.put("Site", "Voice Controlled Chess");
+        tags.put("Date", (history.size() > 0 && history.getTime(0) != 0) ? new SimpleDateFormat("yyyy.MM.dd").format(new Date(history.getTime(0))) : "????.??.??");
+        tags.put("Round", "-");
+        tags.put("White", save.getPlayerOne());
+        tags.put("Black", save.getPlayerTwo());
+        write(tags, history, result);
+    }
+
+    /***
+     * writes a game
+     * @param tags - tag pairs in order, the seven tag roster should come first, Result, SetUp, and FEN are added from the other arguments
+     * @param history - moves, and the position they start from if it is not the usual start
+     * @param result - 1-0, 0-1, 1/2-1/2, or *
+     * @throws IOException - if the writer fails
+     * @throws IllegalArgumentException - if the history start is not a valid FEN
+     */
+    public void write(Map<String, String> tags, MoveHistory history, String result) throws IOException {
+        String start = history.getStart();
+        Fen.parse((start == null) ? Fen.START : start, 0, (start == null) ? Fen.START.length() : start.length(), position);
+        for (Map.Entry<String, String> tag : tags.entrySet())
+            writeTag(tag.getKey(), tag.getValue());
+        writeTag("Result", result);
+        if (start != null)
+        {
+            writeTag("SetUp", "1");
+            writeTag("FEN", start);
+        }
+        startMovetext();
+        boolean commented = false;
+        for (int i = 0; i < history.size(); i++)
+        {
+            int move = history.get(i);
+            if (position.isWhiteToMove())
+                writeToken(position.getFullmoveNumber() + ".");
+            else if (i == 0 || commented) //black's move needs the move number with three dots when it starts the game or follows a comment
+                writeToken(position.getFullmoveNumber() + "...");
+            writeToken(San.toSan(position, move, scratch));
+            commented = i > 0 && history.getTime(i) != 0 && history.getTime(i - 1) != 0;
+            if (commented)
+                writeElapsed(history.getTime(i) - history.getTime(i - 1));
+            position.applyMove(move);
+        }
+        endMovetext(result);
+    }
+
+    /***
+     * writes every chess game in a save store to one PGN file, loading and writing one game at a time
+     * games are written as unfinished (*) since a finished game can not be saved
+     * @param store - store to export
+     * @param path - PGN file to create or replace
+     * @return - number of games written
+     * @throws IOException - if the file could not be written, games that can not be loaded are skipped
+     */
+    public static int exportAll(SaveStore store, Path path) throws IOException {
+        int written = 0;
+        try (PgnWriter writer = new PgnWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            for (SaveStore.Entry entry : store.list(GameSave.CHESS, ""))
+            {
+                GameSave save;
+                try {
+                    save = store.load(entry.getSlot());
+                } catch (IOException error) {
+                    System.out.println("Skipped slot " + entry.getSlot() + ": " + error.getMessage());
+                    continue;
+                }
+                writer.write(save, "*");
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /***
+     * exports the save store from the command line, used by scheduled archive jobs
+     * @param args - PGN file to write, defaults to savedgames/games.pgn
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get((args.length > 0) ? args[0] : SaveStore.DIRECTORY + "/games.pgn");
+        long start = System.currentTimeMillis();
+        int written = exportAll(SaveStore.getStore(), path);
+        System.out.println("Exported " + written + " games to " + path + " in " + (System.currentTimeMillis() - start) + " ms");
+        SaveStore.getStore().close();
+    }
+}
@@ -0,0 +1,200 @@
+package Notation;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.MoveHistory;
+
+/***
+ * reads and writes chess moves in standard algebraic notation (Nf3, exd5, O-O, e8=Q+) against a position
+ * a move is only accepted if exactly one legal move matches it, so a game read this way has also been checked for legality
+ */
+public class San {
+    private static final String PIECE_LETTERS = " PNBRQK"; //index is the ChessPosition piece code
+
+    private San() { }
+
+    /***
+     * @param position - position the move is made from, left unchanged
+     * @param san - the move, check and mate markers and annotations such as ! and ? are allowed
+     * @param scratch - array of at least MoveGenerator.MAX_MOVES used to generate moves, so reading many moves does not allocate
+     * @return - the move packed by MoveHistory
+     * @throws IllegalArgumentException - if no legal move or more than one legal move matches
+     */
+    public static int parse(ChessPosition position, CharSequence san, int[] scratch) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0)
+            end--;
+        if (end == 0)
+            throw new IllegalArgumentException("Empty move");
+        boolean black = !position.isWhiteToMove();
+        if (isCastling(san, end, 3) || isCastling(san, end, 5))
+        {
+            int home = black ? 4 : 60;
+            int to = (end == 3) ? home + 2 : home - 2;
+            return resolve(position, san, scratch, ChessPosition.KING, to, -1, -1, MoveHistory.PROMOTE_NONE);
+        }
+        int piece = ChessPosition.PAWN;
+        int start = 0;
+        int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+        if (letter > ChessPosition.PAWN)
+        {
+            piece = letter;
+            start = 1;
+        }
+        int promotion = MoveHistory.PROMOTE_NONE;
+        if (piece == ChessPosition.PAWN && end >= 2 && PIECE_LETTERS.indexOf(san.charAt(end - 1)) > ChessPosition.PAWN) //e8=Q or e8Q
+        {
+            promotion = PIECE_LETTERS.indexOf(san.charAt(end - 1)) - 1; //promotion codes are one below the piece codes
+            if (promotion == MoveHistory.PROMOTE_QUEEN + 1)
+                throw new IllegalArgumentException("Can not promote to a king: " + san);
+            end--;
+            if (san.charAt(end - 1) == '=')
+                end--;
+        }
+        if (end - start < 2)
+            throw new IllegalArgumentException("Invalid move " + san);
+        int to = square(san, end - 2);
+        if (to < 0)
+            throw new IllegalArgumentException("Invalid square in move " + san);
+        //anything between the piece letter and the target square is a file, a rank, or both, and an optional x
+        int fromX = -1;
+        int fromY = -1;
+        for (int i = start; i < end - 2; i++)
+        {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h')
+                fromX = c - 'a';
+            else if (c >= '1' && c <= '8')
+                fromY = '8' - c;
+            else if (c != 'x' && c != ':' && c != '-')
+                throw new IllegalArgumentException("Invalid move " + san);
+        }
+        return resolve(position, san, scratch, piece, to, fromY, fromX, promotion);
+    }
+
+    /***
+     * writes a legal move the way PGN expects: the piece letter, the file and or rank of the piece only when another piece of the same type could also move there,
+     * x for captures, the promotion piece, and + for check or # for mate
+     * @param position - position the move is made from, left unchanged
+     * @param move - legal move packed by MoveHistory
+     * @param scratch - array of at least MoveGenerator.MAX_MOVES used to generate moves
+     * @return - the move in SAN
+     */
+    public static String toSan(ChessPosition position, int move, int[] scratch) {
+        StringBuilder san = new StringBuilder(8);
+        int from = MoveHistory.getFrom(move);
+        int to = MoveHistory.getTo(move);
+        int code = position.getPiece(from);
+        int piece = code & 7;
+        boolean capture = position.getPiece(to) != ChessPosition.EMPTY || (piece == ChessPosition.PAWN && to == position.getEnPassant());
+        if (piece == ChessPosition.KING && Math.abs(to - from) == 2)
+            san.append(to > from ? "O-O" : "O-O-O");
+        else if (piece == ChessPosition.PAWN)
+        {
+            if (capture)
+                san.append((char) ('a' + from % 8)).append('x');
+            appendSquare(san, to);
+            if (MoveHistory.getPromotion(move) != MoveHistory.PROMOTE_NONE)
+                san.append('=').append(PIECE_LETTERS.charAt(MoveHistory.getPromotion(move) + 1));
+        }
+        else
+        {
+            san.append(PIECE_LETTERS.charAt(piece));
+            //look for other pieces of the same type that can legally move to the same square
+            boolean ambiguous = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            for (int other = 0; other < 64; other++)
+            {
+                if (other == from || position.getPiece(other) != code)
+                    continue;
+                int count = MoveGenerator.generateFrom(position, other, scratch, 0);
+                for (int i = 0; i < count; i++)
+                {
+                    if (MoveHistory.getTo(scratch[i]) == to && MoveGenerator.isLegal(position, scratch[i]))
+                    {
+                        ambiguous = true;
+                        sameFile |= other % 8 == from % 8;
+                        sameRank |= other / 8 == from / 8;
+                        break;
+                    }
+                }
+            }
+            if (ambiguous)
+            {
+                if (!sameFile)
+                    san.append((char) ('a' + from % 8));
+                else if (!sameRank)
+                    san.append((char) ('8' - from / 8));
+                else
+                {
+                    san.append((char) ('a' + from % 8));
+                    san.append((char) ('8' - from / 8));
+                }
+            }
+            if (capture)
+                san.append('x');
+            appendSquare(san, to);
+        }
+        position.makeMove(move);
+        if (MoveGenerator.inCheck(position))
+            san.append(MoveGenerator.generateLegal(position, scratch) == 0 ? '#' : '+');
+        position.unmakeMove(move);
+        return san.toString();
+    }
+
+    private static void appendSquare(StringBuilder san, int square) {
+        san.append((char) ('a' + square % 8)).append((char) ('8' - square / 8));
+    }
+
+    private static boolean isCastling(CharSequence san, int end, int length) {
+        if (end != length)
+            return false;
+        for (int i = 0; i < length; i++)
+        {
+            char c = san.charAt(i);
+            if ((i % 2 == 0) ? (c != 'O' && c != '0') : c != '-')
+                return false;
+        }
+        return true;
+    }
+
+    /***
+     * @return - square numbered like ChessPosition for the file and rank at index, -1 if they are not a square
+     */
+    static int square(CharSequence text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8')
+            return -1;
+        return ('8' - rank) * 8 + (file - 'a');
+    }
+
+    /***
+     * finds the one legal move of the piece type to the square, only pieces of that type are given moves and only moves that match are tested for legality
+     */
+    private static int resolve(ChessPosition position, CharSequence san, int[] scratch, int piece, int to, int fromY, int fromX, int promotion) {
+        int code = piece | (position.isWhiteToMove() ? 0 : ChessPosition.BLACK);
+        int count = 0;
+        for (int from = 0; from < 64; from++)
+        {
+            if (position.getPiece(from) == code && (fromX < 0 || from % 8 == fromX) && (fromY < 0 || from / 8 == fromY))
+                count = MoveGenerator.generateFrom(position, from, scratch, count);
+        }
+        int found = -1;
+        for (int i = 0; i < count; i++)
+        {
+            int move = scratch[i];
+            if (MoveHistory.getTo(move) != to || MoveHistory.getPromotion(move) != promotion)
+                continue;
+            if (!MoveGenerator.isLegal(position, move))
+                continue;
+            if (found >= 0)
+                throw new IllegalArgumentException("Ambiguous move " + san);
+            found = move;
+        }
+        if (found < 0)
+            throw new IllegalArgumentException("Illegal move " + san);
+        return found;
+    }
+}
@@ -8,6 +8,7 @@ import java.awt.Graphics;
 import Information.Tag.Side;
 
 import BoardComponents.Position;
+import BoardComponents.SpriteCache;
 import BoardComponents.CheckersBoard;
 
 public abstract class CheckersPiece extends Piece {
@@ -17,7 +18,7 @@ public abstract class CheckersPiece extends Piece {
         this.board = checkersBoard;
     }
 
-    public void draw(Graphics g) { g.drawImage(this.getImage(), 2, -1, null); };
+    public void draw(Graphics g, int squareSize) { SpriteCache.draw(g, this.getImageFileName(), 2, -1, squareSize); };
 
     public List<Position> checkForward(Position[][] gameBoard, int direction) {
         List<Position> legalPositions = new ArrayList<>();
@@ -9,13 +9,14 @@ import Information.Tag;
 import Information.Tag.Side;
 
 import BoardComponents.Position;
+import BoardComponents.SpriteCache;
 
 public abstract class ChessPiece extends Piece {
     public ChessPiece(Side side, Position start, String imageFileName) {
         super(side, start, imageFileName);
     }
 
-    public void draw(Graphics g) { g.drawImage(this.getImage(), 4, 0, null); };
+    public void draw(Graphics g, int squareSize) { SpriteCache.draw(g, this.getImageFileName(), 4, 0, squareSize); };
 
     /***
      * checks if position is either open or occupied by enemy piece, called by king and knight
@@ -3,13 +3,10 @@ package Pieces;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
 import BoardComponents.Position;
+import BoardComponents.SpriteCache;
 import Information.Tag;
 import Information.Tag.Side;
 
@@ -18,6 +15,7 @@ public abstract class Piece {
     private Side side;
     private Position position;
     private BufferedImage image;
+    private String imageFileName;
 
     public Piece(Side side, Position start, String imageFileName) {
         setAlive();
@@ -34,12 +32,9 @@ public abstract class Piece {
     
     public void setImage(String imageFileName) { 
         if (this.image == null)
-            try { this.image = ImageIO.read(new File(imageFileName)); //try catch because different java versions require different paths to find and render image
-            } 
-            catch (IOException e) { 
-                try { 
-                    this.image = ImageIO.read(new File("VoiceControlChess\\" + imageFileName));
-                } catch (IOException a) { a.printStackTrace(); }
+        {
+            this.imageFileName = imageFileName;
+            this.image = SpriteCache.getOriginal(imageFileName); //shared with every other piece using the same file instead of reading it from disk again
         }
     }
 
@@ -49,7 +44,14 @@ public abstract class Piece {
     public boolean isDead() { return this.alive == false; }
     public Position getPosition() { return this.position; }
     public Image getImage() { return this.image; }
-    public abstract void draw(Graphics g);
+    public String getImageFileName() { return this.imageFileName; }
+
+    /***
+     * draws this piece inside its square, pieces are scaled with the square using the pre-scaled sprites in SpriteCache
+     * @param g - graphics with its origin at the top left of the square
+     * @param squareSize - width of the square
+     */
+    public abstract void draw(Graphics g, int squareSize);
 
     /***
      * tries to move this piece to given position
@@ -0,0 +1,46 @@
+package SaveFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/***
+ * replaces small files so that a crash leaves either the old file or the new one, never part of either
+ * the new contents are written to a temporary file next to the target, forced to disk, then renamed over the target
+ */
+public class AtomicFile {
+    private AtomicFile() { }
+
+    /***
+     * @param path - file to replace or create
+     * @param bytes - new contents
+     * @throws IOException - if the file could not be written, the old file is left as it was
+     */
+    public static void write(Path path, byte[] bytes) throws IOException {
+        write(path, ByteBuffer.wrap(bytes));
+    }
+
+    /***
+     * @param path - file to replace or create
+     * @param buffer - new contents, from its position to its limit
+     * @throws IOException - if the file could not be written, the old file is left as it was
+     */
+    public static void write(Path path, ByteBuffer buffer) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException error) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING); //file systems without atomic renames still get a complete file
+        }
+    }
+}
@@ -0,0 +1,912 @@
+package SaveFiles;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.CheckersPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.MoveHistory;
+
+import Notation.Fen;
+import Notation.Pdn;
+import Notation.PdnReader;
+import Notation.PdnWriter;
+import Notation.PgnImporter;
+import Notation.PgnWriter;
+
+/***
+ * keeps finished and imported games for the long term in as little space as possible
+ * each move is stored as its index in the list of moves the generator gives for the position, which takes a few bits (up to 8 for chess, 6 for checkers, none for a forced move)
+ * games are grouped into blocks of up to BLOCK_GAMES games that are deflated together, and an index of where each block starts lets any game be read by its id by inflating only its block
+ * files, all numbers big endian:
+ * archive.vca - magic, version, then blocks: raw length (4), compressed length (4), CRC32 of the raw bytes (4), compressed bytes
+ * archive.vci - magic, version, then one record per block: offset in archive.vca (8), games in the block (4)
+ * archive.vct - games not yet in a block: magic, version, id of the first game (8), then length (4) and record of each game, written to disk as each game is added
+ * a block is written and forced before its index record, and the tail is only emptied after both, so a crash at any point loses nothing that was added
+ */
+public class GameArchive implements Closeable {
+    private static final int MAGIC = 0x56434141; //"VCAA"
+    private static final int INDEX_MAGIC = 0x56434149; //"VCAI"
+    private static final int TAIL_MAGIC = 0x56434154; //"VCAT"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int TAIL_HEADER_BYTES = 16;
+    private static final int BLOCK_HEADER_BYTES = 12;
+    private static final int INDEX_RECORD_BYTES = 12;
+    private static final int BLOCK_GAMES = 256;
+    private static final int BLOCK_BYTES = 64 * 1024; //raw bytes, a block is written once it has this many even if it has fewer games
+    private static final int SPLIT_BLOCKS = 4; //scans split the blocks in half until they are this few
+
+    //results are stored as their index, PGN's then the checkers results PDN also allows
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2", "2-0", "0-2", "1-1"};
+
+    //record flags
+    private static final int HAS_START = 1;
+    private static final int HAS_TIMES = 2;
+
+    private static GameArchive archive;
+    //games added from the GUI are written on this thread so finishing a game never waits on the disk
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Archive writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ThreadLocal<Codec> codecs = ThreadLocal.withInitial(Codec::new);
+
+    private final FileChannel data;
+    private final FileChannel indexChannel;
+    private final FileChannel tail;
+    private long[] blockOffsets = new long[64];
+    private long[] blockFirstIds = new long[65]; //one more than blocks, the last is the id of the first game not in a block
+    private int blocks;
+    private final List<byte[]> pending = new ArrayList<>(); //records in the tail
+    private int pendingBytes;
+    private final List<Consumer<Game>> listeners = new ArrayList<>();
+    private int cachedBlock = -1; //last block read by read, kept since games are often read near each other
+    private byte[] cachedRaw;
+
+    /***
+     * one archived game, everything needed to replay it
+     */
+    public static class Game {
+        private long id = -1;
+        private final int gameType;
+        private final String playerOne;
+        private final String playerTwo;
+        private final String result;
+        private final MoveHistory history; //null when the game was read without its moves
+        private final int plies;
+
+        /***
+         * @param gameType - GameSave.CHESS or GameSave.CHECKERS
+         * @param playerOne - white in chess, black in checkers
+         * @param playerTwo - black in chess, red in checkers
+         * @param result - 1-0, 0-1, 1/2-1/2, *, or for checkers also 2-0, 0-2, 1-1, anything else can not be archived
+         * @param history - every move (every hop for checkers) from the start, and the start position if it is not the usual one
+         */
+        public Game(int gameType, String playerOne, String playerTwo, String result, MoveHistory history) {
+            this(gameType, playerOne, playerTwo, result, history, history.size());
+        }
+
+        private Game(int gameType, String playerOne, String playerTwo, String result, MoveHistory history, int plies) {
+            this.gameType = gameType;
+            this.playerOne = playerOne;
+            this.playerTwo = playerTwo;
+            this.result = result;
+            this.history = history;
+            this.plies = plies;
+        }
+
+        // getters
+        public long getId() { return this.id; }
+        public int getGameType() { return this.gameType; }
+        public String getPlayerOne() { return this.playerOne; }
+        public String getPlayerTwo() { return this.playerTwo; }
+        public String getResult() { return this.result; }
+        public MoveHistory getHistory() { return this.history; }
+        public int getPlies() { return this.plies; }
+    }
+
+    /***
+     * opens the archive in the saved games folder the first time it is needed
+     * @return - the shared archive
+     * @throws IOException - if the archive could not be opened
+     */
+    public static synchronized GameArchive getArchive() throws IOException {
+        if (archive == null)
+            archive = new GameArchive(Paths.get(SaveStore.DIRECTORY));
+        return archive;
+    }
+
+    /***
+     * opens or creates an archive, a block or index record left half written by a crash is dropped and the games in it are taken from the tail again
+     * @param directory - folder holding the archive's files
+     * @throws IOException - if the files could not be opened or are not an archive
+     */
+    public GameArchive(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        data = open(directory.resolve("archive.vca"), MAGIC, HEADER_BYTES);
+        indexChannel = open(directory.resolve("archive.vci"), INDEX_MAGIC, HEADER_BYTES);
+        tail = open(directory.resolve("archive.vct"), TAIL_MAGIC, TAIL_HEADER_BYTES);
+        readIndex();
+        readTail();
+    }
+
+    private static FileChannel open(Path path, int magic, int headerBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(headerBytes);
+        if (channel.size() < headerBytes)
+        {
+            header.putInt(magic).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            return channel;
+        }
+        channel.read(header, 0);
+        if (header.getInt(0) != magic || header.getInt(4) > VERSION)
+        {
+            channel.close();
+            throw new IOException(path + " is not a game archive file this version can read");
+        }
+        return channel;
+    }
+
+    /***
+     * loads the block index, keeping only records whose block is entirely in the data file
+     */
+    private void readIndex() throws IOException {
+        int records = (int) ((indexChannel.size() - HEADER_BYTES) / INDEX_RECORD_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(records * INDEX_RECORD_BYTES);
+        indexChannel.read(buffer, HEADER_BYTES);
+        buffer.flip();
+        long dataEnd = HEADER_BYTES;
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        for (int i = 0; i < records; i++)
+        {
+            long offset = buffer.getLong();
+            int games = buffer.getInt();
+            header.clear();
+            if (data.read(header, offset) < BLOCK_HEADER_BYTES)
+                break;
+            long end = offset + BLOCK_HEADER_BYTES + header.getInt(4);
+            if (end > data.size())
+                break;
+            addBlock(offset, games);
+            dataEnd = end;
+        }
+        indexChannel.truncate(HEADER_BYTES + (long) blocks * INDEX_RECORD_BYTES);
+        data.truncate(dataEnd); //a block written without its index record is written again from the tail
+    }
+
+    private void addBlock(long offset, int games) {
+        if (blocks == blockOffsets.length)
+        {
+            blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+            blockFirstIds = Arrays.copyOf(blockFirstIds, blocks * 2 + 1);
+        }
+        blockOffsets[blocks] = offset;
+        blockFirstIds[blocks + 1] = blockFirstIds[blocks] + games;
+        blocks++;
+    }
+
+    /***
+     * loads the games waiting for a block, a record cut short by a crash is cut off
+     * a tail whose first game is already in a block was written into that block before a crash kept it from being emptied, so it is emptied now
+     */
+    private void readTail() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) tail.size());
+        tail.read(buffer, 0);
+        buffer.flip();
+        if (buffer.limit() < TAIL_HEADER_BYTES || buffer.getLong(8) < blockFirstIds[blocks])
+        {
+            resetTail();
+            tail.force(false);
+            return;
+        }
+        buffer.position(TAIL_HEADER_BYTES);
+        int end = TAIL_HEADER_BYTES;
+        while (buffer.remaining() >= 4)
+        {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining())
+                break;
+            byte[] record = new byte[length];
+            buffer.get(record);
+            end = buffer.position();
+            pending.add(record);
+            pendingBytes += length;
+        }
+        tail.truncate(end);
+    }
+
+    private void resetTail() throws IOException {
+        tail.truncate(TAIL_HEADER_BYTES);
+        ByteBuffer header = ByteBuffer.allocate(TAIL_HEADER_BYTES);
+        header.putInt(TAIL_MAGIC).putInt(VERSION).putLong(blockFirstIds[blocks]).flip();
+        tail.write(header, 0);
+        pending.clear();
+        pendingBytes = 0;
+    }
+
+    private void writeToTail(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        long position = tail.size();
+        while (buffer.hasRemaining())
+            position += tail.write(buffer, position);
+        pending.add(record);
+        pendingBytes += record.length;
+    }
+
+    /***
+     * adds a game on the archive writer thread, errors are printed since the game has already ended
+     * @param game - finished game
+     */
+    public void appendLater(Game game) {
+        writer.execute(() -> {
+            try {
+                append(game);
+            } catch (IOException | IllegalArgumentException error) {
+                System.out.println("Could not archive game");
+                error.printStackTrace();
+            }
+        });
+    }
+
+    /***
+     * adds a game and waits until it is on disk
+     * @param game - game to add, its moves must be legal
+     * @return - id of the game, ids count up from 0 in the order games are added
+     * @throws IOException - if the game could not be written
+     * @throws IllegalArgumentException - if a move is not one the generator gives for its position, or the result is not one an archive keeps
+     */
+    public long append(Game game) throws IOException {
+        return append(game, true);
+    }
+
+    /***
+     * adds a game, the record is encoded on the calling thread so games can be added from many threads at once
+     * @param game - game to add, its moves must be legal
+     * @param force - false to leave the game in the operating system's cache when adding many games at once, call force after the last
+     * @return - id of the game
+     * @throws IOException - if the game could not be written
+     * @throws IllegalArgumentException - if a move is not one the generator gives for its position, or the result is not one an archive keeps
+     */
+    public long append(Game game, boolean force) throws IOException {
+        byte[] record = codecs.get().encode(game);
+        long id;
+        List<Consumer<Game>> told;
+        synchronized (this) {
+            id = blockFirstIds[blocks] + pending.size();
+            writeToTail(record);
+            if (force)
+                tail.force(false);
+            if (pending.size() >= BLOCK_GAMES || pendingBytes >= BLOCK_BYTES)
+                writeBlock();
+            told = new ArrayList<>(listeners);
+        }
+        game.id = id;
+        for (Consumer<Game> listener : told)
+            listener.accept(game);
+        return id;
+    }
+
+    /***
+     * waits until every game added is on disk
+     */
+    public synchronized void force() throws IOException {
+        tail.force(false);
+    }
+
+    /***
+     * deflates the games in the tail into a new block, then records it in the index, then empties the tail
+     */
+    private void writeBlock() throws IOException {
+        int size = varintSize(pending.size());
+        for (byte[] record : pending)
+            size += varintSize(record.length) + record.length;
+        ByteBuffer raw = ByteBuffer.allocate(size);
+        putVarint(raw, pending.size());
+        for (byte[] record : pending)
+        {
+            putVarint(raw, record.length);
+            raw.put(record);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw.array(), 0, size);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(raw.array(), 0, size);
+        deflater.finish();
+        byte[] compressed = new byte[size + size / 8 + 64];
+        int length = 0;
+        while (!deflater.finished())
+        {
+            if (length == compressed.length)
+                compressed = Arrays.copyOf(compressed, length * 2);
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        deflater.end();
+        long offset = data.size();
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + length);
+        block.putInt(size).putInt(length).putInt((int) crc.getValue()).put(compressed, 0, length).flip();
+        long position = offset;
+        while (block.hasRemaining())
+            position += data.write(block, position);
+        data.force(false);
+        ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_BYTES);
+        record.putLong(offset).putInt(pending.size()).flip();
+        indexChannel.write(record, HEADER_BYTES + (long) blocks * INDEX_RECORD_BYTES);
+        indexChannel.force(false);
+        addBlock(offset, pending.size());
+        resetTail();
+        tail.force(false);
+    }
+
+    /***
+     * @param listener - told about every game added after this, on the thread that added it, used to keep indexes of the archive up to date
+     * @return - number of games in the archive when the listener was added, every game with a lower id was added before it and will not be passed to it
+     */
+    public synchronized long addListener(Consumer<Game> listener) {
+        listeners.add(listener);
+        return size();
+    }
+
+    /***
+     * @return - number of games in the archive
+     */
+    public synchronized long size() {
+        return blockFirstIds[blocks] + pending.size();
+    }
+
+    /***
+     * reads one game, only the block holding it is read and inflated
+     * @param id - id given when the game was added
+     * @return - the game with its moves
+     * @throws IOException - if the block could not be read or is damaged
+     * @throws IndexOutOfBoundsException - if there is no game with that id
+     */
+    public Game read(long id) throws IOException {
+        return read(id, true);
+    }
+
+    /***
+     * reads one game, only the block holding it is read and inflated
+     * @param id - id given when the game was added
+     * @param moves - false to only read names, result, and length
+     * @return - the game
+     * @throws IOException - if the block could not be read or is damaged
+     * @throws IndexOutOfBoundsException - if there is no game with that id
+     */
+    public synchronized Game read(long id, boolean moves) throws IOException {
+        if (id < 0 || id >= size())
+            throw new IndexOutOfBoundsException("No game " + id);
+        if (id >= blockFirstIds[blocks])
+            return decode(ByteBuffer.wrap(pending.get((int) (id - blockFirstIds[blocks]))), id, moves);
+        int block = Arrays.binarySearch(blockFirstIds, 0, blocks + 1, id);
+        if (block < 0)
+            block = -block - 2; //insertion point is after the block holding id
+        if (block != cachedBlock)
+        {
+            cachedRaw = readBlock(block, codecs.get());
+            cachedBlock = block;
+        }
+        ByteBuffer raw = ByteBuffer.wrap(cachedRaw);
+        getVarint(raw);
+        for (long skip = blockFirstIds[block]; skip < id; skip++)
+        {
+            int length = (int) getVarint(raw);
+            raw.position(raw.position() + length);
+        }
+        int length = (int) getVarint(raw);
+        return decode((ByteBuffer) raw.slice().limit(length), id, moves);
+    }
+
+    /***
+     * reads and inflates a block, safe to call from any thread
+     * @return - raw bytes of the block, count of games then each record with its length
+     */
+    private byte[] readBlock(int block, Codec codec) throws IOException {
+        long offset = blockOffsets[block];
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        data.read(header, offset);
+        int rawLength = header.getInt(0);
+        int length = header.getInt(4);
+        ByteBuffer compressed = ByteBuffer.allocate(length);
+        long position = offset + BLOCK_HEADER_BYTES;
+        while (compressed.hasRemaining())
+        {
+            int read = data.read(compressed, position);
+            if (read < 0)
+                throw new IOException("Archive block " + block + " is cut short");
+            position += read;
+        }
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = codec.inflater;
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            if (inflater.inflate(raw) != rawLength)
+                throw new IOException("Archive block " + block + " is damaged");
+        } catch (DataFormatException error) {
+            throw new IOException("Archive block " + block + " is damaged", error);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != header.getInt(8))
+            throw new IOException("Archive block " + block + " failed its checksum");
+        return raw;
+    }
+
+    /***
+     * reads every game, blocks are inflated and decoded in parallel so the handler is called on several threads at once and must be thread safe
+     * @param threads - threads to read with
+     * @param moves - true to decode the moves, false to only read names, result, and length, which is much faster
+     * @param handler - receives every game, in no particular order
+     * @return - number of games read
+     * @throws IOException - if a block could not be read or is damaged
+     */
+    public long scan(int threads, boolean moves, Consumer<Game> handler) throws IOException {
+        return scan(threads, moves, 0, handler);
+    }
+
+    /***
+     * reads every game from an id on, the same way as scan, blocks that only hold earlier games are not read
+     * @param threads - threads to read with
+     * @param moves - true to decode the moves
+     * @param fromId - lowest id to read
+     * @param handler - receives every game with an id of at least fromId, in no particular order
+     * @return - number of games read
+     * @throws IOException - if a block could not be read or is damaged
+     */
+    public long scan(int threads, boolean moves, long fromId, Consumer<Game> handler) throws IOException {
+        int scanned;
+        long[] firstIds;
+        List<byte[]> tailRecords;
+        synchronized (this) {
+            scanned = blocks;
+            firstIds = Arrays.copyOf(blockFirstIds, blocks + 1);
+            tailRecords = new ArrayList<>(pending);
+        }
+        int first = Arrays.binarySearch(firstIds, fromId);
+        first = (first < 0) ? Math.max(0, -first - 2) : first; //block holding fromId
+        AtomicLong count = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ScanBlocks(Math.min(first, scanned), scanned, firstIds, moves, fromId, handler, count));
+        } catch (RuntimeException error) {
+            for (Throwable cause = error; cause != null; cause = cause.getCause()) //the pool may wrap the exception again when rethrowing it
+            {
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+            }
+            throw error;
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = (int) Math.max(0, fromId - firstIds[scanned]); i < tailRecords.size(); i++)
+        {
+            handler.accept(decode(ByteBuffer.wrap(tailRecords.get(i)), firstIds[scanned] + i, moves));
+            count.incrementAndGet();
+        }
+        return count.get();
+    }
+
+    /***
+     * reads a range of blocks, splitting it in half while it is large so idle threads can take half
+     */
+    private class ScanBlocks extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final long[] firstIds;
+        private final boolean moves;
+        private final long fromId;
+        private final Consumer<Game> handler;
+        private final AtomicLong count;
+
+        ScanBlocks(int from, int to, long[] firstIds, boolean moves, long fromId, Consumer<Game> handler, AtomicLong count) {
+            this.from = from;
+            this.to = to;
+            this.firstIds = firstIds;
+            this.moves = moves;
+            this.fromId = fromId;
+            this.handler = handler;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_BLOCKS)
+            {
+                int middle = (from + to) / 2;
+                invokeAll(new ScanBlocks(from, middle, firstIds, moves, fromId, handler, count), new ScanBlocks(middle, to, firstIds, moves, fromId, handler, count));
+                return;
+            }
+            Codec codec = codecs.get();
+            for (int block = from; block < to; block++)
+            {
+                ByteBuffer raw;
+                try {
+                    raw = ByteBuffer.wrap(readBlock(block, codec));
+                } catch (IOException error) {
+                    throw new RuntimeException(error);
+                }
+                int games = (int) getVarint(raw);
+                int read = 0;
+                for (int i = 0; i < games; i++)
+                {
+                    int length = (int) getVarint(raw);
+                    int end = raw.position() + length;
+                    if (firstIds[block] + i >= fromId)
+                    {
+                        handler.accept(codec.decode((ByteBuffer) raw.slice().limit(length), firstIds[block] + i, moves));
+                        read++;
+                    }
+                    raw.position(end);
+                }
+                count.addAndGet(read);
+            }
+        }
+    }
+
+    private static Game decode(ByteBuffer record, long id, boolean moves) {
+        return codecs.get().decode(record, id, moves);
+    }
+
+    /***
+     * waits for games being archived to reach disk, called before the program exits
+     * @param millis - longest time to wait
+     */
+    public static void awaitWrites(long millis) {
+        Future<?> done = writer.submit(() -> { });
+        try {
+            done.get(millis, TimeUnit.MILLISECONDS);
+        } catch (Exception error) {
+            System.out.println("Archive writes did not finish before exit");
+            error.printStackTrace();
+        }
+    }
+
+    /***
+     * closes the files, games in the tail stay there until the next block is written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        indexChannel.close();
+        tail.close();
+        synchronized (GameArchive.class) {
+            if (archive == this)
+                archive = null;
+        }
+    }
+
+    /***
+     * turns games into records and back, each thread has its own since it keeps positions and move lists to reuse
+     * record layout: game type (1), result (1), flags (1), plies (varint), player one and player two (varint length then UTF-8),
+     * the start FEN if HAS_START, the first move time then each later move's time after the one before in tenths of a second (varints) if HAS_TIMES,
+     * then the index of each move in the generated move list, packed in as few bits as that list needs
+     */
+    private static class Codec {
+        private final ChessPosition chess = new ChessPosition();
+        private final CheckersPosition checkers = new CheckersPosition();
+        private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        private final Inflater inflater = new Inflater();
+        private ByteBuffer out = ByteBuffer.allocate(1024);
+        private long bits; //bits not yet written to out, lowest first
+        private int bitCount;
+
+        byte[] encode(Game game) {
+            MoveHistory history = game.history;
+            String start = history.getStart();
+            boolean times = false;
+            for (int i = 0; i < history.size() && !times; i++)
+                times = history.getTime(i) != 0;
+            out.clear();
+            ensure(64);
+            out.put((byte) game.gameType);
+            int result = Arrays.asList(RESULTS).indexOf(game.result);
+            if (result < 0)
+                throw new IllegalArgumentException("Result " + game.result + " can not be archived");
+            out.put((byte) result);
+            out.put((byte) ((start != null ? HAS_START : 0) | (times ? HAS_TIMES : 0)));
+            putVarint(out, history.size());
+            putString(game.playerOne);
+            putString(game.playerTwo);
+            if (start != null)
+                putString(start);
+            if (times)
+            {
+                ensure(10 * (history.size() + 1));
+                putVarint(out, history.getTime(0));
+                for (int i = 1; i < history.size(); i++)
+                    putVarint(out, Math.max(0, history.getTime(i) - history.getTime(i - 1)) / 100);
+            }
+            ensure(history.size() + 8);
+            bits = 0;
+            bitCount = 0;
+            if (game.gameType == GameSave.CHESS)
+            {
+                Fen.parse((start == null) ? Fen.START : start, 0, (start == null) ? Fen.START.length() : start.length(), chess);
+                for (int i = 0; i < history.size(); i++)
+                {
+                    int move = history.get(i);
+                    int count = MoveGenerator.generate(chess, moves);
+                    putBits(indexOf(move, count, i), count);
+                    chess.applyMove(move);
+                }
+            }
+            else
+            {
+                Pdn.parse((start == null) ? Pdn.START : start, 0, (start == null) ? Pdn.START.length() : start.length(), checkers);
+                int jumping = -1; //square of a piece partway through a jump
+                for (int i = 0; i < history.size(); i++)
+                {
+                    int move = history.get(i);
+                    int count = (jumping < 0) ? checkers.generate(moves) : checkers.generateJumps(jumping, moves, 0);
+                    putBits(indexOf(move, count, i), count);
+                    jumping = checkers.applyMove(move) ? MoveHistory.getTo(move) : -1;
+                }
+            }
+            if (bitCount > 0)
+                out.put((byte) bits);
+            return Arrays.copyOf(out.array(), out.position());
+        }
+
+        Game decode(ByteBuffer record, long id, boolean withMoves) {
+            int gameType = record.get();
+            int resultIndex = record.get();
+            String result = (resultIndex >= 0 && resultIndex < RESULTS.length) ? RESULTS[resultIndex] : "?"; //only a damaged record has any other
+            int flags = record.get();
+            int plies = (int) getVarint(record);
+            String playerOne = getString(record);
+            String playerTwo = getString(record);
+            String start = ((flags & HAS_START) != 0) ? getString(record) : null;
+            MoveHistory history = null;
+            if (withMoves)
+            {
+                long[] times = new long[plies];
+                if ((flags & HAS_TIMES) != 0 && plies > 0)
+                {
+                    times[0] = getVarint(record);
+                    for (int i = 1; i < plies; i++)
+                        times[i] = times[i - 1] + getVarint(record) * 100;
+                }
+                history = new MoveHistory();
+                history.setStart(start);
+                bits = 0;
+                bitCount = 0;
+                if (gameType == GameSave.CHESS)
+                {
+                    Fen.parse((start == null) ? Fen.START : start, 0, (start == null) ? Fen.START.length() : start.length(), chess);
+                    for (int i = 0; i < plies; i++)
+                    {
+                        int count = MoveGenerator.generate(chess, moves);
+                        int move = moves[getBits(record, count)];
+                        chess.applyMove(move);
+                        history.add(move, times[i]);
+                    }
+                }
+                else
+                {
+                    Pdn.parse((start == null) ? Pdn.START : start, 0, (start == null) ? Pdn.START.length() : start.length(), checkers);
+                    int jumping = -1;
+                    for (int i = 0; i < plies; i++)
+                    {
+                        int count = (jumping < 0) ? checkers.generate(moves) : checkers.generateJumps(jumping, moves, 0);
+                        int move = moves[getBits(record, count)];
+                        jumping = checkers.applyMove(move) ? MoveHistory.getTo(move) : -1;
+                        history.add(move, times[i]);
+                    }
+                }
+            }
+            Game game = new Game(gameType, playerOne, playerTwo, result, history, plies);
+            game.id = id;
+            return game;
+        }
+
+        private int indexOf(int move, int count, int ply) {
+            for (int i = 0; i < count; i++)
+            {
+                if (moves[i] == move)
+                    return i;
+            }
+            throw new IllegalArgumentException("Move " + (ply + 1) + " is not legal in its position");
+        }
+
+        /***
+         * writes a move index in the fewest bits that can hold any index of a list of count moves, a forced move takes none
+         */
+        private void putBits(int value, int count) {
+            int width = bitWidth(count);
+            bits |= (long) value << bitCount;
+            bitCount += width;
+            while (bitCount >= 8)
+            {
+                out.put((byte) bits);
+                bits >>>= 8;
+                bitCount -= 8;
+            }
+        }
+
+        private int getBits(ByteBuffer record, int count) {
+            int width = bitWidth(count);
+            while (bitCount < width)
+            {
+                bits |= (long) (record.get() & 0xff) << bitCount;
+                bitCount += 8;
+            }
+            int value = (int) (bits & ((1L << width) - 1));
+            bits >>>= width;
+            bitCount -= width;
+            if (value >= count)
+                throw new IllegalStateException("Archived move index " + value + " is past the " + count + " moves of its position");
+            return value;
+        }
+
+        private static int bitWidth(int count) {
+            return (count <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(count - 1);
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(bytes.length + 5);
+            putVarint(out, bytes.length);
+            out.put(bytes);
+        }
+
+        private void ensure(int more) {
+            if (out.remaining() < more)
+            {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + more));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = (int) getVarint(buffer);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /***
+     * writes a number 7 bits at a time, lowest first, with the top bit set on every byte but the last
+     */
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7fL) != 0)
+        {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7fL) != 0)
+        {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /***
+     * command line use for archive jobs:
+     * import <file.pgn|file.pdn> adds every valid game in the file, scan [threads] times reading the whole archive, show <id> prints one game as PGN or PDN
+     * @param args - the command and its argument
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0)
+        {
+            System.out.println("Usage: GameArchive import <file.pgn|file.pdn> | scan [threads] | show <id>");
+            return;
+        }
+        GameArchive archive = getArchive();
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args[0].equals("import"))
+        {
+            boolean checkers = args[1].toLowerCase().endsWith(".pdn");
+            PgnImporter importer = checkers ? new PgnImporter(threads, PdnReader::new) : new PgnImporter(threads);
+            PositionIndex positions = checkers ? null : PositionIndex.getIndex(); //indexes the games as they are added
+            AtomicLong added = new AtomicLong();
+            PgnImporter.Result result = importer.importFile(Paths.get(args[1]), game -> {
+                if (!game.isValid())
+                    return;
+                MoveHistory history = game.getMoves();
+                history.setStart(game.getStartFen());
+                String one = game.getTag(checkers ? "Black" : "White");
+                String two = game.getTag(checkers ? "White" : "Black");
+                try {
+                    archive.append(new Game(checkers ? GameSave.CHECKERS : GameSave.CHESS, (one == null) ? "?" : one, (two == null) ? "?" : two, game.getResult(), history), false);
+                    added.incrementAndGet();
+                } catch (IOException | IllegalArgumentException error) {
+                    System.out.println("Could not archive game " + (game.getNumber() + 1) + ": " + error.getMessage());
+                }
+            });
+            importer.shutdown();
+            archive.force();
+            if (positions != null)
+            {
+                PositionIndex.awaitWrites(Long.MAX_VALUE);
+                positions.close();
+            }
+            System.out.println(result + ", " + added + " archived, " + archive.size() + " games in the archive");
+        }
+        else if (args[0].equals("scan"))
+        {
+            if (args.length > 1)
+                threads = Integer.parseInt(args[1]);
+            for (boolean moves : new boolean[] {false, true})
+            {
+                AtomicLong plies = new AtomicLong();
+                long start = System.nanoTime();
+                long games = archive.scan(threads, moves, game -> plies.addAndGet(game.getPlies()));
+                long nanos = System.nanoTime() - start;
+                System.out.printf("%s: %d games, %d plies in %d ms, %.0f games/s%n", moves ? "moves" : "headers", games, plies.get(), nanos / 1000000, games * 1e9 / Math.max(1, nanos));
+            }
+        }
+        else if (args[0].equals("show"))
+        {
+            Game game = archive.read(Long.parseLong(args[1]));
+            StringWriter text = new StringWriter();
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", "Archived game " + game.getId());
+            if (game.getGameType() == GameSave.CHESS)
+            {
+                tags.put("White", game.getPlayerOne());
+                tags.put("Black", game.getPlayerTwo());
+                new PgnWriter(text).write(tags, game.getHistory(), game.getResult());
+            }
+            else
+            {
+                tags.put("Black", game.getPlayerOne());
+                tags.put("White", game.getPlayerTwo());
+                new PdnWriter(text).write(tags, game.getHistory(), game.getResult());
+            }
+            System.out.print(text);
+        }
+        archive.close();
+    }
+}
@@ -0,0 +1,388 @@
+package SaveFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import BoardComponents.Board;
+import BoardComponents.ChessBoard;
+import BoardComponents.CheckersBoard;
+import BoardComponents.ChessPosition;
+import BoardComponents.CheckersPosition;
+import BoardComponents.MoveHistory;
+
+import Information.Tag.Side;
+
+import Notation.Fen;
+import Notation.Pdn;
+
+/***
+ * binary copy of a game, replaces the space separated text saves with a versioned format that also keeps the move history, player names, and clocks
+ * layout, all numbers big endian:
+ * magic (4 bytes), version (1), game type (1), color set (1), turn (1, 0 for player one), flags (1), en passant square (1, 255 if none),
+ * board (32 bytes, 4 bits per square in gameBoard order, high bits first), player one clock and player two clock (8 bytes each, milliseconds),
+ * player one and player two names (2 byte length then UTF-8 bytes each), move count (4) then 2 bytes per move from MoveHistory,
+ * since version 2 the time of each move (8 bytes each) and the FEN (PDN FEN for checkers) the history starts from (2 byte length then UTF-8, empty for the usual start), CRC32 of everything before it (4)
+ */
+public class GameSave {
+    public static final int MAGIC = 0x56434347; //"VCCG"
+    public static final int VERSION = 2;
+    public static final int CHESS = 0;
+    public static final int CHECKERS = 1;
+    public static final int BOARD_BYTES = 32;
+
+    //square codes are the ChessPosition codes, checkers pieces use PAWN and KING, SECOND_PLAYER is set for black chess pieces and red checkers pieces
+    private static final int EMPTY = ChessPosition.EMPTY;
+    private static final int PAWN = ChessPosition.PAWN;
+    private static final int KING = ChessPosition.KING;
+    private static final int SECOND_PLAYER = ChessPosition.BLACK;
+
+    //chess flags are the ChessPosition castling rights, checkers uses ATTACKS_AVAILABLE
+    public static final int ATTACKS_AVAILABLE = 16;
+    public static final int NO_EN_PASSANT = 255;
+
+    private int gameType;
+    private int colorSet;
+    private int turn;
+    private int flags;
+    private int enPassant;
+    private byte[] squares;
+    private long[] clocks;
+    private String playerOne;
+    private String playerTwo;
+    private MoveHistory history;
+
+    private GameSave() {
+        squares = new byte[BOARD_BYTES];
+        clocks = new long[2];
+        history = new MoveHistory();
+        enPassant = NO_EN_PASSANT;
+    }
+
+    // getters
+    public int getGameType() { return this.gameType; }
+    public int getColorSet() { return this.colorSet; }
+    public String getPlayerOne() { return this.playerOne; }
+    public String getPlayerTwo() { return this.playerTwo; }
+    public MoveHistory getHistory() { return this.history; }
+    public long getClock(int player) { return this.clocks[player]; }
+
+    private int getSquare(int square) { return (squares[square / 2] >> ((square % 2 == 0) ? 4 : 0)) & 0xf; }
+    private void setSquare(int square, int code) { squares[square / 2] |= (byte) (code << ((square % 2 == 0) ? 4 : 0)); }
+
+    /***
+     * copies everything needed to restore a game from a board, called on the event thread when the player saves
+     * @param board - board being saved, must be able to save (not finished or paused)
+     * @param playerOne - name of player one (white or black in checkers)
+     * @param playerTwo - name of player two (black or red in checkers)
+     * @return - copy of the game
+     */
+    public static GameSave fromBoard(Board board, String playerOne, String playerTwo) {
+        GameSave save = new GameSave();
+        save.gameType = (board instanceof ChessBoard) ? CHESS : CHECKERS;
+        save.colorSet = board.getColorSet();
+        save.turn = (board.getTurn() == Side.WHITE || (save.gameType == CHECKERS && board.getTurn() == Side.BLACK)) ? 0 : 1;
+        save.playerOne = playerOne;
+        save.playerTwo = playerTwo;
+        if (save.gameType == CHESS)
+        {
+            ChessPosition position = ChessPosition.fromBoard((ChessBoard) board);
+            for (int square = 0; square < 64; square++)
+                save.setSquare(square, position.getPiece(square));
+            save.flags = position.getCastling();
+            if (position.getEnPassantPawnSquare() != ChessPosition.NO_SQUARE)
+                save.enPassant = position.getEnPassantPawnSquare();
+        }
+        else
+        {
+            CheckersPosition position = CheckersPosition.fromBoard((CheckersBoard) board);
+            for (int square = 0; square < 64; square++)
+                save.setSquare(square, position.getPiece(square));
+            if (((CheckersBoard) board).getAvailableAttacks())
+                save.flags = ATTACKS_AVAILABLE;
+        }
+        save.clocks[0] = board.getClock(0);
+        save.clocks[1] = board.getClock(1);
+        save.history = board.getHistory().copy();
+        return save;
+    }
+
+    /***
+     * creates a save of a checkers position that is not on a board, used to open a game read from PDN by replaying its moves on top
+     * @param position - position the game starts from
+     * @param playerOne - name of black
+     * @param playerTwo - name of red
+     * @param colorSet - board colors
+     * @return - save with no moves, its history starts from position
+     */
+    public static GameSave fromPosition(CheckersPosition position, String playerOne, String playerTwo, int colorSet) {
+        GameSave save = new GameSave();
+        save.gameType = CHECKERS;
+        save.colorSet = colorSet;
+        save.turn = position.isRedToMove() ? 1 : 0;
+        save.playerOne = playerOne;
+        save.playerTwo = playerTwo;
+        for (int square = 0; square < 64; square++)
+            save.setSquare(square, position.getPiece(square));
+        if (position.anyJump())
+            save.flags = ATTACKS_AVAILABLE;
+        String fen = Pdn.toFen(position);
+        save.history.setStart(fen.equals(Pdn.START) ? null : fen);
+        return save;
+    }
+
+    /***
+     * converts this save to the space separated format the board constructors read, so loaded games go through the same setup as before
+     * @return - player names, color set, turn, every piece, and the en passant pawn (chess) or available attacks (checkers)
+     */
+    public String[] toTokens() {
+        if (gameType == CHESS)
+            return toChessPosition().toTokens(playerOne, playerTwo, colorSet);
+        StringBuilder tokens = new StringBuilder();
+        tokens.append(playerOne.replace(' ', '_')).append(' ').append(playerTwo.replace(' ', '_')).append(' ').append(colorSet).append(' '); //names are only kept in tokens to line up the rest, the real names come from the getters
+        tokens.append(turn == 0 ? "black" : "red");
+        for (int square = 0; square < 64; square++)
+        {
+            int code = getSquare(square);
+            if (code != EMPTY)
+                tokens.append(' ').append((code & 7) == KING ? "(K)" : "(P)").append((code & SECOND_PLAYER) != 0 ? 'r' : 'b').append(square / 8).append(square % 8);
+        }
+        tokens.append(' ').append((flags & ATTACKS_AVAILABLE) != 0);
+        return tokens.toString().split(" ");
+    }
+
+    private ChessPosition toChessPosition() {
+        ChessPosition position = new ChessPosition();
+        for (int square = 0; square < 64; square++)
+            position.setPiece(square, getSquare(square));
+        position.setWhiteToMove(turn == 0);
+        position.setCastling(flags);
+        if (enPassant != NO_EN_PASSANT)
+            position.setEnPassant(enPassant + (turn == 0 ? -8 : 8)); //square behind the pawn
+        return position;
+    }
+
+    private CheckersPosition toCheckersPosition() {
+        CheckersPosition position = new CheckersPosition();
+        for (int square = 0; square < 64; square++)
+            position.setPiece(square, getSquare(square));
+        position.setRedToMove(turn != 0);
+        return position;
+    }
+
+    /***
+     * plays moves on top of this save without building a board, used to rebuild a game from its move journal
+     * moves are not checked, they were legal when they were made, a turn that was not finished (a pawn waiting on its promotion or a checkers jump that could continue) is left out
+     * @param moves - moves made after this save, in order
+     * @return - new save with the moves made and added to its history, names, color set, and clocks are copied from this save
+     */
+    public GameSave replay(MoveHistory moves) {
+        GameSave save = new GameSave();
+        save.gameType = gameType;
+        save.colorSet = colorSet;
+        save.playerOne = playerOne;
+        save.playerTwo = playerTwo;
+        save.clocks[0] = clocks[0];
+        save.clocks[1] = clocks[1];
+        save.history = history.copy();
+        if (gameType == CHESS)
+        {
+            ChessPosition position = toChessPosition();
+            for (int i = 0; i < moves.size(); i++)
+            {
+                int move = moves.get(i);
+                int pawn = position.getPiece(MoveHistory.getFrom(move)) & 7;
+                int toY = MoveHistory.getTo(move) / 8;
+                if (pawn == ChessPosition.PAWN && (toY == 0 || toY == 7) && MoveHistory.getPromotion(move) == MoveHistory.PROMOTE_NONE)
+                    break; //promotion was never chosen
+                position.applyMove(move);
+                save.history.add(move, moves.getTime(i));
+            }
+            for (int square = 0; square < 64; square++)
+                save.setSquare(square, position.getPiece(square));
+            save.turn = position.isWhiteToMove() ? 0 : 1;
+            save.flags = position.getCastling();
+            if (position.getEnPassantPawnSquare() != ChessPosition.NO_SQUARE)
+                save.enPassant = position.getEnPassantPawnSquare();
+        }
+        else
+        {
+            CheckersPosition position = toCheckersPosition();
+            int finished = 0; //moves in turns that were finished
+            for (int i = 0; i < moves.size(); i++)
+            {
+                if (!position.applyMove(moves.get(i)))
+                    finished = i + 1;
+            }
+            if (finished < moves.size()) //last jump could have continued, checkers games can not be saved partway through a jump so replay again without it
+            {
+                position = toCheckersPosition();
+                for (int i = 0; i < finished; i++)
+                    position.applyMove(moves.get(i));
+            }
+            for (int i = 0; i < finished; i++)
+                save.history.add(moves.get(i), moves.getTime(i));
+            for (int square = 0; square < 64; square++)
+                save.setSquare(square, position.getPiece(square));
+            save.turn = position.isRedToMove() ? 1 : 0;
+            save.flags = position.anyJump() ? ATTACKS_AVAILABLE : 0;
+        }
+        return save;
+    }
+
+    /***
+     * restores the move history and clocks of this save onto a board created from toTokens
+     * @param board - board that was just loaded
+     */
+    public void restore(Board board) {
+        board.setHistory(history.copy());
+        board.setClocks(clocks[0], clocks[1]);
+        if (board instanceof ChessBoard) //the counters are not saved, they come from replaying the game
+        {
+            ChessPosition position = replayedPosition();
+            if (position != null)
+                ((ChessBoard) board).setMoveCounters(position.getHalfmoveClock(), position.getFullmoveNumber());
+        }
+    }
+
+    /***
+     * plays the history from the start of the game, for what the board squares do not hold
+     * @return - the position after the last move, null if the start position can not be read
+     */
+    private ChessPosition replayedPosition() {
+        try {
+            ChessPosition position = Fen.parse((history.getStart() == null) ? Fen.START : history.getStart());
+            for (int i = 0; i < history.size(); i++)
+                position.applyMove(history.get(i));
+            return position;
+        } catch (IllegalArgumentException error) {
+            System.out.println("Could not replay the saved game");
+            error.printStackTrace();
+            return null;
+        }
+    }
+
+    /***
+     * serializes this save, including its checksum
+     * @return - buffer ready to be written, positioned at 0
+     */
+    public ByteBuffer toBuffer() {
+        byte[] one = playerOne.getBytes(StandardCharsets.UTF_8);
+        byte[] two = playerTwo.getBytes(StandardCharsets.UTF_8);
+        byte[] start = (history.getStart() == null) ? new byte[0] : history.getStart().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 6 + BOARD_BYTES + 16 + 4 + one.length + two.length + 4 + history.size() * 10 + 2 + start.length + 4);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) gameType);
+        buffer.put((byte) colorSet);
+        buffer.put((byte) turn);
+        buffer.put((byte) flags);
+        buffer.put((byte) enPassant);
+        buffer.put(squares);
+        buffer.putLong(clocks[0]);
+        buffer.putLong(clocks[1]);
+        buffer.putShort((short) one.length);
+        buffer.put(one);
+        buffer.putShort((short) two.length);
+        buffer.put(two);
+        buffer.putInt(history.size());
+        for (int i = 0; i < history.size(); i++)
+            buffer.putShort((short) history.get(i));
+        for (int i = 0; i < history.size(); i++)
+            buffer.putLong(history.getTime(i));
+        buffer.putShort((short) start.length);
+        buffer.put(start);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /***
+     * reads a save from the start of a buffer, checking its magic number, version, and checksum
+     * @param buffer - buffer positioned at the start of a save, left positioned after it
+     * @return - the save
+     * @throws IOException - if the buffer does not hold a valid save
+     */
+    public static GameSave fromBuffer(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a saved game");
+            int version = buffer.get() & 0xff;
+            if (version > VERSION)
+                throw new IOException("Saved game version " + version + " is newer than this program");
+            GameSave save = new GameSave();
+            save.gameType = buffer.get();
+            save.colorSet = buffer.get();
+            save.turn = buffer.get();
+            save.flags = buffer.get() & 0xff;
+            save.enPassant = buffer.get() & 0xff;
+            buffer.get(save.squares);
+            save.clocks[0] = buffer.getLong();
+            save.clocks[1] = buffer.getLong();
+            save.playerOne = readString(buffer);
+            save.playerTwo = readString(buffer);
+            int moves = buffer.getInt();
+            if (moves < 0 || moves > buffer.remaining() / 2)
+                throw new IOException("Saved game is corrupted");
+            short[] packed = new short[moves];
+            for (int i = 0; i < moves; i++)
+                packed[i] = buffer.getShort();
+            for (int i = 0; i < moves; i++)
+                save.history.add(packed[i] & 0xffff, (version >= 2) ? buffer.getLong() : 0); //version 1 saves do not have move times
+            if (version >= 2)
+            {
+                String startFen = readString(buffer);
+                save.history.setStart(startFen.isEmpty() ? null : startFen);
+            }
+            int end = buffer.position();
+            CRC32 crc = new CRC32();
+            ByteBuffer checked = buffer.duplicate();
+            checked.position(start);
+            checked.limit(end);
+            crc.update(checked);
+            if (buffer.getInt() != (int) crc.getValue())
+                throw new IOException("Saved game is corrupted");
+            return save;
+        }
+        catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("Saved game is incomplete", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /***
+     * writes this save to a file, replacing what was there only once the new save is completely on disk
+     * @param path - file to write
+     * @throws IOException - if the file could not be written
+     */
+    public void write(Path path) throws IOException {
+        AtomicFile.write(path, toBuffer());
+    }
+
+    /***
+     * reads a save from a file
+     * @param path - file to read
+     * @return - the save
+     * @throws IOException - if the file could not be read or is not a valid save
+     */
+    public static GameSave read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) { }
+            buffer.flip();
+            return fromBuffer(buffer);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package SaveFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import BoardComponents.MoveHistory;
+
+/***
+ * append only record of every move made in a game that is being played, so a game that was not saved can be rebuilt after the program crashes or is killed
+ * the journal starts with the game as it was when it was opened, then holds one 2 byte record per move, a game that ends or is closed from the menu deletes its journal
+ * moves are handed to a writer thread, which waits a moment so that moves made close together (a checkers double jump, a move and its promotion) go to disk in one write and one force
+ * layout, all numbers big endian:
+ * magic (4 bytes), version (1), save slot (4, rewritten when the game is saved), starting save length (4) then the GameSave bytes, then the records
+ * a record is a move from MoveHistory, or PROMOTION plus a promotion code, which sets the promotion of the move before it
+ */
+public class MoveJournal {
+    public static final Path DIRECTORY = Paths.get("./savedgames/journals");
+    public static final String EXTENSION = ".vcj";
+    public static final int MAGIC = 0x56434A4C; //"VCJL"
+    public static final int VERSION = 1;
+    public static final int PROMOTION = 0x8000; //moves only use 15 bits
+    private static final int SLOT_OFFSET = 5;
+    private static final long COMMIT_DELAY = 200; //milliseconds a move can wait for others to share its write
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Journal writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+    private final GameSave start;
+    private int slot;
+    private FileChannel channel; //only used on the writer thread, opened by the first commit so games without any moves never write a journal
+    private ByteBuffer pending = ByteBuffer.allocate(64); //records waiting for the next commit, swapped with spare under this lock
+    private ByteBuffer spare = ByteBuffer.allocate(64);
+    private boolean commitScheduled;
+    private boolean failed; //set once a write fails (the game carries on without a journal) or the journal is finished
+
+    /***
+     * creates the journal for a game, nothing is written until the first move
+     * @param start - the game as it was when it was opened
+     * @param slot - save store slot the game was loaded from, 0 if it has not been saved
+     */
+    public MoveJournal(GameSave start, int slot) {
+        this.path = DIRECTORY.resolve(System.currentTimeMillis() + "-" + System.identityHashCode(this) + EXTENSION);
+        this.start = start;
+        this.slot = slot;
+    }
+
+    /***
+     * adds a move, called on the event thread right after the move is made, returns without waiting for the disk
+     * @param move - move packed by MoveHistory
+     */
+    public void append(int move) {
+        add(move);
+    }
+
+    /***
+     * sets the promotion of the last move appended
+     * @param promotion - one of the MoveHistory PROMOTE constants
+     */
+    public void appendPromotion(int promotion) {
+        add(PROMOTION | promotion);
+    }
+
+    private synchronized void add(int record) {
+        if (failed)
+            return;
+        if (pending.remaining() < 2)
+        {
+            ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        pending.putShort((short) record);
+        if (!commitScheduled)
+        {
+            commitScheduled = true;
+            writer.schedule(this::commit, COMMIT_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /***
+     * writes every record waiting since the last commit with a single write and force, runs on the writer thread
+     */
+    private void commit() {
+        ByteBuffer batch;
+        synchronized (this) {
+            commitScheduled = false;
+            if (failed)
+                return;
+            batch = pending;
+            pending = spare;
+            spare = batch;
+        }
+        try {
+            if (channel == null)
+                open();
+            batch.flip();
+            while (batch.hasRemaining())
+                channel.write(batch);
+            channel.force(false); //the file length changes with every commit but its other metadata does not matter
+        } catch (IOException error) {
+            fail(error);
+        }
+        batch.clear();
+    }
+
+    /***
+     * creates the journal file and writes its header and starting save
+     */
+    private void open() throws IOException {
+        Files.createDirectories(DIRECTORY);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer save = start.toBuffer();
+        ByteBuffer header = ByteBuffer.allocate(13 + save.remaining());
+        header.putInt(MAGIC);
+        header.put((byte) VERSION);
+        header.putInt(slot);
+        header.putInt(save.remaining());
+        header.put(save);
+        header.flip();
+        while (header.hasRemaining())
+            channel.write(header);
+        channel.force(true);
+    }
+
+    private synchronized void fail(IOException error) {
+        failed = true;
+        System.out.println("Move journal stopped, this game will not be recoverable if the program closes: " + error.getMessage());
+        error.printStackTrace();
+        close();
+    }
+
+    /***
+     * records the slot the game was saved to, so a recovered game replaces its save instead of adding a new one
+     * @param slot - save store slot
+     */
+    public void setSlot(int slot) {
+        writer.execute(() -> {
+            this.slot = slot;
+            if (channel == null || failed) //not open yet, open writes the new slot
+                return;
+            try {
+                ByteBuffer bytes = ByteBuffer.allocate(4);
+                bytes.putInt(slot);
+                bytes.flip();
+                channel.write(bytes, SLOT_OFFSET);
+                channel.force(false);
+            } catch (IOException error) {
+                fail(error);
+            }
+        });
+    }
+
+    /***
+     * ends the journal once the game no longer needs recovering (it is over or the player left it), moves still waiting are dropped and the file is deleted
+     */
+    public void finish() {
+        synchronized (this) {
+            failed = true; //stops further moves and any commit still scheduled
+        }
+        writer.execute(() -> {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException error) {
+                error.printStackTrace();
+            }
+        });
+    }
+
+    private void close() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException error) {
+            error.printStackTrace();
+        }
+        channel = null;
+    }
+
+    /***
+     * blocks until journal writes and deletes already handed to the writer are finished, called before the program exits
+     * @param millis - longest time to wait
+     */
+    public static void awaitWrites(long millis) {
+        Future<?> done = writer.submit(() -> { });
+        try {
+            done.get(millis, TimeUnit.MILLISECONDS);
+        } catch (Exception error) {
+            System.out.println("Move journal did not finish writing");
+        }
+    }
+
+    /***
+     * finds journals left by games that were still being played when the program last closed
+     * @return - every journal that could be read, journals that can not be read are skipped and left on disk
+     */
+    public static List<Recovery> findUnfinished() {
+        List<Recovery> found = new ArrayList<>();
+        if (!Files.isDirectory(DIRECTORY))
+            return found;
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(DIRECTORY, "*" + EXTENSION)) {
+            for (Path journal : journals)
+            {
+                try {
+                    found.add(read(journal));
+                } catch (IOException error) {
+                    System.out.println("Could not read move journal " + journal.getFileName() + ": " + error.getMessage());
+                }
+            }
+        } catch (IOException error) {
+            error.printStackTrace();
+        }
+        return found;
+    }
+
+    /***
+     * reads a journal and replays its moves onto its starting save
+     * @param journal - journal file
+     * @return - the rebuilt game
+     * @throws IOException - if the file could not be read or its header is not valid, a record cut off by a crash is ignored
+     */
+    public static Recovery read(Path journal) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journal));
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a move journal");
+            int version = buffer.get() & 0xff;
+            if (version > VERSION)
+                throw new IOException("Move journal version " + version + " is newer than this program");
+            int slot = buffer.getInt();
+            int length = buffer.getInt();
+            ByteBuffer save = buffer.slice();
+            save.limit(length);
+            GameSave start = GameSave.fromBuffer(save);
+            buffer.position(buffer.position() + length);
+            MoveHistory moves = new MoveHistory();
+            while (buffer.remaining() >= 2)
+            {
+                int record = buffer.getShort() & 0xffff;
+                if ((record & PROMOTION) != 0)
+                    moves.setLastPromotion(record & 0x7);
+                else
+                    moves.add(record);
+            }
+            GameSave replayed = start.replay(moves);
+            return new Recovery(journal, replayed, slot, replayed.getHistory().size() - start.getHistory().size());
+        }
+        catch (java.nio.BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Move journal is incomplete", e);
+        }
+    }
+
+    /***
+     * game rebuilt from a journal
+     */
+    public static class Recovery {
+        private final Path path;
+        private final GameSave save;
+        private final int slot;
+        private final int moves;
+
+        private Recovery(Path path, GameSave save, int slot, int moves) {
+            this.path = path;
+            this.save = save;
+            this.slot = slot;
+            this.moves = moves;
+        }
+
+        // getters
+        public GameSave getSave() { return this.save; }
+        public int getSlot() { return this.slot; }
+        public int getMoves() { return this.moves; }
+
+        /***
+         * deletes the journal, called once the game has been resumed (it gets a new journal) or the player chose not to resume it
+         */
+        public void discard() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException error) {
+                error.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,734 @@
+package SaveFiles;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import BoardComponents.ChessPosition;
+import BoardComponents.MoveGenerator;
+import BoardComponents.MoveHistory;
+import BoardComponents.Zobrist;
+
+import Notation.Fen;
+import Notation.San;
+
+/***
+ * finds the archived chess games a position was reached in and what was played next, for the opening explorer
+ * every position of every archived chess game is kept as an entry: the position's Zobrist hash, then the game id, ply, game result, and the move played from it
+ * new entries are held in memory and written out as a run, a file of entries sorted by hash, so a lookup is a binary search of each run
+ * runs are merged into one when there are more than MAX_RUNS, and games the archive has that no run holds are indexed again when the index is opened,
+ * so a crash only costs the time to index the games added since the last run was written
+ * run file, all numbers big endian: magic, version, entries (8), id of the first game not in this run or an earlier one (8), lowest run number merged into it (4), unused (4),
+ * then each entry: hash (8), game id << 28 | ply << 18 | result << 16 | move (8)
+ */
+public class PositionIndex implements Closeable {
+    private static final int MAGIC = 0x56435049; //"VCPI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 16;
+    private static final int SEGMENT_SHIFT = 26; //entries per mapping of a run, 1 GB, a mapping can not be larger than 2 GB
+    private static final int BUFFER_ENTRIES = 1 << 18; //entries held in memory before they are written as a run
+    private static final int MAX_RUNS = 8;
+    private static final int MAX_PLY = (1 << 10) - 1; //later positions are not indexed
+    public static final int NO_MOVE = 0xffff; //move of the last position of a game
+
+    //results, the same order as GameArchive keeps them
+    public static final int UNFINISHED = 0;
+    public static final int WHITE_WON = 1;
+    public static final int BLACK_WON = 2;
+    public static final int DRAWN = 3;
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private static PositionIndex index;
+    //runs are merged on this thread so adding games never waits for a merge
+    private static final ExecutorService merger = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Position indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path directory;
+    private List<Run> runs = new ArrayList<>(); //replaced, never changed, so a lookup can search the runs it saw without holding the lock
+    private int nextRun;
+    private long[] hashes = new long[1024]; //entries not yet in a run
+    private long[] values = new long[1024];
+    private int buffered;
+    private long indexedThrough; //every game with a lower id is in a run or the buffer
+    private final TreeSet<Long> indexedAhead = new TreeSet<>(); //games indexed out of order, past indexedThrough
+    private boolean catchingUp; //games before indexedThrough are still being read from the archive
+    private boolean merging;
+    private boolean closed;
+
+    /***
+     * a run file, mapped into memory while it is open, in segments of at most 1 << SEGMENT_SHIFT entries so a run merged from millions of games can be larger than one mapping
+     */
+    private static class Run {
+        private final Path path;
+        private final int number;
+        private final int firstMerged;
+        private final long entries;
+        private final long indexedThrough;
+        private final MappedByteBuffer[] segments; //entries after the header
+
+        Run(Path path, int number, int firstMerged, long entries, long indexedThrough, MappedByteBuffer[] segments) {
+            this.path = path;
+            this.number = number;
+            this.firstMerged = firstMerged;
+            this.entries = entries;
+            this.indexedThrough = indexedThrough;
+            this.segments = segments;
+        }
+
+        long hash(long i) { return segments[(int) (i >> SEGMENT_SHIFT)].getLong((int) (i & ((1L << SEGMENT_SHIFT) - 1)) * ENTRY_BYTES); }
+        long value(long i) { return segments[(int) (i >> SEGMENT_SHIFT)].getLong((int) (i & ((1L << SEGMENT_SHIFT) - 1)) * ENTRY_BYTES + 8); }
+
+        /***
+         * @return - index of the first entry with a hash of at least hash, entries if there is none
+         */
+        long lowerBound(long hash) {
+            long low = 0;
+            long high = entries;
+            while (low < high)
+            {
+                long middle = (low + high) >>> 1;
+                if (hash(middle) < hash)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+    }
+
+    /***
+     * one move played from a position, and how the games it was played in ended
+     */
+    public static class NextMove {
+        private final int move;
+        private int games;
+        private final int[] results = new int[RESULTS.length];
+
+        NextMove(int move) {
+            this.move = move;
+        }
+
+        // getters
+        public int getMove() { return this.move; }
+        public int getGames() { return this.games; }
+        public int getWhiteWins() { return this.results[WHITE_WON]; }
+        public int getBlackWins() { return this.results[BLACK_WON]; }
+        public int getDraws() { return this.results[DRAWN]; }
+    }
+
+    /***
+     * what the index knows about a position
+     */
+    public static class Lookup {
+        private final NextMove total = new NextMove(NO_MOVE);
+        private final List<NextMove> moves = new ArrayList<>();
+        private long[] gameIds = new long[0];
+        private int[] plies = new int[0];
+        private long nanos;
+
+        /***
+         * @return - games the position was reached in and how they ended, a game that reached it more than once counts once
+         */
+        public NextMove getTotal() { return this.total; }
+        /***
+         * @return - each move played from the position with the games it was played in, most played first, NO_MOVE for games that ended there
+         */
+        public List<NextMove> getMoves() { return this.moves; }
+        /***
+         * @return - ids of the most recent games the position was reached in, most recent first
+         */
+        public long[] getGameIds() { return this.gameIds; }
+        /***
+         * @return - ply each game in getGameIds reached the position at
+         */
+        public int[] getPlies() { return this.plies; }
+        public long getNanos() { return this.nanos; }
+    }
+
+    /***
+     * opens the index in the saved games folder the first time it is needed, it then follows the shared archive, and games the archive has that the index does not are indexed in the background
+     * @return - the shared index
+     * @throws IOException - if the index or the archive could not be opened
+     */
+    public static synchronized PositionIndex getIndex() throws IOException {
+        if (index == null)
+        {
+            PositionIndex opened = new PositionIndex(Paths.get(SaveStore.DIRECTORY));
+            opened.follow(GameArchive.getArchive(), Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+            index = opened;
+        }
+        return index;
+    }
+
+    /***
+     * opens or creates an index, runs left half written or already merged into another run by a crash are deleted
+     * @param directory - folder holding the run files
+     * @throws IOException - if a run could not be read
+     */
+    public PositionIndex(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Run> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "positions-*")) {
+            for (Path file : files)
+            {
+                Run run = file.getFileName().toString().endsWith(".vpi") ? openRun(file) : null;
+                if (run == null)
+                    Files.deleteIfExists(file);
+                else
+                    found.add(run);
+            }
+        }
+        for (Run run : found)
+        {
+            boolean merged = false;
+            for (Run other : found)
+                merged |= other != run && other.firstMerged <= run.number && run.number < other.number;
+            if (merged)
+                Files.deleteIfExists(run.path);
+            else
+            {
+                runs.add(run);
+                indexedThrough = Math.max(indexedThrough, run.indexedThrough);
+            }
+            nextRun = Math.max(nextRun, run.number + 1);
+        }
+        runs.sort((a, b) -> Integer.compare(a.number, b.number));
+    }
+
+    /***
+     * @return - the run, or null if the file is not a whole run
+     */
+    private static Run openRun(Path path) throws IOException {
+        int number;
+        try {
+            String name = path.getFileName().toString();
+            number = Integer.parseInt(name.substring("positions-".length(), name.length() - ".vpi".length()));
+        } catch (NumberFormatException error) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                return null;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) < HEADER_BYTES)
+                return null;
+            long entries = header.getLong(8);
+            if (header.getInt(0) != MAGIC || header.getInt(4) > VERSION || entries < 0 || channel.size() != HEADER_BYTES + entries * ENTRY_BYTES)
+                return null;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((entries + (1L << SEGMENT_SHIFT) - 1) >> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++)
+            {
+                long first = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * ENTRY_BYTES, Math.min(1L << SEGMENT_SHIFT, entries - first) * ENTRY_BYTES);
+            }
+            return new Run(path, number, header.getInt(24), entries, header.getLong(16), segments);
+        }
+    }
+
+    /***
+     * keeps the index up to date with an archive: games added from now on are indexed as they are added,
+     * and games the index does not have yet are read from the archive on the index's own thread
+     * @param archive - archive whose chess games are indexed
+     * @param threads - threads to read the archive with
+     */
+    public void follow(GameArchive archive, int threads) {
+        long from;
+        synchronized (this) {
+            from = indexedThrough;
+            catchingUp = true;
+        }
+        long until = archive.addListener(this::add);
+        merger.execute(() -> {
+            try {
+                archive.scan(threads, true, from, game -> {
+                    if (game.getId() < until)
+                        addEntries(game);
+                });
+                synchronized (this) {
+                    catchingUp = false;
+                    advance(until);
+                }
+            } catch (IOException | RuntimeException error) {
+                System.out.println("Could not index archived games");
+                error.printStackTrace();
+            }
+        });
+    }
+
+    /***
+     * indexes a game just added to the archive, its id must be set
+     * @param game - archived game with its moves
+     */
+    public void add(GameArchive.Game game) {
+        addEntries(game);
+        synchronized (this) {
+            if (game.getId() == indexedThrough && !catchingUp)
+                advance(indexedThrough + 1);
+            else
+                indexedAhead.add(game.getId());
+        }
+    }
+
+    /***
+     * moves indexedThrough up to through, then past every game indexed out of order right after it
+     */
+    private void advance(long through) {
+        indexedThrough = Math.max(indexedThrough, through);
+        while (!indexedAhead.isEmpty() && indexedAhead.first() <= indexedThrough)
+        {
+            if (indexedAhead.pollFirst() == indexedThrough)
+                indexedThrough++;
+        }
+    }
+
+    /***
+     * replays a chess game, buffering an entry for every position in it, checkers games are skipped
+     */
+    private void addEntries(GameArchive.Game game) {
+        MoveHistory history = game.getHistory();
+        if (game.getGameType() != GameSave.CHESS || history == null)
+            return;
+        String start = history.getStart();
+        ChessPosition position = Fen.parse((start == null) ? Fen.START : start);
+        int plies = Math.min(history.size(), MAX_PLY);
+        long[] gameHashes = new long[plies + 1];
+        long[] gameValues = new long[plies + 1];
+        long base = (game.getId() << 28) | ((long) Math.max(0, Arrays.asList(RESULTS).indexOf(game.getResult())) << 16);
+        for (int ply = 0; ply <= plies; ply++)
+        {
+            int move = (ply < history.size()) ? history.get(ply) : NO_MOVE;
+            gameHashes[ply] = Zobrist.hash(position);
+            gameValues[ply] = base | ((long) ply << 18) | (move & NO_MOVE);
+            if (ply < plies)
+                position.applyMove(move);
+        }
+        synchronized (this) {
+            if (closed)
+                return;
+            if (buffered + gameHashes.length > hashes.length)
+            {
+                hashes = Arrays.copyOf(hashes, Math.max(hashes.length * 2, buffered + gameHashes.length));
+                values = Arrays.copyOf(values, hashes.length);
+            }
+            System.arraycopy(gameHashes, 0, hashes, buffered, gameHashes.length);
+            System.arraycopy(gameValues, 0, values, buffered, gameValues.length);
+            buffered += gameHashes.length;
+            if (buffered >= BUFFER_ENTRIES)
+            {
+                try {
+                    flush();
+                } catch (IOException error) {
+                    System.out.println("Could not write position index, the games will be indexed again next time");
+                    error.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /***
+     * writes the buffered entries as a new run, and starts a merge when there are too many runs
+     * @throws IOException - if the run could not be written, the entries stay buffered
+     */
+    public synchronized void flush() throws IOException {
+        if (buffered == 0)
+            return;
+        sort(hashes, values, 0, buffered - 1);
+        int number = nextRun++;
+        Run run = writeRun(number, number, buffered, indexedThrough, new EntrySource() {
+            int i = 0;
+            @Override
+            public boolean next(long[] entry) {
+                if (i == buffered)
+                    return false;
+                entry[0] = hashes[i];
+                entry[1] = values[i++];
+                return true;
+            }
+        });
+        List<Run> grown = new ArrayList<>(runs);
+        grown.add(run);
+        runs = grown;
+        buffered = 0;
+        if (hashes.length > BUFFER_ENTRIES * 2) //a big import grew the buffer, give the memory back
+        {
+            hashes = new long[1024];
+            values = new long[1024];
+        }
+        if (runs.size() > MAX_RUNS && !merging)
+        {
+            merging = true;
+            merger.execute(this::merge);
+        }
+    }
+
+    /***
+     * gives the entries of a new run in order
+     */
+    private interface EntrySource {
+        /***
+         * @param entry - array of two to put the next hash and value in
+         * @return - false when there are no more entries
+         */
+        boolean next(long[] entry) throws IOException;
+    }
+
+    /***
+     * writes a run to a temporary file, forces it to disk, then renames it into place so a run file is always whole
+     * @param entries - number of entries source gives, duplicates it gives are dropped and the count is fixed in the header
+     */
+    private Run writeRun(int number, int firstMerged, long entries, long through, EntrySource source) throws IOException {
+        Path path = directory.resolve(String.format("positions-%08d.vpi", number));
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.position(HEADER_BYTES);
+            long[] entry = new long[2];
+            long lastHash = 0;
+            long lastValue = 0;
+            while (source.next(entry))
+            {
+                if (written > 0 && entry[0] == lastHash && entry[1] == lastValue) //the same game indexed twice after a crash
+                    continue;
+                if (buffer.remaining() < ENTRY_BYTES)
+                {
+                    buffer.flip();
+                    while (buffer.hasRemaining())
+                        channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putLong(entry[0]).putLong(entry[1]);
+                lastHash = entry[0];
+                lastValue = entry[1];
+                written++;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(written).putLong(through).putInt(firstMerged).putInt(0).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException error) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return openRun(path);
+    }
+
+    /***
+     * merges every run written so far into one, runs written while merging are kept as they are
+     */
+    private void merge() {
+        List<Run> merged;
+        int number;
+        synchronized (this) {
+            merged = runs;
+            number = nextRun++;
+        }
+        try {
+            long total = 0;
+            long through = 0;
+            for (Run run : merged)
+            {
+                total += run.entries;
+                through = Math.max(through, run.indexedThrough);
+            }
+            long[] positions = new long[merged.size()];
+            Run run = writeRun(number, merged.get(0).number, total, through, entry -> {
+                int best = -1;
+                for (int i = 0; i < positions.length; i++)
+                {
+                    Run next = merged.get(i);
+                    if (positions[i] == next.entries)
+                        continue;
+                    if (best < 0 || compare(next.hash(positions[i]), next.value(positions[i]), entry[0], entry[1]) < 0)
+                    {
+                        best = i;
+                        entry[0] = next.hash(positions[i]);
+                        entry[1] = next.value(positions[i]);
+                    }
+                }
+                if (best < 0)
+                    return false;
+                positions[best]++;
+                return true;
+            });
+            synchronized (this) {
+                List<Run> kept = new ArrayList<>();
+                kept.add(run);
+                for (Run other : runs)
+                {
+                    if (!merged.contains(other))
+                        kept.add(other);
+                }
+                runs = kept;
+            }
+            for (Run old : merged)
+                Files.deleteIfExists(old.path); //a file that can not be deleted while mapped is deleted the next time the index is opened
+        } catch (IOException error) {
+            System.out.println("Could not merge position index runs");
+            error.printStackTrace();
+        } finally {
+            synchronized (this) {
+                merging = false;
+            }
+        }
+    }
+
+    /***
+     * finds every time a position was reached in the archived games
+     * @param position - position to look up, the move counters do not matter
+     * @param maxGames - most game ids to return
+     * @return - moves played from the position with how those games ended, and the most recent games it was reached in
+     */
+    public Lookup lookup(ChessPosition position, int maxGames) {
+        long start = System.nanoTime();
+        long hash = Zobrist.hash(position);
+        List<Run> searched;
+        long[] found = new long[16];
+        int count = 0;
+        synchronized (this) {
+            searched = runs;
+            for (int i = 0; i < buffered; i++)
+            {
+                if (hashes[i] == hash)
+                {
+                    if (count == found.length)
+                        found = Arrays.copyOf(found, count * 2);
+                    found[count++] = values[i];
+                }
+            }
+        }
+        for (Run run : searched)
+        {
+            for (long i = run.lowerBound(hash); i < run.entries && run.hash(i) == hash; i++)
+            {
+                if (count == found.length)
+                    found = Arrays.copyOf(found, count * 2);
+                found[count++] = run.value(i);
+            }
+        }
+        Arrays.sort(found, 0, count); //by game id then ply, so each game's entries are together
+        Lookup lookup = new Lookup();
+        Map<Integer, NextMove> moves = new HashMap<>();
+        Set<Integer> gameMoves = new HashSet<>(); //moves already counted for the game being read, a position can be reached more than once in a game
+        long gameId = -1;
+        boolean listed = false; //the game being read is in gameIds
+        int games = 0;
+        long[] gameIds = new long[Math.min(maxGames, count)];
+        int[] plies = new int[gameIds.length];
+        for (int i = count - 1; i >= 0; i--)
+        {
+            long value = found[i];
+            int move = (int) (value & NO_MOVE);
+            int result = (int) (value >>> 16) & 3;
+            int ply = (int) (value >>> 18) & MAX_PLY;
+            if (value >>> 28 != gameId)
+            {
+                gameId = value >>> 28;
+                gameMoves.clear();
+                lookup.total.games++;
+                lookup.total.results[result]++;
+                listed = games < gameIds.length;
+                if (listed)
+                    gameIds[games++] = gameId;
+            }
+            if (listed)
+                plies[games - 1] = ply; //plies are read latest first, so this ends as the first time the game reached the position
+            if (!gameMoves.add(move))
+                continue;
+            NextMove next = moves.get(move);
+            if (next == null)
+            {
+                next = new NextMove(move);
+                moves.put(move, next);
+                lookup.moves.add(next);
+            }
+            next.games++;
+            next.results[result]++;
+        }
+        lookup.moves.sort((a, b) -> Integer.compare(b.games, a.games));
+        lookup.gameIds = Arrays.copyOf(gameIds, games);
+        lookup.plies = Arrays.copyOf(plies, games);
+        lookup.nanos = System.nanoTime() - start;
+        return lookup;
+    }
+
+    /***
+     * @return - entries in runs and the buffer, counting any duplicates not yet merged away
+     */
+    public synchronized long size() {
+        long size = buffered;
+        for (Run run : runs)
+            size += run.entries;
+        return size;
+    }
+
+    /***
+     * @return - true while games added before the index was opened are still being indexed
+     */
+    public synchronized boolean isCatchingUp() {
+        return catchingUp;
+    }
+
+    private static int compare(long hash, long value, long otherHash, long otherValue) {
+        int order = Long.compare(hash, otherHash);
+        return (order != 0) ? order : Long.compare(value, otherValue);
+    }
+
+    /***
+     * sorts entries by hash then value, quicksort on the two arrays together so no entry objects are made
+     */
+    private static void sort(long[] hashes, long[] values, int low, int high) {
+        while (low < high)
+        {
+            if (high - low < 16)
+            {
+                for (int i = low + 1; i <= high; i++)
+                {
+                    long hash = hashes[i];
+                    long value = values[i];
+                    int j = i - 1;
+                    while (j >= low && compare(hashes[j], values[j], hash, value) > 0)
+                    {
+                        hashes[j + 1] = hashes[j];
+                        values[j + 1] = values[j];
+                        j--;
+                    }
+                    hashes[j + 1] = hash;
+                    values[j + 1] = value;
+                }
+                return;
+            }
+            int middle = (low + high) >>> 1;
+            long pivotHash = hashes[middle];
+            long pivotValue = values[middle];
+            int i = low;
+            int j = high;
+            while (i <= j)
+            {
+                while (compare(hashes[i], values[i], pivotHash, pivotValue) < 0)
+                    i++;
+                while (compare(hashes[j], values[j], pivotHash, pivotValue) > 0)
+                    j--;
+                if (i <= j)
+                {
+                    long hash = hashes[i];
+                    hashes[i] = hashes[j];
+                    hashes[j] = hash;
+                    long value = values[i];
+                    values[i] = values[j];
+                    values[j] = value;
+                    i++;
+                    j--;
+                }
+            }
+            if (j - low < high - i) //recurse into the smaller half so the stack stays shallow
+            {
+                sort(hashes, values, low, j);
+                low = i;
+            }
+            else
+            {
+                sort(hashes, values, i, high);
+                high = j;
+            }
+        }
+    }
+
+    /***
+     * waits for indexing started so far to finish, then writes the buffered entries of the shared index as a run, called before the program exits
+     * @param millis - longest time to wait
+     */
+    public static void awaitWrites(long millis) {
+        Future<?> done = merger.submit(() -> {
+            PositionIndex open;
+            synchronized (PositionIndex.class) {
+                open = index;
+            }
+            try {
+                if (open != null)
+                    open.flush();
+            } catch (IOException error) {
+                System.out.println("Could not write position index, the games will be indexed again next time");
+                error.printStackTrace();
+            }
+        });
+        try {
+            done.get(millis, TimeUnit.MILLISECONDS);
+        } catch (Exception error) {
+            System.out.println("Position index did not finish before exit, it will be rebuilt from the archive");
+        }
+    }
+
+    /***
+     * writes the buffered entries as a run and stops indexing new games
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        closed = true;
+        synchronized (PositionIndex.class) {
+            if (index == this)
+                index = null;
+        }
+    }
+
+    /***
+     * command line use: build indexes every archived game the index does not have, lookup [FEN] prints what was played from a position, the start by default
+     * @param args - the command and its argument
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0)
+        {
+            System.out.println("Usage: PositionIndex build | lookup [FEN]");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        PositionIndex index = getIndex();
+        awaitWrites(Long.MAX_VALUE); //the games the index did not have are read first
+        if (args[0].equals("build"))
+            System.out.println(index.size() + " positions indexed in " + (System.currentTimeMillis() - start) + " ms");
+        else if (args[0].equals("lookup"))
+        {
+            ChessPosition position = Fen.parse((args.length > 1) ? args[1] : Fen.START);
+            Lookup lookup = index.lookup(position, 10);
+            System.out.printf("%d games in %.2f ms%n", lookup.getTotal().getGames(), lookup.getNanos() / 1e6);
+            int[] scratch = new int[MoveGenerator.MAX_MOVES];
+            for (NextMove move : lookup.getMoves())
+                System.out.printf("%-8s %6d  +%d =%d -%d%n", (move.getMove() == NO_MOVE) ? "end" : San.toSan(position, move.getMove(), scratch),
+                    move.getGames(), move.getWhiteWins(), move.getDraws(), move.getBlackWins());
+        }
+        index.close();
+        GameArchive.getArchive().close();
+    }
+}
@@ -0,0 +1,441 @@
+package SaveFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+/***
+ * holds any number of saved games, each in its own numbered slot
+ * games are appended to a data file (games.dat) and found through an index file (games.idx) that is memory mapped, so listing thousands of saves only reads the fixed size index records and never the games
+ * index layout: a HEADER_BYTES header (magic, version, record count, next slot, unused data bytes) followed by one RECORD_BYTES record per save:
+ * slot (4 bytes), game type (1), deleted (1), color set (1), unused (1), last modified (8), move count (4), data length (4), data offset (8), player one and player two (48 bytes each, 1 byte length then UTF-8)
+ * nothing already written is changed by a save, saving a slot again appends a new record and the last record of a slot is the one used, so a crash at any point leaves every earlier save readable
+ * compacting writes a new generation of both files and switches to it by atomically replacing games.current, which holds the generation in use
+ */
+public class SaveStore {
+    public static final String DIRECTORY = "./savedgames";
+    public static final int ANY_GAME = -1;
+    private static final int MAGIC = 0x56434749; //"VCGI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 128;
+    private static final int NAME_BYTES = 48;
+    private static final int INITIAL_RECORDS = 256;
+    private static final long COMPACT_MIN_BYTES = 64 * 1024; //unused data is only reclaimed once there is at least this much of it
+    private static final String CURRENT = "games.current";
+
+    //offsets inside a record
+    private static final int SLOT = 0;
+    private static final int GAME_TYPE = 4;
+    private static final int DELETED = 5;
+    private static final int COLOR_SET = 6;
+    private static final int MODIFIED = 8;
+    private static final int MOVE_COUNT = 16;
+    private static final int DATA_LENGTH = 20;
+    private static final int DATA_OFFSET = 24;
+    private static final int PLAYER_ONE = 32;
+    private static final int PLAYER_TWO = PLAYER_ONE + NAME_BYTES;
+
+    private static SaveStore store;
+    //every save is written on this thread so saving never holds up the event thread, one thread keeps saves in the order they were made
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Save writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path directory;
+    private int generation;
+    private FileChannel data;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int count;
+    private int nextSlot;
+    private Map<Integer, Integer> records; //slot to its newest record
+
+    /***
+     * one slot as listed by the index, everything the save browser shows without reading the game
+     */
+    public static class Entry {
+        private int slot;
+        private int gameType;
+        private int colorSet;
+        private long lastModified;
+        private int moveCount;
+        private String playerOne;
+        private String playerTwo;
+
+        public int getSlot() { return this.slot; }
+        public int getGameType() { return this.gameType; }
+        public int getColorSet() { return this.colorSet; }
+        public long getLastModified() { return this.lastModified; }
+        public int getMoveCount() { return this.moveCount; }
+        public String getPlayerOne() { return this.playerOne; }
+        public String getPlayerTwo() { return this.playerTwo; }
+    }
+
+    /***
+     * told on the event thread how a save started with saveLater went
+     */
+    public interface Listener {
+        void saved(int slot);
+        void failed(IOException error);
+    }
+
+    /***
+     * opens the store in the saved games folder the first time it is needed
+     * @return - the shared store
+     * @throws IOException - if the store could not be opened
+     */
+    public static synchronized SaveStore getStore() throws IOException {
+        if (store == null)
+            store = new SaveStore(Paths.get(DIRECTORY));
+        return store;
+    }
+
+    /***
+     * opens or creates a store
+     * @param directory - folder holding the store's files
+     * @throws IOException - if the files could not be opened or the index is not a save index
+     */
+    public SaveStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path current = directory.resolve(CURRENT);
+        if (Files.exists(current))
+            generation = Integer.parseInt(new String(Files.readAllBytes(current), StandardCharsets.UTF_8).trim());
+        deleteOtherGenerations();
+        open();
+        long unused = index.getLong(16);
+        if (unused >= COMPACT_MIN_BYTES && unused > data.size() - unused)
+        {
+            writer.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException error) {
+                    error.printStackTrace();
+                }
+            });
+        }
+    }
+
+    private Path dataPath(int generation) { return directory.resolve(generation == 0 ? "games.dat" : "games-" + generation + ".dat"); }
+    private Path indexPath(int generation) { return directory.resolve(generation == 0 ? "games.idx" : "games-" + generation + ".idx"); }
+
+    /***
+     * opens the files of the current generation and finds the newest record of every slot
+     */
+    private void open() throws IOException {
+        data = FileChannel.open(dataPath(generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(indexPath(generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = indexChannel.size() == 0;
+        map(Math.max(indexChannel.size(), HEADER_BYTES + (long) INITIAL_RECORDS * RECORD_BYTES));
+        if (created)
+        {
+            index.putInt(0, MAGIC);
+            index.putInt(4, VERSION);
+            index.putInt(8, 0);
+            index.putInt(12, 1);
+            index.putLong(16, 0);
+            index.force();
+        }
+        else if (index.getInt(0) != MAGIC)
+            throw new IOException(indexPath(generation) + " is not a save index");
+        count = index.getInt(8);
+        nextSlot = index.getInt(12);
+        records = new HashMap<Integer, Integer>();
+        for (int i = 0; i < count; i++)
+        {
+            int slot = index.getInt(record(i) + SLOT);
+            if (index.get(record(i) + DELETED) == 0)
+                records.put(slot, i);
+            else
+                records.remove(slot);
+        }
+    }
+
+    /***
+     * removes files left by a compaction that did not finish, or old generations that could not be deleted while they were open,
+     * only the store's own files are touched, others in the folder such as exported games.pgn are left alone
+     */
+    private void deleteOtherGenerations() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "games*")) {
+            for (Path file : files)
+            {
+                String name = file.getFileName().toString();
+                boolean generationFile = name.matches("games(-[0-9]+)?\\.(dat|idx)") || name.equals(CURRENT + ".tmp");
+                if (generationFile && !file.equals(dataPath(generation)) && !file.equals(indexPath(generation)))
+                    Files.deleteIfExists(file);
+            }
+        } catch (IOException error) {
+            error.printStackTrace(); //leftovers only waste space, the store still opens
+        }
+    }
+
+    private void map(long size) throws IOException {
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static int record(int number) { return HEADER_BYTES + number * RECORD_BYTES; }
+
+    /***
+     * saves a game on the save writer thread and reports back on the event thread
+     * @param slot - slot the game was loaded from or last saved to, 0 for a new slot, set to the slot used once the save is written so saving twice quickly still uses one slot
+     * @param save - copy of the game taken on the event thread
+     * @param listener - told whether the save worked, on the event thread
+     */
+    public void saveLater(AtomicInteger slot, GameSave save, Listener listener) {
+        writer.execute(() -> {
+            try {
+                int saved = save(slot.get(), save);
+                slot.set(saved);
+                SwingUtilities.invokeLater(() -> listener.saved(saved));
+            } catch (IOException error) {
+                SwingUtilities.invokeLater(() -> listener.failed(error));
+            }
+        });
+    }
+
+    /***
+     * saves a game and waits until it is on disk, a new record is appended for the slot and the old one is left as it was
+     * @param slot - slot the game was loaded from or last saved to, 0 or less for a new slot
+     * @param save - game to save
+     * @return - slot the game was saved to
+     * @throws IOException - if the game could not be written, earlier saves are not affected
+     */
+    public synchronized int save(int slot, GameSave save) throws IOException {
+        ByteBuffer bytes = save.toBuffer();
+        int length = bytes.remaining();
+        long offset = data.size();
+        long written = 0;
+        while (bytes.hasRemaining())
+            written += data.write(bytes, offset + written);
+        data.force(false); //the game must be on disk before any record points at it
+
+        Integer previous = records.get(slot);
+        if (previous == null)
+            slot = nextSlot;
+        if (record(count + 1) > index.capacity())
+            map(index.capacity() * 2L);
+        int at = record(count);
+        index.putInt(at + SLOT, slot);
+        index.put(at + GAME_TYPE, (byte) save.getGameType());
+        index.put(at + DELETED, (byte) 0);
+        index.put(at + COLOR_SET, (byte) save.getColorSet());
+        index.putLong(at + MODIFIED, System.currentTimeMillis());
+        index.putInt(at + MOVE_COUNT, save.getHistory().size());
+        index.putInt(at + DATA_LENGTH, length);
+        index.putLong(at + DATA_OFFSET, offset);
+        putName(at + PLAYER_ONE, save.getPlayerOne());
+        putName(at + PLAYER_TWO, save.getPlayerTwo());
+        index.force(); //the record must be on disk before it is counted
+        if (previous == null)
+            index.putInt(12, ++nextSlot);
+        else
+            index.putLong(16, index.getLong(16) + index.getInt(record(previous) + DATA_LENGTH)); //the old copy is no longer used
+        index.putInt(8, count + 1); //one aligned write adds the save to the store
+        index.force();
+        records.put(slot, count++);
+        return slot;
+    }
+
+    /***
+     * reads the game in a slot
+     * @param slot - slot to read
+     * @return - the saved game
+     * @throws IOException - if the slot does not exist or its game could not be read
+     */
+    public synchronized GameSave load(int slot) throws IOException {
+        Integer number = records.get(slot);
+        if (number == null)
+            throw new IOException("No save in slot " + slot);
+        int at = record(number);
+        ByteBuffer bytes = ByteBuffer.allocate(index.getInt(at + DATA_LENGTH));
+        long offset = index.getLong(at + DATA_OFFSET);
+        while (bytes.hasRemaining())
+        {
+            if (data.read(bytes, offset + bytes.position()) < 0)
+                throw new IOException("Save in slot " + slot + " is incomplete");
+        }
+        bytes.flip();
+        return GameSave.fromBuffer(bytes);
+    }
+
+    /***
+     * removes a slot, its game stays in the data file until the store is compacted
+     * @param slot - slot to remove
+     */
+    public synchronized void delete(int slot) {
+        Integer number = records.remove(slot);
+        if (number == null)
+            return;
+        index.put(record(number) + DELETED, (byte) 1);
+        index.putLong(16, index.getLong(16) + index.getInt(record(number) + DATA_LENGTH));
+    }
+
+    /***
+     * lists saved games, newest first
+     * @param gameType - GameSave.CHESS, GameSave.CHECKERS, or ANY_GAME
+     * @param player - only list games where a player name contains this, ignoring case, empty or null for every game
+     * @return - matching slots
+     */
+    public synchronized List<Entry> list(int gameType, String player) {
+        String filter = (player == null) ? "" : player.toLowerCase();
+        List<Entry> entries = new ArrayList<Entry>();
+        for (int number : records.values())
+        {
+            int at = record(number);
+            if (gameType != ANY_GAME && index.get(at + GAME_TYPE) != gameType)
+                continue;
+            Entry entry = readEntry(at);
+            if (filter.length() == 0 || entry.playerOne.toLowerCase().contains(filter) || entry.playerTwo.toLowerCase().contains(filter))
+                entries.add(entry);
+        }
+        entries.sort((a, b) -> Long.compare(b.lastModified, a.lastModified));
+        return entries;
+    }
+
+    /***
+     * @param gameType - GameSave.CHESS or GameSave.CHECKERS
+     * @return - most recently saved slot of a game type, null if there is none
+     */
+    public synchronized Entry latest(int gameType) {
+        int latest = -1;
+        for (int number : records.values())
+        {
+            int at = record(number);
+            if (index.get(at + GAME_TYPE) == gameType && (latest < 0 || index.getLong(at + MODIFIED) > index.getLong(latest + MODIFIED)))
+                latest = at;
+        }
+        return (latest < 0) ? null : readEntry(latest);
+    }
+
+    public synchronized int size() { return records.size(); }
+
+    private Entry readEntry(int at) {
+        Entry entry = new Entry();
+        entry.slot = index.getInt(at + SLOT);
+        entry.gameType = index.get(at + GAME_TYPE);
+        entry.colorSet = index.get(at + COLOR_SET);
+        entry.lastModified = index.getLong(at + MODIFIED);
+        entry.moveCount = index.getInt(at + MOVE_COUNT);
+        entry.playerOne = getName(at + PLAYER_ONE);
+        entry.playerTwo = getName(at + PLAYER_TWO);
+        return entry;
+    }
+
+    /***
+     * writes a name into a record, names too long for the index are cut short there, the full name is kept with the game
+     */
+    private void putName(int at, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, NAME_BYTES - 1);
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xc0) == 0x80) //do not cut a character in half
+            length--;
+        index.put(at, (byte) length);
+        for (int i = 0; i < length; i++)
+            index.put(at + 1 + i, bytes[i]);
+    }
+
+    private String getName(int at) {
+        byte[] bytes = new byte[index.get(at) & 0xff];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = index.get(at + 1 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /***
+     * copies every slot still in use into a new generation of files, then switches to it by replacing games.current, the old files are not touched until the switch
+     * @throws IOException - if the new files could not be written, the store keeps using the old ones
+     */
+    public synchronized void compact() throws IOException {
+        int next = generation + 1;
+        List<Integer> live = new ArrayList<Integer>(records.values());
+        live.sort(null); //keeps slots in the order they were saved
+        ByteBuffer newIndex = ByteBuffer.allocate(record(Math.max(INITIAL_RECORDS, live.size() * 2)));
+        newIndex.putInt(0, MAGIC);
+        newIndex.putInt(4, VERSION);
+        newIndex.putInt(8, live.size());
+        newIndex.putInt(12, nextSlot);
+        newIndex.putLong(16, 0);
+        try (FileChannel out = FileChannel.open(dataPath(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (int i = 0; i < live.size(); i++)
+            {
+                int at = record(live.get(i));
+                long offset = index.getLong(at + DATA_OFFSET);
+                int length = index.getInt(at + DATA_LENGTH);
+                long copied = 0;
+                while (copied < length)
+                    copied += data.transferTo(offset + copied, length - copied, out.position(position + copied));
+                for (int b = 0; b < RECORD_BYTES; b++)
+                    newIndex.put(record(i) + b, index.get(at + b));
+                newIndex.putLong(record(i) + DATA_OFFSET, position);
+                position += length;
+            }
+            out.force(true);
+        }
+        try (FileChannel out = FileChannel.open(indexPath(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (newIndex.hasRemaining())
+                out.write(newIndex);
+            out.force(true);
+        }
+        AtomicFile.write(directory.resolve(CURRENT), String.valueOf(next).getBytes(StandardCharsets.UTF_8));
+        data.close();
+        indexChannel.close();
+        int old = generation;
+        generation = next;
+        open();
+        try {
+            Files.deleteIfExists(dataPath(old));
+            Files.deleteIfExists(indexPath(old));
+        } catch (IOException error) {
+            //the old index can still be mapped on some systems, it is removed the next time the store is opened
+        }
+    }
+
+    /***
+     * waits for saves that have been started to reach disk, called before the program exits so a save made just before quitting is not lost
+     * @param millis - longest time to wait
+     */
+    public static void awaitWrites(long millis) {
+        Future<?> done = writer.submit(() -> { });
+        try {
+            done.get(millis, TimeUnit.MILLISECONDS);
+        } catch (Exception error) {
+            System.out.println("Saves did not finish before exit");
+            error.printStackTrace();
+        }
+    }
+
+    /***
+     * writes the index to disk and closes both files
+     */
+    public synchronized void close() throws IOException {
+        index.force();
+        data.close();
+        indexChannel.close();
+        synchronized (SaveStore.class) {
+            if (store == this)
+                store = null;
+        }
+    }
+}